@@ -0,0 +1,37 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A part of a simulation run whose state can be written to a checkpoint and read back, so a long run
+ * can be resumed where it left off rather than simulated again from the start. State is only ever read
+ * back into a part made in the same way as the one that wrote it and not yet stepped, so only what
+ * changes as the run goes is written, never how the part was set up.
+ *
+ * Sources, storage, the sorter and the bots always hold state. Strategies that keep nothing from one
+ * call to the next need not implement this, and are left as they are when a run is resumed.
+ */
+public interface Checkpointable
+{
+    /**
+     * Write everything about this part that has changed since it was made
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    void writeCheckpoint(DataOutput out) throws IOException;
+
+    /**
+     * Read back what writeCheckpoint wrote, leaving this part as the one that wrote it was
+     * @param in the checkpoint being read, at the point this part's state was written
+     * @throws IOException if the checkpoint cannot be read, or does not hold what was expected
+     */
+    void readCheckpoint(DataInput in) throws IOException;
+}
@@ -0,0 +1,156 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Random;
+
+/**
+ * Writes and reads the values parts of a run share in their checkpoints: whole mail items, random number
+ * generators, and the state of parts that may or may not keep any.
+ */
+public final class Checkpoints
+{
+    // The types and priorities items refer to by number
+    private static final MailItem.MailType[] TYPES = MailItem.MailType.values();
+    private static final MailItem.MailPriority[] PRIORITIES = MailItem.MailPriority.values();
+
+    private Checkpoints()
+    {
+    }
+
+    /**
+     * Write a whole mail item
+     * @param out the checkpoint being written
+     * @param item the item
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public static void writeItem(DataOutput out, MailItem item) throws IOException
+    {
+        out.writeByte(item.packageType.ordinal());
+        out.writeByte(item.priority.ordinal());
+        out.writeInt(item.floor);
+        out.writeUTF(item.adressee);
+        out.writeInt(item.size);
+        out.writeLong(item.arrivalTime);
+        out.writeLong(item.takenTime);
+    }
+
+    /**
+     * Read a whole mail item written by writeItem
+     * @param in the checkpoint being read
+     * @return a new item with the same fields
+     * @throws IOException if the checkpoint cannot be read or does not hold an item
+     */
+    public static MailItem readItem(DataInput in) throws IOException
+    {
+        int type = in.readUnsignedByte();
+        int priority = in.readUnsignedByte();
+        if (type >= TYPES.length || priority >= PRIORITIES.length) {
+            throw new IOException("Checkpoint holds an item of unknown type " + type + " or priority " + priority);
+        }
+        MailItem item = new MailItem(TYPES[type], PRIORITIES[priority], in.readInt(), in.readUTF(), in.readInt(),
+                                     in.readLong());
+        return item.takenAt(in.readLong());
+    }
+
+    /**
+     * Write the state of a random number generator, so the same numbers follow once it is read back
+     * @param out the checkpoint being written
+     * @param random the generator
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public static void writeRandom(DataOutput out, Random random) throws IOException
+    {
+        // Random keeps its state to itself except when serialised
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(random);
+        }
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    /**
+     * Read a random number generator written by writeRandom. Nothing but a Random is read, whatever the
+     * checkpoint holds.
+     * @param in the checkpoint being read
+     * @return a new generator in the same state
+     * @throws IOException if the checkpoint cannot be read or does not hold a generator
+     */
+    public static Random readRandom(DataInput in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))
+        {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass type) throws IOException, ClassNotFoundException
+            {
+                if (!type.getName().equals(Random.class.getName())) {
+                    throw new InvalidClassException(type.getName(), "Checkpoint holds something other than a Random");
+                }
+                return super.resolveClass(type);
+            }
+        }) {
+            return (Random) objects.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Checkpoint holds no random number generator", e);
+        }
+    }
+
+    /**
+     * Write the state of a part of a run if it keeps any, taking parts that are not Checkpointable to
+     * keep nothing between calls
+     * @param out the checkpoint being written
+     * @param part the part
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public static void writeIfKept(DataOutput out, Object part) throws IOException
+    {
+        if (part instanceof Checkpointable) {
+            ((Checkpointable) part).writeCheckpoint(out);
+        }
+    }
+
+    /**
+     * Read back the state of a part of a run written by writeIfKept
+     * @param in the checkpoint being read
+     * @param part the part, made the same way as the one written
+     * @throws IOException if the checkpoint cannot be read
+     */
+    public static void readIfKept(DataInput in, Object part) throws IOException
+    {
+        if (part instanceof Checkpointable) {
+            ((Checkpointable) part).readCheckpoint(in);
+        }
+    }
+
+    /**
+     * A part of a run that must be checkpointed for the run to be
+     * @param part the part
+     * @param role what the part is in the run, for reporting
+     * @return the part
+     * @throws IllegalStateException if the part cannot be checkpointed
+     */
+    public static Checkpointable required(Object part, String role)
+    {
+        if (!(part instanceof Checkpointable)) {
+            throw new IllegalStateException("The " + role + " " + part.getClass().getSimpleName()
+                    + " cannot be checkpointed");
+        }
+        return (Checkpointable) part;
+    }
+}
@@ -4,33 +4,71 @@
  */
 package com.unimelb.swen30006.mailroom;
 
-import com.unimelb.swen30006.mailroom.exceptions.NoBoxReadyException;
+import com.unimelb.swen30006.mailroom.dispatch.Dispatcher;
 import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
 import com.unimelb.swen30006.mailroom.exceptions.UnknownIdentifierException;
+import com.unimelb.swen30006.mailroom.metrics.LatencyRecorder;
+import com.unimelb.swen30006.mailroom.recording.EventRecorder;
+import com.unimelb.swen30006.mailroom.recording.EventType;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A Simple Delivery bot, that picks a box using a Selection Strategy and then delivers that box to all floors.
  * It will report back its statistics for time taken to deliver boxes after all deliveries are made.
+ *
+ * A bot given a trip capacity carries several boxes a trip: once it has its first box it asks the selection
+ * strategy for more boxes whose floors overlap those it is already going to, while their mail fits in the
+ * capacity left, and delivers every box on one route. Each trip statistic of such a bot also has a statistic
+ * for each box it carried.
+ *
+ * A bot is checkpointed along with the boxes it is carrying, and whatever its delivery strategy keeps about
+ * them. Its selection strategy is usually shared with other bots, and is checkpointed by the run.
  */
-public class DeliveryBot implements Stepable {
+public class DeliveryBot implements Schedulable, Checkpointable {
     /** The constant time taken to travel a floor in the elevator */
     private static final int TRAVEL_TIME = 2;
     /** The constant time taken to delivery all packages to a given floor */
     private static final int DELIVERY_TIME = 1;
+    /** The bytes each delivery statistic, and each box statistic within it, takes in a checkpoint */
+    private static final int STATISTIC_BYTES = 4 * Integer.BYTES;
+    private static final int BOX_STATISTIC_BYTES = 3 * Integer.BYTES;
+    /** The box statistics of a trip by a bot that carries one box a trip */
+    private static final BoxStatistic[] NO_BOXES = new BoxStatistic[0];
 
     /** The deliveries that have been made so far */
     private ArrayList<DeliveryStatistic> stats;
     /** The floor that we are on currently */
     private int currentFloor;
+    /** The simulated time the current box was picked up */
+    private long pickupTime;
     /** Total time, numPackages and floors taken so far */
     private int totalTime;
     private int numPackages;
     private int numFloors;
 
-    /** The current box we are delivering to */
-    private StorageBox currentDelivery;
+    /** The most mail units carried on one trip, or zero to carry one box a trip */
+    private int tripCapacity;
+    /** The boxes we are delivering on this trip, the first being the one selected, and how many there are */
+    private StorageBox[] load = new StorageBox[1];
+    private int loadSize;
+    /** The boxes being delivered that still have mail in them */
+    private int boxesLeft;
+    /** The number of items each box held when picked up, and the time and floors of the trip when it emptied */
+    private int[] loadPackages = new int[1];
+    private int[] loadTime = new int[1];
+    private int[] loadFloors = new int[1];
+    /** The handles of the items being delivered to a floor, when delivering from a packed box */
+    private int[] delivering = new int[0];
+    /** The first tick we are free to pick up another box */
+    private long idleFrom;
 
     /** The selection strategy to use when picking a box */
     private SelectionStrategy selectionStrategy;
@@ -40,6 +78,18 @@ public class DeliveryBot implements Stepable {
     private MailStorage storage;
     /** The floor that the Mail Room is on */
     private int mailFloor;
+    /** The clock giving the time of each plain step */
+    private final SimulationClock clock;
+    /** Told about each item delivered */
+    private SimulationObserver observer = SimulationObserver.NONE;
+    /** Records the latency of each item delivered, or null if latencies are not being tracked */
+    private LatencyRecorder latencies;
+    /** Hands us boxes in place of the selection strategy, or null if we select our own */
+    private Dispatcher dispatcher;
+    /** Records each box we take and deliver, or null if the run is not being recorded */
+    private EventRecorder.Lane recorder;
+    /** The handle each box being delivered had in storage, known only while recording */
+    private int[] loadHandles = new int[1];
 
     /**
      * Create a delivery bot with a chosen strategy for delivery and selection, along with the mail storage repo
@@ -51,6 +101,20 @@ public class DeliveryBot implements Stepable {
      */
     public DeliveryBot(SelectionStrategy selectionStrategy, DeliveryStrategy deliveryStrategy,
                        MailStorage storage, int mailRoomFloor){
+        this(selectionStrategy, deliveryStrategy, storage, mailRoomFloor, new SimulationClock());
+    }
+
+    /**
+     * Create a delivery bot that steps at the time shown on a clock shared with the rest of the run.
+     * @param selectionStrategy the strategy for selecting storage boxes to deliver
+     * @param deliveryStrategy the strategy for selecting which floor to deliver to next
+     * @param storage the mail storage unit
+     * @param mailRoomFloor the floor the mail room is located on
+     * @param clock the clock giving the time of each step
+     */
+    public DeliveryBot(SelectionStrategy selectionStrategy, DeliveryStrategy deliveryStrategy,
+                       MailStorage storage, int mailRoomFloor, SimulationClock clock){
+        this.clock = clock;
         this.stats = new ArrayList<DeliveryStatistic>();
         this.selectionStrategy = selectionStrategy;
         this.deliveryStrategy = deliveryStrategy;
@@ -61,40 +125,230 @@ public class DeliveryBot implements Stepable {
 
     @Override
     public boolean canFinish() {
-        return (this.currentDelivery == null) && this.storage.isEmpty();
+        return (this.loadSize == 0) && this.storage.isEmpty();
+    }
+
+    /**
+     * Carry several boxes a trip, adding boxes to the first while their mail fits in a number of mail units.
+     * The first box is always carried, however much mail it holds.
+     * @param units the most mail units to carry on one trip, or zero to carry one box a trip
+     */
+    public void setTripCapacity(int units) {
+        if(units < 0){
+            throw new IllegalArgumentException("Trips cannot carry " + units + " mail units");
+        }
+        this.tripCapacity = units;
+    }
+
+    /**
+     * Set the observer told about each item delivered
+     * @param observer the observer to tell
+     */
+    public void setObserver(SimulationObserver observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Take boxes from a dispatcher planning for every bot, instead of selecting them ourselves.
+     * The dispatcher must already have this bot registered.
+     * @param dispatcher the dispatcher to take boxes from
+     */
+    public void setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Record each box we take out of storage, each floor we deliver it to and each trip we finish
+     * @param recorder the lane to record through, or null to stop recording
+     */
+    public void setRecorder(EventRecorder.Lane recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Check if we are free to pick up a box at a given tick. Unlike looking at the current delivery,
+     * this is right even when a whole delivery has been stepped through ahead of time.
+     * @param time the tick to check
+     * @return true if we are not out delivering at that tick
+     */
+    public boolean isIdleAt(long time) {
+        return this.idleFrom <= time;
+    }
+
+    /**
+     * The floor we are on currently
+     * @return the current floor
+     */
+    public int getCurrentFloor() {
+        return this.currentFloor;
+    }
+
+    /**
+     * Estimate the time a trip delivering a box would take from where we are now, sweeping once from
+     * one end of the box's floors to the other and then returning to the mail room.
+     * @param summary the summary of the box
+     * @return the estimated time of the trip, in steps as counted in the statistics
+     */
+    public int estimateTripTime(StorageBox.Summary summary) {
+        int low = summary.lowestFloor;
+        int high = summary.highestFloor;
+        int floors = (high - low) + Math.min(Math.abs(this.currentFloor - low) + Math.abs(high - this.mailFloor),
+                                             Math.abs(this.currentFloor - high) + Math.abs(low - this.mailFloor));
+        return floors * TRAVEL_TIME + summary.numDests * DELIVERY_TIME;
+    }
+
+    /**
+     * Set the recorder for the latency of each item delivered, which may be shared with other bots
+     * @param latencies the recorder to use
+     */
+    public void setLatencyRecorder(LatencyRecorder latencies) {
+        this.latencies = latencies;
     }
 
     @Override
     public void step() {
+        stepAt(this.clock.now());
+    }
+
+    /**
+     * Take a single step at the given simulated time
+     * @param time the current simulated time
+     */
+    private void stepAt(long time) {
         // See if we're currently delivering something, if so continue it,
         // otherwise look for another one
-        if(this.currentDelivery != null){
-            stepDelivery();
-            if(this.currentDelivery.isEmpty()){
-                this.currentDelivery = null;
+        if(this.loadSize > 0){
+            stepDelivery(time);
+            if(this.boxesLeft == 0){
+                this.idleFrom = time + 1;
                 finalizeStats();
+                record(EventType.BOX_DELIVERED, time, this.loadHandles[0], this.numFloors, this.totalTime);
+                Arrays.fill(this.load, 0, this.loadSize, null);
+                this.loadSize = 0;
             }
         } else {
-            StorageBox.Summary[] summaries = storage.retrieveSummaries();
-            if(summaries.length >= 0) {
-                try {
-                    String id = this.selectionStrategy.selectNextDelivery(summaries);
-                    currentDelivery = this.storage.deliverBox(id);
-                    initializeStats();
-                } catch (NoBoxReadyException e) {
-//                    System.out.println(e);
-                } catch (UnknownIdentifierException e) {
-                    System.out.println(e);
-                    System.exit(0);
+            long version = storage.getVersion();
+            // Idle bots poll every step, so no box being ready is not treated as exceptional
+            String id = this.dispatcher != null ? this.dispatcher.requestBox(this, time)
+                                                : this.selectionStrategy.trySelectNextDelivery(this.storage);
+            if(id != null){
+                // The box's handle is only known while it is in storage
+                int handle = this.recorder != null ? this.storage.handleOf(id) : MailStorage.NO_HANDLE;
+                StorageBox box = this.storage.tryDeliverBox(id);
+                if(box == null){
+                    // Another bot sharing the storage took the box first, so try again next step.
+                    // If storage has not changed, the box was never there and the strategy is broken
+                    if(this.storage.getVersion() == version){
+                        System.out.println(new UnknownIdentifierException(id));
+                        System.exit(0);
+                    }
+                    return;
                 }
+                this.idleFrom = Long.MAX_VALUE;
+                initializeStats(time);
+                loadBox(box, handle);
+                record(EventType.BOX_SELECTED, time, handle, box.numPackages(), box.numDestinations());
+                if(this.tripCapacity > 0){
+                    loadCompanions(time);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add boxes to the trip for as long as the selection strategy finds one that overlaps the floors
+     * the trip passes and fits in the capacity left. A trip passes every floor between the mail room and
+     * the furthest floors it delivers to, so boxes for floors on the way are carried at no extra travel.
+     * @param time the simulated time the boxes are picked up
+     */
+    private void loadCompanions(long time) {
+        StorageBox first = this.load[0];
+        int room = this.tripCapacity - unitsIn(first);
+        int lowest = Math.min(this.mailFloor, first.lowestFloor());
+        int highest = Math.max(this.mailFloor, first.highestFloor());
+        while(room > 0 && lowest != StorageBox.NO_FLOOR){
+            String id = this.selectionStrategy.trySelectCompanion(this.storage, lowest, highest, room);
+            if(id == null){
+                return;
+            }
+            int handle = this.recorder != null ? this.storage.handleOf(id) : MailStorage.NO_HANDLE;
+            StorageBox box = this.storage.tryDeliverBox(id);
+            if(box == null){
+                // The strategy offered a box that is not in storage, so set off with what we have
+                return;
+            }
+            loadBox(box, handle);
+            record(EventType.BOX_SELECTED, time, handle, box.numPackages(), box.numDestinations());
+            room -= unitsIn(box);
+            lowest = Math.min(lowest, box.lowestFloor());
+            highest = Math.max(highest, box.highestFloor());
+        }
+    }
+
+    /**
+     * Add a box taken out of storage to the boxes being delivered on this trip
+     * @param box the box
+     * @param handle the handle the box had in storage, known only while recording
+     */
+    private void loadBox(StorageBox box, int handle) {
+        if(this.loadSize == this.load.length){
+            int length = this.load.length * 2;
+            this.load = Arrays.copyOf(this.load, length);
+            this.loadHandles = Arrays.copyOf(this.loadHandles, length);
+            this.loadPackages = Arrays.copyOf(this.loadPackages, length);
+            this.loadTime = Arrays.copyOf(this.loadTime, length);
+            this.loadFloors = Arrays.copyOf(this.loadFloors, length);
+        }
+        int i = this.loadSize++;
+        this.load[i] = box;
+        this.loadHandles[i] = handle;
+        this.loadPackages[i] = box.numPackages();
+        this.boxesLeft++;
+    }
+
+    /**
+     * The mail units taken up by the mail in a box
+     * @param box the box
+     * @return the units of mail in the box
+     */
+    private static int unitsIn(StorageBox box) {
+        return box.maxItems - box.remainingUnits();
+    }
+
+    /**
+     * Deliver a whole box at once, since nothing a bot does while out delivering affects storage, and
+     * return the tick after the last floor is delivered to. An idle bot tries to pick up a box as in a
+     * single step and, if there is none ready, waits for storage to change since selection strategies
+     * only refuse based on what is in storage. A dispatcher mostly gives a bot nothing only when storage
+     * holds no box for it, so the same goes for a bot taking boxes from one, unless the dispatcher says
+     * to ask again next tick.
+     * @param now the current simulated time
+     * @return the time to act next, or WAIT_FOR_CHANGE if no box was ready
+     */
+    @Override
+    public long advance(long now) {
+        if(this.loadSize > 0){
+            // Each step delivers to one floor, finishing with the step that empties the last box
+            long steps = 0;
+            while(this.loadSize > 0){
+                stepAt(now + steps);
+                steps++;
             }
+            return now + steps;
         }
+        stepAt(now);
+        if(this.loadSize > 0 || (this.dispatcher != null && this.dispatcher.shouldAskAgain())){
+            return now + 1;
+        }
+        return WAIT_FOR_CHANGE;
     }
 
     /**
      * Initialize the statistics for a particular run
+     * @param time the simulated time the box was picked up
      */
-    private void initializeStats(){
+    private void initializeStats(long time){
+        this.pickupTime = time;
         this.totalTime = 0;
         this.numPackages = 0;
         this.numFloors = 0;
@@ -106,19 +360,43 @@ public class DeliveryBot implements Stepable {
     private void finalizeStats(){
         // Travel back to the mailroom
         travelFloor(this.mailFloor);
-        // Generate statistics
-        DeliveryStatistic stat = new DeliveryStatistic(this.numPackages, this.totalTime, this.numFloors);
+        // Generate statistics, with those of each box if we carry several boxes a trip
+        BoxStatistic[] boxes = NO_BOXES;
+        if(this.tripCapacity > 0){
+            boxes = new BoxStatistic[this.loadSize];
+            for(int i = 0; i < this.loadSize; i++){
+                boxes[i] = new BoxStatistic(this.loadPackages[i], this.loadTime[i], this.loadFloors[i]);
+            }
+        }
+        DeliveryStatistic stat = new DeliveryStatistic(this.numPackages, this.totalTime, this.numFloors, boxes);
         this.stats.add(stat);
     }
 
     /**
      * Step a delivery that is in progress, travelling and delivering to a floor in one step.
+     * @param time the current simulated time
      */
-    private void stepDelivery() {
+    private void stepDelivery(long time) {
         try {
-            int destinationFloor = deliveryStrategy.chooseNextFloor(this.currentFloor, this.currentDelivery);
+            int destinationFloor = deliveryStrategy.chooseNextFloor(this.currentFloor, this.load, this.loadSize);
             travelFloor(destinationFloor);
-            deliverToFloor(destinationFloor, this.currentDelivery);
+            // Add time to the mailroom, once however many boxes have mail for the floor
+            this.totalTime += DELIVERY_TIME;
+            for(int i = 0; i < this.loadSize; i++){
+                StorageBox box = this.load[i];
+                if(box.numItemsForFloor(destinationFloor) == 0){
+                    continue;
+                }
+                int delivered = this.numPackages;
+                deliverToFloor(destinationFloor, box, time);
+                record(EventType.FLOOR_VISITED, time, this.loadHandles[i], destinationFloor,
+                       this.numPackages - delivered);
+                if(box.isEmpty()){
+                    this.boxesLeft--;
+                    this.loadTime[i] = this.totalTime;
+                    this.loadFloors[i] = this.numFloors;
+                }
+            }
         } catch (SourceExhaustedException e){
             System.out.println(e);
             System.exit(0);
@@ -126,33 +404,69 @@ public class DeliveryBot implements Stepable {
     }
 
     /**
-     * Deliver all packages within a storage box to the floor
+     * Deliver all packages within a storage box to the floor, the time taken to deliver having been counted
      * @param floor the floor we are delivering mail to.
      * @param box the box we are delivering from
+     * @param time the current simulated time
      */
-    private void deliverToFloor(int floor, StorageBox box){
-        // Collect all the mail
-        ArrayList<MailItem> remaining = new ArrayList<MailItem>();
-        ArrayList<MailItem> deliver = new ArrayList<MailItem>();
-        try {
-            while(!box.isEmpty()){
-                MailItem item = box.popItem();
-                if(item.floor==floor){
-                    deliver.add(item);
-                } else {
-                    remaining.add(item);
-                }
-             }
-            // Count the number that we are delivering on this floor
-            this.numPackages += deliver.size();
-            // Add all the mail that isn't for this floor back into the box
-            for(MailItem item : remaining){
-                box.addItem(item);
+    private void deliverToFloor(int floor, StorageBox box, long time){
+        if (box.isPacked()) {
+            deliverHandlesToFloor(floor, box, time);
+            return;
+        }
+        // Take out all the mail for this floor, leaving the rest of the box untouched,
+        // and count the number that we are delivering on this floor
+        List<MailItem> delivered = box.removeItemsForFloor(floor);
+        this.numPackages += delivered.size();
+        for (MailItem item : delivered) {
+            if (this.latencies != null) {
+                // Time waiting in storage, then the travel and delivery time of this run so far
+                this.latencies.record(item, (this.pickupTime - item.takenTime) + this.totalTime);
             }
-            // Add time to the mailroom
-            this.totalTime += DELIVERY_TIME;
-        } catch (Exception e) {
-            System.out.println(e);
+            this.observer.mailDelivered(item, time);
+        }
+    }
+
+    /**
+     * Deliver all packages within a packed storage box to the floor, by handle, giving the handles back
+     * to the box's store once they are delivered
+     * @param floor the floor we are delivering mail to.
+     * @param box the packed box we are delivering from
+     * @param time the current simulated time
+     */
+    private void deliverHandlesToFloor(int floor, StorageBox box, long time){
+        int count = box.numItemsForFloor(floor);
+        if (this.delivering.length < count) {
+            this.delivering = new int[Math.max(count, this.delivering.length * 2)];
+        }
+        box.removeHandlesForFloor(floor, this.delivering);
+        MailItemStore items = box.getItemStore();
+        this.numPackages += count;
+        for (int i = 0; i < count; i++) {
+            int item = this.delivering[i];
+            if (this.latencies != null) {
+                // Time waiting in storage, then the travel and delivery time of this run so far
+                this.latencies.record(items.priority(item), items.type(item),
+                                      (this.pickupTime - items.takenTime(item)) + this.totalTime);
+            }
+            if (this.observer != SimulationObserver.NONE) {
+                this.observer.mailDelivered(items.get(item), time);
+            }
+        }
+        items.release(this.delivering, count);
+    }
+
+    /**
+     * Record something happening to a box being delivered, if the run is being recorded
+     * @param type what happened
+     * @param time the current simulated time
+     * @param handle the handle the box had in storage
+     * @param b the event's second value, as given by its type
+     * @param c the event's third value, as given by its type
+     */
+    private void record(EventType type, long time, int handle, int b, int c) {
+        if (this.recorder != null) {
+            this.recorder.box(type, time, handle, b, c);
         }
     }
 
@@ -169,6 +483,118 @@ public class DeliveryBot implements Stepable {
         this.currentFloor = floor;
     }
 
+    /**
+     * Write the deliveries made so far, where we are, and the boxes we are carrying if any. A long run
+     * makes a great many deliveries, so they are written as one block rather than a field at a time.
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        long size = 0;
+        for (DeliveryStatistic stat : this.stats) {
+            size += STATISTIC_BYTES + (long) stat.boxes.length * BOX_STATISTIC_BYTES;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The deliveries of a bot take " + size + " bytes, too many to checkpoint");
+        }
+        ByteBuffer block = ByteBuffer.allocate((int) size);
+        for (DeliveryStatistic stat : this.stats) {
+            block.putInt(stat.packagesDelivered);
+            block.putInt(stat.timeTaken);
+            block.putInt(stat.numFloors);
+            block.putInt(stat.boxes.length);
+            for (BoxStatistic box : stat.boxes) {
+                block.putInt(box.packagesDelivered);
+                block.putInt(box.timeTaken);
+                block.putInt(box.numFloors);
+            }
+        }
+        out.writeInt(this.stats.size());
+        out.writeInt(block.capacity());
+        out.write(block.array());
+        out.writeInt(this.currentFloor);
+        out.writeLong(this.pickupTime);
+        out.writeInt(this.totalTime);
+        out.writeInt(this.numPackages);
+        out.writeInt(this.numFloors);
+        out.writeLong(this.idleFrom);
+        out.writeInt(this.loadSize);
+        out.writeInt(this.boxesLeft);
+        for (int i = 0; i < this.loadSize; i++) {
+            out.writeInt(this.loadHandles[i]);
+            out.writeInt(this.loadPackages[i]);
+            out.writeInt(this.loadTime[i]);
+            out.writeInt(this.loadFloors[i]);
+            this.load[i].writeCheckpoint(out);
+        }
+        if (this.loadSize > 0) {
+            this.deliveryStrategy.writeCheckpoint(this.load[0], out);
+        }
+    }
+
+    /**
+     * Read back what writeCheckpoint wrote. Packed boxes being carried refer to storage's store, which
+     * must already have been read back.
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        int count = in.readInt();
+        int size = in.readInt();
+        if (count < 0 || size < 0 || size / STATISTIC_BYTES < count) {
+            throw new IOException("Checkpoint holds " + count + " deliveries in " + size + " bytes");
+        }
+        byte[] block = new byte[size];
+        in.readFully(block);
+        ByteBuffer stats = ByteBuffer.wrap(block);
+        this.stats.clear();
+        this.stats.ensureCapacity(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                int packages = stats.getInt();
+                int time = stats.getInt();
+                int floors = stats.getInt();
+                BoxStatistic[] boxes = new BoxStatistic[stats.getInt()];
+                for (int b = 0; b < boxes.length; b++) {
+                    boxes[b] = new BoxStatistic(stats.getInt(), stats.getInt(), stats.getInt());
+                }
+                this.stats.add(new DeliveryStatistic(packages, time, floors, boxes.length == 0 ? NO_BOXES : boxes));
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Checkpoint holds deliveries that do not fit in " + size + " bytes", e);
+        }
+        this.currentFloor = in.readInt();
+        this.pickupTime = in.readLong();
+        this.totalTime = in.readInt();
+        this.numPackages = in.readInt();
+        this.numFloors = in.readInt();
+        this.idleFrom = in.readLong();
+        int numBoxes = in.readInt();
+        int left = in.readInt();
+        if (numBoxes < 0 || left < 0 || left > numBoxes) {
+            throw new IOException("Checkpoint holds a bot carrying " + numBoxes + " boxes, " + left
+                                  + " with mail left");
+        }
+        Arrays.fill(this.load, 0, this.loadSize, null);
+        this.loadSize = 0;
+        for (int i = 0; i < numBoxes; i++) {
+            int handle = in.readInt();
+            int packages = in.readInt();
+            int time = in.readInt();
+            int floors = in.readInt();
+            loadBox(StorageBox.readCheckpoint(in, this.storage.getItemStore()), handle);
+            this.loadPackages[i] = packages;
+            this.loadTime[i] = time;
+            this.loadFloors[i] = floors;
+        }
+        this.boxesLeft = left;
+        if (numBoxes > 0) {
+            this.deliveryStrategy.readCheckpoint(this.load[0], in);
+        }
+    }
+
     /**
      * Package the statistics list into an array for computation of delivery performance by
      * other systems
@@ -188,6 +614,9 @@ public class DeliveryBot implements Stepable {
         public final int timeTaken;
         // The number of floors visited
         public final int numFloors;
+        // The statistics of each box carried, in the order they were picked up, or none if the bot
+        // carries one box a trip
+        public final BoxStatistic[] boxes;
 
         /**
          * Create a delivery statistic
@@ -196,6 +625,63 @@ public class DeliveryBot implements Stepable {
          * @param numFloors the number of floors we had to traverse to make all our deliveries
          */
         public DeliveryStatistic(int delivered, int time, int numFloors){
+            this(delivered, time, numFloors, NO_BOXES);
+        }
+
+        /**
+         * Create a delivery statistic for a run that carried several boxes
+         * @param delivered the number of packages delivered
+         * @param time the amount of time take to deliver those packages
+         * @param numFloors the number of floors we had to traverse to make all our deliveries
+         * @param boxes the statistics of each box carried
+         */
+        public DeliveryStatistic(int delivered, int time, int numFloors, BoxStatistic[] boxes){
+            this.packagesDelivered = delivered;
+            this.timeTaken = time;
+            this.numFloors = numFloors;
+            this.boxes = boxes;
+        }
+
+        /**
+         * The number of boxes carried on this run
+         * @return the number of boxes, one if the bot carries one box a trip
+         */
+        public int numBoxes() {
+            return Math.max(1, boxes.length);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("Delivery Run: " + packagesDelivered + " packages delivered in " +
+                    timeTaken + " steps over " + numFloors + " floors.");
+            if (boxes.length > 0) {
+                text.append(" Carried ").append(boxes.length).append(" boxes.");
+                for (BoxStatistic box : boxes) {
+                    text.append(System.lineSeparator()).append("    ").append(box);
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    /*
+       Statistics of one box carried on a delivery run that carried several. Is immutable
+     */
+    public class BoxStatistic {
+        // Number of packages delivered from the box
+        public final int packagesDelivered;
+        // Time taken (in steps) from leaving the mail room until the box was empty
+        public final int timeTaken;
+        // The number of floors travelled until the box was empty
+        public final int numFloors;
+
+        /**
+         * Create a box statistic
+         * @param delivered the number of packages delivered from the box
+         * @param time the time from leaving the mail room until the box was empty
+         * @param numFloors the number of floors travelled until the box was empty
+         */
+        public BoxStatistic(int delivered, int time, int numFloors){
             this.packagesDelivered = delivered;
             this.timeTaken = time;
             this.numFloors = numFloors;
@@ -203,7 +689,7 @@ public class DeliveryBot implements Stepable {
 
         @Override
         public String toString() {
-            return "Delivery Run: " + packagesDelivered + " packages delivered in " +
+            return "Box: " + packagesDelivered + " packages delivered in " +
                     timeTaken + " steps over " + numFloors + " floors.";
         }
     }
@@ -6,6 +6,10 @@ package com.unimelb.swen30006.mailroom;
 
 import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * A basic interface to allow delivery bots to query multiple delivery strategies for
  * selecting the next floor to go to, based on current floor and on the remaining items
@@ -21,4 +25,56 @@ public interface DeliveryStrategy {
      * @throws SourceExhaustedException if there is no mail left in the given storage box
      */
     int chooseNextFloor(int currentFloor, StorageBox box) throws SourceExhaustedException;
+
+    /**
+     * Select the next floor to deliver to on a trip carrying several boxes, based on the items within all
+     * of them. By default a lone box is asked about as above, and otherwise each box with mail left is, and
+     * the nearest of the floors chosen for them is delivered to next. Strategies that keep anything about a
+     * box between calls should override this to keep it about the trip as a whole, under its first box.
+     * @param currentFloor the floor the delivery bot is currently on
+     * @param load the boxes being carried, the first being the one picked up first
+     * @param count the number of boxes being carried, at least one
+     * @return the optimal floor to deliver to based on this strategy
+     * @throws SourceExhaustedException if there is no mail left in any of the boxes
+     */
+    default int chooseNextFloor(int currentFloor, StorageBox[] load, int count) throws SourceExhaustedException {
+        if (count == 1) {
+            return chooseNextFloor(currentFloor, load[0]);
+        }
+        int nearest = StorageBox.NO_FLOOR;
+        long nearestDistance = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (!load[i].isEmpty()) {
+                int floor = chooseNextFloor(currentFloor, load[i]);
+                long distance = Math.abs((long) floor - currentFloor);
+                if (distance < nearestDistance) {
+                    nearest = floor;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        if (nearest == StorageBox.NO_FLOOR) {
+            throw new SourceExhaustedException("Storage box");
+        }
+        return nearest;
+    }
+
+    /**
+     * Write whatever this strategy keeps about a box being delivered, when the bot carrying it is
+     * checkpointed. Strategies that only look at the box keep nothing, and write nothing.
+     * @param box the box being delivered, or the first of the boxes being carried
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    default void writeCheckpoint(StorageBox box, DataOutput out) throws IOException {
+    }
+
+    /**
+     * Read back what writeCheckpoint wrote about a box, once the box itself has been read back
+     * @param box the box read back, which the bot carrying it will ask about next
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read
+     */
+    default void readCheckpoint(StorageBox box, DataInput in) throws IOException {
+    }
 }
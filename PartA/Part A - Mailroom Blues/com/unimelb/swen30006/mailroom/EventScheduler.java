@@ -0,0 +1,361 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+
+/**
+ * A discrete event engine for the mail room. Each component is woken at the time it asked for, in
+ * order of time and then of registration, which is the order the lock-step loop steps them in within
+ * a tick. Simulated time jumps straight to the next wake-up. Components that are waiting on storage
+ * are woken at the first point the lock-step loop would have seen a change in the storage version.
+ *
+ * Components can be registered in a wait group, promising that a storage state one member would do
+ * nothing at is a state every other member would do nothing at too, and that a member acting always
+ * changes storage. When storage changes, only the first waiting member of each group in stepping order
+ * is woken. If it does nothing, nor would the rest, and if it acts, its own change wakes the next, so
+ * idle bots sharing a selection strategy cost one wake-up per change rather than one each.
+ *
+ * Events can be handled up to a given time and the scheduler checkpointed there, along with its
+ * components, to carry on handling events from the same point later.
+ */
+public class EventScheduler implements Checkpointable
+{
+    // Event keys keep the component's order in their low bits
+    private static final int ORDER_BITS = 20;
+    private static final int MAX_ORDER = (1 << ORDER_BITS) - 1;
+    // Marks a component outside any wait group
+    private static final int NO_GROUP = -1;
+
+    // The storage whose version wakes waiting components
+    private final MailStorage storage;
+    // Every registered component, in stepping order
+    private final ArrayList<Schedulable> components;
+    // The pending wake-ups as a binary min-heap of keys packing the time above the component's order,
+    // so ordering keys orders by time and then by order without allocating an object per event
+    private long[] events;
+    private int numPending;
+    // The components waiting for the storage to change outside any wait group, by registration order
+    private final BitSet waiting;
+    // The wait group of each component by registration order, or NO_GROUP
+    private int[] groupOf;
+    // The members of each wait group waiting for the storage to change, by registration order
+    private final ArrayList<BitSet> groupWaiting;
+    // The number of each wait group, by the object identifying it
+    private final IdentityHashMap<Object, Integer> groups;
+
+    // The current simulated time
+    private long now;
+    // The number of events handled so far
+    private long numEvents;
+
+    /**
+     * Create a scheduler
+     * @param storage the storage components wait on
+     */
+    public EventScheduler(MailStorage storage)
+    {
+        this(storage, 0);
+    }
+
+    /**
+     * Create a scheduler that first wakes components at a later time, to carry on a run that has been
+     * stepped up to that time some other way
+     * @param storage the storage components wait on
+     * @param start the time components are first woken at
+     */
+    public EventScheduler(MailStorage storage, long start)
+    {
+        if (start < 0 || start > Long.MAX_VALUE >>> ORDER_BITS) {
+            throw new IllegalArgumentException("Cannot start scheduling at " + start);
+        }
+        this.storage = storage;
+        this.components = new ArrayList<>();
+        this.events = new long[16];
+        this.numPending = 0;
+        this.waiting = new BitSet();
+        this.groupOf = new int[16];
+        this.groupWaiting = new ArrayList<>();
+        this.groups = new IdentityHashMap<>();
+        this.now = start;
+        this.numEvents = 0;
+    }
+
+    /**
+     * Register a component to be woken at the start of the simulation. Components registered earlier
+     * act first when woken at the same time.
+     * @param component the component to schedule
+     */
+    public void register(Schedulable component)
+    {
+        register(component, null);
+    }
+
+    /**
+     * Register a component to be woken at the start of the simulation, in a wait group. Every member of a
+     * group must do nothing at a storage state any other member would do nothing at, and must change
+     * storage whenever it does act, such as bots selecting from the same storage with the same strategy.
+     * @param component the component to schedule
+     * @param group identifies the wait group, compared by identity, or null to be woken on every change
+     */
+    public void register(Schedulable component, Object group)
+    {
+        int order = components.size();
+        if (order > MAX_ORDER) {
+            throw new IllegalStateException("Cannot schedule more than " + (MAX_ORDER + 1) + " components");
+        }
+        components.add(component);
+        if (order == groupOf.length) {
+            groupOf = Arrays.copyOf(groupOf, order * 2);
+        }
+        groupOf[order] = NO_GROUP;
+        if (group != null) {
+            Integer number = groups.get(group);
+            if (number == null) {
+                number = groupWaiting.size();
+                groups.put(group, number);
+                groupWaiting.add(new BitSet());
+            }
+            groupOf[order] = number;
+        }
+        schedule(now, order);
+    }
+
+    /**
+     * Handle events until no component has anything left to do
+     */
+    public void run()
+    {
+        run(Long.MAX_VALUE);
+    }
+
+    /**
+     * Handle every event up to and including a given time, including those a component's change to
+     * the storage wakes later in the same tick
+     * @param until the last time to handle events at
+     * @return true if any component still has something left to do after that time
+     */
+    public boolean run(long until)
+    {
+        while (numPending > 0 && events[0] >>> ORDER_BITS <= until) {
+            long key = poll();
+            int order = (int) (key & MAX_ORDER);
+            now = key >>> ORDER_BITS;
+            numEvents++;
+
+            long version = storage.getVersion();
+            long next = components.get(order).advance(now);
+            if (next == Schedulable.WAIT_FOR_CHANGE) {
+                setWaiting(order, true);
+            } else if (next <= now) {
+                throw new IllegalStateException("Component " + order + " asked to act at " + next
+                        + ", which is not after " + now);
+            } else {
+                schedule(next, order);
+            }
+
+            if (storage.getVersion() != version) {
+                wakeWaiting(order);
+            }
+        }
+        return numPending > 0;
+    }
+
+    /**
+     * Wake every waiting component outside a wait group, and the first waiting member of each group after
+     * the component that changed the storage, at the point it would next have stepped in the lock-step
+     * loop: later in this tick if it steps after that component, otherwise next tick
+     * @param changedBy the order of the component that changed the storage
+     */
+    private void wakeWaiting(int changedBy)
+    {
+        for (int order = waiting.nextSetBit(0); order >= 0; order = waiting.nextSetBit(order + 1)) {
+            wake(order, changedBy);
+        }
+        waiting.clear();
+        for (int g = 0; g < groupWaiting.size(); g++) {
+            BitSet members = groupWaiting.get(g);
+            int order = members.nextSetBit(changedBy + 1);
+            if (order < 0) {
+                order = members.nextSetBit(0);
+            }
+            if (order >= 0) {
+                members.clear(order);
+                wake(order, changedBy);
+            }
+        }
+    }
+
+    /**
+     * Schedule a waiting component at the point it would next have stepped in the lock-step loop
+     * @param order the order of the component to wake
+     * @param changedBy the order of the component that changed the storage
+     */
+    private void wake(int order, int changedBy)
+    {
+        schedule(order > changedBy ? now : now + 1, order);
+    }
+
+    /**
+     * Mark a component as waiting for the storage to change, or as no longer waiting
+     * @param order the order of the component
+     * @param isWaiting whether it is waiting
+     */
+    private void setWaiting(int order, boolean isWaiting)
+    {
+        BitSet set = groupOf[order] == NO_GROUP ? waiting : groupWaiting.get(groupOf[order]);
+        set.set(order, isWaiting);
+    }
+
+    /**
+     * Check if a component is waiting for the storage to change
+     * @param order the order of the component
+     * @return true if it is waiting
+     */
+    private boolean isWaiting(int order)
+    {
+        return groupOf[order] == NO_GROUP ? waiting.get(order) : groupWaiting.get(groupOf[order]).get(order);
+    }
+
+    /**
+     * The simulated time of the last event handled
+     * @return the current time
+     */
+    public long getTime()
+    {
+        return now;
+    }
+
+    /**
+     * The time of the next event to be handled
+     * @return the time, or Long.MAX_VALUE if no component has anything left to do
+     */
+    public long getNextTime()
+    {
+        return numPending == 0 ? Long.MAX_VALUE : events[0] >>> ORDER_BITS;
+    }
+
+    /**
+     * Write the time, the pending wake-ups and which components are waiting, but not the components
+     * themselves, which are checkpointed apart
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        out.writeLong(now);
+        out.writeLong(numEvents);
+        out.writeInt(components.size());
+        for (int order = 0; order < components.size(); order++) {
+            out.writeBoolean(isWaiting(order));
+        }
+        out.writeInt(numPending);
+        for (int i = 0; i < numPending; i++) {
+            out.writeLong(events[i]);
+        }
+    }
+
+    /**
+     * Read back what writeCheckpoint wrote, once the same components have been registered in the same
+     * order, replacing the wake-ups registering them scheduled
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read, or was written for other components
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        long time = in.readLong();
+        long handled = in.readLong();
+        int numComponents = in.readInt();
+        if (numComponents != components.size()) {
+            throw new IOException("Checkpoint schedules " + numComponents + " components, not " + components.size());
+        }
+        for (int order = 0; order < numComponents; order++) {
+            setWaiting(order, in.readBoolean());
+        }
+        int pending = in.readInt();
+        if (pending < 0 || pending > numComponents) {
+            throw new IOException("Checkpoint holds " + pending + " wake-ups for " + numComponents + " components");
+        }
+        numPending = 0;
+        for (int i = 0; i < pending; i++) {
+            long key = in.readLong();
+            if ((key & MAX_ORDER) >= numComponents) {
+                throw new IOException("Checkpoint wakes component " + (key & MAX_ORDER) + " of " + numComponents);
+            }
+            schedule(key >>> ORDER_BITS, (int) (key & MAX_ORDER));
+        }
+        now = time;
+        numEvents = handled;
+    }
+
+    /**
+     * The number of events handled, for comparison with the number of steps the lock-step loop takes
+     * @return the number of events handled so far
+     */
+    public long getNumEvents()
+    {
+        return numEvents;
+    }
+
+    /**
+     * Add a wake-up to the heap
+     * @param time the time to wake at
+     * @param order the order of the component to wake
+     */
+    private void schedule(long time, int order)
+    {
+        if (numPending == events.length) {
+            events = Arrays.copyOf(events, numPending * 2);
+        }
+        // Sift the new key up from the bottom of the heap
+        long key = (time << ORDER_BITS) | order;
+        int i = numPending++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (events[parent] <= key) {
+                break;
+            }
+            events[i] = events[parent];
+            i = parent;
+        }
+        events[i] = key;
+    }
+
+    /**
+     * Remove the earliest wake-up from the heap
+     * @return the key of the earliest wake-up
+     */
+    private long poll()
+    {
+        long first = events[0];
+        long last = events[--numPending];
+        // Sift the last key down from the top of the heap
+        int i = 0;
+        int half = numPending >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < numPending && events[child + 1] < events[child]) {
+                child++;
+            }
+            if (last <= events[child]) {
+                break;
+            }
+            events[i] = events[child];
+            i = child;
+        }
+        events[i] = last;
+        return first;
+    }
+}
@@ -0,0 +1,198 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+/**
+ * A map from int keys, such as floors, to values, kept by open addressing in flat arrays so no key is
+ * boxed and no entry object is made. Keys are probed linearly from their hash, and removing a key shifts
+ * the keys after it back into place rather than leaving a marker, so lookups never slow down as keys come
+ * and go. The slots can be walked directly to visit every key. Not safe to share between threads without
+ * locking.
+ *
+ * @param <V> the type of the values
+ */
+public class IntHashMap<V>
+{
+    // The smallest number of slots, a power of two
+    private static final int MIN_SLOTS = 8;
+
+    // The key in each slot, meaningful only where the slot is used
+    private int[] keys;
+    // The value in each slot, null where the slot is free
+    private Object[] values;
+    // The number of slots less one, for masking hashes into the table
+    private int mask;
+    // The number of keys held
+    private int size;
+
+    /**
+     * Create an empty map
+     */
+    public IntHashMap()
+    {
+        this.keys = new int[MIN_SLOTS];
+        this.values = new Object[MIN_SLOTS];
+        this.mask = MIN_SLOTS - 1;
+        this.size = 0;
+    }
+
+    /**
+     * Find the value for a key
+     * @param key the key to look up
+     * @return the value, or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key)
+    {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Set the value for a key, replacing any value it had
+     * @param key the key to set
+     * @param value the value, which may not be null
+     */
+    public void put(int key, V value)
+    {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot map key " + key + " to null");
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        // Keep the table at most half full, so probes stay short
+        if (2 * (size + 1) > values.length) {
+            resize(values.length * 2);
+        }
+        slot = hash(key);
+        while (values[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * Remove a key and its value
+     * @param key the key to remove
+     * @return the value the key had, or null if it was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key)
+    {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V removed = (V) values[slot];
+        values[slot] = null;
+        size--;
+        // Shift later keys in the same run back over the gap if their probe passed through it
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = hash(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                values[next] = null;
+                gap = next;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * The number of keys in the map
+     * @return the number of keys
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * The number of slots, for walking every key with isUsed and keyAt
+     * @return the number of slots
+     */
+    public int slots()
+    {
+        return values.length;
+    }
+
+    /**
+     * Check if a slot holds a key
+     * @param slot the slot, from 0 up to slots()
+     * @return true if the slot holds a key
+     */
+    public boolean isUsed(int slot)
+    {
+        return values[slot] != null;
+    }
+
+    /**
+     * The key held in a used slot
+     * @param slot the slot, from 0 up to slots()
+     * @return the key in that slot
+     */
+    public int keyAt(int slot)
+    {
+        return keys[slot];
+    }
+
+    /**
+     * Find the slot holding a key
+     * @param key the key to find
+     * @return the slot, or -1 if the key is not in the map
+     */
+    private int find(int key)
+    {
+        for (int slot = hash(key); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Spread a key's bits and mask it into the table, so consecutive floors do not fill one run of slots
+     * @param key the key to hash
+     * @return the slot the key's probe starts from
+     */
+    private int hash(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Move every key into a table with a different number of slots
+     * @param numSlots the new number of slots, a power of two
+     */
+    private void resize(int numSlots)
+    {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[numSlots];
+        values = new Object[numSlots];
+        mask = numSlots - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
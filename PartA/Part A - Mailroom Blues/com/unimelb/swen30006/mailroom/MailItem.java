@@ -25,6 +25,10 @@ public class MailItem {
     public final String adressee;
     /** The size of the package */
     public final int size;
+    /** The simulated time the item arrived at the mail room, 0 for mail that is all there from the start */
+    public final long arrivalTime;
+    /** The simulated time the item left its mail source for the sorter, the arrival time until it does */
+    public final long takenTime;
 
     /** Constructor for an immutable MailItem
      * @param type the type of this mail item
@@ -34,11 +38,48 @@ public class MailItem {
      * @param size the size of this package (in mail units)
      */
     public MailItem(MailType type, MailPriority priority, int floor, String adressee, int size){
+        this(type, priority, floor, adressee, size, 0);
+    }
+
+    /** Constructor for an immutable MailItem that arrives part way through a simulation
+     * @param type the type of this mail item
+     * @param priority the priority of this mail item
+     * @param floor the floor this item is being sent to
+     * @param adressee the name of the person that the mail is adressed to
+     * @param size the size of this package (in mail units)
+     * @param arrivalTime the simulated time this item arrives at the mail room
+     */
+    public MailItem(MailType type, MailPriority priority, int floor, String adressee, int size, long arrivalTime){
         this.packageType = type;
         this.priority = priority;
         this.floor = floor;
         this.adressee = adressee;
         this.size = size;
+        this.arrivalTime = arrivalTime;
+        this.takenTime = arrivalTime;
+    }
+
+    /** Constructor for a copy of a MailItem stamped with the time it left its source
+     * @param item the item to copy
+     * @param takenTime the simulated time the item left its source
+     */
+    private MailItem(MailItem item, long takenTime){
+        this.packageType = item.packageType;
+        this.priority = item.priority;
+        this.floor = item.floor;
+        this.adressee = item.adressee;
+        this.size = item.size;
+        this.arrivalTime = item.arrivalTime;
+        this.takenTime = takenTime;
+    }
+
+    /**
+     * Stamp this item with the time it left its source, so that its latency can be measured on delivery
+     * @param time the simulated time the item was taken
+     * @return a copy of this item with the time it was taken
+     */
+    public MailItem takenAt(long time){
+        return new MailItem(this, time);
     }
 
     @Override
@@ -49,6 +90,8 @@ public class MailItem {
                 ", floor=" + floor +
                 ", adressee='" + adressee + '\'' +
                 ", size=" + size +
+                ", arrivalTime=" + arrivalTime +
+                ", takenTime=" + takenTime +
                 '}';
     }
 }
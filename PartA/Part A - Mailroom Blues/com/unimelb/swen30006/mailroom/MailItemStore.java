@@ -0,0 +1,392 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Holds mail items as columns of primitives rather than as objects, each item being an int handle into
+ * the columns. Sorting and delivering by handle means an item is never allocated on its way through the
+ * mail room, and an item in storage takes its fields and nothing else: no object header, no references
+ * to its type and priority, and its addressee shared with every other item to the same person.
+ *
+ * Handles are given back with release once an item has been delivered or dropped, and reused for later
+ * items, so the store only grows to the most items held at once rather than the number sorted.
+ *
+ * Items may be added and released from different threads. Reading an item's fields is safe from any
+ * thread that was handed its handle after it was added, and until it is released.
+ */
+public class MailItemStore implements Checkpointable
+{
+    // The number of items there is room for before the columns first grow
+    private static final int INITIAL_CAPACITY = 64;
+    // The number of handles there is room for before the free list first grows
+    private static final int INITIAL_FREE = 16;
+
+    // Each item's size, type and priority share one int, the size above the type above the priority
+    private static final int PRIORITY_BITS = 4;
+    private static final int TYPE_BITS = 4;
+    private static final int SIZE_SHIFT = PRIORITY_BITS + TYPE_BITS;
+    private static final int PRIORITY_MASK = (1 << PRIORITY_BITS) - 1;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+    // The largest size that fits above the type and priority
+    public static final int MAX_SIZE = Integer.MAX_VALUE >>> SIZE_SHIFT;
+
+    // The types and priorities items refer to by number
+    private static final MailItem.MailType[] TYPES = MailItem.MailType.values();
+    private static final MailItem.MailPriority[] PRIORITIES = MailItem.MailPriority.values();
+
+    // The columns of every item, replaced by larger copies as the store grows so readers on other
+    // threads always see columns holding every item they have been handed
+    private volatile Columns columns;
+    // The number of handles ever given out, every one below it either held or free
+    private int numHandles;
+    // The handles given back and free to reuse, the last given back reused first
+    private int[] free;
+    private int numFree;
+
+    // Each addressee's number, and the addressee with each number
+    private final HashMap<String, Integer> addresseeIds;
+    private final ArrayList<String> addressees;
+
+    /**
+     * Create an empty store
+     */
+    public MailItemStore()
+    {
+        this.columns = new Columns(INITIAL_CAPACITY);
+        this.free = new int[INITIAL_FREE];
+        this.addresseeIds = new HashMap<>();
+        this.addressees = new ArrayList<>();
+    }
+
+    /**
+     * Add an item, taken from its source at its arrival time
+     * @param item the item to add
+     * @return the item's handle
+     */
+    public int add(MailItem item)
+    {
+        return add(item, item.takenTime);
+    }
+
+    /**
+     * Add an item, stamped with the time it left its source
+     * @param item the item to add
+     * @param takenTime the simulated time the item left its source
+     * @return the item's handle
+     */
+    public int add(MailItem item, long takenTime)
+    {
+        return add(item.packageType, item.priority, item.floor, item.adressee, item.size, item.arrivalTime, takenTime);
+    }
+
+    /**
+     * Add an item from its fields
+     * @param type the type of the item
+     * @param priority the priority of the item
+     * @param floor the floor the item is going to
+     * @param addressee the name of the person the item is addressed to
+     * @param size the size of the item in mail units, from 0 to MAX_SIZE
+     * @param arrivalTime the simulated time the item arrived at the mail room
+     * @param takenTime the simulated time the item left its source
+     * @return the item's handle
+     * @throws IllegalArgumentException if the size will not fit in the store
+     */
+    public synchronized int add(MailItem.MailType type, MailItem.MailPriority priority, int floor, String addressee,
+                                int size, long arrivalTime, long takenTime)
+    {
+        if (size < 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Item size must be from 0 to " + MAX_SIZE + ", got " + size);
+        }
+        int handle;
+        if (numFree > 0) {
+            handle = free[--numFree];
+        } else {
+            if (numHandles == columns.floors.length) {
+                grow();
+            }
+            handle = numHandles++;
+        }
+        Columns current = columns;
+        current.floors[handle] = floor;
+        current.attributes[handle] = size << SIZE_SHIFT | type.ordinal() << PRIORITY_BITS | priority.ordinal();
+        current.addressees[handle] = intern(addressee);
+        current.arrivalTimes[handle] = arrivalTime;
+        current.takenTimes[handle] = takenTime;
+        // Written last, so a reader on another thread that sees the handle sees the whole item
+        columns = current;
+        return handle;
+    }
+
+    /**
+     * Give back an item's handle once the item is delivered or dropped, so a later item can reuse it
+     * @param item the item's handle, which must not be used again
+     */
+    public synchronized void release(int item)
+    {
+        makeFree(1);
+        free[numFree++] = item;
+    }
+
+    /**
+     * Give back the handles of several items at once
+     * @param items the items' handles, which must not be used again
+     * @param count the number of handles, from the start of the array
+     */
+    public synchronized void release(int[] items, int count)
+    {
+        makeFree(count);
+        System.arraycopy(items, 0, free, numFree, count);
+        numFree += count;
+    }
+
+    /**
+     * The floor an item is going to
+     * @param item the item's handle
+     * @return the item's floor
+     */
+    public int floor(int item)
+    {
+        return columns.floors[item];
+    }
+
+    /**
+     * The size of an item
+     * @param item the item's handle
+     * @return the item's size in mail units
+     */
+    public int size(int item)
+    {
+        return columns.attributes[item] >>> SIZE_SHIFT;
+    }
+
+    /**
+     * The type of an item
+     * @param item the item's handle
+     * @return the item's type
+     */
+    public MailItem.MailType type(int item)
+    {
+        return TYPES[(columns.attributes[item] >>> PRIORITY_BITS) & TYPE_MASK];
+    }
+
+    /**
+     * The priority of an item
+     * @param item the item's handle
+     * @return the item's priority
+     */
+    public MailItem.MailPriority priority(int item)
+    {
+        return PRIORITIES[columns.attributes[item] & PRIORITY_MASK];
+    }
+
+    /**
+     * The person an item is addressed to
+     * @param item the item's handle
+     * @return the item's addressee
+     */
+    public synchronized String addressee(int item)
+    {
+        return addressees.get(columns.addressees[item]);
+    }
+
+    /**
+     * The simulated time an item arrived at the mail room
+     * @param item the item's handle
+     * @return the item's arrival time
+     */
+    public long arrivalTime(int item)
+    {
+        return columns.arrivalTimes[item];
+    }
+
+    /**
+     * The simulated time an item left its source
+     * @param item the item's handle
+     * @return the time the item was taken
+     */
+    public long takenTime(int item)
+    {
+        return columns.takenTimes[item];
+    }
+
+    /**
+     * Make an object of an item, for code that works with whole mail items
+     * @param item the item's handle
+     * @return a new mail item with the same fields
+     */
+    public MailItem get(int item)
+    {
+        MailItem arrived = new MailItem(type(item), priority(item), floor(item), addressee(item), size(item),
+                                        arrivalTime(item));
+        return arrived.takenAt(takenTime(item));
+    }
+
+    /**
+     * The number of items held, added and not yet released
+     * @return the number of items
+     */
+    public synchronized int getNumItems()
+    {
+        return numHandles - numFree;
+    }
+
+    /**
+     * The number of items the columns have room for before they grow again
+     * @return the capacity in items
+     */
+    public int getCapacity()
+    {
+        return columns.floors.length;
+    }
+
+    /**
+     * Write every handle given out, whether held or free, the free list in the order handles will be
+     * reused, and every addressee seen, so items added after resuming get the same handles as before
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public synchronized void writeCheckpoint(DataOutput out) throws IOException
+    {
+        Columns current = columns;
+        out.writeInt(current.floors.length);
+        out.writeInt(numHandles);
+        for (int handle = 0; handle < numHandles; handle++) {
+            out.writeInt(current.floors[handle]);
+            out.writeInt(current.attributes[handle]);
+            out.writeInt(current.addressees[handle]);
+            out.writeLong(current.arrivalTimes[handle]);
+            out.writeLong(current.takenTimes[handle]);
+        }
+        out.writeInt(numFree);
+        for (int i = 0; i < numFree; i++) {
+            out.writeInt(free[i]);
+        }
+        out.writeInt(addressees.size());
+        for (String addressee : addressees) {
+            out.writeUTF(addressee);
+        }
+    }
+
+    /**
+     * Read back the items written by writeCheckpoint, replacing any held
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read or does not hold a store
+     */
+    @Override
+    public synchronized void readCheckpoint(DataInput in) throws IOException
+    {
+        int capacity = in.readInt();
+        int handles = in.readInt();
+        if (capacity < INITIAL_CAPACITY || handles < 0 || handles > capacity) {
+            throw new IOException("Checkpoint holds " + handles + " items in a store of " + capacity);
+        }
+        Columns read = new Columns(capacity);
+        for (int handle = 0; handle < handles; handle++) {
+            read.floors[handle] = in.readInt();
+            read.attributes[handle] = in.readInt();
+            read.addressees[handle] = in.readInt();
+            read.arrivalTimes[handle] = in.readLong();
+            read.takenTimes[handle] = in.readLong();
+        }
+        int freed = in.readInt();
+        if (freed < 0 || freed > handles) {
+            throw new IOException("Checkpoint holds " + freed + " free handles of " + handles);
+        }
+        numFree = 0;
+        makeFree(freed);
+        for (int i = 0; i < freed; i++) {
+            free[i] = in.readInt();
+        }
+        numFree = freed;
+        numHandles = handles;
+        addresseeIds.clear();
+        addressees.clear();
+        int numAddressees = in.readInt();
+        for (int i = 0; i < numAddressees; i++) {
+            intern(in.readUTF());
+        }
+        columns = read;
+    }
+
+    /**
+     * Give each distinct addressee a number, the first time it is seen
+     * @param addressee the addressee
+     * @return the addressee's number
+     */
+    private int intern(String addressee)
+    {
+        Integer id = addresseeIds.get(addressee);
+        if (id == null) {
+            id = addressees.size();
+            addressees.add(addressee);
+            addresseeIds.put(addressee, id);
+        }
+        return id;
+    }
+
+    /**
+     * Make room in the free list for more handles, growing it only as far as handles are given back so
+     * it stays small while items are held
+     * @param count the number of handles about to be given back
+     */
+    private void makeFree(int count)
+    {
+        if (numFree + count > free.length) {
+            free = Arrays.copyOf(free, Math.max(numFree + count, free.length * 2));
+        }
+    }
+
+    /**
+     * Copy the columns into ones twice the size
+     */
+    private void grow()
+    {
+        Columns old = columns;
+        int capacity = old.floors.length * 2;
+        if (capacity < 0) {
+            throw new IllegalStateException("Too many items held at once");
+        }
+        Columns grown = new Columns(capacity);
+        System.arraycopy(old.floors, 0, grown.floors, 0, numHandles);
+        System.arraycopy(old.attributes, 0, grown.attributes, 0, numHandles);
+        System.arraycopy(old.addressees, 0, grown.addressees, 0, numHandles);
+        System.arraycopy(old.arrivalTimes, 0, grown.arrivalTimes, 0, numHandles);
+        System.arraycopy(old.takenTimes, 0, grown.takenTimes, 0, numHandles);
+        columns = grown;
+    }
+
+    /**
+     * The fields of every item, one array per field indexed by handle
+     */
+    private static class Columns
+    {
+        private final int[] floors;
+        // Size, type and priority packed together
+        private final int[] attributes;
+        // Numbers of the interned addressees
+        private final int[] addressees;
+        private final long[] arrivalTimes;
+        private final long[] takenTimes;
+
+        Columns(int capacity)
+        {
+            this.floors = new int[capacity];
+            this.attributes = new int[capacity];
+            this.addressees = new int[capacity];
+            this.arrivalTimes = new long[capacity];
+            this.takenTimes = new long[capacity];
+        }
+    }
+}
@@ -7,22 +7,84 @@ package com.unimelb.swen30006.mailroom;
 import com.unimelb.swen30006.mailroom.exceptions.MailOverflowException;
 import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
 import com.unimelb.swen30006.mailroom.exceptions.UnknownIdentifierException;
+import com.unimelb.swen30006.mailroom.recording.EventRecorder;
+import com.unimelb.swen30006.mailroom.recording.EventType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
 
 /**
  * A MailSorting computer that takes a MailSource, and a Sorting Strategy and will
  * use that strategy to continuously sort mail into boxes until their is none left
  * in the MailSource. Works with delivery bots to clear storage and deliver mail
+ *
+ * Mail that does not fit in storage is held in a bounded staging buffer and tried again
+ * every step, oldest first, until storage frees up. While the buffer is full the sorter
+ * stops taking mail from the source. Mail is only dropped if it does not fit even when
+ * storage is empty, or if the buffer has no capacity at all.
+ *
+ * Mail is only taken from the source once it has arrived by the current simulated time, so sources
+ * that deliver mail over time can be sorted as it comes in.
+ *
+ * Each step the sorter takes up to a batch of mail that has arrived and hands the whole batch to the
+ * strategy, so strategies that can plan several items together only pay their planning cost once per
+ * batch. By default the batch is a single item.
+ *
+ * If storage holds its items in a MailItemStore, mail is taken from the source straight into the store and
+ * sorted, staged and stored by handle, so no mail item is made unless an observer needs to be told about it.
+ *
+ * A sorter is checkpointed along with its source and, if it keeps any state, its strategy.
  */
-public class MailSorter implements Stepable {
+public class MailSorter implements Schedulable, Checkpointable {
+    /** The number of items staged by default while storage is full */
+    public static final int DEFAULT_STAGING_CAPACITY = 10;
+    /** The number of items sorted each step by default */
+    public static final int DEFAULT_BATCH_SIZE = 1;
 
     /** The mail storage system in use */
     private final MailStorage storage;
+    /** The store holding storage's items, or null if storage holds whole mail items */
+    private final MailItemStore items;
     /** The mail source we are sorting from */
     private final MailSource source;
     /** The sorting strategy we apply */
     private final SortingStrategy strategy;
     /** Flag for whether we have finished or not */
     private boolean hasFinished = false;
+    /** The clock giving the time of each plain step */
+    private final SimulationClock clock;
+    /** Told about each item taken from the source or dropped */
+    private SimulationObserver observer = SimulationObserver.NONE;
+    /** Records what happens to each item, or null if the run is not being recorded */
+    private EventRecorder.Lane recorder;
+
+    /** Mail waiting for room in storage, oldest first */
+    private final ArrayDeque<StagedItem> staged;
+    /** The most items that can be staged before the sorter stops taking mail from the source */
+    private final int stagingCapacity;
+
+    /** The most items taken from the source and sorted each step */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    /** The items taken this step, as items or as handles in the store, and the handle of the box the
+     * strategy assigned each of them */
+    private MailItem[] batch = new MailItem[DEFAULT_BATCH_SIZE];
+    private int[] batchHandles = new int[DEFAULT_BATCH_SIZE];
+    private int[] handles = new int[DEFAULT_BATCH_SIZE];
+
+    /** The time of the last step taken, and the time the sorter finished */
+    private long lastStepTime = -1;
+    private long finishTime;
+    /** Staging statistics so far */
+    private int numStaged;
+    private int numDropped;
+    private int maxDepth;
+    /** The sum over every tick until the sorter finished of the number of items staged */
+    private long totalDepth;
+    private long totalWaitTime;
+    private long maxWaitTime;
+    private long blockedSteps;
 
     /**
      * Instantiate a MailSorter with the given parameters. Does not begin sort from source
@@ -32,42 +94,523 @@ public class MailSorter implements Stepable {
      * @param strategy the strategy this source should use to decide on sorting decisions
      */
     public MailSorter(MailSource source, MailStorage storage, SortingStrategy strategy) {
+        this(source, storage, strategy, DEFAULT_STAGING_CAPACITY);
+    }
+
+    /**
+     * Instantiate a MailSorter with the given parameters and staging capacity. Does not begin sort from source
+     *
+     * @param source   the mail source this sorter should retrieve mail from
+     * @param storage  the storage source this sorter should use to store mail in
+     * @param strategy the strategy this source should use to decide on sorting decisions
+     * @param stagingCapacity the most items to hold while storage is full, or 0 to drop mail that does not fit
+     */
+    public MailSorter(MailSource source, MailStorage storage, SortingStrategy strategy, int stagingCapacity) {
+        this(source, storage, strategy, stagingCapacity, new SimulationClock());
+    }
+
+    /**
+     * Instantiate a MailSorter with the given parameters and staging capacity, stepping at the time
+     * shown on a clock shared with the rest of the run. Does not begin sort from source
+     *
+     * @param source   the mail source this sorter should retrieve mail from
+     * @param storage  the storage source this sorter should use to store mail in
+     * @param strategy the strategy this source should use to decide on sorting decisions
+     * @param stagingCapacity the most items to hold while storage is full, or 0 to drop mail that does not fit
+     * @param clock    the clock giving the time of each step
+     */
+    public MailSorter(MailSource source, MailStorage storage, SortingStrategy strategy, int stagingCapacity,
+                      SimulationClock clock) {
+        if (stagingCapacity < 0) {
+            throw new IllegalArgumentException("Staging capacity cannot be negative, got " + stagingCapacity);
+        }
         this.source = source;
         this.storage = storage;
+        this.items = storage.getItemStore();
         this.strategy = strategy;
+        this.stagingCapacity = stagingCapacity;
+        this.staged = new ArrayDeque<StagedItem>();
+        this.clock = clock;
+    }
+
+    /**
+     * Set the observer told about each item taken from the source or dropped
+     * @param observer the observer to tell
+     */
+    public void setObserver(SimulationObserver observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Record what happens to each item taken from the source: whether it is sorted, staged or dropped
+     * @param recorder the lane to record through, or null to stop recording
+     */
+    public void setRecorder(EventRecorder.Lane recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Set the most items to take from the source and sort each step. The same number of staged items
+     * are retried each step.
+     * @param batchSize the number of items to sort each step, at least one
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, got " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.batch = new MailItem[batchSize];
+        this.batchHandles = new int[batchSize];
+        this.handles = new int[batchSize];
     }
 
     @Override
     public void step() {
-        if (source.hasNextMail()) {
+        stepAt(this.clock.now());
+    }
+
+    /**
+     * Take a single step at the given simulated time
+     * @param time the current simulated time
+     */
+    private void stepAt(long time) {
+        // Ticks skipped since the last step kept the depth that step left
+        boolean wasFinished = this.hasFinished;
+        if (!wasFinished) {
+            this.totalDepth += this.staged.size() * Math.max(0, time - this.lastStepTime - 1);
+        }
+        this.lastStepTime = time;
+
+        // Give the oldest staged items first chance at any room that has freed up, stopping at the
+        // first that still doesn't fit so that staged mail is stored in the order it arrived
+        for (int retried = 0; retried < this.batchSize && !this.staged.isEmpty(); retried++) {
+            StagedItem oldest = this.staged.peekFirst();
+            int handle = assignStaged(oldest);
+            if (!store(oldest, handle)) {
+                if (this.storage.isEmpty()) {
+                    // It doesn't fit even in empty storage, so it never will
+                    record(EventType.STAGED_ITEM_DROPPED, time, MailStorage.NO_HANDLE, oldest);
+                    drop(this.staged.pollFirst(), time);
+                }
+                break;
+            }
+            record(EventType.STAGED_ITEM_SORTED, time, handle, oldest);
+            StagedItem stored = this.staged.pollFirst();
+            long waited = time - stored.stagedAt;
+            this.totalWaitTime += waited;
+            this.maxWaitTime = Math.max(this.maxWaitTime, waited);
+        }
+
+        if (source.hasMailBy(time)) {
+            if (this.stagingCapacity > 0 && this.staged.size() >= this.stagingCapacity) {
+                // Staging is full, so leave mail in the source until storage frees up
+                this.blockedSteps++;
+            } else {
+                sortBatch(takeBatch(time), time);
+            }
+        } else if (!wasFinished && source.isExhausted() && this.staged.isEmpty() && this.storage.isEmpty()) {
+            // Only the first step that finds nothing left is the finish, however long the bots take after
+            this.hasFinished = true;
+            this.finishTime = time;
+        }
+
+        if (!wasFinished) {
+            this.totalDepth += this.staged.size();
+        }
+    }
+
+    /**
+     * Take as much of a batch as has arrived from the source, leaving room in staging for every item
+     * taken in case none of them fit
+     * @param time the current simulated time
+     * @return the number of items taken into the batch
+     */
+    private int takeBatch(long time) {
+        int count = 0;
+        while (count < this.batchSize && source.hasMailBy(time)
+                && (this.stagingCapacity == 0 || this.staged.size() + count < this.stagingCapacity)) {
             try {
-                // Continue while we have mail
-                MailItem nextMail = source.nextItem();
-                // Retrieve identifier
-                String identifier = strategy.assignStorage(nextMail, this.storage);
-                //System.out.println("MailBox: " + identifier);
-                // Assign Storage
-                StorageBox box = this.storage.retrieveBox(identifier);
-                box.addItem(nextMail);
-            } catch (MailOverflowException e) {
-                // Strategy has decided storage has no room for mail item, wait for deliver.
-                System.out.println(e);
-            } catch (UnknownIdentifierException e) {
-                // Strategy has not correctly identified box
+                // Continue while we have mail, noting when each item leaves the source
+                if (this.items != null) {
+                    int nextMail = source.nextItemInto(this.items, time);
+                    if (this.observer != SimulationObserver.NONE) {
+                        this.observer.mailTaken(this.items.get(nextMail), time);
+                    }
+                    this.batchHandles[count++] = nextMail;
+                } else {
+                    MailItem nextMail = source.nextItem().takenAt(time);
+                    this.observer.mailTaken(nextMail, time);
+                    this.batch[count++] = nextMail;
+                }
+            } catch (SourceExhaustedException e) {
+                // Print the exception out to warn and sort what we have
                 System.out.println(e);
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Have the strategy assign the batch and sort each item into its box, staging those that don't fit
+     * @param count the number of items in the batch
+     * @param time the current simulated time
+     */
+    private void sortBatch(int count, long time) {
+        int from = 0;
+        while (from < count) {
+            // Overflow is common enough that it is reported by handle without being thrown
+            int assigned = this.items != null
+                    ? strategy.tryAssignHandles(this.items, this.batchHandles, from, count - from, this.storage,
+                                                this.handles)
+                    : strategy.tryAssignHandles(this.batch, from, count - from, this.storage, this.handles);
+            if (assigned < 1 || assigned > count - from) {
+                // Strategy has not assigned a sensible part of the batch
+                System.out.println(new IllegalStateException("Assigned " + assigned + " of " + (count - from) + " items"));
                 System.out.println("FATAL: Sort Strategy failed. Abort");
                 System.exit(0);
-            } catch (SourceExhaustedException e) {
-                // Print the exception out to warn and return
-                System.out.println(e);
             }
-        } else if(this.storage.isEmpty()){
-            this.hasFinished = true;
+            for (int i = from; i < from + assigned; i++) {
+                if (this.items != null) {
+                    if (storeHandle(this.batchHandles[i], this.handles[i])) {
+                        record(EventType.ITEM_SORTED, time, this.handles[i], this.batchHandles[i]);
+                    } else {
+                        stage(new StagedItem(this.batchHandles[i], time), time);
+                    }
+                } else {
+                    if (store(this.batch[i], this.handles[i])) {
+                        record(EventType.ITEM_SORTED, time, this.handles[i], this.batch[i]);
+                    } else {
+                        stage(new StagedItem(this.batch[i], time), time);
+                    }
+                    this.batch[i] = null;
+                }
+            }
+            from += assigned;
         }
     }
 
+    /**
+     * Try to sort an item into the box the strategy assigned it
+     * @param item the item to store
+     * @param handle the handle of the box assigned to the item
+     * @return true if the item was stored, false if the strategy found no room for it
+     */
+    private boolean store(MailItem item, int handle) {
+        StorageBox box = assignedBox(handle);
+        // The strategy may have picked a box without room for the mail item
+        return box != null && box.tryAddItem(item);
+    }
+
+    /**
+     * Try to sort an item held in the store into the box the strategy assigned it
+     * @param item the handle of the item in the store
+     * @param handle the handle of the box assigned to the item
+     * @return true if the item was stored, false if the strategy found no room for it
+     */
+    private boolean storeHandle(int item, int handle) {
+        StorageBox box = assignedBox(handle);
+        // The strategy may have picked a box without room for the mail item
+        return box != null && box.tryAddHandle(item);
+    }
+
+    /**
+     * Have the strategy assign a staged item again
+     * @param staged the staged item
+     * @return the handle of the box assigned to the item, or NO_HANDLE if there is no room for it
+     */
+    private int assignStaged(StagedItem staged) {
+        if (this.items != null) {
+            return strategy.tryAssignHandle(this.items, staged.handle, this.storage);
+        }
+        return strategy.tryAssignHandle(staged.item, this.storage);
+    }
+
+    /**
+     * Try to sort a staged item into the box the strategy assigned it
+     * @param staged the staged item
+     * @param handle the handle of the box assigned to the item
+     * @return true if the item was stored
+     */
+    private boolean store(StagedItem staged, int handle) {
+        if (this.items != null) {
+            return storeHandle(staged.handle, handle);
+        }
+        return store(staged.item, handle);
+    }
+
+    /**
+     * Find the box the strategy assigned an item, aborting if the strategy named a box that isn't there
+     * @param handle the handle of the box assigned to the item
+     * @return the box, or null if the strategy found no room
+     */
+    private StorageBox assignedBox(int handle) {
+        if (handle == MailStorage.NO_HANDLE) {
+            // Strategy has decided storage has no room for mail item, wait for deliver.
+            return null;
+        }
+        // Assign Storage
+        StorageBox box = this.storage.boxOf(handle);
+        if (box == null) {
+            // Strategy has not correctly identified box
+            System.out.println(new UnknownIdentifierException("with handle " + handle));
+            System.out.println("FATAL: Sort Strategy failed. Abort");
+            System.exit(0);
+        }
+        return box;
+    }
+
+    /**
+     * Hold an item that did not fit until storage frees up, or drop it if it never will
+     * @param item the item that did not fit, staged from the current time
+     * @param time the current simulated time
+     */
+    private void stage(StagedItem item, long time) {
+        if (this.stagingCapacity == 0 || this.storage.isEmpty()) {
+            // Nowhere to hold it, or too big for even an empty storage unit
+            record(EventType.ITEM_DROPPED, time, MailStorage.NO_HANDLE, item);
+            drop(item, time);
+            return;
+        }
+        record(EventType.ITEM_STAGED, time, MailStorage.NO_HANDLE, item);
+        this.staged.addLast(item);
+        this.numStaged++;
+        this.maxDepth = Math.max(this.maxDepth, this.staged.size());
+    }
+
+    /**
+     * Give up on an item, reporting it as lost and giving its handle back to the store if it has one
+     * @param item the item that will not be stored
+     * @param time the current simulated time
+     */
+    private void drop(StagedItem item, long time) {
+        System.out.println(new MailOverflowException());
+        this.numDropped++;
+        if (this.items == null) {
+            this.observer.mailDropped(item.item, time);
+            return;
+        }
+        if (this.observer != SimulationObserver.NONE) {
+            this.observer.mailDropped(this.items.get(item.handle), time);
+        }
+        this.items.release(item.handle);
+    }
+
+    /**
+     * Record something happening to an item, if the run is being recorded
+     * @param type what happened
+     * @param time the current simulated time
+     * @param handle the handle of the box the item was sorted into, or NO_HANDLE
+     * @param item the item
+     */
+    private void record(EventType type, long time, int handle, MailItem item) {
+        if (this.recorder != null) {
+            this.recorder.item(type, time, handle, item);
+        }
+    }
+
+    /**
+     * Record something happening to an item held in the store, if the run is being recorded
+     * @param type what happened
+     * @param time the current simulated time
+     * @param handle the handle of the box the item was sorted into, or NO_HANDLE
+     * @param item the handle of the item in the store
+     */
+    private void record(EventType type, long time, int handle, int item) {
+        if (this.recorder != null) {
+            this.recorder.item(type, time, handle, this.items, item);
+        }
+    }
+
+    /**
+     * Record something happening to a staged item, if the run is being recorded
+     * @param type what happened
+     * @param time the current simulated time
+     * @param handle the handle of the box the item was sorted into, or NO_HANDLE
+     * @param item the staged item
+     */
+    private void record(EventType type, long time, int handle, StagedItem item) {
+        if (this.items != null) {
+            record(type, time, handle, item.handle);
+        } else {
+            record(type, time, handle, item.item);
+        }
+    }
+
+    /**
+     * Sort one item each tick while mail has arrived or mail is staged. While the source is only waiting
+     * for more mail to arrive, the sorter sleeps until the next item does. Once the source runs out, the
+     * sorter only has to check whether storage is empty, which cannot change until something else changes
+     * the storage. Staged mail is retried every tick rather than waiting for a change, since a strategy's
+     * choice may depend on its own state as well as on storage.
+     * @param now the current simulated time
+     * @return the next tick while sorting, the next arrival while waiting for mail, otherwise WAIT_FOR_CHANGE
+     */
+    @Override
+    public long advance(long now) {
+        boolean sorting = source.hasMailBy(now) || !this.staged.isEmpty();
+        stepAt(now);
+        if (sorting) {
+            return now + 1;
+        }
+        long nextArrival = source.nextArrivalTime();
+        return nextArrival == MailSource.NO_MORE_MAIL ? WAIT_FOR_CHANGE : Math.max(now + 1, nextArrival);
+    }
+
     @Override
     public boolean canFinish() {
         return this.hasFinished;
     }
+
+    /**
+     * The number of items currently staged
+     * @return the staging depth
+     */
+    public int stagingDepth() {
+        return this.staged.size();
+    }
+
+    /**
+     * Package the staging statistics so far for reporting
+     * @return the staging statistics
+     */
+    public StagingStatistic retrieveStatistics() {
+        long ticks = (this.hasFinished ? this.finishTime : this.lastStepTime) + 1;
+        double meanDepth = ticks == 0 ? 0 : this.totalDepth / (double) ticks;
+        double meanWait = this.numStaged == this.staged.size() ? 0
+                : this.totalWaitTime / (double) (this.numStaged - this.staged.size());
+        return new StagingStatistic(this.numStaged, this.numDropped, this.maxDepth, meanDepth,
+                this.maxWaitTime, meanWait, this.blockedSteps);
+    }
+
+    /**
+     * Write the staged mail and the staging statistics so far, then the source and the strategy
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     * @throws IllegalStateException if the source cannot be checkpointed
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        out.writeBoolean(this.hasFinished);
+        out.writeLong(this.lastStepTime);
+        out.writeLong(this.finishTime);
+        out.writeInt(this.numStaged);
+        out.writeInt(this.numDropped);
+        out.writeInt(this.maxDepth);
+        out.writeLong(this.totalDepth);
+        out.writeLong(this.totalWaitTime);
+        out.writeLong(this.maxWaitTime);
+        out.writeLong(this.blockedSteps);
+        out.writeInt(this.staged.size());
+        for (StagedItem item : this.staged) {
+            out.writeLong(item.stagedAt);
+            if (this.items != null) {
+                out.writeInt(item.handle);
+            } else {
+                Checkpoints.writeItem(out, item.item);
+            }
+        }
+        Checkpoints.required(this.source, "mail source").writeCheckpoint(out);
+        Checkpoints.writeIfKept(out, this.strategy);
+    }
+
+    /**
+     * Read back what writeCheckpoint wrote. Staged handles refer to the store, which must already have
+     * been read back with storage.
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        this.hasFinished = in.readBoolean();
+        this.lastStepTime = in.readLong();
+        this.finishTime = in.readLong();
+        this.numStaged = in.readInt();
+        this.numDropped = in.readInt();
+        this.maxDepth = in.readInt();
+        this.totalDepth = in.readLong();
+        this.totalWaitTime = in.readLong();
+        this.maxWaitTime = in.readLong();
+        this.blockedSteps = in.readLong();
+        this.staged.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long stagedAt = in.readLong();
+            if (this.items != null) {
+                this.staged.addLast(new StagedItem(in.readInt(), stagedAt));
+            } else {
+                this.staged.addLast(new StagedItem(Checkpoints.readItem(in), stagedAt));
+            }
+        }
+        Checkpoints.required(this.source, "mail source").readCheckpoint(in);
+        Checkpoints.readIfKept(in, this.strategy);
+    }
+
+    /**
+     * An item waiting for room in storage, or its handle in the store, with the time it started waiting
+     */
+    private static class StagedItem {
+        private final MailItem item;
+        private final int handle;
+        private final long stagedAt;
+
+        StagedItem(MailItem item, long stagedAt) {
+            this.item = item;
+            this.handle = MailStorage.NO_HANDLE;
+            this.stagedAt = stagedAt;
+        }
+
+        StagedItem(int handle, long stagedAt) {
+            this.item = null;
+            this.handle = handle;
+            this.stagedAt = stagedAt;
+        }
+    }
+
+    /*
+       A simple class to hold staging statistics as a data structure. Is immutable
+     */
+    public class StagingStatistic {
+        // Number of items that had to be staged
+        public final int itemsStaged;
+        // Number of items dropped because they could never fit
+        public final int itemsDropped;
+        // The most items staged at once
+        public final int maxDepth;
+        // The average number of items staged per tick until the sorter finished
+        public final double meanDepth;
+        // The longest and average time (in steps) a staged item waited to be stored
+        public final long maxWaitTime;
+        public final double meanWaitTime;
+        // The number of steps the sorter left mail in the source because staging was full
+        public final long blockedSteps;
+
+        /**
+         * Create a staging statistic
+         * @param itemsStaged the number of items that had to be staged
+         * @param itemsDropped the number of items dropped
+         * @param maxDepth the most items staged at once
+         * @param meanDepth the average number of items staged per step
+         * @param maxWaitTime the longest a staged item waited
+         * @param meanWaitTime the average time staged items waited
+         * @param blockedSteps the number of steps the source was held back
+         */
+        public StagingStatistic(int itemsStaged, int itemsDropped, int maxDepth, double meanDepth,
+                                long maxWaitTime, double meanWaitTime, long blockedSteps) {
+            this.itemsStaged = itemsStaged;
+            this.itemsDropped = itemsDropped;
+            this.maxDepth = maxDepth;
+            this.meanDepth = meanDepth;
+            this.maxWaitTime = maxWaitTime;
+            this.meanWaitTime = meanWaitTime;
+            this.blockedSteps = blockedSteps;
+        }
+
+        @Override
+        public String toString() {
+            return "Staging: " + itemsStaged + " items staged, " + itemsDropped + " dropped, depth max " +
+                    maxDepth + " mean " + meanDepth + ", wait max " + maxWaitTime + " mean " + meanWaitTime +
+                    " steps, source held back for " + blockedSteps + " steps.";
+        }
+    }
 }
@@ -11,6 +11,9 @@ import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
  * generation logic from the program simulation
  */
 public interface MailSource {
+    /** Returned by nextArrivalTime once no more mail will ever arrive */
+    long NO_MORE_MAIL = Long.MAX_VALUE;
+
     /**
      * Check if the given mail source has any remaining mail
      * @return true if mail remains at the source
@@ -23,4 +26,42 @@ public interface MailSource {
      * @throws SourceExhaustedException if no mail left in the incoming source
      */
     MailItem nextItem() throws SourceExhaustedException;
+
+    /**
+     * Take the next MailItem in the incoming source straight into a store, stamped with the time it was
+     * taken. Sources that can write an item's fields without making the item should override this.
+     * @param items the store to add the item to
+     * @param takenTime the simulated time the item is taken
+     * @return the handle of the item in the store
+     * @throws SourceExhaustedException if no mail left in the incoming source
+     */
+    default int nextItemInto(MailItemStore items, long takenTime) throws SourceExhaustedException {
+        return items.add(nextItem(), takenTime);
+    }
+
+    /**
+     * Check if any mail has arrived at the source by the given simulated time. Sources that have all
+     * their mail from the start have arrived whenever they have mail left.
+     * @param time the current simulated time
+     * @return true if mail has arrived and is waiting to be taken
+     */
+    default boolean hasMailBy(long time) {
+        return hasNextMail();
+    }
+
+    /**
+     * The simulated time the next item arrives, which may already have passed if it is waiting to be taken
+     * @return the arrival time of the next item, or NO_MORE_MAIL if the source is exhausted
+     */
+    default long nextArrivalTime() {
+        return hasNextMail() ? 0 : NO_MORE_MAIL;
+    }
+
+    /**
+     * Check if the source will never have any more mail, as opposed to having none arrived yet
+     * @return true if no more mail will arrive
+     */
+    default boolean isExhausted() {
+        return nextArrivalTime() == NO_MORE_MAIL;
+    }
 }
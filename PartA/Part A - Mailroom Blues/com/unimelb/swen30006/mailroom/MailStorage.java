@@ -4,10 +4,19 @@ import com.unimelb.swen30006.mailroom.exceptions.DuplicateIdentifierException;
 import com.unimelb.swen30006.mailroom.exceptions.MailOverflowException;
 import com.unimelb.swen30006.mailroom.exceptions.UnknownIdentifierException;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 /**
  * Created by mat on 28/01/2016.
+ *
+ * Boxes are known by their string identifier, and also by an integer handle: the position of the box
+ * between 0 and getCapacity() - 1. Handles let strategies find and make boxes with array lookups instead
+ * of building and hashing identifiers, and the identifier methods are kept for compatibility.
  */
 public interface MailStorage {
+    /** Returned in place of a handle when there is no box */
+    int NO_HANDLE = -1;
     /**
      * Check if the storage unit is full of storage boxes
      * @return true if all storage box places are full
@@ -20,6 +29,42 @@ public interface MailStorage {
      */
     boolean isEmpty();
 
+    /**
+     * The number of box handles, which is the most boxes this storage can hold at once
+     * @return the capacity of this storage, handles range from 0 to one less than this
+     */
+    int getCapacity();
+
+    /**
+     * Find the handle of the box with a given identifier
+     * @param name the id of the box
+     * @return the handle of the box, or NO_HANDLE if there is no box stored with this identifier
+     */
+    int handleOf(String name);
+
+    /**
+     * Retrieve a storage box from the storage system by handle
+     * @param handle the handle of the box
+     * @return The box with that handle, or null if there is no box there
+     */
+    StorageBox boxOf(int handle);
+
+    /**
+     * Retrieve the summary of a single Storage Box by handle, without summarising any other box
+     * @param handle the handle of the box
+     * @return the summary of the box, or null if there is no box there
+     */
+    StorageBox.Summary summaryOf(int handle);
+
+    /**
+     * Create a storage box at a given handle, that can be retrieved later by that handle or by ID
+     * @param handle the handle the box will have
+     * @param name the requested identifier
+     * @return true if the box was created, false if the handle is out of range or in use or the
+     * identifier already exists
+     */
+    boolean tryCreateBox(int handle, String name);
+
     /**
      * Retrieve a storage box from the storage system by ID
      * @param name the id of the box
@@ -28,6 +73,20 @@ public interface MailStorage {
      */
     StorageBox retrieveBox(String name) throws UnknownIdentifierException;
 
+    /**
+     * Retrieve a storage box from the storage system by ID, without throwing if it is missing. Storage
+     * systems should override this when they can check for the box directly.
+     * @param name the id of the box
+     * @return The box that matches this identifier, or null if there is none
+     */
+    default StorageBox tryRetrieveBox(String name) {
+        try {
+            return retrieveBox(name);
+        } catch (UnknownIdentifierException e) {
+            return null;
+        }
+    }
+
     /**
      * Create a storage box that can be retrieved later by ID
      * @param name the requested identifier
@@ -37,6 +96,21 @@ public interface MailStorage {
      */
     boolean createBox(String name) throws DuplicateIdentifierException, MailOverflowException;
 
+    /**
+     * Create a storage box that can be retrieved later by ID, without throwing if it cannot be made.
+     * Storage systems should override this when they can check for space directly.
+     * @param name the requested identifier
+     * @return true if the box was created, false if there are no spaces remaining or the identifier
+     * already exists
+     */
+    default boolean tryCreateBox(String name) {
+        try {
+            return createBox(name);
+        } catch (DuplicateIdentifierException | MailOverflowException e) {
+            return false;
+        }
+    }
+
     /**
      * Retrieve an array of all Storage Boxes currently stored within this mail system,
      * including their maximum size, percentage full, number of floors to deliver to
@@ -45,6 +119,71 @@ public interface MailStorage {
      */
     StorageBox.Summary[] retrieveSummaries();
 
+    /**
+     * Retrieve an immutable snapshot of the summaries of every Storage Box currently stored. The snapshot is
+     * cached and only replaced when storage changes, so repeated calls between changes return the same snapshot
+     * without allocating.
+     * @return the latest snapshot of all summaries
+     */
+    SummarySnapshot retrieveSnapshot();
+
+    /**
+     * Retrieve the summary of a single Storage Box by ID, without summarising any other box
+     * @param name the id of the box
+     * @return the summary of the box, or null if there is no box stored with this identifier
+     */
+    StorageBox.Summary retrieveSummary(String name);
+
+    /**
+     * Find the summary of the first box in the given order, breaking ties by handle, lowest first.
+     * Storage systems should override this to keep the boxes indexed in the order instead of scanning
+     * every summary.
+     * @param order the order to look in
+     * @return the summary of the first box, or null if there are no boxes
+     */
+    default StorageBox.Summary firstInOrder(SummaryOrder order) {
+        SummarySnapshot snapshot = retrieveSnapshot();
+        StorageBox.Summary first = null;
+        int firstHandle = NO_HANDLE;
+        for (int i = 0; i < snapshot.size(); i++) {
+            StorageBox.Summary summary = snapshot.get(i);
+            int handle = handleOf(summary.identifier);
+            int compared = first == null ? -1 : order.compare(summary, first);
+            if (compared < 0 || (compared == 0 && handle < firstHandle)) {
+                first = summary;
+                firstHandle = handle;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Find the summaries of the first boxes in the given order, breaking ties by handle, lowest first.
+     * Storage systems should override this to keep the boxes indexed in the order instead of sorting
+     * every summary.
+     * @param order the order to look in
+     * @param count the most summaries to return
+     * @return up to count summaries, first in order first
+     */
+    default StorageBox.Summary[] topInOrder(final SummaryOrder order, int count) {
+        StorageBox.Summary[] summaries = retrieveSnapshot().toArray();
+        Arrays.sort(summaries, new Comparator<StorageBox.Summary>() {
+            @Override
+            public int compare(StorageBox.Summary s1, StorageBox.Summary s2) {
+                int compared = order.compare(s1, s2);
+                return compared != 0 ? compared : Integer.compare(handleOf(s1.identifier), handleOf(s2.identifier));
+            }
+        });
+        return Arrays.copyOf(summaries, Math.min(count, summaries.length));
+    }
+
+    /**
+     * Get the version of this storage, which increases whenever a box is created, delivered or has its
+     * contents changed while in storage
+     * @return the current version
+     */
+    long getVersion();
+
     /**
      * Retrieves a box by identifier for delivery by delivery bot. Will also notify anyone waiting on change in state
      * to the event.
@@ -53,4 +192,27 @@ public interface MailStorage {
      * @throws UnknownIdentifierException if there is no box stored with this identifier
      */
     StorageBox deliverBox(String identifer) throws UnknownIdentifierException;
+
+    /**
+     * Retrieves a box by identifier for delivery by delivery bot, without throwing if it is missing.
+     * Storage systems should override this when they can check for the box directly.
+     * @param identifer identifier of the storage box requested for delivery
+     * @return The box that matches this identifier, or null if there is none
+     */
+    default StorageBox tryDeliverBox(String identifer) {
+        try {
+            return deliverBox(identifer);
+        } catch (UnknownIdentifierException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The store holding the items in this storage's boxes, if its boxes are packed and hold their items
+     * by handle. Mail for packed boxes should be added to the store and sorted in by handle.
+     * @return the store, or null if boxes hold whole mail items
+     */
+    default MailItemStore getItemStore() {
+        return null;
+    }
 }
@@ -0,0 +1,223 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.recording.EventRecorder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the independent runs of a simulation experiment across a pool of threads. Every run is given
+ * its own seed split from the experiment's seed and its own strategies, and results are returned in
+ * run order, so the outcome of an experiment is the same whatever the number of threads.
+ */
+public class ParallelSimulationExecutor
+{
+    // The random streams split from each run's seed, one per randomised component
+    private static final int MAIL_STREAM        = 0;
+    private static final int SORTING_STREAM     = 1;
+    private static final int SELECTION_STREAM   = 2;
+
+    // The number of threads runs are spread across
+    private final int numThreads;
+
+    /**
+     * Create an executor
+     * @param numThreads the maximum number of runs to execute at once
+     */
+    public ParallelSimulationExecutor(int numThreads)
+    {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Executor needs at least one thread, got " + numThreads);
+        }
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Execute a number of simulation runs in parallel
+     * @param building the building the runs operate on
+     * @param seed the seed of the whole experiment, each run's seed is split from it
+     * @param factory produces the strategies for each run
+     * @param numRuns the number of runs to execute
+     * @return the results of each run, indexed by run number
+     * @throws InterruptedException if interrupted while waiting for runs to complete
+     * @throws ExecutionException if any run fails
+     */
+    public RunResult[] runAll(final Building building, long seed,
+                              final StrategyFactory factory, int numRuns)
+            throws InterruptedException, ExecutionException
+    {
+        final RunResult[] results = new RunResult[numRuns];
+        runUntil(building, seed, factory, numRuns, new RunListener() {
+            @Override
+            public boolean runCompleted(int run, RunResult result) {
+                results[run] = result;
+                return true;
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Execute simulation runs in parallel, telling a listener about each in run order, until the
+     * listener has seen enough or the most runs allowed are done. Only a few runs are started ahead of
+     * the one the listener is waiting for, so results need not be kept, and any started past the last
+     * run the listener sees are thrown away. Run n always has the same seed, so an experiment stops
+     * after the same runs with the same results whatever the number of threads.
+     * @param building the building the runs operate on
+     * @param seed the seed of the whole experiment, each run's seed is split from it
+     * @param factory produces the strategies for each run
+     * @param maxRuns the most runs to execute
+     * @param listener told about the results of each run, and asked whether to go on
+     * @return the number of runs the listener was told about
+     * @throws InterruptedException if interrupted while waiting for runs to complete
+     * @throws ExecutionException if any run fails
+     */
+    public int runUntil(final Building building, long seed, final StrategyFactory factory, int maxRuns,
+                        final RunListener listener)
+            throws InterruptedException, ExecutionException
+    {
+        return runPairedUntil(building, seed, new StrategyFactory[] { factory }, maxRuns, new PairedRunListener() {
+            @Override
+            public boolean runCompleted(int run, RunResult[] results) {
+                return listener.runCompleted(run, results[0]);
+            }
+        });
+    }
+
+    /**
+     * Execute simulation runs in parallel as in runUntil, running every one of several strategy
+     * factories on each run's seed. Every factory's run sees the same mail and the same random
+     * streams for its sorting and selection strategies, so differences between the factories' results
+     * come from the strategies alone rather than from the luck of the draw. Comparing results a run at
+     * a time then needs far fewer runs than comparing separately seeded experiments.
+     * @param building the building the runs operate on
+     * @param seed the seed of the whole experiment, each run's seed is split from it
+     * @param factories produce the strategies for each run, one run per factory
+     * @param maxRuns the most runs to execute
+     * @param listener told about the results of each run, and asked whether to go on
+     * @return the number of runs the listener was told about
+     * @throws InterruptedException if interrupted while waiting for runs to complete
+     * @throws ExecutionException if any run fails
+     */
+    public int runPairedUntil(final Building building, long seed, final StrategyFactory[] factories, int maxRuns,
+                              PairedRunListener listener)
+            throws InterruptedException, ExecutionException
+    {
+        SeedSplitter runSeeds = new SeedSplitter(seed);
+        // Keep every thread busy while waiting on the oldest run, without running far ahead of the listener
+        int runsAhead = 2 * numThreads;
+        int maxTasks = maxRuns * factories.length;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, maxTasks)));
+        try {
+            ArrayDeque<List<Future<RunResult>>> started = new ArrayDeque<>(runsAhead);
+            int numStarted = 0;
+            int numCompleted = 0;
+            boolean goOn = true;
+            while (goOn && numCompleted < maxRuns) {
+                // Start runs up to the limit, each with its own seed shared by every factory
+                while (numStarted < maxRuns && started.size() < runsAhead) {
+                    final long runSeed = runSeeds.seedForRun(numStarted);
+                    List<Future<RunResult>> run = new ArrayList<>(factories.length);
+                    for (final StrategyFactory factory : factories) {
+                        run.add(pool.submit(new Callable<RunResult>() {
+                            @Override
+                            public RunResult call() {
+                                return runSingle(building, runSeed, factory);
+                            }
+                        }));
+                    }
+                    started.add(run);
+                    numStarted++;
+                }
+                // Hand over the results in run order
+                List<Future<RunResult>> run = started.remove();
+                RunResult[] results = new RunResult[factories.length];
+                for (int f = 0; f < factories.length; f++) {
+                    results[f] = run.get(f).get();
+                }
+                goOn = listener.runCompleted(numCompleted, results);
+                numCompleted++;
+            }
+            return numCompleted;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Execute a single simulation run on the calling thread
+     * @param building the building the run operates on
+     * @param runSeed the seed of this run
+     * @param factory produces the strategies for the run
+     * @return the results of the run
+     */
+    public static RunResult runSingle(Building building, long runSeed, StrategyFactory factory)
+    {
+        return runSingle(building, runSeed, factory, null, 0);
+    }
+
+    /**
+     * Execute a single simulation run on the calling thread, recording what happens in it
+     * @param building the building the run operates on
+     * @param runSeed the seed of this run
+     * @param factory produces the strategies for the run
+     * @param recorder the recorder to record the run to, or null to not record it
+     * @param recordedRun the number to record the run under
+     * @return the results of the run
+     */
+    public static RunResult runSingle(Building building, long runSeed, StrategyFactory factory,
+                                      EventRecorder recorder, long recordedRun)
+    {
+        SeedSplitter streams = new SeedSplitter(runSeed);
+        MailSource source = SimulationRun.createMailSource(building, streams.seedForRun(MAIL_STREAM));
+        SimulationRun run = new SimulationRun(building, source,
+                factory.createSelectionStrategy(building, streams.seedForRun(SELECTION_STREAM)),
+                factory.createDeliveryStrategy(building),
+                factory.createSortingStrategy(building, streams.seedForRun(SORTING_STREAM)));
+        if (recorder != null) {
+            run.setRecorder(recorder, recordedRun);
+        }
+        return new RunResult(run.run(), run.getLatencies());
+    }
+
+    /**
+     * Told about the results of each run of an experiment as they come in, in run order
+     */
+    public interface RunListener
+    {
+        /**
+         * Take the results of a run
+         * @param run the run's number, counting from zero
+         * @param result the run's results
+         * @return true to go on to the next run, or false if no more runs are needed
+         */
+        boolean runCompleted(int run, RunResult result);
+    }
+
+    /**
+     * Told about the results of every factory for each run of a paired experiment, in run order
+     */
+    public interface PairedRunListener
+    {
+        /**
+         * Take the results of a run
+         * @param run the run's number, counting from zero
+         * @param results the run's results for each factory, in the order the factories were given
+         * @return true to go on to the next run, or false if no more runs are needed
+         */
+        boolean runCompleted(int run, RunResult[] results);
+    }
+}
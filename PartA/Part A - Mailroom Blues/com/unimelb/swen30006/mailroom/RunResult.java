@@ -0,0 +1,50 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import com.unimelb.swen30006.mailroom.metrics.LatencyRecorder;
+
+/**
+ * What a finished simulation run measured, kept apart from the run itself so that the run's storage
+ * and bots can be let go once it is done
+ */
+public class RunResult
+{
+    // The statistics of every delivery made during the run, grouped by bot
+    private final DeliveryBot.DeliveryStatistic[] deliveries;
+    // The latency of every item delivered
+    private final LatencyRecorder latencies;
+
+    /**
+     * Create the result of a run
+     * @param deliveries the statistics of every delivery made during the run
+     * @param latencies the latency of every item delivered
+     */
+    public RunResult(DeliveryBot.DeliveryStatistic[] deliveries, LatencyRecorder latencies)
+    {
+        this.deliveries = deliveries;
+        this.latencies = latencies;
+    }
+
+    /**
+     * The statistics of every delivery made during the run
+     * @return the delivery statistics, grouped by bot
+     */
+    public DeliveryBot.DeliveryStatistic[] getDeliveries()
+    {
+        return deliveries;
+    }
+
+    /**
+     * The latency of every item delivered during the run
+     * @return the latencies
+     */
+    public LatencyRecorder getLatencies()
+    {
+        return latencies;
+    }
+}
@@ -0,0 +1,32 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+/**
+ * A Stepable that can tell an event scheduler when it next needs to act, so the scheduler can jump
+ * straight to that time instead of stepping it every tick. Acting at a time must have the same effect
+ * as the steps it replaces would have had in the lock-step loop, where each tick steps every component
+ * once in a fixed order.
+ */
+public interface Schedulable extends Stepable
+{
+    /** Returned by advance when nothing will change until storage does */
+    long WAIT_FOR_CHANGE = -1;
+
+    /**
+     * Act at the given simulated time, then say when to act next. By default this is a single step
+     * followed by another on the next tick, exactly as in the lock-step loop.
+     * @param now the current simulated time
+     * @return the time to act next, later than now, or WAIT_FOR_CHANGE if stepping again would do
+     * nothing until the storage changes
+     */
+    default long advance(long now)
+    {
+        step();
+        return now + 1;
+    }
+}
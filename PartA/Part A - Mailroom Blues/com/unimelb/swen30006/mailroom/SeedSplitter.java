@@ -0,0 +1,52 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+/**
+ * Derives independent seeds for each run of an experiment from a single base seed, so that
+ * every run sees the same random numbers no matter which thread or in what order it is run.
+ * Uses the SplitMix64 mixing function to decorrelate consecutive run numbers.
+ */
+public class SeedSplitter
+{
+    // The golden ratio increment used by SplitMix64
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // The seed all run seeds are derived from
+    private final long baseSeed;
+
+    /**
+     * Create a seed splitter
+     * @param baseSeed the seed of the whole experiment
+     */
+    public SeedSplitter(long baseSeed)
+    {
+        this.baseSeed = baseSeed;
+    }
+
+    /**
+     * Get the seed for a given run
+     * @param run the index of the run
+     * @return the seed that run should use
+     */
+    public long seedForRun(int run)
+    {
+        return mix(baseSeed + (run + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * The SplitMix64 finalising function
+     * @param z the value to mix
+     * @return a well distributed 64 bit value
+     */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -19,4 +19,80 @@ public interface SelectionStrategy {
      * @throws NoBoxReadyException if there is no suitable box ready to be delivered
      */
     String selectNextDelivery(StorageBox.Summary[] summaries) throws NoBoxReadyException;
+
+    /**
+     * A method to select a next box from a snapshot of the storage box summaries. Strategies that can
+     * work from the snapshot directly should override this to avoid copying the summaries.
+     * @param snapshot the snapshot of the storage box summaries
+     * @return the optimal storage box to deliver next based on the current system
+     * @throws NoBoxReadyException if there is no suitable box ready to be delivered
+     */
+    default String selectNextDelivery(SummarySnapshot snapshot) throws NoBoxReadyException {
+        return selectNextDelivery(snapshot.toArray());
+    }
+
+    /**
+     * Select a next box from a snapshot of the storage box summaries without throwing when none is ready,
+     * for bots that poll every step. Strategies should override this to avoid creating an exception for
+     * every idle bot.
+     * @param snapshot the snapshot of the storage box summaries
+     * @return the optimal storage box to deliver next, or null if there is no suitable box ready
+     */
+    default String trySelectNextDelivery(SummarySnapshot snapshot) {
+        try {
+            return selectNextDelivery(snapshot);
+        } catch (NoBoxReadyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Select a next box straight from storage without throwing when none is ready. Strategies that only
+     * need the first box in some order should override this to ask storage for it, so storage can answer
+     * from an index instead of the strategy looking at every summary. By default the strategy picks from
+     * the latest snapshot.
+     * @param storage the storage to select from
+     * @return the optimal storage box to deliver next, or null if there is no suitable box ready
+     */
+    default String trySelectNextDelivery(MailStorage storage) {
+        return trySelectNextDelivery(storage.retrieveSnapshot());
+    }
+
+    /**
+     * Select a box to carry on a trip along with the boxes a bot already has, for bots that carry several
+     * boxes a trip. Only boxes with mail for some floor the trip passes are compatible, so adding one sends
+     * the bot past few floors it was not already going to. By default the compatible box that stretches the
+     * trip over the fewest extra floors is selected, then the one with the most items, then the first in
+     * the latest snapshot.
+     * @param storage the storage to select from
+     * @param lowestFloor the lowest floor the trip passes, taking in the mail room and every box carried
+     * @param highestFloor the highest floor the trip passes, taking in the mail room and every box carried
+     * @param units the mail units the bot has room for, which the mail in the box must fit in
+     * @return the box to carry as well, or null if no box in storage is compatible with the trip
+     */
+    default String trySelectCompanion(MailStorage storage, int lowestFloor, int highestFloor, int units) {
+        SummarySnapshot snapshot = storage.retrieveSnapshot();
+        StorageBox.Summary best = null;
+        int bestStretch = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            StorageBox.Summary summary = snapshot.get(i);
+            // Boxes summarised without their floors have the lowest floor NO_FLOOR, so never overlap
+            if (summary.numItems == 0 || summary.lowestFloor == StorageBox.NO_FLOOR
+                    || summary.lowestFloor > highestFloor || summary.highestFloor < lowestFloor) {
+                continue;
+            }
+            int stretch = Math.max(0, lowestFloor - summary.lowestFloor)
+                          + Math.max(0, summary.highestFloor - highestFloor);
+            if (best != null && (stretch > bestStretch
+                                 || (stretch == bestStretch && summary.numItems <= best.numItems))) {
+                continue;
+            }
+            StorageBox box = storage.tryRetrieveBox(summary.identifier);
+            if (box != null && box.maxItems - box.remainingUnits() <= units) {
+                best = summary;
+                bestStretch = stretch;
+            }
+        }
+        return best == null ? null : best.identifier;
+    }
 }
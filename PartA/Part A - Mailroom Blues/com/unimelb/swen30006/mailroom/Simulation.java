@@ -9,16 +9,18 @@ package com.unimelb.swen30006.mailroom;
 
 import com.unimelb.swen30006.mailroom.buildings.Building;
 import com.unimelb.swen30006.mailroom.buildings.BuildingFactory;
-import com.unimelb.swen30006.mailroom.samples.SimpleMailGenerator;
-import com.unimelb.swen30006.mailroom.samples.SimpleMailStorage;
-import com.unimelb.swen30006.mailroom.strategies.delivery.SortedByFloorDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.metrics.ExperimentStatistics;
+import com.unimelb.swen30006.mailroom.metrics.RunningStatistic;
+import com.unimelb.swen30006.mailroom.strategies.delivery.RoutePlanningDeliveryStrategy;
 import com.unimelb.swen30006.mailroom.strategies.selection.FullnessSelectionStrategy;
 import com.unimelb.swen30006.mailroom.strategies.selection.RandomSelectionStrategy;
 import com.unimelb.swen30006.mailroom.strategies.sorting.EvenDistributionSortingStrategy;
 import com.unimelb.swen30006.mailroom.strategies.sorting.RandomSortingStrategy;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A basic driver program to instantiate an instance of the MailSorter with an
@@ -32,6 +34,16 @@ public class Simulation
     private static Building.BuildingType BUILDING_TYPE_DEFAULT = Building.BuildingType.Unspecified;
 
     private static int NUM_RUNS = 10;
+    // When asked for precise results, runs continue until every mean is known to within this fraction
+    // of itself at this confidence, with at least and at most these many runs
+    private static double TARGET_PRECISION = 0.02;
+    private static double CONFIDENCE = 0.95;
+    private static int MIN_PRECISE_RUNS = 5;
+    private static int MAX_PRECISE_RUNS = 1000;
+    // Seed every run's seed is split from when the simulation is predictable
+    private static long PREDICTABLE_SEED = 12345;
+    // Number of runs simulated at once
+    private static int NUM_THREADS = Runtime.getRuntime().availableProcessors();
 
     public static void main(String args[])
     {
@@ -42,120 +54,92 @@ public class Simulation
         cmdLineSettings.takeArguments(args);
 
         BuildingFactory buildingFactory = new BuildingFactory();
-        Building testBuilding = buildingFactory.getNewBuilding(cmdLineSettings.getBuildingType());
+        if (cmdLineSettings.getBuildingsFile() != null) {
+            try {
+                buildingFactory.load(Paths.get(cmdLineSettings.getBuildingsFile()));
+            } catch (IOException e) {
+                System.out.println(e);
+                System.out.println("FATAL: Buildings file could not be read. Abort");
+                System.exit(0);
+            }
+        }
+        Building testBuilding = cmdLineSettings.getBuildingName() != null
+                ? buildingFactory.getBuilding(cmdLineSettings.getBuildingName())
+                : buildingFactory.getNewBuilding(cmdLineSettings.getBuildingType());
 
-        // Create the appropriate strategies
-        SortingStrategy sortStrategy = new EvenDistributionSortingStrategy(testBuilding.getMaxBoxes());
-        SelectionStrategy selectionStrategy = new FullnessSelectionStrategy();
-        DeliveryStrategy deliveryStrategy = new SortedByFloorDeliveryStrategy();
+        // Create the appropriate strategies for each run
+        StrategyFactory strategies = new DefaultStrategyFactory();
 
         // Run the simulation with the appropriate arguments
-        runSimulation(testBuilding, cmdLineSettings.isPredictable(), selectionStrategy,
-                      deliveryStrategy, sortStrategy, cmdLineSettings.printDetailed(), NUM_RUNS);
+        if (cmdLineSettings.isPrecise()) {
+            runSimulation(testBuilding, cmdLineSettings.isPredictable(), strategies,
+                          cmdLineSettings.printDetailed(), MIN_PRECISE_RUNS, MAX_PRECISE_RUNS);
+        } else {
+            runSimulation(testBuilding, cmdLineSettings.isPredictable(), strategies,
+                          cmdLineSettings.printDetailed(), NUM_RUNS, NUM_RUNS);
+        }
     }
 
     /**
      * A method to run a simulation given a set of parameters and strategies. Will handle running the multiple
-     * simulation runs and averaging the results.
+     * simulation runs in parallel and averaging the results. Runs continue past the minimum until the mean
+     * total time, floors and delivery runs are all precise to TARGET_PRECISION, or the maximum is reached.
      * @param building the building that the simulation will operate on
      * @param predictable whether to use predictable (fixed seed) mail generation or not. Setting this value to false
-     *                    will use random seeds for each run. Setting it to true will result in the same values for each
-     *                    run.
-     * @param selectionStrategy the selection strategy to use for this simulation
-     * @param deliveryStrategy the delivery strategy to use for this simulation
-     * @param sortingStrategy the sorting strategy to use for this simulation
+     *                    will use a random seed for the experiment. Setting it to true will result in the same values
+     *                    for each experiment. Each run is seeded differently from the experiment's seed either way.
+     * @param strategies the factory producing the selection, delivery and sorting strategies for each run
      * @param printDetailed whether or not you want the detailed output for each run. If true the console output will be
      *                      very verbose.
-     * @param numRuns The number of simulation runs for this experiment. Will average the results over this many runs.
+     * @param minRuns The fewest simulation runs for this experiment.
+     * @param maxRuns The most simulation runs for this experiment. Will average the results over however many are run.
      */
-    private static void runSimulation(Building building, boolean predictable,
-                                      SelectionStrategy selectionStrategy, DeliveryStrategy deliveryStrategy,
-                                      SortingStrategy sortingStrategy, boolean printDetailed, int numRuns)
+    private static void runSimulation(Building building, boolean predictable, StrategyFactory strategies,
+                                      final boolean printDetailed, final int minRuns, int maxRuns)
     {
         // Get building parameters
-        int minFloor        = building.getMinFloor();
-        int maxFloor        = building.getMaxFloor();
-        int numMail         = building.getMaxMailUnits();
-        int maxBoxes        = building.getMaxBoxes();
-        int maxMailUnits    = building.getMaxMailUnits();
+        int numMail         = building.getNumMailItems();
         int numBots         = building.getNumBots();
-        int mailLevel       = building.getMailRoomLevel();
 
         // Setup variables for the simulation
-        double totalTime = 0;
-        double totalFloors = 0;
-        double numDeliveries = 0;
+        final ExperimentStatistics statistics = new ExperimentStatistics();
 
         // Print detailed header if required
         if(printDetailed) {
             System.out.println("==========    DETAILED RUNS    ==========");
         }
 
-        // Run the required number of simulations
-        for(int i=0; i<numRuns; i++){
-            // Setup Mail Generator
-            MailItem.MailPriority[] priorities = MailItem.MailPriority.values();
-            MailItem.MailType[] types = MailItem.MailType.values();
-            MailSource generator = new SimpleMailGenerator(minFloor, maxFloor, priorities, types, numMail, predictable);
-
-            // Setup storage
-            MailStorage storage = new SimpleMailStorage(maxBoxes, maxMailUnits);
-
-            // Setup MailSorter
-            MailSorter sorter = new MailSorter(generator, storage,sortingStrategy);
-
-            // Create the deliver bots
-            DeliveryBot bots[] = new DeliveryBot[numBots];
-            for(int k=0;  k<numBots;  k++){
-                bots[k] = new DeliveryBot(selectionStrategy, deliveryStrategy, storage, mailLevel);
-            }
-
-            // Run the simulation
-            boolean finished = false;
-            while(!finished){
-                // Update the sorter
-                sorter.step();
-
-                // Update all the delivery bots
-                boolean anyBotBlocking = false;
-                for(int b=0; b<numBots; b++){
-                    bots[b].step();
-                    anyBotBlocking = !bots[b].canFinish() || anyBotBlocking;
-                }
-
-                // Check if we are finished
-                finished = sorter.canFinish() && !anyBotBlocking;
-            }
-
-            // Retrieve statistics
-            ArrayList<DeliveryBot.DeliveryStatistic> stats = new ArrayList<>();
-            for(int j=0; j<numBots; j++){
-                DeliveryBot.DeliveryStatistic[] botStats = bots[j].retrieveStatistics();
-                stats.addAll(Arrays.asList(botStats));
-            }
-
-            // Calculate averages and totals
-            for(DeliveryBot.DeliveryStatistic stat : stats){
-                totalTime += stat.timeTaken;
-                totalFloors += stat.numFloors;
-            }
-
-            // Calculate statistics
-            numDeliveries += stats.size();
-            if(printDetailed) {
-                System.out.println("======   Completed Run Number " + i + "    ======");
-
-                for (DeliveryBot.DeliveryStatistic stat : stats) {
-                    System.out.println(stat);
+        // Run simulations across the available cores, merging the results of each run in run order
+        // until there are enough
+        long seed = predictable ? PREDICTABLE_SEED : new Random().nextLong();
+        ParallelSimulationExecutor executor = new ParallelSimulationExecutor(NUM_THREADS);
+        try {
+            executor.runUntil(building, seed, strategies, maxRuns, new ParallelSimulationExecutor.RunListener() {
+                @Override
+                public boolean runCompleted(int run, RunResult result) {
+                    statistics.add(result);
+                    if(printDetailed) {
+                        System.out.println("======   Completed Run Number " + run + "    ======");
+
+                        for (DeliveryBot.DeliveryStatistic stat : result.getDeliveries()) {
+                            System.out.println(stat);
+                        }
+                        System.out.println(result.getLatencies());
+                        System.out.println("=========================================");
+                    }
+                    return run + 1 < minRuns || !statistics.isPrecise(CONFIDENCE, TARGET_PRECISION);
                 }
-                System.out.println("=========================================");
-            }
+            });
+        } catch (InterruptedException | ExecutionException e) {
+            System.out.println(e);
+            System.out.println("FATAL: Simulation run failed. Abort");
+            System.exit(0);
         }
 
         // Average the results
-        totalFloors = totalFloors /(double)numRuns;
-        totalTime = totalTime /(double)numRuns;
-        numDeliveries = numDeliveries /(double) numRuns;
+        double totalFloors = statistics.getTotalFloors().getMean();
+        double totalTime = statistics.getTotalTime().getMean();
+        double numDeliveries = statistics.getNumDeliveries().getMean();
 
         // Print the results
         System.out.println("========== SIMULATION COMPLETE ==========");
@@ -167,7 +151,48 @@ public class Simulation
         System.out.println("Average Time Per Bots: " + totalTime/(double)numBots);
         System.out.println("Average Num Floors: " + totalFloors/numDeliveries);
         System.out.println("Average Num Packages: " + numMail/numDeliveries);
+        System.out.println("Confidence Intervals (" + Math.round(CONFIDENCE * 100) + "%, "
+                           + statistics.getNumRuns() + " runs):");
+        System.out.println("\tTotal Time Taken: " + formatInterval(statistics.getTotalTime()));
+        System.out.println("\tTotal Floors: " + formatInterval(statistics.getTotalFloors()));
+        System.out.println("\tTotal Delivery Runs: " + formatInterval(statistics.getNumDeliveries()));
+        System.out.println(statistics.getLatencies());
         System.out.println("");
 
     }
+
+    /**
+     * Format the confidence interval of a mean for printing
+     * @param statistic the statistic whose mean to show
+     * @return the mean plus or minus the half-width of its interval
+     */
+    private static String formatInterval(RunningStatistic statistic)
+    {
+        return String.format("%.2f +/- %.2f", statistic.getMean(), statistic.getHalfWidth(CONFIDENCE));
+    }
+
+    /**
+     * Produces the strategies the simulation driver uses: even distribution sorting, fullness selection
+     * and route planned delivery.
+     */
+    private static class DefaultStrategyFactory implements StrategyFactory
+    {
+        @Override
+        public SortingStrategy createSortingStrategy(Building building, long seed)
+        {
+            return new EvenDistributionSortingStrategy(building.getMaxBoxes());
+        }
+
+        @Override
+        public SelectionStrategy createSelectionStrategy(Building building, long seed)
+        {
+            return new FullnessSelectionStrategy();
+        }
+
+        @Override
+        public DeliveryStrategy createDeliveryStrategy(Building building)
+        {
+            return new RoutePlanningDeliveryStrategy(building.getMailRoomLevel());
+        }
+    }
 }
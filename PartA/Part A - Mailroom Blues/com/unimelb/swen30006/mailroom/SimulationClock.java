@@ -0,0 +1,47 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+/**
+ * The simulated time of a run, shared by the components of the run so that a plain step knows what
+ * tick it is acting in. The lock-step loop moves it on one tick at a time; components woken by the
+ * event scheduler are told the time directly and do not rely on it.
+ */
+public class SimulationClock
+{
+    // The current tick
+    private long time;
+
+    /**
+     * Create a clock starting at tick 0
+     */
+    public SimulationClock()
+    {
+        this.time = 0;
+    }
+
+    /**
+     * The current simulated time
+     * @return the current tick
+     */
+    public long now()
+    {
+        return time;
+    }
+
+    /**
+     * Move the clock on to the given time
+     * @param time the new time, no earlier than the current one
+     */
+    public void setTime(long time)
+    {
+        if (time < this.time) {
+            throw new IllegalArgumentException("Cannot move the clock back from " + this.time + " to " + time);
+        }
+        this.time = time;
+    }
+}
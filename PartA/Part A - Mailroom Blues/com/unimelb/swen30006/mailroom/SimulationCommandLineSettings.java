@@ -8,6 +8,9 @@ package com.unimelb.swen30006.mailroom;
 
 import com.unimelb.swen30006.mailroom.buildings.Building;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 /**
  * Takes in and parses commandline arguments to be settings for the Simulation class
  */
@@ -18,24 +21,35 @@ public class SimulationCommandLineSettings implements CommandLineSettings
     private final String RAND = "random";
     //  Print detailed simulation log data
     private final String DETAIL = "detailed";
+    // Keep running until the results are precise instead of a fixed number of runs
+    private final String PRECISE = "precise";
 
     // Select which building type to simulate
     private final String LGE_BUILD = "large_building";
     private final String MED_BUILD = "medium_building";
     private final String SML_BUILD = "small_building";
+    private final String SCL_BUILD = "scale_building";
+    // Select a building by name or spec, or load named buildings from a file
+    private final String BUILDING = "building=";
+    private final String BUILDINGS_FILE = "buildings=";
 
     // --------------------------------------
 
     // Error message to print on bad arguments
     private static final String BADARG_MSG = "\n*** Unsupported Commandline Argument ***\n\n"
             + "Accepted arguments are:\n"
-            + "\t(large|medium|small)_building - Specifies the building size to simulate\n"
+            + "\t(large|medium|small|scale)_building - Specifies the building size to simulate\n"
             + "\trandom - Uses a different seed for the randomness generation instead of the hardcoded one\n"
             + "\tdetailed - Print verbose reporting for the simulation\n"
+            + "\tprecise - Run until the averages are precise instead of a fixed number of times\n"
+            + "\tbuilding=<name|spec> - Simulates a named building, or one given as\n"
+            + "\t    minFloor,maxFloor,maxBoxes,maxMailUnits,mailRoomLevel,numBots[,numMailItems]\n"
+            + "\tbuildings=<file> - Loads named buildings from a file of name=spec lines\n"
             + "\nThe required ordering is:\n"
-            + "\tbuilding random detailed\n"
+            + "\tbuilding random detailed precise\n"
             + "Optional arguments are:\n"
-            + "\trandom detailed\n";
+            + "\trandom detailed precise\n"
+            + "building= and buildings= may be given anywhere and replace the building size\n";
 
     // Set true by "detail" command line argument
     private boolean printDetailed;
@@ -43,6 +57,12 @@ public class SimulationCommandLineSettings implements CommandLineSettings
     private boolean isPredictable;
     // Set by "(small|medium|large)_building" to corresponding enum
     private Building.BuildingType buildingType;
+    // Set true by "precise" command line argument
+    private boolean isPrecise;
+    // Set by "building=" to the name or spec of the building, null if not given
+    private String buildingName;
+    // Set by "buildings=" to the file of named buildings, null if not given
+    private String buildingsFile;
 
     // Constructor takes default values
     public SimulationCommandLineSettings(boolean printDetailed, boolean isPredictable,
@@ -56,6 +76,25 @@ public class SimulationCommandLineSettings implements CommandLineSettings
     @Override
     public void takeArguments(String[] args)
     {
+        // <building=...> and <buildings=...> may be given anywhere
+        ArrayList<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(BUILDING)) {
+                this.buildingName = arg.substring(BUILDING.length());
+            } else if (arg.startsWith(BUILDINGS_FILE)) {
+                this.buildingsFile = arg.substring(BUILDINGS_FILE.length());
+            } else {
+                positional.add(arg);
+            }
+        }
+        args = positional.toArray(new String[0]);
+
+        // <precise> may be added to the end of any other arguments
+        if (args.length > 0 && PRECISE.equals(args[args.length - 1])) {
+            this.isPrecise = true;
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+
         // Possible arguments are:
         //      <building>  = "(large|medium|small)_building"
         //      <rand>      = "random"
@@ -87,6 +126,9 @@ public class SimulationCommandLineSettings implements CommandLineSettings
                     case SML_BUILD:
                         this.buildingType = Building.BuildingType.Small;
                         break;
+                    case SCL_BUILD:
+                        this.buildingType = Building.BuildingType.Scale;
+                        break;
                     default:
                         throw new IllegalArgumentException(BADARG_MSG);
                 }
@@ -106,6 +148,9 @@ public class SimulationCommandLineSettings implements CommandLineSettings
                     case SML_BUILD:
                         this.buildingType = Building.BuildingType.Small;
                         break;
+                    case SCL_BUILD:
+                        this.buildingType = Building.BuildingType.Scale;
+                        break;
                     case RAND:
                         this.isPredictable = false;
                         break;
@@ -136,6 +181,9 @@ public class SimulationCommandLineSettings implements CommandLineSettings
                     case SML_BUILD:
                         this.buildingType = Building.BuildingType.Small;
                         break;
+                    case SCL_BUILD:
+                        this.buildingType = Building.BuildingType.Scale;
+                        break;
                     default:
                         throw new IllegalArgumentException(BADARG_MSG);
                 }
@@ -153,6 +201,14 @@ public class SimulationCommandLineSettings implements CommandLineSettings
         return this.buildingType;
     }
 
+    public String getBuildingName() {
+        return this.buildingName;
+    }
+
+    public String getBuildingsFile() {
+        return this.buildingsFile;
+    }
+
     public boolean isPredictable() {
         return this.isPredictable;
     }
@@ -160,4 +216,8 @@ public class SimulationCommandLineSettings implements CommandLineSettings
     public boolean printDetailed() {
         return this.printDetailed;
     }
+
+    public boolean isPrecise() {
+        return this.isPrecise;
+    }
 }
@@ -0,0 +1,46 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+/**
+ * Told about each mail item as it moves through a run, with the simulated time of each event, so
+ * that measurements like throughput and time in system can be taken without the sorter and bots
+ * having to keep them. Every method does nothing by default, so observers only implement the events
+ * they need.
+ */
+public interface SimulationObserver
+{
+    /** An observer that ignores every event */
+    SimulationObserver NONE = new SimulationObserver() { };
+
+    /**
+     * The sorter has taken an item from the mail source
+     * @param item the item taken
+     * @param time the simulated time it was taken
+     */
+    default void mailTaken(MailItem item, long time)
+    {
+    }
+
+    /**
+     * The sorter has given up on an item that will never fit in storage
+     * @param item the item dropped
+     * @param time the simulated time it was dropped
+     */
+    default void mailDropped(MailItem item, long time)
+    {
+    }
+
+    /**
+     * A delivery bot has delivered an item to its floor
+     * @param item the item delivered
+     * @param time the simulated time it was delivered
+     */
+    default void mailDelivered(MailItem item, long time)
+    {
+    }
+}
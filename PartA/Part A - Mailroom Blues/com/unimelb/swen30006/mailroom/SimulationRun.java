@@ -0,0 +1,527 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.dispatch.Dispatcher;
+import com.unimelb.swen30006.mailroom.metrics.LatencyRecorder;
+import com.unimelb.swen30006.mailroom.recording.EventRecorder;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailGenerator;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailStorage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A single run of the mail room simulation. Sets up the storage, sorter and delivery bots for
+ * a building and runs them until all mail from the source has been delivered, either as discrete
+ * events or by stepping every component every tick.
+ *
+ * A long run can be checkpointed every so many ticks, writing the whole state of the run to a file,
+ * and a run set up the same way can be resumed from that file to carry on exactly as the checkpointed
+ * run did. Observers and recorders are not part of the state, and only hear about what happens after
+ * the run is resumed.
+ */
+public class SimulationRun
+{
+    // Marks a file as a checkpoint, "MAILCKPT" when read as ASCII
+    private static final long CHECKPOINT_MAGIC = 0x4d41494c434b5054L;
+    // The version of the checkpoint layout
+    private static final int CHECKPOINT_VERSION = 3;
+    // The loops a checkpoint can be written by
+    private static final byte EVENTS = 0;
+    private static final byte LOCK_STEP = 1;
+
+    // The sorter feeding mail into storage
+    private final MailSorter sorter;
+    // The bots delivering mail out of storage
+    private final DeliveryBot[] bots;
+    // The storage the sorter and bots share
+    private final MailStorage storage;
+    // The simulated time, kept current for the lock-step loop
+    private final SimulationClock clock;
+    // The latency of every item delivered, shared by all the bots
+    private final LatencyRecorder latencies;
+    // Records the run, or null if the run is not being recorded, and the number it is recorded under
+    private EventRecorder recorder;
+    private long recordedRun;
+    // The buffer the run is being recorded through
+    private EventRecorder.Buffer recording;
+
+    // The parts of the run not held by the sorter or a bot, kept to checkpoint them
+    private final MailSource source;
+    private final SelectionStrategy selectionStrategy;
+    private final DeliveryStrategy deliveryStrategy;
+    private final SortingStrategy sortingStrategy;
+    private Dispatcher dispatcher;
+    // The most mail units each bot carries a trip, or zero if bots carry one box a trip
+    private int tripCapacity;
+    // The file to checkpoint to and the ticks between checkpoints, or null if the run is not checkpointed
+    private Path checkpointFile;
+    private long checkpointInterval;
+    // The first tick to step, after the one a resumed checkpoint was written at
+    private long startTick;
+    // The scheduler of a run resumed from a checkpoint written by the event loop, or null
+    private EventScheduler resumedScheduler;
+    // Whether the run has been resumed from a checkpoint
+    private boolean resumed;
+
+    /**
+     * Set up a simulation run with the given mail source and strategies
+     * @param building the building that the run will operate on
+     * @param source the mail source the sorter will draw from
+     * @param selectionStrategy the selection strategy for the delivery bots
+     * @param deliveryStrategy the delivery strategy for the delivery bots
+     * @param sortingStrategy the sorting strategy for the mail sorter
+     */
+    public SimulationRun(Building building, MailSource source, SelectionStrategy selectionStrategy,
+                         DeliveryStrategy deliveryStrategy, SortingStrategy sortingStrategy)
+    {
+        // Setup storage, with boxes bucketed by floor so bots can deliver a floor's mail directly, holding
+        // their items by handle so mail goes through the run without an object being made for each item
+        this(building, source, new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits(),
+                                                     building.getMinFloor(), building.getMaxFloor(),
+                                                     new MailItemStore()),
+             selectionStrategy, deliveryStrategy, sortingStrategy);
+    }
+
+    /**
+     * Set up a simulation run with the given mail source, storage and strategies
+     * @param building the building that the run will operate on
+     * @param source the mail source the sorter will draw from
+     * @param storage the empty storage the sorter and bots will share
+     * @param selectionStrategy the selection strategy for the delivery bots
+     * @param deliveryStrategy the delivery strategy for the delivery bots
+     * @param sortingStrategy the sorting strategy for the mail sorter
+     */
+    public SimulationRun(Building building, MailSource source, MailStorage storage,
+                         SelectionStrategy selectionStrategy, DeliveryStrategy deliveryStrategy,
+                         SortingStrategy sortingStrategy)
+    {
+        this.storage = storage;
+        this.source = source;
+        this.selectionStrategy = selectionStrategy;
+        this.deliveryStrategy = deliveryStrategy;
+        this.sortingStrategy = sortingStrategy;
+
+        this.clock = new SimulationClock();
+
+        // Setup MailSorter
+        this.sorter = new MailSorter(source, storage, sortingStrategy, MailSorter.DEFAULT_STAGING_CAPACITY, clock);
+
+        // Create the deliver bots
+        int numBots = building.getNumBots();
+        this.latencies = new LatencyRecorder();
+        this.bots = new DeliveryBot[numBots];
+        for (int k = 0; k < numBots; k++) {
+            this.bots[k] = new DeliveryBot(selectionStrategy, deliveryStrategy, storage,
+                                           building.getMailRoomLevel(), clock);
+            this.bots[k].setLatencyRecorder(latencies);
+        }
+    }
+
+    /**
+     * Tell an observer about each item as it is taken from the source, dropped or delivered
+     * @param observer the observer to tell
+     */
+    public void setObserver(SimulationObserver observer)
+    {
+        sorter.setObserver(observer);
+        for (DeliveryBot bot : bots) {
+            bot.setObserver(observer);
+        }
+    }
+
+    /**
+     * Record what the sorter and each bot do to a recorder, which may be shared with other runs. The
+     * sorter records through lane 0 and each bot through the lane one more than its number. Recording
+     * starts with the next call to run or runLockStep.
+     * @param recorder the recorder to record to
+     * @param run the number to record the run under, different for every run recorded to the recorder
+     */
+    public void setRecorder(EventRecorder recorder, long run)
+    {
+        this.recorder = recorder;
+        this.recordedRun = run;
+    }
+
+    /**
+     * Set the most items the sorter takes and sorts each step
+     * @param batchSize the number of items to sort each step, at least one
+     */
+    public void setSortingBatchSize(int batchSize)
+    {
+        sorter.setBatchSize(batchSize);
+    }
+
+    /**
+     * Have every bot carry several boxes a trip, adding boxes whose floors overlap the trip's to the box it
+     * selects while their mail fits in the capacity. Bots taking boxes from a dispatcher add boxes to the
+     * one they are handed the same way, taking them out of the dispatcher's plan for other bots.
+     * @param units the most mail units a bot carries on one trip, or zero to carry one box a trip
+     */
+    public void setTripCapacity(int units)
+    {
+        for (DeliveryBot bot : bots) {
+            bot.setTripCapacity(units);
+        }
+        tripCapacity = units;
+    }
+
+    /**
+     * Have one dispatcher hand every free bot a box each tick, instead of each bot using the selection
+     * strategy on its own
+     */
+    public void setDispatching()
+    {
+        dispatcher = new Dispatcher(storage);
+        for (DeliveryBot bot : bots) {
+            dispatcher.register(bot);
+            bot.setDispatcher(dispatcher);
+        }
+    }
+
+    /**
+     * Have the dispatcher hold back boxes with few items while mail is still arriving, so fewer trips are
+     * made but mail waits longer. See Dispatcher.setHoldBack for the trade-off.
+     * @param minItemsPerTrip the fewest items a box needs to go out while storage is still changing
+     * @throws IllegalStateException if the run is not dispatched
+     */
+    public void setDispatchHoldBack(int minItemsPerTrip)
+    {
+        if (dispatcher == null) {
+            throw new IllegalStateException("Only a dispatched run can hold boxes back");
+        }
+        dispatcher.setHoldBack(minItemsPerTrip);
+    }
+
+    /**
+     * Checkpoint the run to a file at the end of every so many ticks, replacing the last checkpoint each
+     * time, so that it can be resumed from there with resumeFrom. Each checkpoint is written beside the
+     * file and then moved over it, so the file always holds a whole checkpoint. A tick where nothing
+     * happens in a run of discrete events is not checkpointed, since the last checkpoint is still right.
+     * @param file the file to checkpoint to
+     * @param interval the number of ticks between checkpoints
+     */
+    public void setCheckpoints(Path file, long interval)
+    {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Checkpoints must be at least a tick apart, got " + interval);
+        }
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Read the state of a checkpointed run, so that the next call to run or runLockStep carries on from
+     * the tick after the checkpoint. This run must have been set up the same way as the one checkpointed,
+     * with the same building, kind of mail source, strategies, batch size, dispatching and trip capacity,
+     * and not yet run. A checkpoint written by runLockStep can be resumed by either loop, but one written
+     * by run can only be resumed by run, since bots woken as events deliver whole boxes ahead of time.
+     * @param file the checkpoint to resume from
+     * @return the tick the checkpoint was written at
+     * @throws IOException if the checkpoint cannot be read
+     * @throws IllegalArgumentException if the file is not a checkpoint of a run set up like this one
+     */
+    public long resumeFrom(Path file) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readLong() != CHECKPOINT_MAGIC) {
+                throw new IllegalArgumentException(file + " is not a checkpoint");
+            }
+            int version = in.readInt();
+            if (version != CHECKPOINT_VERSION) {
+                throw new IllegalArgumentException(file + " is version " + version + " of the checkpoint format, "
+                        + "expected " + CHECKPOINT_VERSION);
+            }
+            byte loop = in.readByte();
+            long tick = in.readLong();
+            String written = in.readUTF();
+            if (!written.equals(describe())) {
+                throw new IllegalArgumentException(file + " is a checkpoint of a run of " + written
+                        + ", not of " + describe());
+            }
+            Checkpoints.required(storage, "mail storage").readCheckpoint(in);
+            sorter.readCheckpoint(in);
+            for (DeliveryBot bot : bots) {
+                bot.readCheckpoint(in);
+            }
+            Checkpoints.readIfKept(in, selectionStrategy);
+            if (dispatcher != null) {
+                dispatcher.readCheckpoint(in);
+            }
+            latencies.readCheckpoint(in);
+            if (loop == EVENTS) {
+                resumedScheduler = newScheduler(tick + 1);
+                resumedScheduler.readCheckpoint(in);
+            } else if (loop != LOCK_STEP) {
+                throw new IOException("Checkpoint was written by an unknown loop " + loop);
+            }
+            startTick = tick + 1;
+            resumed = true;
+            return tick;
+        }
+    }
+
+    /**
+     * Create the mail generator a run in the given building uses by default
+     * @param building the building mail is generated for
+     * @param predictable whether to use a fixed seed for mail generation or not
+     * @return a new mail source
+     */
+    public static MailSource createMailSource(Building building, boolean predictable)
+    {
+        MailItem.MailPriority[] priorities = MailItem.MailPriority.values();
+        MailItem.MailType[] types = MailItem.MailType.values();
+        return new SimpleMailGenerator(building.getMinFloor(), building.getMaxFloor(), priorities, types,
+                                       building.getNumMailItems(), predictable);
+    }
+
+    /**
+     * Create the mail generator a run in the given building uses by default, seeded for that run
+     * @param building the building mail is generated for
+     * @param seed the seed for mail generation
+     * @return a new mail source
+     */
+    public static MailSource createMailSource(Building building, long seed)
+    {
+        MailItem.MailPriority[] priorities = MailItem.MailPriority.values();
+        MailItem.MailType[] types = MailItem.MailType.values();
+        return new SimpleMailGenerator(building.getMinFloor(), building.getMaxFloor(), priorities, types,
+                                       building.getNumMailItems(), seed);
+    }
+
+    /**
+     * Run the sorter and all delivery bots as discrete events until every one of them can finish.
+     * Gives the same results as the lock-step loop, but skips the ticks where bots are travelling
+     * or waiting for mail.
+     * @return the statistics of every delivery made during the run, grouped by bot
+     * @throws IllegalStateException if the events ran out while the sorter or a bot could not finish
+     */
+    public DeliveryBot.DeliveryStatistic[] run()
+    {
+        startRecording();
+        EventScheduler scheduler = resumedScheduler != null ? resumedScheduler : newScheduler(startTick);
+        resumedScheduler = null;
+        if (checkpointFile == null) {
+            scheduler.run();
+        } else {
+            // Checkpoint at the end of each interval that had anything happen in it
+            long until = lastTickOfInterval(startTick);
+            while (scheduler.run(until)) {
+                writeCheckpoint(EVENTS, until, scheduler);
+                until = lastTickOfInterval(scheduler.getNextTime());
+            }
+        }
+        finishRecording();
+        checkFinished();
+        return collectStatistics();
+    }
+
+    /**
+     * Step the sorter and all delivery bots every tick until every one of them can finish
+     * @return the statistics of every delivery made during the run, grouped by bot
+     */
+    public DeliveryBot.DeliveryStatistic[] runLockStep()
+    {
+        if (resumedScheduler != null) {
+            throw new IllegalStateException("A checkpoint written by the event loop can only be resumed by run");
+        }
+        startRecording();
+        boolean finished = false;
+        for (long tick = startTick; !finished; tick++) {
+            clock.setTime(tick);
+            // Update the sorter
+            sorter.step();
+
+            // Update all the delivery bots
+            boolean anyBotBlocking = false;
+            for (DeliveryBot bot : bots) {
+                bot.step();
+                anyBotBlocking = !bot.canFinish() || anyBotBlocking;
+            }
+
+            // Check if we are finished
+            finished = sorter.canFinish() && !anyBotBlocking;
+            if (!finished && checkpointFile != null && tick == lastTickOfInterval(tick)) {
+                writeCheckpoint(LOCK_STEP, tick, null);
+            }
+        }
+        finishRecording();
+        return collectStatistics();
+    }
+
+    /**
+     * The sorter's staging statistics, showing how often and for how long mail waited for room in storage
+     * @return the staging statistics of the run so far
+     */
+    public MailSorter.StagingStatistic getStagingStatistics()
+    {
+        return sorter.retrieveStatistics();
+    }
+
+    /**
+     * The latency of every item delivered, from leaving the mail source to reaching its floor
+     * @return the latencies of the run so far
+     */
+    public LatencyRecorder getLatencies()
+    {
+        return latencies;
+    }
+
+    /**
+     * Create a scheduler for the sorter and every bot, registered in the order the lock-step loop steps in.
+     * Bots selecting for themselves share a strategy, storage and trip capacity, so an idle bot finding no
+     * box means every idle bot would, and they wait as one group. Bots handed boxes by a dispatcher are each
+     * handed their own, so are woken on every change.
+     * @param start the time to first wake them at
+     * @return the scheduler
+     */
+    private EventScheduler newScheduler(long start)
+    {
+        EventScheduler scheduler = new EventScheduler(storage, start);
+        scheduler.register(sorter);
+        for (DeliveryBot bot : bots) {
+            scheduler.register(bot, dispatcher == null ? selectionStrategy : null);
+        }
+        return scheduler;
+    }
+
+    /**
+     * The last tick of the checkpoint interval holding a tick
+     * @param tick the tick
+     * @return the tick to checkpoint at once that tick has been stepped
+     */
+    private long lastTickOfInterval(long tick)
+    {
+        return tick / checkpointInterval * checkpointInterval + checkpointInterval - 1;
+    }
+
+    /**
+     * Write the whole state of the run to the checkpoint file, replacing the last checkpoint
+     * @param loop the loop writing the checkpoint
+     * @param tick the last tick stepped
+     * @param scheduler the scheduler of the event loop, or null for the lock-step loop
+     * @throws IllegalStateException if the checkpoint cannot be written, or part of the run cannot be
+     * checkpointed
+     */
+    private void writeCheckpoint(byte loop, long tick, EventScheduler scheduler)
+    {
+        Path written = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(written)))) {
+                out.writeLong(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeByte(loop);
+                out.writeLong(tick);
+                out.writeUTF(describe());
+                Checkpoints.required(storage, "mail storage").writeCheckpoint(out);
+                sorter.writeCheckpoint(out);
+                for (DeliveryBot bot : bots) {
+                    bot.writeCheckpoint(out);
+                }
+                Checkpoints.writeIfKept(out, selectionStrategy);
+                if (dispatcher != null) {
+                    dispatcher.writeCheckpoint(out);
+                }
+                latencies.writeCheckpoint(out);
+                if (scheduler != null) {
+                    scheduler.writeCheckpoint(out);
+                }
+            }
+            try {
+                Files.move(written, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(written, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Checkpoint at tick " + tick + " could not be written to "
+                    + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Describe how the run is set up, so a checkpoint is only resumed by a run set up the same way
+     * @return the number of bots and the kind of each part of the run
+     */
+    private String describe()
+    {
+        return bots.length + " bots, " + source.getClass().getSimpleName() + ", "
+               + storage.getClass().getSimpleName() + ", " + sortingStrategy.getClass().getSimpleName() + ", "
+               + selectionStrategy.getClass().getSimpleName() + ", " + deliveryStrategy.getClass().getSimpleName()
+               + (dispatcher != null ? ", dispatched" : "")
+               + (tripCapacity > 0 ? ", trips of " + tripCapacity + " units" : "");
+    }
+
+    /**
+     * Give the sorter and each bot a lane to record through, if the run is being recorded. Every lane
+     * shares one buffer, as everything steps on one thread.
+     */
+    private void startRecording()
+    {
+        if (recorder == null) {
+            return;
+        }
+        recording = recorder.buffer(recordedRun);
+        sorter.setRecorder(recording.lane(0));
+        for (int k = 0; k < bots.length; k++) {
+            bots[k].setRecorder(recording.lane(k + 1));
+        }
+    }
+
+    /**
+     * Make sure the event loop only ran out of events once the sorter and every bot could finish, which is
+     * when the lock-step loop would have stopped stepping them
+     * @throws IllegalStateException if the sorter or any bot cannot finish
+     */
+    private void checkFinished()
+    {
+        if (!sorter.canFinish()) {
+            throw new IllegalStateException("The events ran out before the sorter could finish");
+        }
+        for (int k = 0; k < bots.length; k++) {
+            if (!bots[k].canFinish()) {
+                throw new IllegalStateException("The events ran out before bot " + k + " could finish");
+            }
+        }
+    }
+
+    /**
+     * Hand everything the run recorded to the recorder, once the run is over
+     */
+    private void finishRecording()
+    {
+        if (recording != null) {
+            recording.flush();
+            recording = null;
+        }
+    }
+
+    /**
+     * Gather the statistics of every bot
+     * @return the statistics of every delivery made during the run, grouped by bot
+     */
+    private DeliveryBot.DeliveryStatistic[] collectStatistics()
+    {
+        ArrayList<DeliveryBot.DeliveryStatistic> stats = new ArrayList<>();
+        for (DeliveryBot bot : bots) {
+            stats.addAll(Arrays.asList(bot.retrieveStatistics()));
+        }
+        return stats.toArray(new DeliveryBot.DeliveryStatistic[0]);
+    }
+}
@@ -26,5 +26,91 @@ public interface SortingStrategy {
      */
      String assignStorage(MailItem item, MailStorage storage) throws MailOverflowException;
 
+    /**
+     * Assign an identifier for a mail item and a given storage system, without throwing if there is no room.
+     * Strategies should override this to avoid creating an exception every time storage is full.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the identifier of the assigned storage box, or null if there are no spaces remaining for new boxes
+     */
+    default String tryAssignStorage(MailItem item, MailStorage storage) {
+        try {
+            return assignStorage(item, storage);
+        } catch (MailOverflowException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Assign a storage box handle for a mail item and a given storage system, without throwing if there is
+     * no room. Strategies should override this to find and make boxes by handle rather than by identifier.
+     * By default the identifier from tryAssignStorage is looked up, and one that storage does not know
+     * becomes a handle past the end of storage, so the caller finds no box there.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of the assigned storage box, or MailStorage.NO_HANDLE if there are no spaces
+     * remaining for new boxes
+     */
+    default int tryAssignHandle(MailItem item, MailStorage storage) {
+        String id = tryAssignStorage(item, storage);
+        if (id == null) {
+            return MailStorage.NO_HANDLE;
+        }
+        int handle = storage.handleOf(id);
+        return handle == MailStorage.NO_HANDLE ? storage.getCapacity() : handle;
+    }
+
+    /**
+     * Assign storage box handles for a batch of mail items at once, in order, without throwing if there is
+     * no room. Each item is assigned as if every earlier item in the batch had already been added to its
+     * box, so strategies that override this can plan the whole batch in one pass. Strategies may assign
+     * only a leading part of the batch, and the caller will store those items and ask again for the rest.
+     * By default only the first item is assigned, using tryAssignHandle, so strategies that only know how
+     * to assign single items are asked once per item.
+     * @param items the items being sorted
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch, at least one
+     * @param storage the storage system in use
+     * @param handles filled in with the handle assigned to each item, at the item's index, or
+     * MailStorage.NO_HANDLE where there is no room for it
+     * @return the number of items from the start of the batch that were assigned handles
+     */
+    default int tryAssignHandles(MailItem[] items, int from, int count, MailStorage storage, int[] handles) {
+        handles[from] = tryAssignHandle(items[from], storage);
+        return 1;
+    }
+
+    /**
+     * Assign a storage box handle for an item held in a store, as tryAssignHandle does for a whole item.
+     * Strategies should override this to read only the fields they need from the store. By default the
+     * item is made from the store and assigned as a whole item.
+     * @param items the store holding the item
+     * @param item the handle of the item being sorted in the store
+     * @param storage the storage system in use
+     * @return the handle of the assigned storage box, or MailStorage.NO_HANDLE if there are no spaces
+     * remaining for new boxes
+     */
+    default int tryAssignHandle(MailItemStore items, int item, MailStorage storage) {
+        return tryAssignHandle(items.get(item), storage);
+    }
+
+    /**
+     * Assign storage box handles for a batch of items held in a store, as tryAssignHandles does for whole
+     * items. By default only the first item is assigned, using tryAssignHandle.
+     * @param items the store holding the items
+     * @param batch the handles of the items being sorted in the store
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch, at least one
+     * @param storage the storage system in use
+     * @param handles filled in with the handle of the box assigned to each item, at the item's index, or
+     * MailStorage.NO_HANDLE where there is no room for it
+     * @return the number of items from the start of the batch that were assigned handles
+     */
+    default int tryAssignHandles(MailItemStore items, int[] batch, int from, int count, MailStorage storage,
+                                 int[] handles) {
+        handles[from] = tryAssignHandle(items, batch[from], storage);
+        return 1;
+    }
+
 }
 
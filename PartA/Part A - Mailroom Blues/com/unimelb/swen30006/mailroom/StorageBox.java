@@ -6,21 +6,69 @@ package com.unimelb.swen30006.mailroom;
 
 import com.unimelb.swen30006.mailroom.exceptions.*;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 /**
  * A storage box to be used by the mail storage system, created with a fixed length and methods to add
  * and remove MailItems from the storage box. Will throw a MailOverflowException if attempted to fit above the
  * limit. Also supports querying if a package will fit in the box.
+ *
+ * A box created with the range of floors it may hold mail for is floor bucketed: it keeps its items grouped
+ * by floor along with a bitmap of the floors that have mail, so all the mail for a floor can be removed in
+ * time proportional to the number of items for that floor, and the next floor with mail in either direction
+ * is found without looking at any items. A box created without a floor range keeps its items on a stack and
+ * answers the same queries by scanning.
+ *
+ * A box created with a MailItemStore is packed: it is floor bucketed, but holds the handles of its items in
+ * the store rather than the items themselves, so mail can be sorted into it and delivered out of it without
+ * any item being made. Mail added to or taken from a packed box as whole items is copied into or out of
+ * the store.
  */
 public class StorageBox {
-    /** The mail stored in this box */
+    /** Returned by floor queries when there is no floor with mail in the requested direction */
+    public static final int NO_FLOOR = Integer.MIN_VALUE;
+    /** The kinds of box a checkpoint can hold */
+    private static final byte PLAIN = 0;
+    private static final byte BUCKETED = 1;
+    private static final byte PACKED = 2;
+    /** Every priority by ordinal, copied once rather than every time a box is summarised */
+    private static final MailItem.MailPriority[] PRIORITIES = MailItem.MailPriority.values();
+
+    /** The mail stored in this box, if it is not floor bucketed */
     private Stack<MailItem> mail;
+    /** The number of items in this box for each floor, so the number of destinations is known without a scan.
+     * Each count is a one element array, so it changes in place without boxing. */
+    private IntHashMap<int[]> floorCounts;
+
+    /** The mail stored in this box grouped by floor, if it is floor bucketed */
+    private IntHashMap<ArrayList<MailItem>> buckets;
+    /** The store holding the items in this box, if it is packed */
+    private final MailItemStore items;
+    /** The handles of the items in this box grouped by floor, if it is packed */
+    private IntHashMap<HandleBucket> handleBuckets;
+    /** Emptied handle buckets kept for the next floors to get mail, if it is packed */
+    private ArrayList<HandleBucket> spareBuckets;
+    /** The floors with mail in this box, offset by the lowest floor the box may hold mail for */
+    private BitSet floors;
+    /** The lowest and highest floors this box may hold mail for, if it is floor bucketed */
+    private final int minFloor;
+    private final int maxFloor;
+    /** The number of items and of distinct floors in this box, if it is floor bucketed */
+    private int numItems;
+    private int numFloors;
+    /** The number of items in this box of each priority, indexed by ordinal */
+    private final int[] priorityCounts = new int[PRIORITIES.length];
 
     /** The maximum size of this box */
     public final int maxItems;
     private int remainingCapacity;
 
+    /** Notified whenever the contents of this box change, may be null */
+    private ChangeListener listener;
+
     /**
      * Create a storage box of the given max number of mail units
      * @param maxSize the maximum number of mail units this box will fit
@@ -29,6 +77,78 @@ public class StorageBox {
         this.maxItems = maxSize;
         this.remainingCapacity = maxSize;
         this.mail = new Stack<MailItem>();
+        this.floorCounts = new IntHashMap<int[]>();
+        this.minFloor = NO_FLOOR;
+        this.maxFloor = NO_FLOOR;
+        this.items = null;
+    }
+
+    /**
+     * Create a floor bucketed storage box of the given max number of mail units, that can hold mail for
+     * any floor in the given range
+     * @param maxSize the maximum number of mail units this box will fit
+     * @param minFloor the lowest floor mail in this box may be for
+     * @param maxFloor the highest floor mail in this box may be for
+     */
+    public StorageBox(int maxSize, int minFloor, int maxFloor){
+        this.maxItems = maxSize;
+        this.remainingCapacity = maxSize;
+        this.minFloor = minFloor;
+        this.maxFloor = maxFloor;
+        this.buckets = new IntHashMap<ArrayList<MailItem>>();
+        this.floors = new BitSet(maxFloor - minFloor + 1);
+        this.items = null;
+    }
+
+    /**
+     * Create a packed storage box of the given max number of mail units, that holds its items by handle
+     * in the given store and can hold mail for any floor in the given range
+     * @param maxSize the maximum number of mail units this box will fit
+     * @param minFloor the lowest floor mail in this box may be for
+     * @param maxFloor the highest floor mail in this box may be for
+     * @param items the store holding the items this box is given
+     */
+    public StorageBox(int maxSize, int minFloor, int maxFloor, MailItemStore items){
+        this.maxItems = maxSize;
+        this.remainingCapacity = maxSize;
+        this.minFloor = minFloor;
+        this.maxFloor = maxFloor;
+        this.items = items;
+        this.handleBuckets = new IntHashMap<HandleBucket>();
+        this.spareBuckets = new ArrayList<HandleBucket>();
+        this.floors = new BitSet(maxFloor - minFloor + 1);
+    }
+
+    /**
+     * Set the listener to notify when the contents of this box change, replacing any previous listener.
+     * @param listener the listener to notify, or null to stop notifying
+     */
+    public void setChangeListener(ChangeListener listener){
+        this.listener = listener;
+    }
+
+    /**
+     * Check if this box keeps its items grouped by floor
+     * @return true if this box is floor bucketed
+     */
+    public boolean isFloorBucketed(){
+        return this.buckets != null || isPacked();
+    }
+
+    /**
+     * Check if this box holds its items by handle in a MailItemStore
+     * @return true if this box is packed
+     */
+    public boolean isPacked(){
+        return this.items != null;
+    }
+
+    /**
+     * The store holding the items in this box
+     * @return the store, or null if this box is not packed
+     */
+    public MailItemStore getItemStore(){
+        return this.items;
     }
 
     /**
@@ -37,35 +157,215 @@ public class StorageBox {
      * @throws MailOverflowException if there are no spaces remaining for new items in the box
      */
     public void addItem(MailItem item) throws MailOverflowException {
-        if(this.canHold(item)){
-            this.mail.push(item);
-            this.remainingCapacity -= item.size;
-        } else {
+        if(!tryAddItem(item)){
             throw new MailOverflowException(item.size, this.remainingCapacity);
         }
     }
 
+    /**
+     * Add a mail item to the box if it will fit, without throwing if it will not.
+     * @param item the mail item to add to the box
+     * @return true if the item was added, false if there was not enough space remaining
+     */
+    public boolean tryAddItem(MailItem item){
+        if(!this.canHold(item)){
+            return false;
+        }
+        if(isPacked()){
+            return tryAddHandle(this.items.add(item));
+        }
+        if(isFloorBucketed()){
+            addToBucket(item);
+        } else {
+            this.mail.push(item);
+            countFloor(item.floor, 1);
+        }
+        this.remainingCapacity -= item.size;
+        this.priorityCounts[item.priority.ordinal()]++;
+        notifyChanged();
+        return true;
+    }
+
+    /**
+     * Add an item held in this box's store to a packed box if it will fit. The box holds the handle until
+     * the item is removed, and the item must not be released meanwhile.
+     * @param item the handle of the item in the store
+     * @return true if the item was added, false if there was not enough space remaining
+     */
+    public boolean tryAddHandle(int item){
+        int size = this.items.size(item);
+        if(this.remainingCapacity < size){
+            return false;
+        }
+        int floor = this.items.floor(item);
+        checkFloor(floor);
+        HandleBucket bucket = this.handleBuckets.get(floor);
+        if(bucket == null){
+            bucket = this.spareBuckets.isEmpty() ? new HandleBucket()
+                    : this.spareBuckets.remove(this.spareBuckets.size() - 1);
+            this.handleBuckets.put(floor, bucket);
+            this.floors.set(floor - this.minFloor);
+            this.numFloors++;
+        }
+        bucket.add(item);
+        this.numItems++;
+        this.remainingCapacity -= size;
+        this.priorityCounts[this.items.priority(item).ordinal()]++;
+        notifyChanged();
+        return true;
+    }
+
     /**
      * Remove an item (without deciding which item) from the box, updating the remaining capacity
      * @return The mail item removed from the box
      * @throws BoxEmptyException if there is no items in the box
      */
     public MailItem popItem() throws BoxEmptyException {
-        if(this.isEmpty()){
+        MailItem item = tryPopItem();
+        if(item == null){
             throw new BoxEmptyException();
         }
-        MailItem item = mail.pop();
+        return item;
+    }
+
+    /**
+     * Remove an item (without deciding which item) from the box, without throwing if the box is empty
+     * @return The mail item removed from the box, or null if there are no items in the box
+     */
+    public MailItem tryPopItem(){
+        if(this.isEmpty()){
+            return null;
+        }
+        MailItem item;
+        if(isPacked()){
+            // Take the last item for the highest floor out of the store
+            int floor = highestFloor();
+            HandleBucket bucket = this.handleBuckets.get(floor);
+            int handle = bucket.handles[--bucket.size];
+            this.numItems--;
+            if(bucket.size == 0){
+                clearFloor(floor);
+            }
+            item = this.items.get(handle);
+            this.items.release(handle);
+        } else if(isFloorBucketed()){
+            // Take the last item for the highest floor
+            int floor = highestFloor();
+            ArrayList<MailItem> bucket = this.buckets.get(floor);
+            item = bucket.remove(bucket.size() - 1);
+            this.numItems--;
+            if(bucket.isEmpty()){
+                clearFloor(floor);
+            }
+        } else {
+            item = mail.pop();
+            countFloor(item.floor, -1);
+        }
         // Update the remaining capacity
         this.remainingCapacity += item.size;
+        this.priorityCounts[item.priority.ordinal()]--;
+        notifyChanged();
         return item;
     }
 
+    /**
+     * Remove every item for the given floor from the box, updating the remaining capacity. For a floor
+     * bucketed box this takes time proportional to the number of items for that floor.
+     * @param floor the floor whose mail should be removed
+     * @return the items removed, which may be empty
+     */
+    public List<MailItem> removeItemsForFloor(int floor){
+        List<MailItem> removed;
+        if(isPacked()){
+            // Take the items out of the store, which counts them out of the box
+            int[] handles = new int[numItemsForFloor(floor)];
+            int count = removeHandlesForFloor(floor, handles);
+            removed = new ArrayList<MailItem>(count);
+            for(int i = 0; i < count; i++){
+                removed.add(this.items.get(handles[i]));
+            }
+            this.items.release(handles, count);
+            return removed;
+        } else if(isFloorBucketed()){
+            ArrayList<MailItem> bucket = this.buckets.get(floor);
+            if(bucket == null){
+                return Collections.emptyList();
+            }
+            clearFloor(floor);
+            this.numItems -= bucket.size();
+            removed = bucket;
+        } else {
+            // Sift the stack, keeping the order of the items that stay
+            removed = new ArrayList<MailItem>();
+            Iterator<MailItem> itemIterator = this.mail.iterator();
+            while(itemIterator.hasNext()){
+                MailItem item = itemIterator.next();
+                if(item.floor == floor){
+                    removed.add(item);
+                    itemIterator.remove();
+                }
+            }
+            if(removed.isEmpty()){
+                return removed;
+            }
+            this.floorCounts.remove(floor);
+        }
+        for(MailItem item : removed){
+            this.remainingCapacity += item.size;
+            this.priorityCounts[item.priority.ordinal()]--;
+        }
+        notifyChanged();
+        return removed;
+    }
+
+    /**
+     * Remove every item for the given floor from a packed box, updating the remaining capacity, and give
+     * their handles to the caller, who must release them once done with the items. Takes time proportional
+     * to the number of items for that floor.
+     * @param floor the floor whose mail should be removed
+     * @param into filled with the handles of the items removed, with room for numItemsForFloor(floor)
+     * @return the number of items removed, which may be none
+     */
+    public int removeHandlesForFloor(int floor, int[] into){
+        HandleBucket bucket = this.handleBuckets.get(floor);
+        if(bucket == null){
+            return 0;
+        }
+        int count = bucket.size;
+        System.arraycopy(bucket.handles, 0, into, 0, count);
+        clearFloor(floor);
+        this.numItems -= count;
+        for(int i = 0; i < count; i++){
+            this.remainingCapacity += this.items.size(into[i]);
+            this.priorityCounts[this.items.priority(into[i]).ordinal()]--;
+        }
+        notifyChanged();
+        return count;
+    }
+
+    /**
+     * Return the number of items in this box for the given floor
+     * @param floor the floor to count mail for
+     * @return the number of items for that floor
+     */
+    public int numItemsForFloor(int floor){
+        if(isPacked()){
+            HandleBucket bucket = this.handleBuckets.get(floor);
+            return bucket == null ? 0 : bucket.size;
+        } else if(isFloorBucketed()){
+            ArrayList<MailItem> bucket = this.buckets.get(floor);
+            return bucket == null ? 0 : bucket.size();
+        }
+        int[] count = this.floorCounts.get(floor);
+        return count == null ? 0 : count[0];
+    }
+
     /**
      * Check if the storage box is empty.
      * @return true if the box is empty
      */
     public boolean isEmpty(){
-        return mail.isEmpty();
+        return numPackages() == 0;
     }
 
     /**
@@ -78,12 +378,103 @@ public class StorageBox {
         return (this.remainingCapacity >= item.size);
     }
 
+    /**
+     * Return the number of mail units that can still fit in this box
+     * @return the remaining capacity in units
+     */
+    public int remainingUnits(){
+        return this.remainingCapacity;
+    }
+
     /**
      * Return the number of items stored in the mail box (whole packages, not unit size)
      * @return the number of mail items in this box
      */
     public int numPackages(){
-        return this.mail.size();
+        return isFloorBucketed() ? this.numItems : this.mail.size();
+    }
+
+    /**
+     * Return the number of different floors mail in this box is for
+     * @return the number of destinations of this box
+     */
+    public int numDestinations(){
+        return isFloorBucketed() ? this.numFloors : this.floorCounts.size();
+    }
+
+    /**
+     * Find the highest priority of any mail in this box
+     * @return the highest priority, or null if the box is empty
+     */
+    public MailItem.MailPriority highestPriority(){
+        for(int i = PRIORITIES.length - 1; i >= 0; i--){
+            if(this.priorityCounts[i] > 0){
+                return PRIORITIES[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the lowest floor that mail in this box is for
+     * @return the lowest floor, or NO_FLOOR if the box is empty
+     */
+    public int lowestFloor(){
+        return nextFloorAtOrAbove(Integer.MIN_VALUE + 1);
+    }
+
+    /**
+     * Find the highest floor that mail in this box is for
+     * @return the highest floor, or NO_FLOOR if the box is empty
+     */
+    public int highestFloor(){
+        return nextFloorAtOrBelow(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Find the nearest floor at or above the given floor that mail in this box is for
+     * @param floor the floor to search from
+     * @return the nearest such floor, or NO_FLOOR if there is none
+     */
+    public int nextFloorAtOrAbove(int floor){
+        if(isFloorBucketed()){
+            if(floor > this.maxFloor){
+                return NO_FLOOR;
+            }
+            int index = this.floors.nextSetBit(Math.max(floor, this.minFloor) - this.minFloor);
+            return index < 0 ? NO_FLOOR : index + this.minFloor;
+        }
+        int nearest = NO_FLOOR;
+        for(int slot = 0; slot < this.floorCounts.slots(); slot++){
+            int candidate = this.floorCounts.keyAt(slot);
+            if(this.floorCounts.isUsed(slot) && candidate >= floor && (nearest == NO_FLOOR || candidate < nearest)){
+                nearest = candidate;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Find the nearest floor at or below the given floor that mail in this box is for
+     * @param floor the floor to search from
+     * @return the nearest such floor, or NO_FLOOR if there is none
+     */
+    public int nextFloorAtOrBelow(int floor){
+        if(isFloorBucketed()){
+            if(floor < this.minFloor){
+                return NO_FLOOR;
+            }
+            int index = this.floors.previousSetBit(Math.min(floor, this.maxFloor) - this.minFloor);
+            return index < 0 ? NO_FLOOR : index + this.minFloor;
+        }
+        int nearest = NO_FLOOR;
+        for(int slot = 0; slot < this.floorCounts.slots(); slot++){
+            int candidate = this.floorCounts.keyAt(slot);
+            if(this.floorCounts.isUsed(slot) && candidate <= floor && (nearest == NO_FLOOR || candidate > nearest)){
+                nearest = candidate;
+            }
+        }
+        return nearest;
     }
 
     /**
@@ -92,15 +483,177 @@ public class StorageBox {
      * @return a summary of the box
      */
     public Summary generateSummary(String id){
-        // Count the number of unique floors to deliver to
-        HashSet<Integer> floors = new HashSet<>();
-        Iterator<MailItem> itemIterator = this.mail.iterator();
-        while(itemIterator.hasNext()){
-            MailItem item = itemIterator.next();
-            floors.add(item.floor);
+        // The number of unique floors to deliver to is kept up to date as items come and go
+        return new Summary(numPackages(), this.remainingCapacity, numDestinations(), lowestFloor(), highestFloor(),
+                highestPriority(), id);
+    }
+
+    /**
+     * Write this box and the mail in it to a checkpoint. The mail for each floor is written in the order
+     * it was added, and the mail on a stack from the bottom up, so a box read back gives up its mail in
+     * the same order. A packed box writes only the handles of its items, the store being written apart.
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        out.writeInt(this.maxItems);
+        if(!isFloorBucketed()){
+            out.writeByte(PLAIN);
+            out.writeInt(this.mail.size());
+            for(MailItem item : this.mail){
+                Checkpoints.writeItem(out, item);
+            }
+            return;
+        }
+        out.writeByte(isPacked() ? PACKED : BUCKETED);
+        out.writeInt(this.minFloor);
+        out.writeInt(this.maxFloor);
+        out.writeInt(this.numItems);
+        for(int i = this.floors.nextSetBit(0); i >= 0; i = this.floors.nextSetBit(i + 1)){
+            if(isPacked()){
+                HandleBucket bucket = this.handleBuckets.get(i + this.minFloor);
+                for(int j = 0; j < bucket.size; j++){
+                    out.writeInt(bucket.handles[j]);
+                }
+            } else {
+                for(MailItem item : this.buckets.get(i + this.minFloor)){
+                    Checkpoints.writeItem(out, item);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a box written by writeCheckpoint, with the same mail in the same order
+     * @param in the checkpoint being read
+     * @param items the store holding the items of packed boxes, already read back
+     * @return the box, with no change listener
+     * @throws IOException if the checkpoint cannot be read or does not hold a box
+     */
+    public static StorageBox readCheckpoint(DataInput in, MailItemStore items) throws IOException {
+        int maxSize = in.readInt();
+        byte kind = in.readByte();
+        StorageBox box;
+        if(kind == PLAIN){
+            box = new StorageBox(maxSize);
+        } else if(kind == BUCKETED){
+            box = new StorageBox(maxSize, in.readInt(), in.readInt());
+        } else if(kind == PACKED && items != null){
+            box = new StorageBox(maxSize, in.readInt(), in.readInt(), items);
+        } else {
+            throw new IOException("Checkpoint holds a storage box of kind " + kind + " that cannot be read here");
+        }
+        int count = in.readInt();
+        for(int i = 0; i < count; i++){
+            boolean added = kind == PACKED ? box.tryAddHandle(in.readInt()) : box.tryAddItem(Checkpoints.readItem(in));
+            if(!added){
+                throw new IOException("Checkpoint holds more mail than fits in a box of " + maxSize + " units");
+            }
+        }
+        return box;
+    }
+
+    /**
+     * Add an item to the bucket for its floor, marking the floor as having mail
+     * @param item the item to add
+     */
+    private void addToBucket(MailItem item){
+        checkFloor(item.floor);
+        ArrayList<MailItem> bucket = this.buckets.get(item.floor);
+        if(bucket == null){
+            bucket = new ArrayList<MailItem>();
+            this.buckets.put(item.floor, bucket);
+            this.floors.set(item.floor - this.minFloor);
+            this.numFloors++;
+        }
+        bucket.add(item);
+        this.numItems++;
+    }
+
+    /**
+     * Check that a floor is in the range this box may hold mail for
+     * @param floor the floor of an item being added
+     * @throws IllegalArgumentException if the floor is out of range
+     */
+    private void checkFloor(int floor){
+        if(floor < this.minFloor || floor > this.maxFloor){
+            throw new IllegalArgumentException("Floor " + floor + " is outside this box's range "
+                    + this.minFloor + " to " + this.maxFloor);
+        }
+    }
+
+    /**
+     * Drop the bucket for a floor and mark the floor as having no mail
+     * @param floor the floor to clear
+     */
+    private void clearFloor(int floor){
+        if(isPacked()){
+            HandleBucket bucket = this.handleBuckets.remove(floor);
+            bucket.size = 0;
+            this.spareBuckets.add(bucket);
+        } else {
+            this.buckets.remove(floor);
         }
-        // Return the summary
-        return new Summary(this.mail.size(), this.remainingCapacity, floors.size(), id);
+        this.floors.clear(floor - this.minFloor);
+        this.numFloors--;
+    }
+
+    /**
+     * Update the number of items held for a floor
+     * @param floor the floor of the item added or removed
+     * @param change the change in the number of items for that floor
+     */
+    private void countFloor(int floor, int change){
+        int[] count = this.floorCounts.get(floor);
+        if(count == null){
+            count = new int[1];
+            this.floorCounts.put(floor, count);
+        }
+        count[0] += change;
+        if(count[0] == 0){
+            this.floorCounts.remove(floor);
+        }
+    }
+
+    /**
+     * Tell the listener, if there is one, that the contents of this box have changed
+     */
+    private void notifyChanged(){
+        if(this.listener != null){
+            this.listener.boxChanged(this);
+        }
+    }
+
+    /**
+     * The handles of the items in a packed box for one floor, in the order they were added
+     */
+    private static class HandleBucket {
+        /** The handles, with room to grow past the number held */
+        private int[] handles = new int[4];
+        /** The number of handles held */
+        private int size;
+
+        /**
+         * Add a handle to the end of the bucket, making more room if needed
+         * @param handle the handle to add
+         */
+        void add(int handle){
+            if(this.size == this.handles.length){
+                this.handles = Arrays.copyOf(this.handles, this.size * 2);
+            }
+            this.handles[this.size++] = handle;
+        }
+    }
+
+    /**
+     * An interface for the owner of a box, usually the storage system, to hear about changes to its contents
+     */
+    public interface ChangeListener {
+        /**
+         * Called after an item has been added to or removed from the box
+         * @param box the box that changed
+         */
+        void boxChanged(StorageBox box);
     }
 
 
@@ -110,6 +663,11 @@ public class StorageBox {
         public final int numItems;
         public final int remainingUnits;
         public final int numDests;
+        /** The lowest and highest floors mail in the box is for, or NO_FLOOR if the box is empty */
+        public final int lowestFloor;
+        public final int highestFloor;
+        /** The highest priority of any item in the box, or null if the box is empty */
+        public final MailItem.MailPriority highestPriority;
         public final String identifier;
 
         /**
@@ -120,9 +678,41 @@ public class StorageBox {
          * @param ID the box identifier in the storage unit
          */
         public Summary(int numItems, int remainingUnits, int numDests, String ID){
+            this(numItems, remainingUnits, numDests, null, ID);
+        }
+
+        /**
+         * Create a storage box summary that also knows the most urgent mail in the box. Immutable class.
+         * @param numItems number of items in this box
+         * @param remainingUnits remaining number of units it can take
+         * @param numDests the number of different destinations within this box
+         * @param highestPriority the highest priority of any item in this box, or null if it is empty
+         * @param ID the box identifier in the storage unit
+         */
+        public Summary(int numItems, int remainingUnits, int numDests, MailItem.MailPriority highestPriority,
+                       String ID){
+            this(numItems, remainingUnits, numDests, NO_FLOOR, NO_FLOOR, highestPriority, ID);
+        }
+
+        /**
+         * Create a storage box summary that also knows the spread of floors and the most urgent mail in
+         * the box, so the cost of a trip can be estimated from it. Immutable class.
+         * @param numItems number of items in this box
+         * @param remainingUnits remaining number of units it can take
+         * @param numDests the number of different destinations within this box
+         * @param lowestFloor the lowest floor mail in this box is for, or NO_FLOOR if it is empty
+         * @param highestFloor the highest floor mail in this box is for, or NO_FLOOR if it is empty
+         * @param highestPriority the highest priority of any item in this box, or null if it is empty
+         * @param ID the box identifier in the storage unit
+         */
+        public Summary(int numItems, int remainingUnits, int numDests, int lowestFloor, int highestFloor,
+                       MailItem.MailPriority highestPriority, String ID){
             this.numItems = numItems;
             this.remainingUnits = remainingUnits;
             this.numDests = numDests;
+            this.lowestFloor = lowestFloor;
+            this.highestFloor = highestFloor;
+            this.highestPriority = highestPriority;
             this.identifier = ID;
         }
 
@@ -132,6 +722,9 @@ public class StorageBox {
                     "remainingUnits=" + remainingUnits +
                     ", numItems=" + numItems +
                     ", numDests=" + numDests +
+                    ", lowestFloor=" + lowestFloor +
+                    ", highestFloor=" + highestFloor +
+                    ", highestPriority=" + highestPriority +
                     ", identifier='" + identifier + '\'' +
                     '}';
         }
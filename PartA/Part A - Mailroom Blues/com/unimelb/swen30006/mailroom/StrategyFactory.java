@@ -0,0 +1,39 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import com.unimelb.swen30006.mailroom.buildings.Building;
+
+/**
+ * Produces a fresh set of strategies for each simulation run. Strategies may keep state between
+ * calls, so runs that execute concurrently or in any order must each be given their own instances.
+ */
+public interface StrategyFactory
+{
+    /**
+     * Create the sorting strategy for a run
+     * @param building the building being simulated
+     * @param seed the seed to use if the strategy is random
+     * @return a new sorting strategy
+     */
+    SortingStrategy createSortingStrategy(Building building, long seed);
+
+    /**
+     * Create the selection strategy for a run, shared by every delivery bot in the run
+     * @param building the building being simulated
+     * @param seed the seed to use if the strategy is random
+     * @return a new selection strategy
+     */
+    SelectionStrategy createSelectionStrategy(Building building, long seed);
+
+    /**
+     * Create the delivery strategy for a run, shared by every delivery bot in the run
+     * @param building the building being simulated
+     * @return a new delivery strategy
+     */
+    DeliveryStrategy createDeliveryStrategy(Building building);
+}
@@ -0,0 +1,116 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * The summaries of every box in storage kept sorted in one order, for storage systems to answer ordered
+ * queries with. Storage updates a box's entry whenever the box is created, changed or delivered, which
+ * takes logarithmic time, and the first box in the order is then found in logarithmic time without
+ * looking at any other summary. Ties are broken by handle, lowest first. Not safe to share between
+ * threads without locking.
+ */
+public class SummaryIndex
+{
+    // The order the index keeps
+    private final SummaryOrder order;
+    // Every indexed box, sorted
+    private final TreeSet<Entry> entries;
+    // The entry for each handle, null where there is no box, so an entry can be found to replace it
+    private final Entry[] byHandle;
+
+    /**
+     * Create an empty index
+     * @param order the order to keep boxes in
+     * @param capacity the number of handles storage has
+     */
+    public SummaryIndex(final SummaryOrder order, int capacity)
+    {
+        this.order = order;
+        this.byHandle = new Entry[capacity];
+        this.entries = new TreeSet<>(new Comparator<Entry>()
+        {
+            @Override
+            public int compare(Entry e1, Entry e2)
+            {
+                int compared = order.compare(e1.summary, e2.summary);
+                return compared != 0 ? compared : Integer.compare(e1.handle, e2.handle);
+            }
+        });
+    }
+
+    /**
+     * The order this index keeps boxes in
+     * @return the order of the index
+     */
+    public SummaryOrder getOrder()
+    {
+        return order;
+    }
+
+    /**
+     * Replace the summary of a box, adding the box if it is new or removing it if it has gone
+     * @param handle the handle of the box
+     * @param summary the box's new summary, or null if it has been delivered
+     */
+    public void update(int handle, StorageBox.Summary summary)
+    {
+        Entry old = byHandle[handle];
+        if (old != null) {
+            entries.remove(old);
+        }
+        if (summary == null) {
+            byHandle[handle] = null;
+        } else {
+            Entry entry = new Entry(handle, summary);
+            byHandle[handle] = entry;
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * The summary of the first box in order
+     * @return the first summary, or null if there are no boxes
+     */
+    public StorageBox.Summary first()
+    {
+        return entries.isEmpty() ? null : entries.first().summary;
+    }
+
+    /**
+     * The summaries of the first boxes in order
+     * @param count the most summaries to return
+     * @return up to count summaries, first in order first
+     */
+    public StorageBox.Summary[] top(int count)
+    {
+        StorageBox.Summary[] top = new StorageBox.Summary[Math.min(count, entries.size())];
+        Iterator<Entry> iterator = entries.iterator();
+        for (int i = 0; i < top.length; i++) {
+            top[i] = iterator.next().summary;
+        }
+        return top;
+    }
+
+    /**
+     * A box's summary filed under its handle. Immutable, so that its place in the tree never changes
+     */
+    private static class Entry
+    {
+        private final int handle;
+        private final StorageBox.Summary summary;
+
+        Entry(int handle, StorageBox.Summary summary)
+        {
+            this.handle = handle;
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import java.util.Comparator;
+
+/**
+ * The orders storage can be asked for its boxes in, so strategies can find the first box in an order
+ * without looking at every summary. Each order compares summaries so that the box that should come first
+ * compares as less. Storage breaks ties by handle, lowest first.
+ */
+public enum SummaryOrder implements Comparator<StorageBox.Summary>
+{
+    /** The box with the most items first */
+    MOST_ITEMS
+    {
+        @Override
+        public int compare(StorageBox.Summary s1, StorageBox.Summary s2)
+        {
+            return Integer.compare(s2.numItems, s1.numItems);
+        }
+    },
+
+    /** The box with the fewest items first */
+    FEWEST_ITEMS
+    {
+        @Override
+        public int compare(StorageBox.Summary s1, StorageBox.Summary s2)
+        {
+            return Integer.compare(s1.numItems, s2.numItems);
+        }
+    },
+
+    /** The box with mail for the fewest floors first */
+    FEWEST_DESTINATIONS
+    {
+        @Override
+        public int compare(StorageBox.Summary s1, StorageBox.Summary s2)
+        {
+            return Integer.compare(s1.numDests, s2.numDests);
+        }
+    },
+
+    /** The box holding the most urgent mail first, with empty boxes last */
+    HIGHEST_PRIORITY
+    {
+        @Override
+        public int compare(StorageBox.Summary s1, StorageBox.Summary s2)
+        {
+            return Integer.compare(rank(s2.highestPriority), rank(s1.highestPriority));
+        }
+
+        /**
+         * Rank a priority so that more urgent mail ranks higher, and no mail ranks lowest
+         * @param priority the priority to rank, or null for an empty box
+         * @return the rank of the priority
+         */
+        private int rank(MailItem.MailPriority priority)
+        {
+            return priority == null ? -1 : priority.ordinal();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom;
+
+import java.util.Arrays;
+
+/**
+ * An immutable view of the summaries of every box in a storage system at one point in time. Storage
+ * systems keep the latest snapshot cached and only replace it when a box changes, so strategies can
+ * query it on every step without copying. The version increases every time the storage changes.
+ */
+public final class SummarySnapshot
+{
+    /** The version of the storage this snapshot was taken at */
+    public final long version;
+    /** The summaries of every stored box, never exposed directly so it cannot be modified */
+    private final StorageBox.Summary[] summaries;
+
+    /**
+     * Create a snapshot, taking ownership of the given array
+     * @param version the version of the storage the summaries were taken at
+     * @param summaries the summaries of every box, which must not be modified afterwards
+     */
+    public SummarySnapshot(long version, StorageBox.Summary[] summaries)
+    {
+        this.version = version;
+        this.summaries = summaries;
+    }
+
+    /**
+     * The number of boxes summarised
+     * @return the number of summaries in this snapshot
+     */
+    public int size()
+    {
+        return summaries.length;
+    }
+
+    /**
+     * Check if there were no boxes in storage
+     * @return true if there are no summaries in this snapshot
+     */
+    public boolean isEmpty()
+    {
+        return summaries.length == 0;
+    }
+
+    /**
+     * Get a summary by position
+     * @param index the position of the summary, between 0 and size() - 1
+     * @return the summary at that position
+     */
+    public StorageBox.Summary get(int index)
+    {
+        return summaries[index];
+    }
+
+    /**
+     * Copy the summaries into a new array, for callers that need one
+     * @return a new array of all the summaries
+     */
+    public StorageBox.Summary[] toArray()
+    {
+        return Arrays.copyOf(summaries, summaries.length);
+    }
+}
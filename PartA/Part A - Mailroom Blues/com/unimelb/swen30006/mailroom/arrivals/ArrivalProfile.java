@@ -0,0 +1,33 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.arrivals;
+
+/**
+ * How fast mail arrives at the mail room over simulated time. Arrivals follow a Poisson process whose
+ * rate may change with time, so a profile only has to give the rate at each tick.
+ */
+public interface ArrivalProfile
+{
+    /**
+     * The expected number of items arriving per tick at a given time
+     * @param time the simulated time
+     * @return the arrival rate at that time, never more than maxRate
+     */
+    double rateAt(long time);
+
+    /**
+     * The highest rate the profile ever reaches
+     * @return the peak arrival rate
+     */
+    double maxRate();
+
+    /**
+     * The long run average rate, which is the load the mail room has to keep up with
+     * @return the mean arrival rate
+     */
+    double meanRate();
+}
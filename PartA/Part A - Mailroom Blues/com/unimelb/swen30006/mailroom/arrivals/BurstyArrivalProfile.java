@@ -0,0 +1,66 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.arrivals;
+
+/**
+ * Mail arriving in regular bursts, such as deliveries from the post office, over a lower base rate.
+ * Each period starts with a burst at the burst rate, then falls back to the base rate.
+ */
+public class BurstyArrivalProfile implements ArrivalProfile
+{
+    // The rate outside and during bursts
+    private final double baseRate;
+    private final double burstRate;
+    // The ticks between the start of one burst and the next, and how long each burst lasts
+    private final long period;
+    private final long burstLength;
+
+    /**
+     * Create a bursty arrival profile
+     * @param baseRate the expected number of items arriving per tick between bursts
+     * @param burstRate the expected number of items arriving per tick during a burst
+     * @param period the ticks from the start of one burst to the start of the next
+     * @param burstLength the ticks each burst lasts, no more than the period
+     */
+    public BurstyArrivalProfile(double baseRate, double burstRate, long period, long burstLength)
+    {
+        if (baseRate < 0 || burstRate < 0) {
+            throw new IllegalArgumentException("Arrival rates cannot be negative, got " + baseRate + " and " + burstRate);
+        }
+        if (period <= 0 || burstLength < 0 || burstLength > period) {
+            throw new IllegalArgumentException("Bursts of " + burstLength + " ticks do not fit a period of " + period);
+        }
+        this.baseRate = baseRate;
+        this.burstRate = burstRate;
+        this.period = period;
+        this.burstLength = burstLength;
+    }
+
+    @Override
+    public double rateAt(long time)
+    {
+        return time % period < burstLength ? burstRate : baseRate;
+    }
+
+    @Override
+    public double maxRate()
+    {
+        return Math.max(baseRate, burstRate);
+    }
+
+    @Override
+    public double meanRate()
+    {
+        return (burstRate * burstLength + baseRate * (period - burstLength)) / period;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Bursty(" + baseRate + ", " + burstRate + " for " + burstLength + "/" + period + ")";
+    }
+}
@@ -0,0 +1,52 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.arrivals;
+
+/**
+ * Mail arriving at the same rate all day, making arrivals a plain Poisson process
+ */
+public class ConstantArrivalProfile implements ArrivalProfile
+{
+    // The expected number of items arriving per tick
+    private final double rate;
+
+    /**
+     * Create a constant arrival profile
+     * @param rate the expected number of items arriving per tick
+     */
+    public ConstantArrivalProfile(double rate)
+    {
+        if (rate < 0) {
+            throw new IllegalArgumentException("Arrival rate cannot be negative, got " + rate);
+        }
+        this.rate = rate;
+    }
+
+    @Override
+    public double rateAt(long time)
+    {
+        return rate;
+    }
+
+    @Override
+    public double maxRate()
+    {
+        return rate;
+    }
+
+    @Override
+    public double meanRate()
+    {
+        return rate;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Poisson(" + rate + ")";
+    }
+}
@@ -0,0 +1,68 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.arrivals;
+
+/**
+ * Mail arriving in a daily cycle, rising and falling smoothly around a mean rate. The cycle starts at
+ * the mean rate and rises to its peak a quarter of the way through.
+ */
+public class DiurnalArrivalProfile implements ArrivalProfile
+{
+    // The average rate over a whole cycle
+    private final double meanRate;
+    // How far the rate swings either side of the mean, as a fraction of the mean
+    private final double amplitude;
+    // The ticks in one cycle
+    private final long period;
+
+    /**
+     * Create a diurnal arrival profile
+     * @param meanRate the average number of items arriving per tick over a cycle
+     * @param amplitude how far the rate swings either side of the mean as a fraction of it, from 0 to 1
+     * @param period the ticks in one cycle
+     */
+    public DiurnalArrivalProfile(double meanRate, double amplitude, long period)
+    {
+        if (meanRate < 0) {
+            throw new IllegalArgumentException("Arrival rate cannot be negative, got " + meanRate);
+        }
+        if (amplitude < 0 || amplitude > 1) {
+            throw new IllegalArgumentException("Amplitude must be between 0 and 1, got " + amplitude);
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+        this.meanRate = meanRate;
+        this.amplitude = amplitude;
+        this.period = period;
+    }
+
+    @Override
+    public double rateAt(long time)
+    {
+        double phase = 2 * Math.PI * (time % period) / period;
+        return meanRate * (1 + amplitude * Math.sin(phase));
+    }
+
+    @Override
+    public double maxRate()
+    {
+        return meanRate * (1 + amplitude);
+    }
+
+    @Override
+    public double meanRate()
+    {
+        return meanRate;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Diurnal(" + meanRate + " +/- " + amplitude * 100 + "% over " + period + ")";
+    }
+}
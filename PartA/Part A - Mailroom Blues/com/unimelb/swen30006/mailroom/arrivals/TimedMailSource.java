@@ -0,0 +1,172 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.arrivals;
+
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.Checkpoints;
+import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailSource;
+import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * A mail source whose items arrive over simulated time according to an arrival profile, rather than
+ * all being there from the start. Arrival times are drawn from a Poisson process with the profile's
+ * rate, by thinning one at the profile's peak rate. What arrives is taken from another source, so any
+ * generator can be used for the items themselves, and each item is stamped with its arrival time.
+ *
+ * Mail keeps arriving until the given duration has passed or the item source runs out.
+ *
+ * The source can be checkpointed if the item source can.
+ */
+public class TimedMailSource implements MailSource, Checkpointable
+{
+    // The name of this source
+    private static final String NAME = "Timed Mail Source";
+
+    // The source the arriving items are taken from
+    private final MailSource items;
+    // How fast mail arrives
+    private final ArrivalProfile profile;
+    // The time after which no more mail arrives
+    private final long duration;
+    // Random numbers for arrival times
+    private Random random;
+
+    // The time of the last candidate arrival, in fractions of a tick
+    private double lastArrival;
+    // The next item to arrive, or null if no more will
+    private MailItem next;
+
+    /**
+     * Create a timed mail source
+     * @param items the source to take arriving items from
+     * @param profile how fast mail arrives over time
+     * @param duration the number of ticks mail keeps arriving for
+     * @param seed the seed for arrival times
+     */
+    public TimedMailSource(MailSource items, ArrivalProfile profile, long duration, long seed)
+    {
+        this.items = items;
+        this.profile = profile;
+        this.duration = duration;
+        this.random = new Random(seed);
+        this.lastArrival = 0;
+        this.next = arrive();
+    }
+
+    @Override
+    public boolean hasNextMail()
+    {
+        return next != null;
+    }
+
+    @Override
+    public boolean hasMailBy(long time)
+    {
+        return next != null && next.arrivalTime <= time;
+    }
+
+    @Override
+    public long nextArrivalTime()
+    {
+        return next == null ? NO_MORE_MAIL : next.arrivalTime;
+    }
+
+    /**
+     * Retrieve the next item to arrive, whether or not it has arrived yet
+     * @return the next item, stamped with its arrival time
+     * @throws SourceExhaustedException if no more mail will arrive
+     */
+    @Override
+    public MailItem nextItem() throws SourceExhaustedException
+    {
+        if (next == null) {
+            throw new SourceExhaustedException(NAME);
+        }
+        MailItem item = next;
+        next = arrive();
+        return item;
+    }
+
+    /**
+     * Write the arrival drawn so far and the item waiting to arrive, then the item source
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     * @throws IllegalStateException if the item source cannot be checkpointed
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        Checkpoints.writeRandom(out, random);
+        out.writeDouble(lastArrival);
+        out.writeBoolean(next != null);
+        if (next != null) {
+            Checkpoints.writeItem(out, next);
+        }
+        Checkpoints.required(items, "item source").writeCheckpoint(out);
+    }
+
+    /**
+     * Read back what writeCheckpoint wrote
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        random = Checkpoints.readRandom(in);
+        lastArrival = in.readDouble();
+        next = in.readBoolean() ? Checkpoints.readItem(in) : null;
+        Checkpoints.required(items, "item source").readCheckpoint(in);
+    }
+
+    /**
+     * Draw the next arrival, skipping candidates at the peak rate with the chance the profile's rate
+     * at that time falls short of the peak
+     * @return the next item stamped with its arrival time, or null if no more mail arrives
+     */
+    private MailItem arrive()
+    {
+        double maxRate = profile.maxRate();
+        if (maxRate <= 0) {
+            return null;
+        }
+        while (true) {
+            // Exponential gaps at the peak rate give Poisson arrivals at that rate
+            lastArrival += -Math.log(1 - random.nextDouble()) / maxRate;
+            if (lastArrival >= duration || !items.hasNextMail()) {
+                return null;
+            }
+            long time = (long) lastArrival;
+            if (random.nextDouble() * maxRate < profile.rateAt(time)) {
+                return stamp(time);
+            }
+        }
+    }
+
+    /**
+     * Take the next item from the item source and stamp it with an arrival time
+     * @param time the time it arrives
+     * @return the stamped item
+     */
+    private MailItem stamp(long time)
+    {
+        MailItem item = null;
+        try {
+            item = items.nextItem();
+        } catch (SourceExhaustedException e) {
+            System.out.println(e);
+            System.exit(0);
+        }
+        return new MailItem(item.packageType, item.priority, item.floor, item.adressee, item.size, time);
+    }
+}
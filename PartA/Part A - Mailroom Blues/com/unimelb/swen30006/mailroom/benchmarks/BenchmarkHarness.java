@@ -0,0 +1,216 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A small throughput benchmark harness in the style of JMH. Runs an operation repeatedly over a
+ * number of timed warmup and measurement iterations, reporting operations per second and, where the
+ * JVM supports per-thread allocation counters, the bytes allocated per operation.
+ */
+public class BenchmarkHarness
+{
+    // Column layout of the result table
+    private static final String ROW_FORMAT = "%-58s %-14s %14s %12s %12s %10s%n";
+
+    // Number of warmup and measurement iterations, and the length of each in nanoseconds
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+
+    // The allocation counter for the current thread, or null if the JVM does not provide one
+    private final com.sun.management.ThreadMXBean allocationCounter;
+
+    // Results are written here so the JIT cannot eliminate the benchmarked work
+    private volatile Object sink;
+
+    /**
+     * An operation to benchmark
+     */
+    public interface Operation
+    {
+        /**
+         * Perform the operation once
+         * @return the result of the operation, which is consumed so that it is not optimised away
+         * @throws Exception if the operation fails, which aborts the benchmark
+         */
+        Object run() throws Exception;
+    }
+
+    /**
+     * Create a harness with the given iteration settings
+     * @param warmupIterations the number of iterations run and discarded before measuring
+     * @param measurementIterations the number of iterations measured
+     * @param iterationMillis the length of each iteration in milliseconds
+     */
+    public BenchmarkHarness(int warmupIterations, int measurementIterations, long iterationMillis)
+    {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1000000L;
+        this.allocationCounter = findAllocationCounter();
+    }
+
+    /**
+     * Print the header of the result table
+     */
+    public void printHeader()
+    {
+        System.out.printf(ROW_FORMAT, "Benchmark", "(building)", "ops/s", "ns/op", "B/op", "MB/s");
+    }
+
+    /**
+     * Benchmark an operation and print its result row
+     * @param name the name of the benchmark
+     * @param param the parameter the benchmark was run with
+     * @param operation the operation to run
+     * @return the measured result
+     * @throws Exception if the operation fails
+     */
+    public Result measure(String name, String param, Operation operation) throws Exception
+    {
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(operation);
+        }
+
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] iteration = runIteration(operation);
+            totalOps += iteration[0];
+            totalNanos += iteration[1];
+            totalBytes += iteration[2];
+        }
+
+        Result result = new Result(name, param, totalOps, totalNanos, allocationCounter == null ? -1 : totalBytes);
+        System.out.printf(ROW_FORMAT, name, param, format(result.opsPerSecond()), format(result.nanosPerOp()),
+                          result.bytesPerOp() < 0 ? "n/a" : format(result.bytesPerOp()),
+                          result.allocationRate() < 0 ? "n/a" : format(result.allocationRate()));
+        return result;
+    }
+
+    /**
+     * Run the operation repeatedly for one iteration
+     * @param operation the operation to run
+     * @return the number of operations, nanoseconds elapsed and bytes allocated during the iteration
+     * @throws Exception if the operation fails
+     */
+    private long[] runIteration(Operation operation) throws Exception
+    {
+        long threadId = Thread.currentThread().getId();
+        long startBytes = allocatedBytes(threadId);
+        long start = System.nanoTime();
+        long deadline = start + iterationNanos;
+        long ops = 0;
+        long now;
+        do {
+            sink = operation.run();
+            ops++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long endBytes = allocatedBytes(threadId);
+        return new long[] {ops, now - start, endBytes - startBytes};
+    }
+
+    /**
+     * Read the number of bytes the given thread has allocated so far
+     * @param threadId the id of the thread
+     * @return the bytes allocated, or 0 if allocation counting is unavailable
+     */
+    private long allocatedBytes(long threadId)
+    {
+        if (allocationCounter == null) {
+            return 0;
+        }
+        return allocationCounter.getThreadAllocatedBytes(threadId);
+    }
+
+    /**
+     * Find the JVM's per-thread allocation counter, enabling it if necessary
+     * @return the allocation counter, or null if the JVM does not support one
+     */
+    private static com.sun.management.ThreadMXBean findAllocationCounter()
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+        if (!counter.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        counter.setThreadAllocatedMemoryEnabled(true);
+        return counter;
+    }
+
+    /**
+     * Format a measurement for the result table
+     * @param value the value to format
+     * @return the value with three significant decimals
+     */
+    private static String format(double value)
+    {
+        return String.format("%.3f", value);
+    }
+
+    /**
+     * The result of benchmarking one operation. Is immutable
+     */
+    public static class Result
+    {
+        // The benchmark and the parameter it was run with
+        public final String name;
+        public final String param;
+        // Totals over all measurement iterations, bytes is negative if allocation was not counted
+        public final long operations;
+        public final long nanos;
+        public final long bytes;
+
+        /**
+         * Create a benchmark result
+         * @param name the name of the benchmark
+         * @param param the parameter the benchmark was run with
+         * @param operations the number of operations measured
+         * @param nanos the nanoseconds taken by those operations
+         * @param bytes the bytes allocated by those operations, or -1 if unknown
+         */
+        public Result(String name, String param, long operations, long nanos, long bytes)
+        {
+            this.name = name;
+            this.param = param;
+            this.operations = operations;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        // Throughput in operations per second
+        public double opsPerSecond()
+        {
+            return operations / (nanos / 1e9);
+        }
+
+        // Average time per operation in nanoseconds
+        public double nanosPerOp()
+        {
+            return nanos / (double) operations;
+        }
+
+        // Average bytes allocated per operation, or -1 if unknown
+        public double bytesPerOp()
+        {
+            return bytes < 0 ? -1 : bytes / (double) operations;
+        }
+
+        // Allocation rate in megabytes per second, or -1 if unknown
+        public double allocationRate()
+        {
+            return bytes < 0 ? -1 : (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+        }
+    }
+}
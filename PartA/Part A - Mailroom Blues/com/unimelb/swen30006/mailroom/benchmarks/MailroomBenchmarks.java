@@ -0,0 +1,385 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.benchmarks;
+
+import com.unimelb.swen30006.mailroom.*;
+import com.unimelb.swen30006.mailroom.buildings.*;
+import com.unimelb.swen30006.mailroom.exceptions.MailOverflowException;
+import com.unimelb.swen30006.mailroom.recording.EventRecorder;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailGenerator;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailStorage;
+import com.unimelb.swen30006.mailroom.strategies.delivery.RoutePlanningDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.strategies.delivery.SortedByFloorDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.FullnessSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.RandomSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.BestFitSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.EvenDistributionSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.RandomSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.RoomGroupedSortingStrategy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Benchmarks the per-call cost of the mail room hot paths: every sorting, selection and delivery
+ * strategy, storage summaries and a full simulation run, over each built in building plus synthetic
+ * buildings of one and ten thousand floors.
+ *
+ * Usage: MailroomBenchmarks [filter]
+ * where filter, if given, only runs benchmarks whose name or building contains it.
+ */
+public class MailroomBenchmarks
+{
+    // Iteration settings, a few short iterations are enough to spot regressions between builds
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_MILLIS = 500;
+
+    // The fraction of storage units filled before benchmarking sorting and selection
+    private static final double FILL_FRACTION = 0.5;
+    // The number of mail items generated up front and cycled through by sorting benchmarks
+    private static final int NUM_ITEMS = 4096;
+    // Fixed seed for random strategies so runs are comparable
+    private static final long SEED = 30006;
+
+    private final BenchmarkHarness harness;
+    private final String filter;
+
+    /**
+     * Create the benchmark suite
+     * @param harness the harness to measure with
+     * @param filter only benchmarks whose name or building contains this are run, null runs all
+     */
+    public MailroomBenchmarks(BenchmarkHarness harness, String filter)
+    {
+        this.harness = harness;
+        this.filter = filter;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String filter = args.length > 0 ? args[0] : null;
+        BenchmarkHarness harness = new BenchmarkHarness(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS, ITERATION_MILLIS);
+        MailroomBenchmarks benchmarks = new MailroomBenchmarks(harness, filter);
+
+        harness.printHeader();
+        for (Map.Entry<String, Building> entry : buildings().entrySet()) {
+            benchmarks.runAll(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * The buildings every benchmark is parameterised over
+     * @return the buildings keyed by name, in a fixed order
+     */
+    public static Map<String, Building> buildings()
+    {
+        BuildingFactory factory = new BuildingFactory();
+        Map<String, Building> buildings = new LinkedHashMap<>();
+        for (String name : factory.getNames()) {
+            buildings.put(name, factory.getBuilding(name));
+        }
+        buildings.put("synthetic1k", new Building(1, 1000, 50, 40, 2, 20));
+        buildings.put("synthetic10k", new Building(1, 10000, 50, 40, 2, 20));
+        return buildings;
+    }
+
+    /**
+     * Run every benchmark against one building
+     * @param name the name of the building
+     * @param building the building to benchmark against
+     * @throws Exception if a benchmark fails
+     */
+    private void runAll(String name, Building building) throws Exception
+    {
+        final MailItem[] items = generateItems(building, NUM_ITEMS);
+
+        // Sorting strategies against half full storage
+        Map<String, SortingStrategy> sorters = sortingStrategies(building);
+        for (Map.Entry<String, SortingStrategy> entry : sorters.entrySet()) {
+            final SortingStrategy strategy = entry.getValue();
+            final MailStorage storage = fillStorage(building, strategy, items);
+            run("sorting." + entry.getKey() + ".tryAssignStorage", name, new BenchmarkHarness.Operation() {
+                private int next = 0;
+
+                @Override
+                public Object run() {
+                    MailItem item = items[next];
+                    next = (next + 1) % items.length;
+                    return strategy.tryAssignStorage(item, storage);
+                }
+            });
+            run("sorting." + entry.getKey() + ".tryAssignHandle", name, new BenchmarkHarness.Operation() {
+                private int next = 0;
+
+                @Override
+                public Object run() {
+                    MailItem item = items[next];
+                    next = (next + 1) % items.length;
+                    return strategy.tryAssignHandle(item, storage);
+                }
+            });
+        }
+
+        // Selection strategies and storage summaries against storage filled by the default sorter
+        final MailStorage storage = fillStorage(building, new EvenDistributionSortingStrategy(building.getMaxBoxes()), items);
+        final StorageBox.Summary[] summaries = storage.retrieveSummaries();
+        final SummarySnapshot snapshot = storage.retrieveSnapshot();
+        Map<String, SelectionStrategy> selectors = new LinkedHashMap<>();
+        selectors.put("FullnessSelectionStrategy", new FullnessSelectionStrategy());
+        selectors.put("RandomSelectionStrategy", new RandomSelectionStrategy(SEED));
+        for (Map.Entry<String, SelectionStrategy> entry : selectors.entrySet()) {
+            final SelectionStrategy strategy = entry.getValue();
+            run("selection." + entry.getKey() + ".selectNextDelivery", name, new BenchmarkHarness.Operation() {
+                @Override
+                public Object run() throws Exception {
+                    return strategy.selectNextDelivery(summaries);
+                }
+            });
+            run("selection." + entry.getKey() + ".trySelectNextDelivery", name, new BenchmarkHarness.Operation() {
+                @Override
+                public Object run() {
+                    return strategy.trySelectNextDelivery(snapshot);
+                }
+            });
+            run("selection." + entry.getKey() + ".trySelectNextDeliveryFromStorage", name, new BenchmarkHarness.Operation() {
+                @Override
+                public Object run() {
+                    return strategy.trySelectNextDelivery(storage);
+                }
+            });
+        }
+        run("storage.SimpleMailStorage.retrieveSummaries", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() {
+                return storage.retrieveSummaries();
+            }
+        });
+        run("storage.SimpleMailStorage.retrieveSnapshot", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() {
+                return storage.retrieveSnapshot();
+            }
+        });
+
+        // Delivery strategies and summaries against a single full box
+        final StorageBox box = fillBox(building, items);
+        final DeliveryStrategy delivery = new SortedByFloorDeliveryStrategy();
+        final int mailRoom = building.getMailRoomLevel();
+        run("delivery.SortedByFloorDeliveryStrategy.chooseNextFloor", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() throws Exception {
+                return delivery.chooseNextFloor(mailRoom, box);
+            }
+        });
+        final DeliveryStrategy planner = new RoutePlanningDeliveryStrategy(mailRoom);
+        run("delivery.RoutePlanningDeliveryStrategy.chooseNextFloor", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() throws Exception {
+                return planner.chooseNextFloor(mailRoom, box);
+            }
+        });
+        run("box.StorageBox.lowestFloor", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() {
+                return box.lowestFloor();
+            }
+        });
+        run("box.StorageBox.generateSummary", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() {
+                return box.generateSummary("0");
+            }
+        });
+
+        // Delivering a whole box floor by floor, refilled from the same items every time
+        final int lowestFloor = building.getMinFloor();
+        final int highestFloor = building.getMaxFloor();
+        final int boxSize = building.getMaxMailUnits();
+        run("box.StorageBox.removeItemsForFloor", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() throws Exception {
+                StorageBox delivered = new StorageBox(boxSize, lowestFloor, highestFloor);
+                for (MailItem item : items) {
+                    if (!delivered.canHold(item)) {
+                        break;
+                    }
+                    delivered.addItem(item);
+                }
+                int removed = 0;
+                while (!delivered.isEmpty()) {
+                    removed += delivered.removeItemsForFloor(delivered.lowestFloor()).size();
+                }
+                return removed;
+            }
+        });
+
+        // The same delivery from a packed box, by handle, giving the handles back to the store as it goes
+        final MailItemStore store = new MailItemStore();
+        run("box.StorageBox.removeHandlesForFloor", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() {
+                StorageBox delivered = new StorageBox(boxSize, lowestFloor, highestFloor, store);
+                for (MailItem item : items) {
+                    if (!delivered.canHold(item)) {
+                        break;
+                    }
+                    delivered.tryAddHandle(store.add(item));
+                }
+                int[] handles = new int[delivered.numPackages()];
+                int removed = 0;
+                while (!delivered.isEmpty()) {
+                    int count = delivered.removeHandlesForFloor(delivered.lowestFloor(), handles);
+                    store.release(handles, count);
+                    removed += count;
+                }
+                return removed;
+            }
+        });
+
+        // A full run with the strategies used by the simulation driver
+        final Building runBuilding = building;
+        run("simulation.SimulationRun.run", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() {
+                return newRun(runBuilding).run();
+            }
+        });
+        run("simulation.SimulationRun.runLockStep", name, new BenchmarkHarness.Operation() {
+            @Override
+            public Object run() {
+                return newRun(runBuilding).runLockStep();
+            }
+        });
+        // The same run recording every event, against the plain run for the cost of recording
+        Path recording = Files.createTempFile("mailroom", ".rec");
+        try (final EventRecorder recorder = new EventRecorder(recording)) {
+            run("simulation.SimulationRun.runRecorded", name, new BenchmarkHarness.Operation() {
+                private long numRuns;
+
+                @Override
+                public Object run() {
+                    SimulationRun run = newRun(runBuilding);
+                    run.setRecorder(recorder, numRuns++);
+                    return run.run();
+                }
+            });
+        } finally {
+            Files.delete(recording);
+        }
+    }
+
+    /**
+     * Set up a run with the strategies used by the simulation driver
+     * @param building the building to run in
+     * @return the new run
+     */
+    private static SimulationRun newRun(Building building)
+    {
+        return new SimulationRun(building, SimulationRun.createMailSource(building, true),
+                new FullnessSelectionStrategy(), new RoutePlanningDeliveryStrategy(building.getMailRoomLevel()),
+                new EvenDistributionSortingStrategy(building.getMaxBoxes()));
+    }
+
+    /**
+     * Measure a benchmark if it passes the filter
+     * @param benchmark the benchmark name
+     * @param building the building name
+     * @param operation the operation to measure
+     * @throws Exception if the operation fails
+     */
+    private void run(String benchmark, String building, BenchmarkHarness.Operation operation) throws Exception
+    {
+        if (filter == null || benchmark.contains(filter) || building.contains(filter)) {
+            harness.measure(benchmark, building, operation);
+        }
+    }
+
+    /**
+     * Create each sorting strategy for a building
+     * @param building the building the strategies sort for
+     * @return the strategies keyed by name, in a fixed order
+     */
+    private static Map<String, SortingStrategy> sortingStrategies(Building building)
+    {
+        Map<String, SortingStrategy> sorters = new LinkedHashMap<>();
+        sorters.put("EvenDistributionSortingStrategy", new EvenDistributionSortingStrategy(building.getMaxBoxes()));
+        sorters.put("RandomSortingStrategy", new RandomSortingStrategy(SEED, building.getMaxBoxes()));
+        sorters.put("RoomGroupedSortingStrategy", new RoomGroupedSortingStrategy(building.getMaxBoxes(),
+                building.getMinFloor(), building.getMaxFloor()));
+        sorters.put("BestFitSortingStrategy", new BestFitSortingStrategy(building.getMaxBoxes()));
+        return sorters;
+    }
+
+    /**
+     * Generate mail items for a building with a fixed seed
+     * @param building the building the mail is addressed within
+     * @param count the number of items to generate
+     * @return the generated items
+     * @throws Exception if the generator runs out of mail
+     */
+    private static MailItem[] generateItems(Building building, int count) throws Exception
+    {
+        MailSource source = new SimpleMailGenerator(building.getMinFloor(), building.getMaxFloor(),
+                MailItem.MailPriority.values(), MailItem.MailType.values(), count, true);
+        MailItem[] items = new MailItem[count];
+        for (int i = 0; i < count; i++) {
+            items[i] = source.nextItem();
+        }
+        return items;
+    }
+
+    /**
+     * Sort items into a new storage unit with the given strategy until it is partly full
+     * @param building the building whose storage is filled
+     * @param strategy the strategy deciding where items go
+     * @param items the items to sort
+     * @return the filled storage
+     * @throws Exception if the strategy picks an unknown box
+     */
+    private static MailStorage fillStorage(Building building, SortingStrategy strategy, MailItem[] items)
+            throws Exception
+    {
+        MailStorage storage = new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits(),
+                building.getMinFloor(), building.getMaxFloor());
+        long targetUnits = (long) (FILL_FRACTION * building.getMaxBoxes() * building.getMaxMailUnits());
+        long storedUnits = 0;
+        for (MailItem item : items) {
+            if (storedUnits >= targetUnits) {
+                break;
+            }
+            try {
+                StorageBox box = storage.retrieveBox(strategy.assignStorage(item, storage));
+                box.addItem(item);
+                storedUnits += item.size;
+            } catch (MailOverflowException e) {
+                // Skip items that do not fit, as the sorter would
+            }
+        }
+        return storage;
+    }
+
+    /**
+     * Fill a single box for the building with as many items as will fit
+     * @param building the building whose box size is used
+     * @param items the items to add
+     * @return the filled box
+     * @throws Exception if an item could not be added
+     */
+    private static StorageBox fillBox(Building building, MailItem[] items) throws Exception
+    {
+        StorageBox box = new StorageBox(building.getMaxMailUnits(), building.getMinFloor(), building.getMaxFloor());
+        for (MailItem item : items) {
+            if (box.canHold(item)) {
+                box.addItem(item);
+            }
+        }
+        return box;
+    }
+}
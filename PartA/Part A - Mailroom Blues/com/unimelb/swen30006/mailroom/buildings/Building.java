@@ -2,17 +2,19 @@
  * Project 1 - Mailroom Blues
  * Author: Robert Holt
  * SID: 
- * Last Modified: 2016-03-11
+ * Last Modified: 2026-10-18
  */
 package com.unimelb.swen30006.mailroom.buildings;
 
 /**
- * A building in which mail delivery is simulated
+ * A building in which mail delivery is simulated. A building is only data, so every size of building
+ * is an instance given its parameters, or read from a spec of the form
+ * minFloor,maxFloor,maxBoxes,maxMailUnits,mailRoomLevel,numBots[,numMailItems]
  */
 public class Building
 {
     // The types/sizes of building supported
-    public enum BuildingType {Small, Medium, Large, Unspecified}
+    public enum BuildingType {Small, Medium, Large, Scale, Unspecified}
 
     // Building's minimum floor
     private static final int MIN_FLOOR          = -1;
@@ -27,37 +29,138 @@ public class Building
     // Number of mail delivery bots
     private static final int NUM_BOTS           = 1;
 
+    // Building's minimum and maximum floor
+    private final int minFloor;
+    private final int maxFloor;
+    // Building's maximum number of mailboxes and storage units per mailbox
+    private final int maxBoxes;
+    private final int maxMailUnits;
+    // Floor the mail room is on and number of mail delivery bots
+    private final int mailRoomLevel;
+    private final int numBots;
+    // Number of mail items delivered in each run
+    private final int numMailItems;
+
+    // Create the default building
+    public Building()
+    {
+        this(MIN_FLOOR, MAX_FLOOR, MAX_BOXES, MAX_MAIL_UNITS, MAIL_ROOM_LEVEL, NUM_BOTS);
+    }
+
+    /**
+     * Create a building delivering as many mail items each run as a box has units, as every
+     * building has done before
+     * @param minFloor the minimum floor of the building
+     * @param maxFloor the maximum floor of the building
+     * @param maxBoxes the maximum number of mail boxes allowed in the building
+     * @param maxMailUnits the maximum number of mail units each box can fit
+     * @param mailRoomLevel the building level where the mail room is
+     * @param numBots the number of mail delivery robots servicing the building
+     * @throws IllegalArgumentException if the building cannot be simulated
+     */
+    public Building(int minFloor, int maxFloor, int maxBoxes, int maxMailUnits, int mailRoomLevel, int numBots)
+    {
+        this(minFloor, maxFloor, maxBoxes, maxMailUnits, mailRoomLevel, numBots, maxMailUnits);
+    }
+
+    /**
+     * Create a building with the given parameters
+     * @param minFloor the minimum floor of the building
+     * @param maxFloor the maximum floor of the building
+     * @param maxBoxes the maximum number of mail boxes allowed in the building
+     * @param maxMailUnits the maximum number of mail units each box can fit
+     * @param mailRoomLevel the building level where the mail room is
+     * @param numBots the number of mail delivery robots servicing the building
+     * @param numMailItems the number of mail items delivered in each run
+     * @throws IllegalArgumentException if the building cannot be simulated
+     */
+    public Building(int minFloor, int maxFloor, int maxBoxes, int maxMailUnits, int mailRoomLevel, int numBots,
+                    int numMailItems)
+    {
+        if (minFloor > maxFloor || mailRoomLevel < minFloor || mailRoomLevel > maxFloor) {
+            throw new IllegalArgumentException("Mail room on floor " + mailRoomLevel + " is not in floors "
+                    + minFloor + ".." + maxFloor);
+        }
+        if (maxBoxes < 1 || maxMailUnits < 1 || numBots < 1 || numMailItems < 0) {
+            throw new IllegalArgumentException("Buildings need boxes, units and bots, got " + maxBoxes
+                    + " boxes of " + maxMailUnits + " units, " + numBots + " bots and " + numMailItems + " items");
+        }
+        this.minFloor = minFloor;
+        this.maxFloor = maxFloor;
+        this.maxBoxes = maxBoxes;
+        this.maxMailUnits = maxMailUnits;
+        this.mailRoomLevel = mailRoomLevel;
+        this.numBots = numBots;
+        this.numMailItems = numMailItems;
+    }
+
+    /**
+     * Read a building from its spec
+     * @param spec minFloor,maxFloor,maxBoxes,maxMailUnits,mailRoomLevel,numBots with an optional
+     *             numMailItems, which is maxMailUnits if left out
+     * @return the building
+     * @throws IllegalArgumentException if the spec is not a building that can be simulated
+     */
+    public static Building parse(String spec)
+    {
+        String[] fields = spec.split(",");
+        if (fields.length != 6 && fields.length != 7) {
+            throw new IllegalArgumentException("Expected minFloor,maxFloor,maxBoxes,maxMailUnits,mailRoomLevel,"
+                    + "numBots[,numMailItems], got " + spec);
+        }
+        int[] values = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = Integer.parseInt(fields[i].trim());
+        }
+        int numMailItems = fields.length == 7 ? values[6] : values[3];
+        return new Building(values[0], values[1], values[2], values[3], values[4], values[5], numMailItems);
+    }
+
     // The minimum floor of the building
     public int getMinFloor()
     {
-        return MIN_FLOOR;
+        return minFloor;
     }
     // The maximum floor of the building
     public int getMaxFloor()
     {
-        return MAX_FLOOR;
+        return maxFloor;
     }
 
     // The maximum number of mail boxes allowed in the building
     public int getMaxBoxes()
     {
-        return MAX_BOXES;
+        return maxBoxes;
     }
     // The maximum number of mail units each box can fit
     public int getMaxMailUnits()
     {
-        return MAX_MAIL_UNITS;
+        return maxMailUnits;
     }
 
     // The building level where the mail room is
     public int getMailRoomLevel()
     {
-        return MAIL_ROOM_LEVEL;
+        return mailRoomLevel;
     }
 
     // The number of mail delivery robots servicing the building
     public int getNumBots()
     {
-        return NUM_BOTS;
+        return numBots;
+    }
+
+    // The number of mail items delivered in each run
+    public int getNumMailItems()
+    {
+        return numMailItems;
+    }
+
+    // The building as a spec that parse reads back
+    @Override
+    public String toString()
+    {
+        return minFloor + "," + maxFloor + "," + maxBoxes + "," + maxMailUnits + "," + mailRoomLevel + ","
+                + numBots + "," + numMailItems;
     }
 }
@@ -2,31 +2,129 @@
  * Project 1 - Mailroom Blues
  * Author: Robert Holt
  * SID: 
- * Last Modified: 2016-03-11
+ * Last Modified: 2026-10-18
  */
 package com.unimelb.swen30006.mailroom.buildings;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 /**
- * Produces a Building object given input parameters
+ * Produces a Building object given input parameters. Buildings are looked up by name from specs,
+ * starting with the built in sizes and adding any loaded from a file of name=spec lines, or read
+ * straight from a spec given in place of a name.
  */
 public class BuildingFactory
 {
+    // The name of the default building, which Building defines itself
+    private static final String DEFAULT = "default";
+    // The other built in buildings, as name and spec pairs. The scale building is far larger than the
+    // others, to find what stops scaling as buildings grow
+    private static final String[][] BUILT_IN = {
+            { "small",   "1,10,30,40,10,1" },
+            { "medium",  "1,50,10,30,20,10" },
+            { "large",   "1,200,50,40,2,20" },
+            { "scale",   "1,10000,5000,200,1,1000,100000" } };
+
+    // Every building known by name, lower case, in the order defined
+    private final Map<String, Building> buildings = new LinkedHashMap<>();
+
+    // Create a factory knowing only the built in buildings
+    public BuildingFactory()
+    {
+        define(DEFAULT, new Building());
+        for (String[] entry : BUILT_IN) {
+            define(entry[0], Building.parse(entry[1]));
+        }
+    }
+
     public Building getDefaultBuilding()
     {
-        return new Building();
+        return getBuilding(DEFAULT);
     }
 
     public Building getNewBuilding(Building.BuildingType type)
     {
-        switch (type) {
-            case Large:
-                return new SmallBuilding();
-            case Medium:
-                return new MediumBuilding();
-            case Small:
-                return new SmallBuilding();
-            default:
-                return getDefaultBuilding();
+        if (type == Building.BuildingType.Unspecified) {
+            return getDefaultBuilding();
+        }
+        return getBuilding(type.name());
+    }
+
+    /**
+     * Get a building by name, or from a spec given instead of a name
+     * @param nameOrSpec the name of a known building, or a spec as read by Building.parse
+     * @return the building
+     * @throws IllegalArgumentException if there is no building of that name and it is not a spec
+     */
+    public Building getBuilding(String nameOrSpec)
+    {
+        if (nameOrSpec.indexOf(',') >= 0) {
+            return Building.parse(nameOrSpec);
         }
+        Building building = buildings.get(nameOrSpec.toLowerCase(Locale.ROOT));
+        if (building == null) {
+            throw new IllegalArgumentException("Unknown building " + nameOrSpec + ", expected a spec or one of "
+                    + String.join(", ", getNames()));
+        }
+        return building;
+    }
+
+    /**
+     * Define a building by name, replacing any building of the same name
+     * @param name the name of the building, which is not case sensitive
+     * @param building the building
+     */
+    public void define(String name, Building building)
+    {
+        buildings.put(name.toLowerCase(Locale.ROOT), building);
+    }
+
+    /**
+     * Load buildings from a file with a name=spec line for each building. Blank lines and lines
+     * starting with # are skipped.
+     * @param file the file to load
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a building, giving its line number
+     */
+    public void load(Path file) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int equals = line.indexOf('=');
+                try {
+                    if (equals < 1) {
+                        throw new IllegalArgumentException("Expected name=spec");
+                    }
+                    define(line.substring(0, equals).trim(), Building.parse(line.substring(equals + 1)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The names of every building known
+     * @return the names, lower case, in the order defined
+     */
+    public List<String> getNames()
+    {
+        return new ArrayList<>(buildings.keySet());
     }
 }
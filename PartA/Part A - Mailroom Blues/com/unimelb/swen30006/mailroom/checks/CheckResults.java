@@ -0,0 +1,129 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.checks;
+
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.RunResult;
+import com.unimelb.swen30006.mailroom.SimulationRun;
+import com.unimelb.swen30006.mailroom.metrics.LatencyRecorder;
+
+import java.io.PrintStream;
+
+/**
+ * Tallies the results of a regression check. Each failed expectation is printed as it happens, and the
+ * check ends by printing how many expectations held and exiting with a non-zero status if any failed, so
+ * checks can be run from a script or a build. Results are printed to standard output as it was when the
+ * check started, so checks can silence what runs print. The sorter and bots exit when a strategy
+ * misbehaves, so a check that exits before it finishes is failed rather than left looking like a pass.
+ */
+public class CheckResults
+{
+    // The name of the check, printed with its results
+    private final String name;
+    // Where results are printed
+    private final PrintStream out;
+    // The number of expectations checked, and the number that failed
+    private int numChecked;
+    private int numFailed;
+    // Whether the check has finished
+    private volatile boolean finished;
+
+    /**
+     * Start tallying a check
+     * @param name the name of the check
+     */
+    public CheckResults(String name)
+    {
+        this.name = name;
+        this.out = System.out;
+        Runtime.getRuntime().addShutdownHook(new Thread()
+        {
+            @Override
+            public void run()
+            {
+                if (!finished) {
+                    CheckResults.this.out.println("FAILED " + CheckResults.this.name + ": exited after "
+                            + numChecked + " checks without finishing");
+                    CheckResults.this.out.flush();
+                    Runtime.getRuntime().halt(1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Check an expectation, printing it if it fails
+     * @param held whether the expectation held
+     * @param description what was expected, printed if it did not hold
+     */
+    public void expect(boolean held, String description)
+    {
+        numChecked++;
+        if (!held) {
+            numFailed++;
+            out.println("FAILED " + name + ": " + description);
+        }
+    }
+
+    /**
+     * Check that two results are the same, printing both if they are not
+     * @param expected the expected result
+     * @param actual the actual result
+     * @param description what was compared
+     */
+    public void expectSame(String expected, String actual, String description)
+    {
+        expect(expected.equals(actual), description + "\n  expected " + expected + "\n  actual   " + actual);
+    }
+
+    /**
+     * Print the results and exit, with status 1 if any expectation failed
+     */
+    public void finish()
+    {
+        out.println(name + ": " + (numChecked - numFailed) + " of " + numChecked + " checks passed");
+        finished = true;
+        System.exit(numFailed == 0 ? 0 : 1);
+    }
+
+    /**
+     * Describe everything a run produced, so two runs can be compared by comparing their descriptions
+     * @param run the run, after it has finished
+     * @param stats the statistics the run returned
+     * @return every delivery statistic of the run, followed by its latencies
+     */
+    public static String describe(SimulationRun run, DeliveryBot.DeliveryStatistic[] stats)
+    {
+        return describe(stats, run.getLatencies());
+    }
+
+    /**
+     * Describe everything a run handed back by an executor produced
+     * @param result the results of the run
+     * @return every delivery statistic of the run, followed by its latencies
+     */
+    public static String describe(RunResult result)
+    {
+        return describe(result.getDeliveries(), result.getLatencies());
+    }
+
+    /**
+     * Describe a run's delivery statistics and latencies
+     * @param stats the delivery statistics
+     * @param latencies the latencies
+     * @return every delivery statistic, followed by the latencies
+     */
+    private static String describe(DeliveryBot.DeliveryStatistic[] stats, LatencyRecorder latencies)
+    {
+        StringBuilder description = new StringBuilder();
+        for (DeliveryBot.DeliveryStatistic stat : stats) {
+            description.append(stat.packagesDelivered).append('/').append(stat.timeTaken).append('/')
+                       .append(stat.numFloors).append('/').append(stat.numBoxes()).append(' ');
+        }
+        return description.append(latencies).toString();
+    }
+}
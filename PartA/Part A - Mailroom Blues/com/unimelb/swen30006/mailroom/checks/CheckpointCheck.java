@@ -0,0 +1,347 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.checks;
+
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
+import com.unimelb.swen30006.mailroom.MailSorter;
+import com.unimelb.swen30006.mailroom.MailSource;
+import com.unimelb.swen30006.mailroom.MailStorage;
+import com.unimelb.swen30006.mailroom.SimulationObserver;
+import com.unimelb.swen30006.mailroom.SimulationRun;
+import com.unimelb.swen30006.mailroom.arrivals.BurstyArrivalProfile;
+import com.unimelb.swen30006.mailroom.arrivals.TimedMailSource;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.buildings.BuildingFactory;
+import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
+import com.unimelb.swen30006.mailroom.experiments.StrategyCombination;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailStorage;
+import com.unimelb.swen30006.mailroom.traces.TraceMailSource;
+import com.unimelb.swen30006.mailroom.traces.TraceWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that a run resumed from a checkpoint finishes exactly as the run would have without stopping. Runs
+ * are checkpointed by both loops at intervals set from the run's length, and resumed from the last checkpoint
+ * by every loop that can resume it. Runs are made over the built in buildings and one with far more mail
+ * than its boxes and bots, generated, timed and traced mail, three kinds of storage, several strategy
+ * combinations, one or several items sorted a step, and bots that select for themselves, are dispatched with
+ * small boxes held back, carry several boxes a trip, or both. Checkpointing must not change the run it is taken
+ * of, a checkpoint of the event loop must not be resumed in lock-step, and a checkpoint must not be resumed
+ * by a run set up differently.
+ */
+public class CheckpointCheck
+{
+    // The buildings run, and the seeds each is run with. The last has far more mail than the others for its
+    // boxes and bots
+    private static final String[] BUILDINGS = { "default", "small", "medium", "1,150,30,20,1,4,3000" };
+    private static final int NUM_SEEDS = 2;
+    // The strategy combinations run, the last only on the first building as random sorting is slow
+    private static final String[] COMBINATIONS = {
+            "even/fullness/route", "bestfit/random/sorted", "grouped/priority/route", "bestfit/fewest/route",
+            "random/random/route" };
+    // The ticks between checkpoints as fractions of the run's length, so the last checkpoint is past half
+    // way, near the end, or in the last few ticks
+    private static final double[] INTERVALS = { 0.6, 0.3, 0.04 };
+
+    // The mail sources runs take mail from, the last being a trace of the generated mail
+    private static final String[] SOURCES = { "generated", "timed", "traced" };
+    private static final int GENERATED = 0;
+    private static final int TIMED = 1;
+    // The kinds of storage: packed items, item objects, and boxes that do not know the building's floors
+    private static final String[] STORAGE = { "packed", "object", "floorless" };
+    private static final int PACKED = 0;
+    private static final int OBJECTS = 1;
+    // The ways bots take boxes, the first being selecting for themselves
+    private static final String[] MODES = { "self-selected", "dispatched", "multi-box", "dispatched multi-box" };
+    private static final int DISPATCHED = 1;
+    private static final int MULTI_BOX = 2;
+    private static final int DISPATCHED_MULTI_BOX = 3;
+    // The most items sorted a step in a third of the runs, the rest sorting one at a time
+    private static final int BATCH_SIZE = 4;
+    // The fewest items a box needs to be dispatched while mail is still arriving
+    private static final int HOLD_BACK_ITEMS = 3;
+    // How timed mail arrives: a base rate with regular bursts, over a long enough time for all of it
+    private static final BurstyArrivalProfile ARRIVALS = new BurstyArrivalProfile(0.3, 3, 200, 30);
+    private static final long ARRIVAL_DURATION = 1000000;
+
+    // The loops a run is stepped by
+    private static final int LOCK_STEP = 0;
+    private static final int EVENTS = 1;
+    // Bots print to standard output when a strategy misbehaves, which would bury the results, so runs
+    // print here instead
+    private static final PrintStream QUIET = new PrintStream(new OutputStream()
+    {
+        @Override
+        public void write(int b)
+        {
+        }
+    });
+
+    public static void main(String[] args) throws IOException, SourceExhaustedException
+    {
+        CheckResults results = new CheckResults("CheckpointCheck");
+        Path trace = Files.createTempFile("checkpoint-check", ".trace");
+        Path checkpoint = Files.createTempFile("checkpoint-check", ".ckpt");
+        try {
+            BuildingFactory factory = new BuildingFactory();
+            for (String name : BUILDINGS) {
+                Building building = factory.getBuilding(name);
+                for (long seed = 1; seed <= NUM_SEEDS; seed++) {
+                    MailSource generated = SimulationRun.createMailSource(building, seed);
+                    try (TraceWriter writer = new TraceWriter(trace)) {
+                        while (generated.hasNextMail()) {
+                            writer.append(generated.nextItem());
+                        }
+                    }
+                    int numCombinations = name.equals(BUILDINGS[0]) ? COMBINATIONS.length : COMBINATIONS.length - 1;
+                    for (int combination = 0; combination < numCombinations; combination++) {
+                        for (int storage = 0; storage < STORAGE.length; storage++) {
+                            // Every storage takes mail from every source over the combinations
+                            int source = (combination + storage) % SOURCES.length;
+                            RunSetup setup = new RunSetup(building, name, seed, combination, storage, source,
+                                                          (int) (seed + combination + storage) % MODES.length,
+                                                          (seed + source) % 3 == 0 ? BATCH_SIZE : 1, trace);
+                            try {
+                                checkResumes(results, setup, checkpoint);
+                            } finally {
+                                setup.closeTraces();
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(trace);
+            Files.deleteIfExists(checkpoint);
+        }
+        results.finish();
+    }
+
+    /**
+     * Run a setup straight through by each loop, then checkpoint it by each loop and resume it from the last
+     * checkpoint by every loop that can resume it, checking every run finishes as the straight run did
+     * @param results the results to check in
+     * @param setup how the run is set up
+     * @param checkpoint the file to checkpoint to
+     * @throws IOException if the checkpoint or trace cannot be read or written
+     */
+    private static void checkResumes(CheckResults results, RunSetup setup, Path checkpoint) throws IOException
+    {
+        String[] straight = new String[2];
+        final long[] lastDelivery = { 0 };
+        for (int loop = LOCK_STEP; loop <= EVENTS; loop++) {
+            SimulationRun run = setup.createRun(false);
+            run.setObserver(new SimulationObserver()
+            {
+                @Override
+                public void mailDelivered(MailItem item, long time)
+                {
+                    lastDelivery[0] = Math.max(lastDelivery[0], time);
+                }
+            });
+            straight[loop] = runQuietly(run, loop);
+        }
+
+        for (double fraction : INTERVALS) {
+            long interval = Math.max(1, (long) (fraction * lastDelivery[0]));
+            for (int loop = LOCK_STEP; loop <= EVENTS; loop++) {
+                String checkpointed = setup + ", checkpointed every " + interval + " ticks by "
+                        + (loop == EVENTS ? "events" : "lock-step");
+                Files.deleteIfExists(checkpoint);
+                SimulationRun run = setup.createRun(false);
+                run.setCheckpoints(checkpoint, interval);
+                results.expectSame(straight[loop], runQuietly(run, loop),
+                                   checkpointed + ": checkpointing changed the run");
+                if (!Files.exists(checkpoint)) {
+                    // The run finished before its first checkpoint
+                    continue;
+                }
+                byte[] saved = Files.readAllBytes(checkpoint);
+
+                // A lock-step checkpoint can be resumed by either loop, an event checkpoint only by events
+                for (int resumeLoop = loop; resumeLoop <= EVENTS; resumeLoop++) {
+                    Files.write(checkpoint, saved);
+                    SimulationRun resumed = setup.createRun(false);
+                    long tick = resumed.resumeFrom(checkpoint);
+                    results.expectSame(straight[resumeLoop], runQuietly(resumed, resumeLoop), checkpointed
+                            + ", resumed at tick " + tick + " by " + (resumeLoop == EVENTS ? "events" : "lock-step"));
+                }
+
+                if (loop == EVENTS) {
+                    SimulationRun resumed = setup.createRun(false);
+                    resumed.resumeFrom(checkpoint);
+                    boolean refused = false;
+                    try {
+                        runQuietly(resumed, LOCK_STEP);
+                    } catch (IllegalStateException e) {
+                        refused = true;
+                    }
+                    results.expect(refused, checkpointed + ": resumed in lock-step");
+                }
+
+                boolean refused = false;
+                try {
+                    setup.createRun(true).resumeFrom(checkpoint);
+                } catch (IllegalArgumentException e) {
+                    refused = true;
+                }
+                results.expect(refused, checkpointed + ": resumed by a run dispatched differently");
+            }
+        }
+    }
+
+    /**
+     * Run a simulation to the end without letting it print, and describe what it produced
+     * @param run the run, set up and possibly resumed
+     * @param loop the loop to step it by
+     * @return the description of the run's results
+     */
+    private static String runQuietly(SimulationRun run, int loop)
+    {
+        PrintStream out = System.out;
+        System.setOut(QUIET);
+        try {
+            return describe(run, loop == EVENTS ? run.run() : run.runLockStep());
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Describe everything a run produced, including each box of trips that carried several and how mail
+     * waited to be sorted
+     * @param run the run, after it has finished
+     * @param stats the statistics the run returned
+     * @return the description of the run's results
+     */
+    private static String describe(SimulationRun run, DeliveryBot.DeliveryStatistic[] stats)
+    {
+        StringBuilder description = new StringBuilder(CheckResults.describe(run, stats)).append(" boxes");
+        for (DeliveryBot.DeliveryStatistic stat : stats) {
+            for (DeliveryBot.BoxStatistic box : stat.boxes) {
+                description.append(' ').append(box.packagesDelivered).append('/').append(box.timeTaken).append('/')
+                           .append(box.numFloors);
+            }
+        }
+        MailSorter.StagingStatistic staging = run.getStagingStatistics();
+        return description.append(" staged ").append(staging.itemsStaged).append('/').append(staging.itemsDropped)
+                          .append('/').append(staging.maxDepth).append('/').append(staging.meanDepth).append('/')
+                          .append(staging.maxWaitTime).append('/').append(staging.meanWaitTime).append('/')
+                          .append(staging.blockedSteps).toString();
+    }
+
+    /**
+     * How one of the runs checked is set up
+     */
+    private static class RunSetup
+    {
+        // The building, and its name
+        final Building building;
+        final String name;
+        // The seed of the mail and of any random strategy
+        final long seed;
+        // The strategy combination, kind of storage and mail source, by index
+        final int combination;
+        final int storage;
+        final int source;
+        // How bots take boxes
+        final int mode;
+        // The most items sorted a step
+        final int batchSize;
+        // The trace of the building's mail with this seed, and the sources replaying it
+        final Path trace;
+        final List<TraceMailSource> traces = new ArrayList<>();
+
+        RunSetup(Building building, String name, long seed, int combination, int storage, int source, int mode,
+                 int batchSize, Path trace)
+        {
+            this.building = building;
+            this.name = name;
+            this.seed = seed;
+            this.combination = combination;
+            this.storage = storage;
+            this.source = source;
+            this.mode = mode;
+            this.batchSize = batchSize;
+            this.trace = trace;
+        }
+
+        /**
+         * Create a run set up this way, with fresh strategies, storage and mail
+         * @param mismatched whether to dispatch the run if it would not be, or not if it would be
+         * @return the run, ready to run or resume
+         * @throws IOException if the trace cannot be read
+         */
+        SimulationRun createRun(boolean mismatched) throws IOException
+        {
+            StrategyCombination strategies = StrategyCombination.parse(COMBINATIONS[combination]);
+            MailSource mail;
+            if (source == GENERATED) {
+                mail = SimulationRun.createMailSource(building, seed);
+            } else if (source == TIMED) {
+                mail = new TimedMailSource(SimulationRun.createMailSource(building, seed), ARRIVALS,
+                                           ARRIVAL_DURATION, seed);
+            } else {
+                TraceMailSource traced = new TraceMailSource(trace);
+                traces.add(traced);
+                mail = traced;
+            }
+            MailStorage boxes;
+            if (storage == PACKED) {
+                boxes = new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits(),
+                                              building.getMinFloor(), building.getMaxFloor(), new MailItemStore());
+            } else if (storage == OBJECTS) {
+                boxes = new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits(),
+                                              building.getMinFloor(), building.getMaxFloor());
+            } else {
+                boxes = new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits());
+            }
+            SimulationRun run = new SimulationRun(building, mail, boxes,
+                    strategies.createSelectionStrategy(building, seed), strategies.createDeliveryStrategy(building),
+                    strategies.createSortingStrategy(building, seed));
+            if ((mode == DISPATCHED || mode == DISPATCHED_MULTI_BOX) != mismatched) {
+                run.setDispatching();
+                run.setDispatchHoldBack(HOLD_BACK_ITEMS);
+            }
+            if (mode == MULTI_BOX || mode == DISPATCHED_MULTI_BOX) {
+                run.setTripCapacity(2 * building.getMaxMailUnits());
+            }
+            if (batchSize > 1) {
+                run.setSortingBatchSize(batchSize);
+            }
+            return run;
+        }
+
+        /**
+         * Close every source that replayed the trace for a run set up this way
+         * @throws IOException if a source cannot be closed
+         */
+        void closeTraces() throws IOException
+        {
+            for (TraceMailSource traced : traces) {
+                traced.close();
+            }
+            traces.clear();
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + " building, seed " + seed + ", " + COMBINATIONS[combination] + ", " + STORAGE[storage]
+                    + " storage, " + SOURCES[source] + " mail, " + MODES[mode] + ", batches of " + batchSize;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.checks;
+
+import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
+import com.unimelb.swen30006.mailroom.MailStorage;
+import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.exceptions.NoBoxReadyException;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailStorage;
+import com.unimelb.swen30006.mailroom.strategies.selection.FullnessSelectionStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that FullnessSelectionStrategy selects the same box straight from storage as it does from the
+ * latest snapshot or from the list of summaries, after every change to storage. Storage is changed at
+ * random by creating boxes, adding and removing items and delivering boxes, with boxes small enough that
+ * several often hold the same number of items. Runs cover plain, floor bucketed and packed storage.
+ */
+public class FullnessSelectionCheck
+{
+    // The number of seeds, and the changes made to storage with each
+    private static final int NUM_SEEDS = 30;
+    private static final int NUM_CHANGES = 2000;
+    // The most boxes storage holds, and the units each box fits
+    private static final int MAX_BOXES = 12;
+    private static final int BOX_SIZE = 6;
+    // The floors mail is for
+    private static final int MIN_FLOOR = 1;
+    private static final int MAX_FLOOR = 8;
+    // The kinds of storage
+    private static final String[] STORAGE = { "plain", "bucketed", "packed" };
+
+    public static void main(String[] args) throws NoBoxReadyException
+    {
+        CheckResults results = new CheckResults("FullnessSelectionCheck");
+        for (int kind = 0; kind < STORAGE.length; kind++) {
+            for (long seed = 0; seed < NUM_SEEDS; seed++) {
+                Random random = new Random(seed);
+                MailStorage storage = createStorage(kind);
+                FullnessSelectionStrategy strategy = new FullnessSelectionStrategy();
+                List<String> names = new ArrayList<>();
+                int numCreated = 0;
+                for (int change = 0; change < NUM_CHANGES; change++) {
+                    int choice = random.nextInt(10);
+                    if (names.isEmpty() || (choice < 2 && !storage.isFull())) {
+                        String name = "box" + numCreated++;
+                        storage.tryCreateBox(name);
+                        names.add(name);
+                    } else if (choice < 3) {
+                        storage.tryDeliverBox(names.remove(random.nextInt(names.size())));
+                    } else {
+                        StorageBox box = storage.tryRetrieveBox(names.get(random.nextInt(names.size())));
+                        if (choice < 7) {
+                            box.tryAddItem(new MailItem(MailItem.MailType.Letter, MailItem.MailPriority.Low,
+                                    MIN_FLOOR + random.nextInt(MAX_FLOOR - MIN_FLOOR + 1), "", 1));
+                        } else if (!box.isEmpty()) {
+                            box.tryPopItem();
+                        }
+                    }
+
+                    String description = STORAGE[kind] + " storage, seed " + seed + ", change " + change;
+                    String fromStorage = strategy.trySelectNextDelivery(storage);
+                    String fromSnapshot = strategy.trySelectNextDelivery(storage.retrieveSnapshot());
+                    results.expect(same(fromStorage, fromSnapshot), description + ": selected " + fromStorage
+                            + " from storage but " + fromSnapshot + " from the snapshot");
+                    if (!storage.isEmpty()) {
+                        String fromSummaries = strategy.selectNextDelivery(storage.retrieveSummaries());
+                        results.expect(fromSummaries.equals(fromSnapshot), description + ": selected "
+                                + fromSummaries + " from the summaries but " + fromSnapshot + " from the snapshot");
+                    }
+                }
+            }
+        }
+        results.finish();
+    }
+
+    /**
+     * Create empty storage of a kind
+     * @param kind the index of the kind of storage
+     * @return new empty storage
+     */
+    private static MailStorage createStorage(int kind)
+    {
+        if (kind == 0) {
+            return new SimpleMailStorage(MAX_BOXES, BOX_SIZE);
+        } else if (kind == 1) {
+            return new SimpleMailStorage(MAX_BOXES, BOX_SIZE, MIN_FLOOR, MAX_FLOOR);
+        }
+        return new SimpleMailStorage(MAX_BOXES, BOX_SIZE, MIN_FLOOR, MAX_FLOOR, new MailItemStore());
+    }
+
+    /**
+     * Check whether two selections are the same box, or both no box
+     * @param a one selection, or null
+     * @param b the other selection, or null
+     * @return true if both are null or both name the same box
+     */
+    private static boolean same(String a, String b)
+    {
+        return a == null ? b == null : a.equals(b);
+    }
+}
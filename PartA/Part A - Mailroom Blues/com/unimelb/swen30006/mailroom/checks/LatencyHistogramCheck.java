@@ -0,0 +1,94 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.checks;
+
+import com.unimelb.swen30006.mailroom.metrics.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that LatencyHistogram reports every percentile no lower than the exact value and no more than 1%
+ * above it, over values spread from single ticks to many orders of magnitude, that small values and
+ * lone values come back exactly, and that adding histograms together gives the same answers as recording
+ * every value into one.
+ */
+public class LatencyHistogramCheck
+{
+    // The percentiles compared with the exact values
+    private static final double[] PERCENTILES = { 0, 1, 10, 25, 50, 75, 90, 99, 99.9, 99.99, 100 };
+    // The number of values recorded, and the seeds they are drawn with
+    private static final int NUM_VALUES = 100000;
+    private static final int NUM_SEEDS = 5;
+    // Values are drawn as e raised to a uniform power up to this, so from 1 to about 10^13
+    private static final double MAX_EXPONENT = 30;
+    // Values below this are counted exactly
+    private static final long EXACT_BELOW = 256;
+    // The most a reported percentile may be above the exact value, as a fraction of it
+    private static final double MAX_ERROR = 0.01;
+    // The number of histograms the values are split over to check adding them
+    private static final int NUM_PARTS = 7;
+
+    public static void main(String[] args)
+    {
+        CheckResults results = new CheckResults("LatencyHistogramCheck");
+
+        results.expect(new LatencyHistogram().getValueAtPercentile(50) == 0, "an empty histogram reports 0");
+        for (long value = 0; value < 4 * EXACT_BELOW; value++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            results.expect(histogram.getValueAtPercentile(0) == value && histogram.getValueAtPercentile(100) == value,
+                           "a histogram of " + value + " alone reports it at every percentile");
+        }
+
+        for (long seed = 0; seed < NUM_SEEDS; seed++) {
+            Random random = new Random(seed);
+            long[] values = new long[NUM_VALUES];
+            LatencyHistogram whole = new LatencyHistogram();
+            LatencyHistogram[] parts = new LatencyHistogram[NUM_PARTS];
+            for (int p = 0; p < NUM_PARTS; p++) {
+                parts[p] = new LatencyHistogram();
+            }
+            long total = 0;
+            for (int i = 0; i < NUM_VALUES; i++) {
+                // Half the values are small, to cover the exact buckets as well as the wide ones
+                values[i] = i % 2 == 0 ? random.nextInt((int) EXACT_BELOW)
+                                       : (long) Math.exp(random.nextDouble() * MAX_EXPONENT);
+                whole.record(values[i]);
+                parts[random.nextInt(NUM_PARTS)].record(values[i]);
+                total += values[i];
+            }
+            Arrays.sort(values);
+            LatencyHistogram added = new LatencyHistogram();
+            for (LatencyHistogram part : parts) {
+                added.add(part);
+            }
+
+            results.expect(whole.getCount() == NUM_VALUES, "seed " + seed + ": count is exact");
+            results.expect(whole.getMax() == values[NUM_VALUES - 1], "seed " + seed + ": maximum is exact");
+            results.expect(whole.getMean() == total / (double) NUM_VALUES, "seed " + seed + ": mean is exact");
+            for (double percentile : PERCENTILES) {
+                long exact = values[Math.max(0, (int) Math.ceil(percentile / 100 * NUM_VALUES) - 1)];
+                long reported = whole.getValueAtPercentile(percentile);
+                String description = "seed " + seed + ": percentile " + percentile + " reported " + reported
+                        + " for exact value " + exact;
+                results.expect(reported >= exact, description + ", not at or above it");
+                results.expect(reported <= exact + (long) (exact * MAX_ERROR), description + ", over 1% above it");
+                if (exact < EXACT_BELOW) {
+                    results.expect(reported == exact, description + ", small values should be exact");
+                }
+                results.expect(added.getValueAtPercentile(percentile) == reported,
+                               "seed " + seed + ": percentile " + percentile + " of added histograms "
+                               + added.getValueAtPercentile(percentile) + " differs from one histogram");
+            }
+            results.expect(added.getCount() == whole.getCount() && added.getMax() == whole.getMax()
+                           && added.getMean() == whole.getMean(),
+                           "seed " + seed + ": added histograms have the same count, maximum and mean");
+        }
+        results.finish();
+    }
+}
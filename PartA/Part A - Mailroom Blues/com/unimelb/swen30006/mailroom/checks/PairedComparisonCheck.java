@@ -0,0 +1,276 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.checks;
+
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.DeliveryStrategy;
+import com.unimelb.swen30006.mailroom.ParallelSimulationExecutor;
+import com.unimelb.swen30006.mailroom.RunResult;
+import com.unimelb.swen30006.mailroom.SeedSplitter;
+import com.unimelb.swen30006.mailroom.SelectionStrategy;
+import com.unimelb.swen30006.mailroom.SortingStrategy;
+import com.unimelb.swen30006.mailroom.StrategyFactory;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.buildings.BuildingFactory;
+import com.unimelb.swen30006.mailroom.experiments.PairedComparison;
+import com.unimelb.swen30006.mailroom.experiments.StrategyCombination;
+import com.unimelb.swen30006.mailroom.metrics.RunningStatistic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Checks that paired runs give every strategy combination the same seeds, whatever the combinations are,
+ * the order they are given in and the number of threads. In each run every combination must be handed the
+ * same sorting and selection seeds, different from each other and from other runs' seeds, must deliver the
+ * same number of items, and must give exactly what running it alone on that run's seed gives. Then checks
+ * that a PairedComparison of a random combination against another copy of itself finds no difference in
+ * any run, and that its differences for another combination are the ones the runs give.
+ */
+public class PairedComparisonCheck
+{
+    // The buildings compared, and the seeds of the experiments run on each
+    private static final String[] BUILDINGS = { "small", "medium" };
+    private static final long[] SEEDS = { 12345, 1, -7 };
+    // The combinations paired, including random sorting and selection so shared seeds matter
+    private static final String[] COMBINATIONS = {
+            "even/fullness/route", "random/random/route", "bestfit/fewest/sorted", "grouped/priority/route" };
+    // The number of runs of each experiment
+    private static final int NUM_RUNS = 6;
+    // The numbers of threads the runs are spread over
+    private static final int[] THREAD_COUNTS = { 1, 3 };
+    // How far the comparison's mean difference may be from the runs', relative to its size
+    private static final double TOLERANCE = 1e-9;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException
+    {
+        CheckResults results = new CheckResults("PairedComparisonCheck");
+        BuildingFactory buildings = new BuildingFactory();
+        for (String name : BUILDINGS) {
+            Building building = buildings.getBuilding(name);
+            for (long seed : SEEDS) {
+                String experiment = name + " building, seed " + seed;
+                SeedSplitter runSeeds = new SeedSplitter(seed);
+                RunResult[][] alone = new RunResult[NUM_RUNS][COMBINATIONS.length];
+                String[][] expected = new String[NUM_RUNS][COMBINATIONS.length];
+                for (int run = 0; run < NUM_RUNS; run++) {
+                    for (int c = 0; c < COMBINATIONS.length; c++) {
+                        alone[run][c] = ParallelSimulationExecutor.runSingle(building, runSeeds.seedForRun(run),
+                                StrategyCombination.parse(COMBINATIONS[c]));
+                        expected[run][c] = CheckResults.describe(alone[run][c]);
+                    }
+                    for (int c = 1; c < COMBINATIONS.length; c++) {
+                        results.expect(numDelivered(alone[run][c]) == numDelivered(alone[run][0]),
+                                       experiment + ", run " + run + ": " + COMBINATIONS[c] + " delivered "
+                                       + numDelivered(alone[run][c]) + " items but " + COMBINATIONS[0]
+                                       + " delivered " + numDelivered(alone[run][0]));
+                    }
+                }
+
+                for (int numThreads : THREAD_COUNTS) {
+                    checkPaired(results, building, seed, false, numThreads, expected,
+                                experiment + ", " + numThreads + " threads");
+                }
+                checkPaired(results, building, seed, true, THREAD_COUNTS[THREAD_COUNTS.length - 1], expected,
+                            experiment + ", combinations reversed");
+
+                checkComparison(results, building, seed, alone, experiment);
+            }
+        }
+        results.finish();
+    }
+
+    /**
+     * Run every combination paired on an experiment's seed, and check each was given the same seeds in
+     * every run and gave the same results as when run alone
+     * @param results the results to check in
+     * @param building the building to run
+     * @param seed the seed of the experiment
+     * @param reversed whether to give the combinations in reverse order
+     * @param numThreads the number of threads to spread the runs over
+     * @param expected each combination's results when run alone, by run and then combination
+     * @param experiment a description of the experiment
+     * @throws InterruptedException if interrupted while waiting for runs to complete
+     * @throws ExecutionException if any run fails
+     */
+    private static void checkPaired(CheckResults results, Building building, long seed, boolean reversed,
+                                    int numThreads, String[][] expected, String experiment)
+            throws InterruptedException, ExecutionException
+    {
+        final SeedRecordingFactory[] factories = new SeedRecordingFactory[COMBINATIONS.length];
+        for (int f = 0; f < factories.length; f++) {
+            int c = reversed ? COMBINATIONS.length - 1 - f : f;
+            factories[f] = new SeedRecordingFactory(StrategyCombination.parse(COMBINATIONS[c]));
+        }
+        final String[][] actual = new String[NUM_RUNS][factories.length];
+        int numRuns = new ParallelSimulationExecutor(numThreads).runPairedUntil(building, seed, factories, NUM_RUNS,
+                new ParallelSimulationExecutor.PairedRunListener() {
+            @Override
+            public boolean runCompleted(int run, RunResult[] runResults) {
+                for (int f = 0; f < runResults.length; f++) {
+                    actual[run][f] = CheckResults.describe(runResults[f]);
+                }
+                return true;
+            }
+        });
+        results.expect(numRuns == NUM_RUNS, experiment + ": " + numRuns + " runs, not " + NUM_RUNS);
+
+        for (int run = 0; run < numRuns; run++) {
+            for (int f = 0; f < factories.length; f++) {
+                int c = reversed ? COMBINATIONS.length - 1 - f : f;
+                results.expectSame(expected[run][c], actual[run][f], experiment + ", run " + run + ": "
+                        + COMBINATIONS[c] + " paired differs from alone");
+            }
+        }
+
+        List<Long> sortingSeeds = factories[0].getSortingSeeds();
+        List<Long> selectionSeeds = factories[0].getSelectionSeeds();
+        results.expect(new HashSet<>(sortingSeeds).size() == NUM_RUNS
+                       && new HashSet<>(selectionSeeds).size() == NUM_RUNS,
+                       experiment + ": every run should have its own sorting and selection seeds");
+        results.expect(Collections.disjoint(sortingSeeds, selectionSeeds),
+                       experiment + ": sorting and selection should not share seeds");
+        for (int f = 1; f < factories.length; f++) {
+            results.expect(factories[f].getSortingSeeds().equals(sortingSeeds)
+                           && factories[f].getSelectionSeeds().equals(selectionSeeds),
+                           experiment + ": " + factories[f] + " was given different seeds from " + factories[0]);
+        }
+    }
+
+    /**
+     * Compare a random combination against a copy of itself and one other combination, and check the
+     * copy never differs and the other differs by what the runs alone give
+     * @param results the results to check in
+     * @param building the building to run
+     * @param seed the seed of the experiment
+     * @param alone each combination's results when run alone, by run and then combination
+     * @param experiment a description of the experiment
+     * @throws InterruptedException if interrupted while waiting for runs to complete
+     * @throws ExecutionException if any run fails
+     */
+    private static void checkComparison(CheckResults results, Building building, long seed, RunResult[][] alone,
+                                        String experiment)
+            throws InterruptedException, ExecutionException
+    {
+        PairedComparison comparison = new PairedComparison(StrategyCombination.parse(COMBINATIONS[1]),
+                StrategyCombination.parse(COMBINATIONS[1]), StrategyCombination.parse(COMBINATIONS[0]));
+        int numThreads = THREAD_COUNTS[THREAD_COUNTS.length - 1];
+        int numRuns = comparison.run(new ParallelSimulationExecutor(numThreads), building, seed, NUM_RUNS, NUM_RUNS);
+        results.expect(numRuns == NUM_RUNS, experiment + ": comparison made " + numRuns + " runs, not " + NUM_RUNS);
+
+        RunningStatistic same = comparison.getDifference(1);
+        results.expect(same.getCount() == NUM_RUNS && same.getMean() == 0 && same.getVariance() == 0,
+                       experiment + ": " + COMBINATIONS[1] + " differs from itself by " + same);
+
+        double expectedMean = 0;
+        for (int run = 0; run < NUM_RUNS; run++) {
+            expectedMean += totalTime(alone[run][0]) - totalTime(alone[run][1]);
+        }
+        expectedMean /= NUM_RUNS;
+        double mean = comparison.getDifference(2).getMean();
+        results.expect(Math.abs(mean - expectedMean) <= TOLERANCE * Math.abs(expectedMean),
+                       experiment + ": " + COMBINATIONS[0] + " differs from " + COMBINATIONS[1] + " by " + mean
+                       + " on average, but the runs alone differ by " + expectedMean);
+    }
+
+    /**
+     * The number of items a run delivered
+     * @param result the run's results
+     * @return the items delivered, summed over every delivery
+     */
+    private static long numDelivered(RunResult result)
+    {
+        long delivered = 0;
+        for (DeliveryBot.DeliveryStatistic delivery : result.getDeliveries()) {
+            delivered += delivery.packagesDelivered;
+        }
+        return delivered;
+    }
+
+    /**
+     * The total time of a run, summed as PairedComparison sums it
+     * @param result the run's results
+     * @return the total time taken by the run's bots
+     */
+    private static double totalTime(RunResult result)
+    {
+        long time = 0;
+        for (DeliveryBot.DeliveryStatistic delivery : result.getDeliveries()) {
+            time += delivery.timeTaken;
+        }
+        return time;
+    }
+
+    /**
+     * Makes a combination's strategies, keeping the seeds it is given. Runs on several threads ask at once,
+     * so the seeds are kept sorted rather than in the order they were asked for.
+     */
+    private static class SeedRecordingFactory implements StrategyFactory
+    {
+        // The combination that makes the strategies
+        private final StrategyFactory combination;
+        // The seeds given for sorting and selection strategies
+        private final List<Long> sortingSeeds = new ArrayList<>();
+        private final List<Long> selectionSeeds = new ArrayList<>();
+
+        SeedRecordingFactory(StrategyFactory combination)
+        {
+            this.combination = combination;
+        }
+
+        @Override
+        public synchronized SortingStrategy createSortingStrategy(Building building, long seed)
+        {
+            sortingSeeds.add(seed);
+            return combination.createSortingStrategy(building, seed);
+        }
+
+        @Override
+        public synchronized SelectionStrategy createSelectionStrategy(Building building, long seed)
+        {
+            selectionSeeds.add(seed);
+            return combination.createSelectionStrategy(building, seed);
+        }
+
+        @Override
+        public DeliveryStrategy createDeliveryStrategy(Building building)
+        {
+            return combination.createDeliveryStrategy(building);
+        }
+
+        /**
+         * The seeds given for sorting strategies so far
+         * @return the seeds, sorted
+         */
+        synchronized List<Long> getSortingSeeds()
+        {
+            List<Long> seeds = new ArrayList<>(sortingSeeds);
+            Collections.sort(seeds);
+            return seeds;
+        }
+
+        /**
+         * The seeds given for selection strategies so far
+         * @return the seeds, sorted
+         */
+        synchronized List<Long> getSelectionSeeds()
+        {
+            List<Long> seeds = new ArrayList<>(selectionSeeds);
+            Collections.sort(seeds);
+            return seeds;
+        }
+
+        @Override
+        public String toString()
+        {
+            return combination.toString();
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.checks;
+
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.MailItemStore;
+import com.unimelb.swen30006.mailroom.MailSorter;
+import com.unimelb.swen30006.mailroom.MailStorage;
+import com.unimelb.swen30006.mailroom.SimulationClock;
+import com.unimelb.swen30006.mailroom.SimulationRun;
+import com.unimelb.swen30006.mailroom.SortingStrategy;
+import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.buildings.BuildingFactory;
+import com.unimelb.swen30006.mailroom.recording.EventRecorder;
+import com.unimelb.swen30006.mailroom.recording.EventReplayer;
+import com.unimelb.swen30006.mailroom.recording.RecordedEvent;
+import com.unimelb.swen30006.mailroom.recording.StorageState;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailStorage;
+import com.unimelb.swen30006.mailroom.strategies.delivery.RoutePlanningDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.FullnessSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.BestFitSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.EvenDistributionSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.RoomGroupedSortingStrategy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Checks that replaying a recording rebuilds the storage a run had. Each run is stepped in lock-step by hand
+ * while recording, and the boxes in storage and the items staged are noted at the end of every tick. The
+ * state rebuilt by replaying the recording must match at every tick, both replaying the whole run and
+ * rebuilding single ticks with stateAt. Runs are made over the built in buildings, three sorting strategies,
+ * items kept as objects or packed into an item store, and sorting one or several items a step.
+ *
+ * Then checks that the same runs record exactly the same events when run by the event loop, when run by
+ * SimulationRun in lock-step, and when several threads record runs to one recorder at once.
+ */
+public class ReplayCheck
+{
+    // The buildings run, and the seeds each is run with
+    private static final String[] BUILDINGS = { "default", "small", "medium" };
+    private static final int NUM_SEEDS = 2;
+    // The sorting strategies run, and the numbers of items sorted a step
+    private static final String[] SORTING = { "even", "grouped", "bestfit" };
+    private static final int[] BATCH_SIZES = { 1, 4 };
+    // Added to a run's number to record it run by the event loop, or by SimulationRun in lock-step
+    private static final long EVENT_RUNS = 100000;
+    private static final long LOCK_STEP_RUNS = 200000;
+    // The number of threads recording every run at once
+    private static final int NUM_THREADS = 6;
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        CheckResults results = new CheckResults("ReplayCheck");
+        // Bots print to standard output when a strategy misbehaves, which would bury the results
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+            }
+        }));
+
+        final List<RunSetup> setups = new ArrayList<>();
+        BuildingFactory factory = new BuildingFactory();
+        for (String name : BUILDINGS) {
+            for (int sorting = 0; sorting < SORTING.length; sorting++) {
+                for (boolean packed : new boolean[] { false, true }) {
+                    for (int batchSize : BATCH_SIZES) {
+                        for (long seed = 0; seed < NUM_SEEDS; seed++) {
+                            setups.add(new RunSetup(factory.getBuilding(name), name, sorting, packed, batchSize,
+                                                    seed));
+                        }
+                    }
+                }
+            }
+        }
+
+        Path file = Files.createTempFile("replay-check", ".rec");
+        Path sharedFile = Files.createTempFile("replay-check-shared", ".rec");
+        try {
+            List<List<String>> liveStates = new ArrayList<>();
+            EventRecorder recorder = new EventRecorder(file);
+            for (int run = 0; run < setups.size(); run++) {
+                RunSetup setup = setups.get(run);
+                liveStates.add(runByHand(setup, recorder.buffer(run)));
+                setup.createRun(recorder, run + EVENT_RUNS).run();
+                setup.createRun(recorder, run + LOCK_STEP_RUNS).runLockStep();
+            }
+            recorder.close();
+
+            // Record every run once on each thread, all to the same recorder at once
+            final EventRecorder shared = new EventRecorder(sharedFile);
+            Thread[] threads = new Thread[NUM_THREADS];
+            for (int t = 0; t < NUM_THREADS; t++) {
+                final int thread = t;
+                threads[t] = new Thread()
+                {
+                    @Override
+                    public void run()
+                    {
+                        for (int run = 0; run < setups.size(); run++) {
+                            setups.get(run).createRun(shared, (long) run * NUM_THREADS + thread).run();
+                        }
+                    }
+                };
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            shared.close();
+            System.setOut(out);
+
+            try (EventReplayer replayer = new EventReplayer(file);
+                 EventReplayer sharedReplayer = new EventReplayer(sharedFile)) {
+                for (int run = 0; run < setups.size(); run++) {
+                    String description = setups.get(run).toString();
+                    checkStates(results, replayer, run, liveStates.get(run), description);
+
+                    List<String> events = eventsOf(replayer, run);
+                    expectSameEvents(results, events, eventsOf(replayer, run + EVENT_RUNS),
+                                     description + ", run by the event loop");
+                    expectSameEvents(results, events, eventsOf(replayer, run + LOCK_STEP_RUNS),
+                                     description + ", run in lock-step");
+                    for (int t = 0; t < NUM_THREADS; t++) {
+                        expectSameEvents(results, events, eventsOf(sharedReplayer, (long) run * NUM_THREADS + t),
+                                         description + ", recorded on thread " + t + " of " + NUM_THREADS);
+                    }
+                }
+            }
+        } finally {
+            System.setOut(out);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(sharedFile);
+        }
+        results.finish();
+    }
+
+    /**
+     * Step a run in lock-step by hand, recording it and noting its storage at the end of every tick
+     * @param setup how the run is set up
+     * @param recording the buffer to record the run to
+     * @return the storage at the end of each tick, by tick
+     */
+    private static List<String> runByHand(RunSetup setup, EventRecorder.Buffer recording)
+    {
+        Building building = setup.building;
+        SimulationClock clock = new SimulationClock();
+        MailStorage storage = setup.createStorage();
+        MailSorter sorter = new MailSorter(SimulationRun.createMailSource(building, setup.seed), storage,
+                                           setup.createSorting(), MailSorter.DEFAULT_STAGING_CAPACITY, clock);
+        sorter.setBatchSize(setup.batchSize);
+        sorter.setRecorder(recording.lane(0));
+        DeliveryBot[] bots = new DeliveryBot[building.getNumBots()];
+        for (int k = 0; k < bots.length; k++) {
+            bots[k] = new DeliveryBot(new FullnessSelectionStrategy(),
+                                      new RoutePlanningDeliveryStrategy(building.getMailRoomLevel()), storage,
+                                      building.getMailRoomLevel(), clock);
+            bots[k].setRecorder(recording.lane(k + 1));
+        }
+
+        List<String> states = new ArrayList<>();
+        boolean finished = false;
+        for (long tick = 0; !finished; tick++) {
+            clock.setTime(tick);
+            sorter.step();
+            boolean anyBotBlocking = false;
+            for (DeliveryBot bot : bots) {
+                bot.step();
+                anyBotBlocking = !bot.canFinish() || anyBotBlocking;
+            }
+            finished = sorter.canFinish() && !anyBotBlocking;
+            states.add(describe(storage, sorter, building));
+        }
+        recording.flush();
+        return states;
+    }
+
+    /**
+     * Check that replaying a run rebuilds the storage it had at the end of every tick, both replaying the
+     * whole run and rebuilding the first, middle and last ticks on their own
+     * @param results the results to check in
+     * @param replayer the recording
+     * @param run the number of the run
+     * @param liveStates the storage the run had at the end of each tick
+     * @param description a description of the run
+     * @throws IOException if the recording cannot be read
+     */
+    private static void checkStates(CheckResults results, EventReplayer replayer, long run,
+                                    final List<String> liveStates, String description)
+            throws IOException
+    {
+        final StorageState state = new StorageState();
+        final List<String> replayedStates = new ArrayList<>();
+        replayer.replay(run, Long.MAX_VALUE, new EventReplayer.EventListener()
+        {
+            @Override
+            public void event(RecordedEvent event)
+            {
+                // Note the state at the end of every tick before this event's
+                while (replayedStates.size() < event.time) {
+                    replayedStates.add(describe(state));
+                }
+                state.apply(event);
+            }
+        });
+        while (replayedStates.size() < liveStates.size()) {
+            replayedStates.add(describe(state));
+        }
+        int tick = 0;
+        while (tick < liveStates.size() && liveStates.get(tick).equals(replayedStates.get(tick))) {
+            tick++;
+        }
+        if (tick < liveStates.size()) {
+            results.expectSame(liveStates.get(tick), replayedStates.get(tick),
+                               description + ": replayed storage differs first at tick " + tick);
+        } else {
+            results.expect(replayedStates.size() == liveStates.size(), description + ": replay has events after "
+                    + "the run's last tick " + (liveStates.size() - 1));
+        }
+
+        int[] ticks = { 0, liveStates.size() / 2, liveStates.size() - 1 };
+        for (int t : ticks) {
+            results.expectSame(liveStates.get(t), describe(replayer.stateAt(run, t)),
+                               description + ": storage rebuilt at tick " + t);
+        }
+    }
+
+    /**
+     * Check that two recordings of a run hold the same events in the same order
+     * @param results the results to check in
+     * @param expected the events of the run stepped by hand
+     * @param actual the events of the run recorded another way
+     * @param description how the run was recorded
+     */
+    private static void expectSameEvents(CheckResults results, List<String> expected, List<String> actual,
+                                         String description)
+    {
+        int e = 0;
+        while (e < expected.size() && e < actual.size() && expected.get(e).equals(actual.get(e))) {
+            e++;
+        }
+        if (e < expected.size() && e < actual.size()) {
+            results.expectSame(expected.get(e), actual.get(e), description + ": event " + e + " differs");
+        } else {
+            results.expect(expected.size() == actual.size(), description + ": " + actual.size()
+                    + " events, not " + expected.size());
+        }
+    }
+
+    /**
+     * Replay every event of a run
+     * @param replayer the recording
+     * @param run the number of the run
+     * @return a description of each event, in the order they happened
+     * @throws IOException if the recording cannot be read
+     */
+    private static List<String> eventsOf(EventReplayer replayer, long run) throws IOException
+    {
+        final List<String> events = new ArrayList<>();
+        replayer.replay(run, Long.MAX_VALUE, new EventReplayer.EventListener()
+        {
+            @Override
+            public void event(RecordedEvent event)
+            {
+                events.add(event.toString());
+            }
+        });
+        return events;
+    }
+
+    /**
+     * Describe the boxes in live storage and the items staged
+     * @param storage the storage
+     * @param sorter the sorter staging items
+     * @param building the building, giving the size of a box
+     * @return the items and units in each box holding items, by handle, and the number of items staged
+     */
+    private static String describe(MailStorage storage, MailSorter sorter, Building building)
+    {
+        TreeMap<Integer, String> boxes = new TreeMap<>();
+        for (StorageBox.Summary summary : storage.retrieveSummaries()) {
+            if (summary.numItems > 0) {
+                boxes.put(storage.handleOf(summary.identifier),
+                          summary.numItems + "/" + (building.getMaxMailUnits() - summary.remainingUnits));
+            }
+        }
+        return boxes + " staged " + sorter.stagingDepth();
+    }
+
+    /**
+     * Describe the boxes in replayed storage and the items staged, as live storage is described
+     * @param state the replayed state
+     * @return the items and units in each box, by handle, and the number of items staged
+     */
+    private static String describe(StorageState state)
+    {
+        TreeMap<Integer, String> boxes = new TreeMap<>();
+        for (StorageState.Box box : state.getBoxes()) {
+            boxes.put(box.getHandle(), box.getNumItems() + "/" + box.getUnits());
+        }
+        return boxes + " staged " + state.getNumStaged();
+    }
+
+    /**
+     * How one of the runs checked is set up
+     */
+    private static class RunSetup
+    {
+        // The building, and its name
+        final Building building;
+        final String name;
+        // Which sorting strategy sorts the mail
+        final int sorting;
+        // Whether storage keeps items packed into an item store rather than as objects
+        final boolean packed;
+        // The most items sorted a step
+        final int batchSize;
+        // The seed of the mail source
+        final long seed;
+
+        RunSetup(Building building, String name, int sorting, boolean packed, int batchSize, long seed)
+        {
+            this.building = building;
+            this.name = name;
+            this.sorting = sorting;
+            this.packed = packed;
+            this.batchSize = batchSize;
+            this.seed = seed;
+        }
+
+        /**
+         * Create the storage of a run
+         * @return new empty storage
+         */
+        MailStorage createStorage()
+        {
+            if (packed) {
+                return new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits(),
+                                             building.getMinFloor(), building.getMaxFloor(), new MailItemStore());
+            }
+            return new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits(), building.getMinFloor(),
+                                         building.getMaxFloor());
+        }
+
+        /**
+         * Create the sorting strategy of a run
+         * @return a new sorting strategy
+         */
+        SortingStrategy createSorting()
+        {
+            if (sorting == 0) {
+                return new EvenDistributionSortingStrategy(building.getMaxBoxes());
+            } else if (sorting == 1) {
+                return new RoomGroupedSortingStrategy(building.getMaxBoxes(), building.getMinFloor(),
+                                                      building.getMaxFloor());
+            }
+            return new BestFitSortingStrategy(building.getMaxBoxes());
+        }
+
+        /**
+         * Create a run set up this way, recording to a recorder
+         * @param recorder the recorder to record to
+         * @param run the number to record the run under
+         * @return the run, ready to run
+         */
+        SimulationRun createRun(EventRecorder recorder, long run)
+        {
+            SimulationRun simulation = new SimulationRun(building, SimulationRun.createMailSource(building, seed),
+                    createStorage(), new FullnessSelectionStrategy(),
+                    new RoutePlanningDeliveryStrategy(building.getMailRoomLevel()), createSorting());
+            simulation.setSortingBatchSize(batchSize);
+            simulation.setRecorder(recorder, run);
+            return simulation;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + " building, " + SORTING[sorting] + " sorting" + (packed ? ", packed items" : "")
+                    + ", batches of " + batchSize + ", seed " + seed;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.checks;
+
+import com.unimelb.swen30006.mailroom.metrics.RunningStatistic;
+
+import java.util.Random;
+
+/**
+ * Checks that merging RunningStatistics gives what adding every observation to one statistic gives, over
+ * observations split into parts at random, some of them empty, and merged both one after another and in
+ * pairs. Then checks the variance against one worked out in two passes over the kept observations,
+ * including observations with a mean far larger than their spread.
+ */
+public class RunningStatisticCheck
+{
+    // The number of seeds, and the most observations drawn with each
+    private static final int NUM_SEEDS = 20;
+    private static final int MAX_OBSERVATIONS = 5000;
+    // The most parts the observations are split into
+    private static final int MAX_PARTS = 16;
+    // The offsets the observations are drawn around, the last far larger than their spread
+    private static final double[] OFFSETS = { 0, -50, 1e9 };
+    // How far merged results may be from one at a time ones, relative to their size. Sums taken in a
+    // different order round differently, by up to about the rounding of the offset over the spread, but a
+    // wrong merge is out by far more.
+    private static final double TOLERANCE = 1e-7;
+    // The confidence the interval widths are compared at
+    private static final double CONFIDENCE = 0.95;
+
+    public static void main(String[] args)
+    {
+        CheckResults results = new CheckResults("RunningStatisticCheck");
+
+        RunningStatistic empty = new RunningStatistic();
+        empty.add(new RunningStatistic());
+        results.expect(empty.getCount() == 0 && empty.getMean() == 0 && empty.getVariance() == 0,
+                       "merging two empty statistics leaves an empty one");
+
+        for (double offset : OFFSETS) {
+            for (long seed = 0; seed < NUM_SEEDS; seed++) {
+                Random random = new Random(seed);
+                int numObservations = 1 + random.nextInt(MAX_OBSERVATIONS);
+                int numParts = 1 + random.nextInt(MAX_PARTS);
+                double[] observations = new double[numObservations];
+                RunningStatistic whole = new RunningStatistic();
+                RunningStatistic[] parts = new RunningStatistic[numParts];
+                for (int p = 0; p < numParts; p++) {
+                    parts[p] = new RunningStatistic();
+                }
+                for (int i = 0; i < numObservations; i++) {
+                    observations[i] = offset + random.nextGaussian() * (1 + seed);
+                    whole.add(observations[i]);
+                    // Skew towards the first parts so later ones are often small or empty
+                    parts[random.nextInt(1 + random.nextInt(numParts))].add(observations[i]);
+                }
+
+                String run = "offset " + offset + ", seed " + seed + ", " + numObservations + " observations in "
+                        + numParts + " parts: ";
+                RunningStatistic inTurn = new RunningStatistic();
+                for (RunningStatistic part : parts) {
+                    inTurn.add(part);
+                }
+                expectSame(results, whole, inTurn, run + "merged one after another");
+                expectSame(results, whole, mergeInPairs(parts, 0, numParts), run + "merged in pairs");
+
+                double mean = 0;
+                for (double observation : observations) {
+                    mean += observation;
+                }
+                mean /= numObservations;
+                double sumSquares = 0;
+                for (double observation : observations) {
+                    sumSquares += (observation - mean) * (observation - mean);
+                }
+                double variance = numObservations < 2 ? 0 : sumSquares / (numObservations - 1);
+                results.expect(close(whole.getVariance(), variance),
+                               run + "variance " + whole.getVariance() + " but two passes give " + variance);
+                results.expect(close(inTurn.getVariance(), variance),
+                               run + "merged variance " + inTurn.getVariance() + " but two passes give " + variance);
+            }
+        }
+        results.finish();
+    }
+
+    /**
+     * Merge a range of statistics by merging each half and then the two halves, into new statistics
+     * @param parts the statistics
+     * @param from the first statistic in the range
+     * @param to one past the last statistic in the range
+     * @return a new statistic holding every observation in the range
+     */
+    private static RunningStatistic mergeInPairs(RunningStatistic[] parts, int from, int to)
+    {
+        RunningStatistic merged = new RunningStatistic();
+        if (to - from == 1) {
+            merged.add(parts[from]);
+        } else if (to - from > 1) {
+            int middle = (from + to) / 2;
+            merged.add(mergeInPairs(parts, from, middle));
+            merged.add(mergeInPairs(parts, middle, to));
+        }
+        return merged;
+    }
+
+    /**
+     * Check that a merged statistic matches one built one observation at a time
+     * @param results the results to check in
+     * @param expected the statistic built one observation at a time
+     * @param actual the merged statistic
+     * @param description how the statistic was merged
+     */
+    private static void expectSame(CheckResults results, RunningStatistic expected, RunningStatistic actual,
+                                   String description)
+    {
+        results.expect(actual.getCount() == expected.getCount(), description + ", count " + actual.getCount()
+                + " not " + expected.getCount());
+        results.expect(close(actual.getMean(), expected.getMean()), description + ", mean " + actual.getMean()
+                + " not " + expected.getMean());
+        results.expect(close(actual.getVariance(), expected.getVariance()), description + ", variance "
+                + actual.getVariance() + " not " + expected.getVariance());
+        double halfWidth = actual.getHalfWidth(CONFIDENCE);
+        double expectedHalfWidth = expected.getHalfWidth(CONFIDENCE);
+        results.expect(halfWidth == expectedHalfWidth || close(halfWidth, expectedHalfWidth),
+                       description + ", half-width " + halfWidth + " not " + expectedHalfWidth);
+    }
+
+    /**
+     * Check whether two results agree to within rounding
+     * @param a one result
+     * @param b the other result
+     * @return true if they differ by no more than the tolerance relative to the larger
+     */
+    private static boolean close(double a, double b)
+    {
+        return Math.abs(a - b) <= TOLERANCE * Math.max(Math.abs(a), Math.abs(b));
+    }
+}
@@ -0,0 +1,170 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.checks;
+
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.DeliveryStrategy;
+import com.unimelb.swen30006.mailroom.MailItemStore;
+import com.unimelb.swen30006.mailroom.MailStorage;
+import com.unimelb.swen30006.mailroom.SelectionStrategy;
+import com.unimelb.swen30006.mailroom.SimulationRun;
+import com.unimelb.swen30006.mailroom.SortingStrategy;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.buildings.BuildingFactory;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailStorage;
+import com.unimelb.swen30006.mailroom.strategies.delivery.RoutePlanningDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.strategies.delivery.SortedByFloorDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.FullnessSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.RandomSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.EvenDistributionSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.RoomGroupedSortingStrategy;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Checks that the event scheduler gives exactly the results of the lock-step loop, over the built in
+ * buildings, items kept as objects or packed into an item store, every selection and delivery strategy, two
+ * sorting strategies, and bots that select for themselves, are dispatched, carry several boxes a trip, or
+ * are dispatched several boxes a trip with small boxes held back. Then checks that on the scale building
+ * the event loop is no slower than the lock-step loop, taking the best of a few runs of each.
+ *
+ * Pass --no-timing to skip the timing check, which needs a quiet machine.
+ */
+public class SchedulerCheck
+{
+    // The buildings compared, and the seeds each is run with. The last has far more mail than the others
+    // for its boxes and bots, so bots often come back to a storage that is still filling
+    private static final String[] BUILDINGS = { "default", "small", "medium", "large", "1,150,30,20,1,4,3000" };
+    private static final int NUM_SEEDS = 5;
+    // Each bit of a variant picks how storage keeps items, the selection, delivery, sorting, or whether bots
+    // select for themselves
+    private static final int NUM_VARIANTS = 32;
+    // The building timed, and the number of runs of each loop timed on it
+    private static final String TIMED_BUILDING = "scale";
+    private static final int TIMED_RUNS = 3;
+
+    // The ways bots take boxes
+    private static final int SELF_SELECTED = 0;
+    private static final int DISPATCHED = 1;
+    private static final int MULTI_BOX = 2;
+    private static final int DISPATCHED_MULTI_BOX = 3;
+    // The fewest items a box needs to be dispatched several boxes a trip while mail is still arriving
+    private static final int HOLD_BACK_ITEMS = 3;
+
+    public static void main(String[] args)
+    {
+        CheckResults results = new CheckResults("SchedulerCheck");
+        // Bots print to standard output when a strategy misbehaves, which would bury the results
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+            }
+        }));
+
+        BuildingFactory factory = new BuildingFactory();
+        for (String name : BUILDINGS) {
+            Building building = factory.getBuilding(name);
+            for (long seed = 0; seed < NUM_SEEDS; seed++) {
+                for (int variant = 0; variant < NUM_VARIANTS; variant++) {
+                    boolean packed = (variant & 1) != 0;
+                    boolean random = (variant & 2) != 0;
+                    boolean sortedByFloor = (variant & 4) != 0;
+                    boolean evenlySorted = (variant & 8) != 0;
+                    int mode = (variant & 16) == 0 ? SELF_SELECTED : (int) (seed % 3) + DISPATCHED;
+                    String lockStep = describeRun(building, seed, packed, random, sortedByFloor, evenlySorted,
+                                                  mode, false);
+                    String events = describeRun(building, seed, packed, random, sortedByFloor, evenlySorted,
+                                                mode, true);
+                    results.expectSame(lockStep, events, "event run of " + name + " building, seed " + seed
+                            + ", variant " + variant);
+                }
+            }
+        }
+        System.setOut(out);
+
+        if (args.length == 0 || !args[0].equals("--no-timing")) {
+            Building building = factory.getBuilding(TIMED_BUILDING);
+            long lockStep = Long.MAX_VALUE;
+            long events = Long.MAX_VALUE;
+            for (int i = 0; i < TIMED_RUNS; i++) {
+                lockStep = Math.min(lockStep, timeRun(building, false));
+                events = Math.min(events, timeRun(building, true));
+            }
+            System.out.printf("%s building: lock-step %.2fs, events %.2fs%n", TIMED_BUILDING, lockStep / 1e9,
+                              events / 1e9);
+            results.expect(events <= lockStep, "event loop no slower than lock-step on the " + TIMED_BUILDING
+                    + " building");
+        }
+        results.finish();
+    }
+
+    /**
+     * Run a simulation one way and describe what it produced
+     * @param building the building to run
+     * @param seed the seed of the mail source and of any random strategy
+     * @param packed whether storage packs items into an item store rather than keeping them as objects
+     * @param random whether bots select boxes at random rather than the fullest
+     * @param sortedByFloor whether bots deliver in floor order rather than on a planned route
+     * @param evenlySorted whether mail is spread evenly over boxes rather than grouped by room
+     * @param mode how bots take boxes
+     * @param events whether to run as discrete events rather than in lock-step
+     * @return the description of the run's results
+     */
+    private static String describeRun(Building building, long seed, boolean packed, boolean random,
+                                      boolean sortedByFloor, boolean evenlySorted, int mode, boolean events)
+    {
+        MailStorage storage = packed
+                ? new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits(), building.getMinFloor(),
+                                        building.getMaxFloor(), new MailItemStore())
+                : new SimpleMailStorage(building.getMaxBoxes(), building.getMaxMailUnits(), building.getMinFloor(),
+                                        building.getMaxFloor());
+        SelectionStrategy selection = random ? new RandomSelectionStrategy(seed) : new FullnessSelectionStrategy();
+        DeliveryStrategy delivery = sortedByFloor ? new SortedByFloorDeliveryStrategy()
+                                                  : new RoutePlanningDeliveryStrategy(building.getMailRoomLevel());
+        SortingStrategy sorting = evenlySorted
+                ? new EvenDistributionSortingStrategy(building.getMaxBoxes())
+                : new RoomGroupedSortingStrategy(building.getMaxBoxes(), building.getMinFloor(),
+                                                 building.getMaxFloor());
+        SimulationRun run = new SimulationRun(building, SimulationRun.createMailSource(building, seed), storage,
+                                              selection, delivery, sorting);
+        if (mode == DISPATCHED) {
+            run.setDispatching();
+        } else if (mode == MULTI_BOX) {
+            run.setTripCapacity(2 * building.getMaxMailUnits());
+        } else if (mode == DISPATCHED_MULTI_BOX) {
+            run.setDispatching();
+            run.setDispatchHoldBack(HOLD_BACK_ITEMS);
+            run.setTripCapacity(2 * building.getMaxMailUnits());
+        }
+        DeliveryBot.DeliveryStatistic[] stats = events ? run.run() : run.runLockStep();
+        return CheckResults.describe(run, stats);
+    }
+
+    /**
+     * Time one run of a building with the default strategies
+     * @param building the building to run
+     * @param events whether to run as discrete events rather than in lock-step
+     * @return the time the run took in nanoseconds
+     */
+    private static long timeRun(Building building, boolean events)
+    {
+        SimulationRun run = new SimulationRun(building, SimulationRun.createMailSource(building, 1L),
+                new FullnessSelectionStrategy(), new RoutePlanningDeliveryStrategy(building.getMailRoomLevel()),
+                new EvenDistributionSortingStrategy(building.getMaxBoxes()));
+        long start = System.nanoTime();
+        if (events) {
+            run.run();
+        } else {
+            run.runLockStep();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,338 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.dispatch;
+
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.MailStorage;
+import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.SummarySnapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Hands out boxes to every bot from one plan, instead of letting each bot pick for itself. The first
+ * time a bot asks for a box in a tick, every bot that is free that tick is given a ready box at once:
+ * the ready boxes with the lowest estimated trip time per item go to the free bots in the order they
+ * step. Each bot then gets the box planned for it when it asks.
+ *
+ * Free bots are all waiting at the mail room, so a box costs every free bot the same. Any way of sharing
+ * the cheapest boxes among the free bots then costs the same in total, and no other choice of boxes costs
+ * less, so the plan needs no assignment solver.
+ *
+ * A plan is only made when storage or the free bots have changed, and trip estimates are kept for each
+ * box until its summary changes, so most ticks cost little. A bot given nothing can usually wait for
+ * storage to change before asking again; shouldAskAgain says when it cannot.
+ *
+ * Boxes with fewer than a set number of items can be held back while storage is still changing, so
+ * that more mail can join them and fewer trips are made, at the cost of that mail waiting longer. Held
+ * boxes are let go as soon as storage goes a plan without changing, since then no more mail is coming
+ * for them. Nothing is held back unless asked for.
+ *
+ * A checkpoint holds the last plan and what it was made from, but not the trip estimates, which are made
+ * again the first time each box is looked at after resuming.
+ */
+public class Dispatcher implements Checkpointable
+{
+    // Sort keys pack the handle above the box's place in a snapshot, so sorting keys sorts by handle
+    private static final int INDEX_BITS = 32;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    // Marks a plan or storage version that has not been seen
+    private static final long NEVER = -1;
+
+    // The storage boxes are handed out from
+    private final MailStorage storage;
+    // The fewest items a box must have before it goes out while storage is still changing
+    private int minItemsPerTrip;
+    // Every bot taking boxes from this dispatcher, in the order they step
+    private final ArrayList<DeliveryBot> bots;
+    // The place of each bot in the list of bots
+    private final HashMap<DeliveryBot, Integer> indexOf;
+
+    // The box each bot is to take this tick, or null
+    private String[] planned;
+    // The tick the current plan was made for
+    private long planTime;
+    // The storage version and free bots the last plan was made from
+    private long plannedVersion;
+    private BitSet plannedFree;
+    // Whether the last plan let held boxes go, and whether it held any back
+    private boolean plannedRelease;
+    private boolean plannedHolding;
+
+    // The trip estimate kept for each handle, with the summary and bot floor it was made for
+    private final StorageBox.Summary[] estimatedFor;
+    private final int[] estimatedFrom;
+    private final double[] estimate;
+
+    /**
+     * Create a dispatcher that sends out every box with mail in it
+     * @param storage the storage to hand out boxes from
+     */
+    public Dispatcher(MailStorage storage)
+    {
+        this.storage = storage;
+        this.minItemsPerTrip = 1;
+        this.bots = new ArrayList<>();
+        this.indexOf = new HashMap<>();
+        this.planned = new String[0];
+        this.planTime = NEVER;
+        this.plannedVersion = NEVER;
+        this.plannedFree = new BitSet();
+
+        int capacity = storage.getCapacity();
+        this.estimatedFor = new StorageBox.Summary[capacity];
+        this.estimatedFrom = new int[capacity];
+        this.estimate = new double[capacity];
+    }
+
+    /**
+     * Hold back boxes with fewer than a number of items while storage is still changing. Fewer trips are
+     * made, each carrying more mail, but the mail in a held box waits longer. How much of each depends on
+     * the building, the mail and how it is sorted, so compare runs with and without it before relying on
+     * it. Bots given nothing while boxes are held ask again every tick, to take them as soon as they are
+     * let go.
+     * @param minItemsPerTrip the fewest items a box needs to go out while storage is still changing, where
+     * one holds nothing back
+     */
+    public void setHoldBack(int minItemsPerTrip)
+    {
+        if (minItemsPerTrip < 1) {
+            throw new IllegalArgumentException("Trips need at least one item, got " + minItemsPerTrip);
+        }
+        this.minItemsPerTrip = minItemsPerTrip;
+    }
+
+    /**
+     * Check if a bot given nothing should ask again next tick rather than waiting for storage to change.
+     * It should if the last plan held back boxes, since they are let go once storage stops changing, or
+     * if storage has changed since the plan was made, such as by another bot taking the box planned for
+     * this one, since the next plan will differ without storage changing again.
+     * @return true if the next plan may have a box for a bot given nothing this tick
+     */
+    public boolean shouldAskAgain()
+    {
+        return !storage.isEmpty() && (plannedHolding || storage.getVersion() != plannedVersion);
+    }
+
+    /**
+     * Add a bot to those this dispatcher plans for. Bots must be added in the order they step.
+     * @param bot the bot to plan for
+     */
+    public void register(DeliveryBot bot)
+    {
+        indexOf.put(bot, bots.size());
+        bots.add(bot);
+        planned = Arrays.copyOf(planned, bots.size());
+    }
+
+    /**
+     * Give a bot the box planned for it this tick, planning the tick first if it has not been planned yet
+     * @param bot the bot asking, which must be free this tick
+     * @param time the current simulated time
+     * @return the identifier of the box the bot should take, or null if there is none for it or it has
+     * already been taken
+     */
+    public String requestBox(DeliveryBot bot, long time)
+    {
+        if (storage.isEmpty()) {
+            // Nothing to plan, and polling an empty storage must not count as storage standing still
+            return null;
+        }
+        if (time != planTime) {
+            plan(time);
+        }
+        int index = indexOf.get(bot);
+        String id = planned[index];
+        planned[index] = null;
+        // Bots carrying several boxes a trip may have taken the box planned for this one since the plan
+        // was made, leaving it nothing until the next plan
+        if (id != null && storage.handleOf(id) == MailStorage.NO_HANDLE) {
+            return null;
+        }
+        return id;
+    }
+
+    /**
+     * Write the last plan, the boxes in it not yet taken, and what it was made from
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        out.writeInt(planned.length);
+        for (String id : planned) {
+            out.writeBoolean(id != null);
+            if (id != null) {
+                out.writeUTF(id);
+            }
+        }
+        out.writeLong(planTime);
+        out.writeLong(plannedVersion);
+        long[] free = plannedFree.toLongArray();
+        out.writeInt(free.length);
+        for (long word : free) {
+            out.writeLong(word);
+        }
+        out.writeBoolean(plannedRelease);
+        out.writeBoolean(plannedHolding);
+    }
+
+    /**
+     * Read back the plan written by writeCheckpoint, once every bot has been registered
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read, or plans for a different number of bots
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        int numPlanned = in.readInt();
+        if (numPlanned != bots.size()) {
+            throw new IOException("Checkpoint holds a plan for " + numPlanned + " bots, not " + bots.size());
+        }
+        for (int i = 0; i < numPlanned; i++) {
+            planned[i] = in.readBoolean() ? in.readUTF() : null;
+        }
+        planTime = in.readLong();
+        plannedVersion = in.readLong();
+        long[] free = new long[in.readInt()];
+        for (int i = 0; i < free.length; i++) {
+            free[i] = in.readLong();
+        }
+        plannedFree = BitSet.valueOf(free);
+        plannedRelease = in.readBoolean();
+        plannedHolding = in.readBoolean();
+    }
+
+    /**
+     * Give every bot free this tick one of the cheapest ready boxes, keeping the last plan if nothing it
+     * was made from has changed
+     * @param time the tick to plan
+     */
+    private void plan(long time)
+    {
+        planTime = time;
+        long version = storage.getVersion();
+        BitSet free = new BitSet(bots.size());
+        for (int i = 0; i < bots.size(); i++) {
+            if (bots.get(i).isIdleAt(time)) {
+                free.set(i);
+            }
+        }
+        // Held boxes go once storage has stood still since the last plan
+        boolean release = version == plannedVersion;
+        if (version == plannedVersion && release == plannedRelease && free.equals(plannedFree)) {
+            // The same inputs give the same plan, and bots only take what was planned, so nothing
+            // planned last time was taken and nothing new has been planned since
+            return;
+        }
+        plannedVersion = version;
+        plannedFree = free;
+        plannedRelease = release;
+        Arrays.fill(planned, null);
+
+        StorageBox.Summary[] boxes = readyBoxes(release);
+        int numFree = free.cardinality();
+        if (boxes.length == 0 || numFree == 0) {
+            return;
+        }
+
+        // Every free bot is at the mail room, so the costs from the first are the costs from any
+        int first = free.nextSetBit(0);
+        int[] cheapest = cheapest(costsFor(bots.get(first), boxes), numFree);
+        int next = 0;
+        for (int i = first; i >= 0 && next < cheapest.length; i = free.nextSetBit(i + 1)) {
+            planned[i] = boxes[cheapest[next++]].identifier;
+        }
+    }
+
+    /**
+     * The summaries of the boxes that may go out this tick, in handle order so plans do not depend on
+     * the order storage keeps its boxes in, noting whether any box with mail was held back
+     * @param release whether to let go of boxes being held back for more mail
+     * @return the summaries of every box ready to go
+     */
+    private StorageBox.Summary[] readyBoxes(boolean release)
+    {
+        SummarySnapshot snapshot = storage.retrieveSnapshot();
+        long[] keys = new long[snapshot.size()];
+        int numReady = 0;
+        plannedHolding = false;
+        for (int i = 0; i < snapshot.size(); i++) {
+            StorageBox.Summary summary = snapshot.get(i);
+            // A full box can take no more mail, so holding it back gains nothing
+            boolean ready = release || summary.numItems >= minItemsPerTrip || summary.remainingUnits == 0;
+            if (summary.numItems > 0 && ready) {
+                keys[numReady++] = ((long) storage.handleOf(summary.identifier) << INDEX_BITS) | i;
+            } else if (summary.numItems > 0) {
+                plannedHolding = true;
+            }
+        }
+        Arrays.sort(keys, 0, numReady);
+        StorageBox.Summary[] boxes = new StorageBox.Summary[numReady];
+        for (int i = 0; i < numReady; i++) {
+            boxes[i] = snapshot.get((int) (keys[i] & INDEX_MASK));
+        }
+        return boxes;
+    }
+
+    /**
+     * The estimated trip time per item for a bot to take each box, reusing estimates made from the
+     * same floor for boxes that have not changed
+     * @param bot the bot taking the boxes
+     * @param boxes the summaries of the boxes
+     * @return the cost of each box for the bot
+     */
+    private double[] costsFor(DeliveryBot bot, StorageBox.Summary[] boxes)
+    {
+        double[] costs = new double[boxes.length];
+        int floor = bot.getCurrentFloor();
+        for (int b = 0; b < boxes.length; b++) {
+            StorageBox.Summary summary = boxes[b];
+            int handle = storage.handleOf(summary.identifier);
+            if (estimatedFor[handle] != summary || estimatedFrom[handle] != floor) {
+                estimatedFor[handle] = summary;
+                estimatedFrom[handle] = floor;
+                estimate[handle] = (double) bot.estimateTripTime(summary) / summary.numItems;
+            }
+            costs[b] = estimate[handle];
+        }
+        return costs;
+    }
+
+    /**
+     * Find the cheapest entries of an array, lowest index first among equal costs
+     * @param costs the costs to look through
+     * @param count the most entries to find
+     * @return the indexes of up to count of the cheapest entries
+     */
+    private static int[] cheapest(double[] costs, int count)
+    {
+        int[] found = new int[Math.min(count, costs.length)];
+        int numFound = 0;
+        for (int i = 0; i < costs.length; i++) {
+            if (numFound == found.length && costs[i] >= costs[found[numFound - 1]]) {
+                continue;
+            }
+            // Insert in order, dropping the most expensive if full
+            int j = numFound < found.length ? numFound++ : numFound - 1;
+            while (j > 0 && costs[found[j - 1]] > costs[i]) {
+                found[j] = found[j - 1];
+                j--;
+            }
+            found[j] = i;
+        }
+        return found;
+    }
+}
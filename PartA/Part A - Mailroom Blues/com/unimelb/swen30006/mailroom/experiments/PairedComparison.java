@@ -0,0 +1,206 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.experiments;
+
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.ParallelSimulationExecutor;
+import com.unimelb.swen30006.mailroom.RunResult;
+import com.unimelb.swen30006.mailroom.StrategyFactory;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.buildings.BuildingFactory;
+import com.unimelb.swen30006.mailroom.metrics.RunningStatistic;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Compares strategy combinations with common random numbers. Every combination is run on the same
+ * seeds, so in each run they all sort and deliver the same mail with the same random streams, and the
+ * difference between a combination's total time and the baseline's in the same run is mostly down to
+ * the strategies. Differences are averaged a run at a time, which cancels the noise the combinations
+ * share and needs far fewer runs to tell them apart than comparing separate experiments. Runs go on
+ * until every combination is known to be better or worse than the baseline, or within a small
+ * tolerance of it.
+ *
+ * Usage: PairedComparison [Small|Medium|Large|Unspecified] [baseline combination...]
+ * where each combination is named sorting/selection/delivery, as in StrategyCombination.
+ */
+public class PairedComparison
+{
+    // The combinations compared when none are given, the first being the baseline
+    private static final String[] DEFAULT_COMBINATIONS = {
+            "even/fullness/route", "even/random/route", "random/fullness/route",
+            "grouped/fullness/route", "bestfit/fullness/route", "even/fullness/sorted" };
+    // Fixed seed so the comparison is repeatable
+    private static final long SEED = 12345;
+    // Confidence of the intervals reported
+    private static final double CONFIDENCE = 0.95;
+    // A combination within this fraction of the baseline's total time counts as no different
+    private static final double TOLERANCE = 0.01;
+    // The fewest and most runs of each combination
+    private static final int MIN_RUNS = 5;
+    private static final int MAX_RUNS = 1000;
+    // Number of runs simulated at once
+    private static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // The combinations compared, the first being the baseline
+    private final StrategyFactory[] combinations;
+    // The total time of each combination's runs
+    private final RunningStatistic[] totalTime;
+    // The difference in total time between each combination and the baseline, run by run
+    private final RunningStatistic[] difference;
+
+    /**
+     * Create a comparison with no runs yet
+     * @param combinations the combinations to compare, the first being the baseline the rest are compared to
+     */
+    public PairedComparison(StrategyFactory... combinations)
+    {
+        if (combinations.length == 0) {
+            throw new IllegalArgumentException("Nothing to compare");
+        }
+        this.combinations = combinations;
+        this.totalTime = new RunningStatistic[combinations.length];
+        this.difference = new RunningStatistic[combinations.length];
+        for (int i = 0; i < combinations.length; i++) {
+            this.totalTime[i] = new RunningStatistic();
+            this.difference[i] = new RunningStatistic();
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        Building.BuildingType type = args.length > 0 ? Building.BuildingType.valueOf(args[0])
+                                                     : Building.BuildingType.Unspecified;
+        String[] names = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_COMBINATIONS;
+        StrategyFactory[] combinations = new StrategyFactory[names.length];
+        for (int i = 0; i < names.length; i++) {
+            combinations[i] = StrategyCombination.parse(names[i]);
+        }
+        Building building = new BuildingFactory().getNewBuilding(type);
+
+        PairedComparison comparison = new PairedComparison(combinations);
+        try {
+            comparison.run(new ParallelSimulationExecutor(NUM_THREADS), building, SEED, MIN_RUNS, MAX_RUNS);
+        } catch (InterruptedException | ExecutionException e) {
+            System.out.println(e);
+            System.out.println("FATAL: Simulation run failed. Abort");
+            System.exit(0);
+        }
+        System.out.println("========== PAIRED COMPARISON ==========");
+        System.out.println("Building: " + type);
+        System.out.println(comparison);
+    }
+
+    /**
+     * Run every combination on the same seeds until each is resolved against the baseline
+     * @param executor runs the combinations
+     * @param building the building to simulate
+     * @param seed the seed of the comparison, each run's seed is split from it
+     * @param minRuns the fewest runs of each combination
+     * @param maxRuns the most runs of each combination
+     * @return the number of runs of each combination
+     * @throws InterruptedException if interrupted while waiting for runs to complete
+     * @throws ExecutionException if any run fails
+     */
+    public int run(ParallelSimulationExecutor executor, Building building, long seed, final int minRuns,
+                   int maxRuns)
+            throws InterruptedException, ExecutionException
+    {
+        return executor.runPairedUntil(building, seed, combinations, maxRuns,
+                new ParallelSimulationExecutor.PairedRunListener() {
+            @Override
+            public boolean runCompleted(int run, RunResult[] results) {
+                add(results);
+                return run + 1 < minRuns || !isResolved();
+            }
+        });
+    }
+
+    /**
+     * Add the results of every combination in one run
+     * @param results each combination's results, in the order of the combinations
+     */
+    public void add(RunResult[] results)
+    {
+        double baseline = totalTimeOf(results[0]);
+        for (int i = 0; i < results.length; i++) {
+            double time = totalTimeOf(results[i]);
+            totalTime[i].add(time);
+            difference[i].add(time - baseline);
+        }
+    }
+
+    /**
+     * Check if every combination is known to be better or worse than the baseline, or close enough
+     * to it to count as no different
+     * @return true if no more runs are needed to rank the combinations against the baseline
+     */
+    public boolean isResolved()
+    {
+        double tolerance = TOLERANCE * Math.abs(totalTime[0].getMean());
+        for (int i = 1; i < combinations.length; i++) {
+            double mean = difference[i].getMean();
+            double halfWidth = difference[i].getHalfWidth(CONFIDENCE);
+            boolean excludesZero = Math.abs(mean) > halfWidth;
+            if (!excludesZero && halfWidth > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The differences in total time between a combination and the baseline, run by run
+     * @param combination the index of the combination, in the order the combinations were given
+     * @return the differences added so far, which are all zero for the baseline
+     */
+    public RunningStatistic getDifference(int combination)
+    {
+        return difference[combination];
+    }
+
+    /**
+     * The total time of a run, summed over every delivery
+     * @param result the run's results
+     * @return the total time taken by the run's bots
+     */
+    private static double totalTimeOf(RunResult result)
+    {
+        long time = 0;
+        for (DeliveryBot.DeliveryStatistic delivery : result.getDeliveries()) {
+            time += delivery.timeTaken;
+        }
+        return time;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append("Runs of each combination: ").append(totalTime[0].getCount());
+        report.append("\nBaseline ").append(combinations[0]).append(": ")
+              .append(String.format("%.2f +/- %.2f", totalTime[0].getMean(), totalTime[0].getHalfWidth(CONFIDENCE)));
+        for (int i = 1; i < combinations.length; i++) {
+            // What the interval of the difference would have been had the combinations been run on
+            // separate seeds, from the spread of each combination's own results
+            long n = totalTime[i].getCount();
+            double independent = Math.sqrt((totalTime[0].getVariance() + totalTime[i].getVariance()) / n);
+            double paired = Math.sqrt(difference[i].getVariance() / n);
+            report.append("\n").append(combinations[i]).append(": ")
+                  .append(String.format("%.2f +/- %.2f, difference %+.2f +/- %.2f",
+                          totalTime[i].getMean(), totalTime[i].getHalfWidth(CONFIDENCE),
+                          difference[i].getMean(), difference[i].getHalfWidth(CONFIDENCE)));
+            if (paired > 0) {
+                // Runs needed for the same precision scale with the variance of the difference
+                report.append(String.format(" (%.1fx fewer runs than unpaired)",
+                        (independent * independent) / (paired * paired)));
+            }
+        }
+        return report.toString();
+    }
+}
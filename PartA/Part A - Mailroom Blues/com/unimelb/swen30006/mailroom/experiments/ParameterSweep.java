@@ -0,0 +1,223 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.experiments;
+
+import com.unimelb.swen30006.mailroom.ParallelSimulationExecutor;
+import com.unimelb.swen30006.mailroom.SeedSplitter;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.metrics.ExperimentStatistics;
+import com.unimelb.swen30006.mailroom.recording.EventRecorder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sweeps a grid of strategy and building configurations, or a random sample of one, running every
+ * configuration a number of times and writing the results of each to a CSV or JSON report as they
+ * come in. Configurations are spread across a pool of threads, and every configuration is run on the
+ * same seeds, so configurations are compared on common random numbers and the report is the same
+ * whatever the number of threads.
+ *
+ * Every run can also be recorded to one file for EventReplayer, run n of the configuration numbered c
+ * being recorded as run c * runs + n.
+ *
+ * Usage: ParameterSweep [parameter=value,value,...]... [random=N] [runs=N] [seed=N] [threads=N]
+ *                       [format=csv|json] [out=file] [record=file]
+ * where each parameter is one of sorting, selection, delivery, minfloor, maxfloor, boxes, units, bots
+ * or mailroom, for example: ParameterSweep sorting=even,grouped,bestfit bots=1,5,10 random=5 format=json
+ */
+public class ParameterSweep
+{
+    // Defaults of the sweep's own settings
+    private static final int NUM_RUNS = 10;
+    private static final long SEED = 12345;
+    private static final double CONFIDENCE = 0.95;
+
+    // The configurations swept
+    private final SweepSpace space;
+    // The number of runs of each configuration
+    private final int numRuns;
+    // The seed every configuration's runs are seeded from
+    private final long seed;
+    // The number of configurations run at once
+    private final int numThreads;
+    // Records every run, or null if runs are not recorded
+    private EventRecorder recorder;
+
+    /**
+     * Create a sweep
+     * @param space the configurations that may be swept
+     * @param numRuns the number of runs of each configuration
+     * @param seed the seed every configuration's runs are seeded from
+     * @param numThreads the number of configurations to run at once
+     */
+    public ParameterSweep(SweepSpace space, int numRuns, long seed, int numThreads)
+    {
+        if (numRuns < 1 || numThreads < 1) {
+            throw new IllegalArgumentException("Sweeps need at least one run and thread, got "
+                    + numRuns + " runs and " + numThreads + " threads");
+        }
+        this.space = space;
+        this.numRuns = numRuns;
+        this.seed = seed;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Record every run of the sweep
+     * @param recorder the recorder to record to, or null to stop recording
+     */
+    public void setRecorder(EventRecorder recorder)
+    {
+        this.recorder = recorder;
+    }
+
+    public static void main(String[] args)
+    {
+        ArrayList<String> parameters = new ArrayList<>();
+        int sampleSize = 0;
+        int numRuns = NUM_RUNS;
+        long seed = SEED;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        SweepReport.Format format = SweepReport.Format.CSV;
+        String outFile = null;
+        String recordFile = null;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("random=")) {
+                sampleSize = Integer.parseInt(value);
+            } else if (arg.startsWith("runs=")) {
+                numRuns = Integer.parseInt(value);
+            } else if (arg.startsWith("seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("threads=")) {
+                numThreads = Integer.parseInt(value);
+            } else if (arg.startsWith("format=")) {
+                format = SweepReport.Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("out=")) {
+                outFile = value;
+            } else if (arg.startsWith("record=")) {
+                recordFile = value;
+            } else {
+                parameters.add(arg);
+            }
+        }
+        if (outFile == null) {
+            outFile = "sweep." + format.name().toLowerCase(Locale.ROOT);
+        }
+
+        SweepSpace space = new SweepSpace(parameters.toArray(new String[0]));
+        long[] cells = sampleSize > 0 ? space.sample(sampleSize, seed) : space.grid();
+        ParameterSweep sweep = new ParameterSweep(space, numRuns, seed, numThreads);
+
+        long start = System.nanoTime();
+        long numSwept = 0;
+        try (PrintWriter out = new PrintWriter(outFile, "UTF-8");
+             EventRecorder recorder = recordFile == null ? null : new EventRecorder(Paths.get(recordFile))) {
+            sweep.setRecorder(recorder);
+            SweepReport report = new SweepReport(format, out, CONFIDENCE);
+            numSwept = sweep.run(cells, report);
+            report.finish();
+        } catch (InterruptedException | ExecutionException | IOException e) {
+            System.out.println(e);
+            System.out.println("FATAL: Sweep failed. Abort");
+            System.exit(0);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("========== SWEEP COMPLETE ==========");
+        System.out.println("Configurations: " + numSwept + " of " + cells.length + " (" + (cells.length - numSwept)
+                           + " invalid), " + numRuns + " runs each, " + numThreads + " threads");
+        System.out.println("Results written to " + outFile);
+        if (recordFile != null) {
+            System.out.println("Runs recorded to " + recordFile);
+        }
+        System.out.println(String.format(Locale.ROOT, "Took %.2f s: %.1f configurations/s, %.1f runs/s",
+                seconds, numSwept / seconds, numSwept * numRuns / seconds));
+    }
+
+    /**
+     * Run configurations across the pool of threads, writing each one's results in the order given.
+     * Only a few configurations are run ahead of the one being written, so results are not held.
+     * @param cells the numbers of the configurations to run
+     * @param report where to write the results
+     * @return the number of configurations run, leaving out those that are not valid buildings
+     * @throws InterruptedException if interrupted while waiting for configurations to complete
+     * @throws ExecutionException if any run fails
+     */
+    public long run(long[] cells, SweepReport report) throws InterruptedException, ExecutionException
+    {
+        int runsAhead = 2 * numThreads;
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        try {
+            ArrayDeque<Future<ExperimentStatistics>> started = new ArrayDeque<>(runsAhead);
+            int numStarted = 0;
+            long numRun = 0;
+            for (int next = 0; next < cells.length; next++) {
+                // Start configurations up to the limit
+                while (numStarted < cells.length && started.size() < runsAhead) {
+                    final SweepSpace.Cell cell = space.cell(cells[numStarted]);
+                    final long firstRun = cells[numStarted] * numRuns;
+                    started.add(pool.submit(new Callable<ExperimentStatistics>() {
+                        @Override
+                        public ExperimentStatistics call() {
+                            return cell.isValid() ? runCell(cell, firstRun) : null;
+                        }
+                    }));
+                    numStarted++;
+                }
+                // Write the results in order
+                ExperimentStatistics statistics = started.remove().get();
+                if (statistics != null) {
+                    report.write(space.cell(cells[next]), statistics);
+                    numRun++;
+                }
+            }
+            return numRun;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Run one configuration on the calling thread, with run n seeded the same in every configuration
+     * @param cell the configuration
+     * @return the results of every run
+     */
+    public ExperimentStatistics runCell(SweepSpace.Cell cell)
+    {
+        return runCell(cell, 0);
+    }
+
+    /**
+     * Run one configuration on the calling thread, with run n seeded the same in every configuration
+     * and recorded as run firstRun + n if the sweep is being recorded
+     * @param cell the configuration
+     * @param firstRun the number the first run is recorded under
+     * @return the results of every run
+     */
+    public ExperimentStatistics runCell(SweepSpace.Cell cell, long firstRun)
+    {
+        Building building = cell.createBuilding();
+        SeedSplitter runSeeds = new SeedSplitter(seed);
+        ExperimentStatistics statistics = new ExperimentStatistics();
+        for (int run = 0; run < numRuns; run++) {
+            statistics.add(ParallelSimulationExecutor.runSingle(building, runSeeds.seedForRun(run), cell.strategies,
+                                                                recorder, firstRun + run));
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,130 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.experiments;
+
+import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailSource;
+import com.unimelb.swen30006.mailroom.SeedSplitter;
+import com.unimelb.swen30006.mailroom.SimulationRun;
+import com.unimelb.swen30006.mailroom.arrivals.ArrivalProfile;
+import com.unimelb.swen30006.mailroom.arrivals.BurstyArrivalProfile;
+import com.unimelb.swen30006.mailroom.arrivals.ConstantArrivalProfile;
+import com.unimelb.swen30006.mailroom.arrivals.DiurnalArrivalProfile;
+import com.unimelb.swen30006.mailroom.arrivals.TimedMailSource;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.buildings.BuildingFactory;
+import com.unimelb.swen30006.mailroom.samples.SimpleMailGenerator;
+import com.unimelb.swen30006.mailroom.strategies.delivery.RoutePlanningDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.FullnessSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.EvenDistributionSortingStrategy;
+
+/**
+ * Finds the arrival rate at which a building's mail room saturates. Mail arrives over time at a
+ * steadily increasing mean rate, and each rate is run long enough to measure throughput and time in
+ * system at steady state. The sweep stops once the mail room can no longer keep up.
+ *
+ * Usage: SaturationExperiment [Small|Medium|Large|Unspecified] [poisson|bursty|diurnal]
+ */
+public class SaturationExperiment
+{
+    // Ticks left out of the measurement while the mail room fills up, and ticks measured after that
+    private static final long WARMUP_TICKS = 2000;
+    private static final long MEASUREMENT_TICKS = 20000;
+    // The mean arrival rates swept, in items per tick. The sorter takes at most one item a tick,
+    // so every building saturates somewhere below the top of the sweep
+    private static final double RATE_STEP = 0.05;
+    private static final double MAX_RATE = 1.5;
+    // The shape of the bursty and diurnal profiles
+    private static final long BURST_PERIOD = 500;
+    private static final long BURST_LENGTH = 50;
+    private static final double BURST_SHARE = 0.5;
+    private static final double DIURNAL_AMPLITUDE = 0.8;
+    private static final long DIURNAL_PERIOD = 5000;
+    // Fixed seed so the sweep is repeatable
+    private static final long SEED = 12345;
+    // The random streams split from the seed
+    private static final int MAIL_STREAM = 0;
+    private static final int ARRIVAL_STREAM = 1;
+
+    public static void main(String[] args)
+    {
+        Building.BuildingType type = args.length > 0 ? Building.BuildingType.valueOf(args[0])
+                                                     : Building.BuildingType.Unspecified;
+        String shape = args.length > 1 ? args[1] : "poisson";
+        Building building = new BuildingFactory().getNewBuilding(type);
+
+        System.out.println("========== SATURATION SWEEP ==========");
+        System.out.println("Building: " + type + ", arrivals: " + shape);
+        Double saturationRate = null;
+        for (int step = 1; step * RATE_STEP <= MAX_RATE + 1e-9 && saturationRate == null; step++) {
+            // Round away the error accumulated in the step
+            double rate = Math.round(step * RATE_STEP * 1000) / 1000.0;
+            ArrivalProfile profile = createProfile(shape, rate);
+            SteadyStateObserver.SteadyStateStatistic stat = runAt(building, profile, SEED);
+            System.out.println(profile + ": " + stat);
+            if (stat.isSaturated()) {
+                saturationRate = profile.meanRate();
+            }
+        }
+        System.out.println("");
+        if (saturationRate == null) {
+            System.out.println("Did not saturate below " + MAX_RATE + " items/step");
+        } else {
+            System.out.println("Saturates at " + saturationRate + " items/step");
+        }
+    }
+
+    /**
+     * Create an arrival profile of the given shape
+     * @param shape one of poisson, bursty or diurnal
+     * @param meanRate the mean arrival rate
+     * @return the arrival profile
+     */
+    public static ArrivalProfile createProfile(String shape, double meanRate)
+    {
+        switch (shape) {
+            case "poisson":
+                return new ConstantArrivalProfile(meanRate);
+            case "bursty":
+                // Half the mail arrives in bursts, the rest in between
+                double burstRate = BURST_SHARE * meanRate * BURST_PERIOD / BURST_LENGTH;
+                double baseRate = (1 - BURST_SHARE) * meanRate * BURST_PERIOD / (BURST_PERIOD - BURST_LENGTH);
+                return new BurstyArrivalProfile(baseRate, burstRate, BURST_PERIOD, BURST_LENGTH);
+            case "diurnal":
+                return new DiurnalArrivalProfile(meanRate, DIURNAL_AMPLITUDE, DIURNAL_PERIOD);
+            default:
+                throw new IllegalArgumentException("Unknown arrival profile " + shape
+                        + ", expected poisson, bursty or diurnal");
+        }
+    }
+
+    /**
+     * Run a building with mail arriving over time and measure it at steady state
+     * @param building the building to simulate
+     * @param profile how fast mail arrives
+     * @param seed the seed for the run
+     * @return the steady state statistics of the run
+     */
+    public static SteadyStateObserver.SteadyStateStatistic runAt(Building building, ArrivalProfile profile, long seed)
+    {
+        SeedSplitter streams = new SeedSplitter(seed);
+        long duration = WARMUP_TICKS + MEASUREMENT_TICKS;
+        // Generate as many items as could possibly arrive, arrivals stop the source well before that
+        MailSource items = new SimpleMailGenerator(building.getMinFloor(), building.getMaxFloor(),
+                MailItem.MailPriority.values(), MailItem.MailType.values(), Integer.MAX_VALUE,
+                streams.seedForRun(MAIL_STREAM));
+        MailSource source = new TimedMailSource(items, profile, duration, streams.seedForRun(ARRIVAL_STREAM));
+
+        SimulationRun run = new SimulationRun(building, source, new FullnessSelectionStrategy(),
+                new RoutePlanningDeliveryStrategy(building.getMailRoomLevel()),
+                new EvenDistributionSortingStrategy(building.getMaxBoxes()));
+        SteadyStateObserver observer = new SteadyStateObserver(WARMUP_TICKS, duration);
+        run.setObserver(observer);
+        run.run();
+        return observer.retrieveStatistics(profile.meanRate());
+    }
+}
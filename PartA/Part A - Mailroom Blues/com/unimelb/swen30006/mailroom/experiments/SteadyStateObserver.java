@@ -0,0 +1,181 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.experiments;
+
+import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.SimulationObserver;
+
+/**
+ * Measures a run at steady state: only mail delivered within a measurement window counts towards
+ * throughput, and only mail that arrived within it counts towards time in system, so the warm-up
+ * while the mail room fills from empty and the drain after arrivals stop are both left out.
+ *
+ * Time in system is also kept separately for mail arriving in each half of the window. A mail room
+ * that keeps up holds it steady, while one that cannot keeps it growing as mail backs up, even when
+ * mail that is already through keeps being delivered about as fast as it arrives.
+ */
+public class SteadyStateObserver implements SimulationObserver
+{
+    // The measurement window, from the end of warm-up up to but not including its end
+    private final long windowStart;
+    private final long windowEnd;
+
+    // Items delivered during the window
+    private long numDelivered;
+    // Items that arrived during each half of the window and have since been delivered, and their time in system
+    private final long[] numTimed;
+    private final long[] totalTimeInSystem;
+    private long maxTimeInSystem;
+    // Items dropped that arrived during the window
+    private long numDropped;
+
+    /**
+     * Create an observer for a measurement window
+     * @param windowStart the time warm-up ends and measurement starts
+     * @param windowEnd the time measurement stops
+     */
+    public SteadyStateObserver(long windowStart, long windowEnd)
+    {
+        if (windowEnd <= windowStart) {
+            throw new IllegalArgumentException("Window from " + windowStart + " to " + windowEnd + " is empty");
+        }
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.numTimed = new long[2];
+        this.totalTimeInSystem = new long[2];
+    }
+
+    @Override
+    public void mailDropped(MailItem item, long time)
+    {
+        if (inWindow(item.arrivalTime)) {
+            numDropped++;
+        }
+    }
+
+    @Override
+    public void mailDelivered(MailItem item, long time)
+    {
+        if (inWindow(time)) {
+            numDelivered++;
+        }
+        if (inWindow(item.arrivalTime)) {
+            long timeInSystem = time - item.arrivalTime;
+            int half = item.arrivalTime < windowStart + (windowEnd - windowStart) / 2 ? 0 : 1;
+            numTimed[half]++;
+            totalTimeInSystem[half] += timeInSystem;
+            maxTimeInSystem = Math.max(maxTimeInSystem, timeInSystem);
+        }
+    }
+
+    /**
+     * Check if a time falls within the measurement window
+     * @param time the time to check
+     * @return true if it is within the window
+     */
+    private boolean inWindow(long time)
+    {
+        return time >= windowStart && time < windowEnd;
+    }
+
+    /**
+     * The average of a total over a count, or 0 if there is nothing to average
+     * @param total the total
+     * @param count the number of values making up the total
+     * @return the average
+     */
+    private static double mean(long total, long count)
+    {
+        return count == 0 ? 0 : total / (double) count;
+    }
+
+    /**
+     * Package the measurements for reporting, once the run has finished and all its mail is delivered
+     * @param offeredRate the mean arrival rate the run was given
+     * @return the steady state statistics
+     */
+    public SteadyStateStatistic retrieveStatistics(double offeredRate)
+    {
+        long window = windowEnd - windowStart;
+        // Every item that arrived in the window has been delivered or dropped by the end of the run
+        double arrivalRate = (numTimed[0] + numTimed[1] + numDropped) / (double) window;
+        double throughput = numDelivered / (double) window;
+        double meanTimeInSystem = mean(totalTimeInSystem[0] + totalTimeInSystem[1], numTimed[0] + numTimed[1]);
+        return new SteadyStateStatistic(offeredRate, arrivalRate, throughput, meanTimeInSystem,
+                mean(totalTimeInSystem[0], numTimed[0]), mean(totalTimeInSystem[1], numTimed[1]),
+                maxTimeInSystem, numDropped);
+    }
+
+    /*
+       A simple class to hold steady state statistics as a data structure. Is immutable
+     */
+    public static class SteadyStateStatistic
+    {
+        // Throughput below this fraction of the arrival rate means the mail room cannot keep up
+        private static final double SATURATION_RATIO = 0.95;
+        // Time in system growing by more than this factor over the window means mail is backing up
+        private static final double GROWTH_RATIO = 1.5;
+
+        // The mean arrival rate the run was given, and the rate mail actually arrived during the window,
+        // in items per tick
+        public final double offeredRate;
+        public final double arrivalRate;
+        // The rate items were delivered during the window, in items per tick
+        public final double throughput;
+        // The average and longest time (in steps) from arriving to being delivered
+        public final double meanTimeInSystem;
+        public final long maxTimeInSystem;
+        // The average time in system of mail arriving in the first and second half of the window
+        public final double earlyTimeInSystem;
+        public final double lateTimeInSystem;
+        // The number of items dropped
+        public final long numDropped;
+
+        /**
+         * Create a steady state statistic
+         * @param offeredRate the mean arrival rate
+         * @param arrivalRate the rate mail arrived during the window
+         * @param throughput the delivery rate during the window
+         * @param meanTimeInSystem the average time from arrival to delivery
+         * @param earlyTimeInSystem the average time in system of mail arriving in the first half of the window
+         * @param lateTimeInSystem the average time in system of mail arriving in the second half of the window
+         * @param maxTimeInSystem the longest time from arrival to delivery
+         * @param numDropped the number of items dropped
+         */
+        public SteadyStateStatistic(double offeredRate, double arrivalRate, double throughput, double meanTimeInSystem,
+                                    double earlyTimeInSystem, double lateTimeInSystem,
+                                    long maxTimeInSystem, long numDropped)
+        {
+            this.offeredRate = offeredRate;
+            this.arrivalRate = arrivalRate;
+            this.throughput = throughput;
+            this.meanTimeInSystem = meanTimeInSystem;
+            this.earlyTimeInSystem = earlyTimeInSystem;
+            this.lateTimeInSystem = lateTimeInSystem;
+            this.maxTimeInSystem = maxTimeInSystem;
+            this.numDropped = numDropped;
+        }
+
+        /**
+         * Check if the mail room failed to keep up with arrivals, so mail was backing up
+         * @return true if throughput fell short of the arrival rate or time in system kept growing
+         */
+        public boolean isSaturated()
+        {
+            return throughput < SATURATION_RATIO * arrivalRate || lateTimeInSystem > GROWTH_RATIO * earlyTimeInSystem;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Steady State: offered " + offeredRate + " items/step, arrived " + arrivalRate +
+                    ", delivered " + throughput + " items/step, time in system mean " + meanTimeInSystem +
+                    " (" + earlyTimeInSystem + " then " + lateTimeInSystem + ") max " + maxTimeInSystem +
+                    " steps, " + numDropped + " dropped" + (isSaturated() ? ", saturated." : ".");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.experiments;
+
+import com.unimelb.swen30006.mailroom.DeliveryStrategy;
+import com.unimelb.swen30006.mailroom.SelectionStrategy;
+import com.unimelb.swen30006.mailroom.SortingStrategy;
+import com.unimelb.swen30006.mailroom.StrategyFactory;
+import com.unimelb.swen30006.mailroom.SummaryOrder;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.strategies.delivery.RoutePlanningDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.strategies.delivery.SortedByFloorDeliveryStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.FullnessSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.OrderedSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.selection.RandomSelectionStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.BestFitSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.EvenDistributionSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.RandomSortingStrategy;
+import com.unimelb.swen30006.mailroom.strategies.sorting.RoomGroupedSortingStrategy;
+
+/**
+ * A combination of sorting, selection and delivery strategies chosen by name, so that experiments
+ * can be told which strategies to try without a factory class for each combination. A combination is
+ * named sorting/selection/delivery, such as "even/fullness/route".
+ */
+public class StrategyCombination implements StrategyFactory
+{
+    /** The names of the sorting strategies */
+    public static final String[] SORTING = { "even", "random", "grouped", "bestfit" };
+    /** The names of the selection strategies */
+    public static final String[] SELECTION = { "fullness", "random", "fewest", "priority" };
+    /** The names of the delivery strategies */
+    public static final String[] DELIVERY = { "route", "sorted" };
+
+    // The name of each strategy in the combination
+    private final String sorting;
+    private final String selection;
+    private final String delivery;
+
+    /**
+     * Create a combination of named strategies
+     * @param sorting the name of the sorting strategy
+     * @param selection the name of the selection strategy
+     * @param delivery the name of the delivery strategy
+     * @throws IllegalArgumentException if any name is not one of the known strategies
+     */
+    public StrategyCombination(String sorting, String selection, String delivery)
+    {
+        this.sorting = checkName(sorting, SORTING);
+        this.selection = checkName(selection, SELECTION);
+        this.delivery = checkName(delivery, DELIVERY);
+    }
+
+    /**
+     * Read a combination from its name
+     * @param name a name of the form sorting/selection/delivery
+     * @return the combination
+     * @throws IllegalArgumentException if the name is not a combination of known strategies
+     */
+    public static StrategyCombination parse(String name)
+    {
+        String[] parts = name.split("/");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected sorting/selection/delivery, got " + name);
+        }
+        return new StrategyCombination(parts[0], parts[1], parts[2]);
+    }
+
+    /**
+     * Check a name is one of the known names
+     * @param name the name to check
+     * @param known the known names
+     * @return the name
+     * @throws IllegalArgumentException if the name is not known
+     */
+    private static String checkName(String name, String[] known)
+    {
+        for (String candidate : known) {
+            if (candidate.equals(name)) {
+                return name;
+            }
+        }
+        throw new IllegalArgumentException("Unknown strategy " + name + ", expected one of "
+                + String.join(", ", known));
+    }
+
+    /**
+     * The name of the sorting strategy
+     * @return the sorting strategy's name
+     */
+    public String getSorting()
+    {
+        return sorting;
+    }
+
+    /**
+     * The name of the selection strategy
+     * @return the selection strategy's name
+     */
+    public String getSelection()
+    {
+        return selection;
+    }
+
+    /**
+     * The name of the delivery strategy
+     * @return the delivery strategy's name
+     */
+    public String getDelivery()
+    {
+        return delivery;
+    }
+
+    @Override
+    public SortingStrategy createSortingStrategy(Building building, long seed)
+    {
+        switch (sorting) {
+            case "random":
+                return new RandomSortingStrategy(seed, building.getMaxBoxes());
+            case "grouped":
+                return new RoomGroupedSortingStrategy(building.getMaxBoxes(), building.getMinFloor(),
+                                                      building.getMaxFloor());
+            case "bestfit":
+                return new BestFitSortingStrategy(building.getMaxBoxes());
+            default:
+                return new EvenDistributionSortingStrategy(building.getMaxBoxes());
+        }
+    }
+
+    @Override
+    public SelectionStrategy createSelectionStrategy(Building building, long seed)
+    {
+        switch (selection) {
+            case "random":
+                return new RandomSelectionStrategy(seed);
+            case "fewest":
+                return new OrderedSelectionStrategy(SummaryOrder.FEWEST_DESTINATIONS);
+            case "priority":
+                return new OrderedSelectionStrategy(SummaryOrder.HIGHEST_PRIORITY);
+            default:
+                return new FullnessSelectionStrategy();
+        }
+    }
+
+    @Override
+    public DeliveryStrategy createDeliveryStrategy(Building building)
+    {
+        switch (delivery) {
+            case "sorted":
+                return new SortedByFloorDeliveryStrategy();
+            default:
+                return new RoutePlanningDeliveryStrategy(building.getMailRoomLevel());
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return sorting + "/" + selection + "/" + delivery;
+    }
+}
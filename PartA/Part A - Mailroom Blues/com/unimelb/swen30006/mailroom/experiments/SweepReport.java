@@ -0,0 +1,129 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.experiments;
+
+import com.unimelb.swen30006.mailroom.metrics.ExperimentStatistics;
+import com.unimelb.swen30006.mailroom.metrics.LatencyHistogram;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Writes the results of a parameter sweep a configuration at a time, as CSV with a header row or as
+ * a JSON array of objects, so results can be read before the sweep is over and nothing is kept in
+ * memory. Numbers are written the same way in any locale.
+ */
+public class SweepReport
+{
+    // The formats a report can be written in
+    public enum Format {CSV, JSON}
+
+    // The columns of each row, in order
+    private static final String[] COLUMNS = {
+            "sorting", "selection", "delivery", "minFloor", "maxFloor", "maxBoxes", "maxMailUnits", "numBots",
+            "mailRoomLevel", "runs", "totalTime", "totalTimeHalfWidth", "totalFloors", "deliveryRuns",
+            "meanLatency", "p99Latency" };
+
+    // The format being written
+    private final Format format;
+    // Where the report is written
+    private final PrintWriter out;
+    // The confidence of the half-widths written
+    private final double confidence;
+    // The number of rows written so far
+    private long numRows;
+
+    /**
+     * Start a report, writing its header
+     * @param format the format to write in
+     * @param out where to write the report
+     * @param confidence the confidence of the half-widths written, between 0 and 1
+     */
+    public SweepReport(Format format, PrintWriter out, double confidence)
+    {
+        this.format = format;
+        this.out = out;
+        this.confidence = confidence;
+        if (format == Format.CSV) {
+            out.println(String.join(",", COLUMNS));
+        } else {
+            out.print("[");
+        }
+    }
+
+    /**
+     * Write the results of one configuration
+     * @param cell the configuration
+     * @param statistics the results of its runs
+     */
+    public void write(SweepSpace.Cell cell, ExperimentStatistics statistics)
+    {
+        LatencyHistogram latency = statistics.getLatencies().getOverall();
+        Object[] row = {
+                cell.strategies.getSorting(), cell.strategies.getSelection(), cell.strategies.getDelivery(),
+                cell.minFloor, cell.maxFloor, cell.maxBoxes, cell.maxMailUnits, cell.numBots, cell.mailRoomLevel,
+                statistics.getNumRuns(),
+                statistics.getTotalTime().getMean(), statistics.getTotalTime().getHalfWidth(confidence),
+                statistics.getTotalFloors().getMean(), statistics.getNumDeliveries().getMean(),
+                latency.getMean(), latency.getValueAtPercentile(99) };
+
+        StringBuilder line = new StringBuilder();
+        if (format == Format.JSON) {
+            line.append(numRows == 0 ? "\n  {" : ",\n  {");
+        }
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (c > 0) {
+                line.append(format == Format.JSON ? ", " : ",");
+            }
+            if (format == Format.JSON) {
+                line.append('"').append(COLUMNS[c]).append("\": ");
+            }
+            line.append(formatValue(row[c]));
+        }
+        if (format == Format.JSON) {
+            line.append('}');
+            out.print(line);
+        } else {
+            out.println(line);
+        }
+        numRows++;
+        // Let results be read while the sweep goes on
+        out.flush();
+    }
+
+    /**
+     * Finish the report, closing the JSON array if there is one
+     */
+    public void finish()
+    {
+        if (format == Format.JSON) {
+            out.println(numRows == 0 ? "]" : "\n]");
+        }
+        out.flush();
+    }
+
+    /**
+     * Format a value of a row. Names are quoted in JSON, and numbers that are not finite are written
+     * as null, since JSON has no way to write them, or left empty in CSV.
+     * @param value the value to format
+     * @return the value as written in the report
+     */
+    private String formatValue(Object value)
+    {
+        if (value instanceof String) {
+            return format == Format.JSON ? "\"" + value + "\"" : (String) value;
+        }
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                return format == Format.JSON ? "null" : "";
+            }
+            return String.format(Locale.ROOT, "%.3f", number);
+        }
+        return value.toString();
+    }
+}
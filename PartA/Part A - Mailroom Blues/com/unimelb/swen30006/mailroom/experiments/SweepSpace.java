@@ -0,0 +1,196 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.experiments;
+
+import com.unimelb.swen30006.mailroom.buildings.Building;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * The configurations a parameter sweep can try: every combination of a list of values for each
+ * strategy and building parameter. Configurations are numbered, counting through the last parameter
+ * fastest, so a sweep can walk the whole grid or pick numbers at random without listing the grid.
+ */
+public class SweepSpace
+{
+    // The names of the parameters, in the order they are counted through, slowest first
+    private static final String[] PARAMETERS = {
+            "sorting", "selection", "delivery", "minfloor", "maxfloor", "boxes", "units", "bots", "mailroom" };
+    // The values each parameter takes when not given, matching the default building and strategies
+    private static final String[] DEFAULTS = { "even", "fullness", "route", "-1", "20", "5", "200", "1", "10" };
+
+    // The values each parameter takes, in the order of PARAMETERS
+    private final String[][] values;
+
+    /**
+     * Create a space from the values of each parameter, given as name=value,value,... arguments.
+     * Parameters not given take the value of the default building and strategies.
+     * @param arguments the parameter values, such as "sorting=even,grouped" or "bots=1,5,10"
+     * @throws IllegalArgumentException if a parameter or value is not known
+     */
+    public SweepSpace(String... arguments)
+    {
+        this.values = new String[PARAMETERS.length][];
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            this.values[p] = new String[] { DEFAULTS[p] };
+        }
+        for (String argument : arguments) {
+            int equals = argument.indexOf('=');
+            int p = equals < 0 ? -1 : Arrays.asList(PARAMETERS).indexOf(argument.substring(0, equals));
+            if (p < 0) {
+                throw new IllegalArgumentException("Unknown sweep parameter " + argument + ", expected one of "
+                        + String.join(", ", PARAMETERS));
+            }
+            this.values[p] = argument.substring(equals + 1).split(",");
+        }
+        // Check every value now, rather than part way through a sweep
+        for (int p = 0; p < 3; p++) {
+            for (String value : values[p]) {
+                new StrategyCombination(p == 0 ? value : DEFAULTS[0], p == 1 ? value : DEFAULTS[1],
+                                        p == 2 ? value : DEFAULTS[2]);
+            }
+        }
+        for (int p = 3; p < PARAMETERS.length; p++) {
+            for (String value : values[p]) {
+                Integer.parseInt(value);
+            }
+        }
+    }
+
+    /**
+     * The number of configurations in the space
+     * @return the product of the number of values of each parameter
+     */
+    public long size()
+    {
+        long size = 1;
+        for (String[] parameter : values) {
+            size = Math.multiplyExact(size, parameter.length);
+        }
+        return size;
+    }
+
+    /**
+     * The configuration with a given number
+     * @param index the number of the configuration, from 0 to one less than the size
+     * @return the configuration
+     */
+    public Cell cell(long index)
+    {
+        String[] chosen = new String[PARAMETERS.length];
+        for (int p = PARAMETERS.length - 1; p >= 0; p--) {
+            chosen[p] = values[p][(int) (index % values[p].length)];
+            index /= values[p].length;
+        }
+        int[] numbers = new int[PARAMETERS.length];
+        for (int p = 3; p < PARAMETERS.length; p++) {
+            numbers[p] = Integer.parseInt(chosen[p]);
+        }
+        return new Cell(new StrategyCombination(chosen[0], chosen[1], chosen[2]),
+                        numbers[3], numbers[4], numbers[5], numbers[6], numbers[7], numbers[8]);
+    }
+
+    /**
+     * The numbers of every configuration, for sweeping the whole grid
+     * @return every configuration's number, in order
+     * @throws IllegalArgumentException if the grid is too large to list
+     */
+    public long[] grid()
+    {
+        long size = size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid of " + size + " configurations is too large, sample it instead");
+        }
+        long[] all = new long[(int) size];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    /**
+     * Pick the numbers of configurations at random, without picking any twice
+     * @param count the number of configurations to pick, the whole grid if it is smaller
+     * @param seed the seed to pick with
+     * @return the numbers of the configurations picked, in the order they were picked
+     */
+    public long[] sample(int count, long seed)
+    {
+        long size = size();
+        if (count >= size) {
+            return grid();
+        }
+        Random random = new Random(seed);
+        HashSet<Long> picked = new HashSet<>();
+        long[] sample = new long[count];
+        int numPicked = 0;
+        while (numPicked < count) {
+            // Uniform over the space, which may be too large to pick from with nextInt
+            long index = Math.floorMod(random.nextLong(), size);
+            if (picked.add(index)) {
+                sample[numPicked++] = index;
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * One configuration of a sweep: the strategies and the building to run them in
+     */
+    public static class Cell
+    {
+        /** The strategies of the configuration */
+        public final StrategyCombination strategies;
+        /** The building parameters of the configuration */
+        public final int minFloor;
+        public final int maxFloor;
+        public final int maxBoxes;
+        public final int maxMailUnits;
+        public final int numBots;
+        public final int mailRoomLevel;
+
+        Cell(StrategyCombination strategies, int minFloor, int maxFloor, int maxBoxes, int maxMailUnits,
+             int numBots, int mailRoomLevel)
+        {
+            this.strategies = strategies;
+            this.minFloor = minFloor;
+            this.maxFloor = maxFloor;
+            this.maxBoxes = maxBoxes;
+            this.maxMailUnits = maxMailUnits;
+            this.numBots = numBots;
+            this.mailRoomLevel = mailRoomLevel;
+        }
+
+        /**
+         * Check the configuration describes a building that can be simulated
+         * @return true if the building has floors, boxes, units and bots, and the mail room is on one of its floors
+         */
+        public boolean isValid()
+        {
+            return minFloor <= maxFloor && maxBoxes > 0 && maxMailUnits > 0 && numBots > 0
+                    && mailRoomLevel >= minFloor && mailRoomLevel <= maxFloor;
+        }
+
+        /**
+         * Create the building of the configuration
+         * @return a new building with the configuration's parameters
+         */
+        public Building createBuilding()
+        {
+            return new Building(minFloor, maxFloor, maxBoxes, maxMailUnits, mailRoomLevel, numBots);
+        }
+
+        @Override
+        public String toString()
+        {
+            return strategies + " floors " + minFloor + ".." + maxFloor + ", " + maxBoxes + " boxes of "
+                    + maxMailUnits + " units, " + numBots + " bots, mail room on " + mailRoomLevel;
+        }
+    }
+}
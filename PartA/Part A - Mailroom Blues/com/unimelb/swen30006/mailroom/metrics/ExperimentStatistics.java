@@ -0,0 +1,115 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.metrics;
+
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.RunResult;
+
+/**
+ * The results of an experiment's runs, added as each run finishes and kept as running statistics, so
+ * an experiment of any number of runs takes the same memory. Each run gives one observation of the
+ * total time its bots took, the floors they travelled and the delivery runs they made, and the
+ * latencies of every run are added together.
+ */
+public class ExperimentStatistics
+{
+    // The total time, floors and delivery runs of each run
+    private final RunningStatistic totalTime;
+    private final RunningStatistic totalFloors;
+    private final RunningStatistic numDeliveries;
+    // The latencies of every item delivered in every run
+    private final LatencyRecorder latencies;
+
+    /**
+     * Create statistics for an experiment with no runs yet
+     */
+    public ExperimentStatistics()
+    {
+        this.totalTime = new RunningStatistic();
+        this.totalFloors = new RunningStatistic();
+        this.numDeliveries = new RunningStatistic();
+        this.latencies = new LatencyRecorder();
+    }
+
+    /**
+     * Add the results of a finished run
+     * @param result the run's results
+     */
+    public void add(RunResult result)
+    {
+        DeliveryBot.DeliveryStatistic[] deliveries = result.getDeliveries();
+        long time = 0;
+        long floors = 0;
+        for (DeliveryBot.DeliveryStatistic delivery : deliveries) {
+            time += delivery.timeTaken;
+            floors += delivery.numFloors;
+        }
+        totalTime.add(time);
+        totalFloors.add(floors);
+        numDeliveries.add(deliveries.length);
+        latencies.add(result.getLatencies());
+    }
+
+    /**
+     * The number of runs added
+     * @return the number of runs so far
+     */
+    public long getNumRuns()
+    {
+        return totalTime.getCount();
+    }
+
+    /**
+     * The total time taken by the bots of each run
+     * @return the running statistic of total time
+     */
+    public RunningStatistic getTotalTime()
+    {
+        return totalTime;
+    }
+
+    /**
+     * The total floors travelled by the bots of each run
+     * @return the running statistic of total floors
+     */
+    public RunningStatistic getTotalFloors()
+    {
+        return totalFloors;
+    }
+
+    /**
+     * The number of delivery runs made by the bots of each run
+     * @return the running statistic of delivery runs
+     */
+    public RunningStatistic getNumDeliveries()
+    {
+        return numDeliveries;
+    }
+
+    /**
+     * The latencies of every item delivered in every run
+     * @return the latencies so far
+     */
+    public LatencyRecorder getLatencies()
+    {
+        return latencies;
+    }
+
+    /**
+     * Check if the mean total time, floors and delivery runs are all known to within a fraction of
+     * their value
+     * @param confidence the confidence of the intervals, between 0 and 1
+     * @param relativeHalfWidth the largest half-width allowed for each interval, as a fraction of its mean
+     * @return true if every interval is narrow enough
+     */
+    public boolean isPrecise(double confidence, double relativeHalfWidth)
+    {
+        return totalTime.getRelativeHalfWidth(confidence) <= relativeHalfWidth
+                && totalFloors.getRelativeHalfWidth(confidence) <= relativeHalfWidth
+                && numDeliveries.getRelativeHalfWidth(confidence) <= relativeHalfWidth;
+    }
+}
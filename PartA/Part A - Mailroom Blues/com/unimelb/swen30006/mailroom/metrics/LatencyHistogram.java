@@ -0,0 +1,255 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.metrics;
+
+import com.unimelb.swen30006.mailroom.Checkpointable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative values with high dynamic range, in the style of HdrHistogram. Values
+ * below 256 are counted exactly; above that, each power of two is split into 128 equal buckets, so
+ * any value is recovered to within 1% however large it is. Recording is a few shifts and an array
+ * increment. Counts are kept in segments of 128 buckets that are only allocated the first time a
+ * value lands in them, so histograms that see few or small values stay small and nothing is copied
+ * as larger values turn up.
+ */
+public class LatencyHistogram implements Checkpointable
+{
+    // Values below this are counted exactly, and each power of two above is split into half as many buckets
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_BITS = SUB_BUCKET_BITS - 1;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_HALF_BITS;
+    // Buckets are allocated in segments of this many
+    private static final int SEGMENT_BITS = SUB_BUCKET_HALF_BITS;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+    // The number of values recorded in each bucket, by segment, with segments nothing has landed in left null
+    private long[][] segments;
+    // Running totals over every value recorded
+    private long totalCount;
+    private long total;
+    private long min;
+    private long max;
+
+    /**
+     * Create an empty histogram
+     */
+    public LatencyHistogram()
+    {
+        this.segments = new long[0][];
+        this.totalCount = 0;
+        this.total = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+
+    /**
+     * Record a value
+     * @param value the value to record, which cannot be negative
+     */
+    public void record(long value)
+    {
+        if (value < 0) {
+            throw new IllegalArgumentException("Cannot record a negative value, got " + value);
+        }
+        int index = indexOf(value);
+        segmentFor(index)[index & SEGMENT_MASK]++;
+        totalCount++;
+        total += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add every value recorded in another histogram to this one
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other)
+    {
+        for (int s = 0; s < other.segments.length; s++) {
+            long[] from = other.segments[s];
+            if (from != null) {
+                long[] to = segmentFor(s << SEGMENT_BITS);
+                for (int i = 0; i < from.length; i++) {
+                    to[i] += from[i];
+                }
+            }
+        }
+        totalCount += other.totalCount;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * The number of values recorded
+     * @return the count
+     */
+    public long getCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * The exact average of the values recorded
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean()
+    {
+        return totalCount == 0 ? 0 : total / (double) totalCount;
+    }
+
+    /**
+     * The exact largest value recorded
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * The value that the given percentage of recorded values are at or below, to within 1%
+     * @param percentile the percentage, from 0 to 100
+     * @return the value at that percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount));
+        long seen = 0;
+        for (int s = 0; s < segments.length; s++) {
+            long[] counts = segments[s];
+            if (counts == null) {
+                continue;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // Report the top of the bucket, but never beyond the values actually seen
+                    return Math.max(min, Math.min(max, highestValueAt((s << SEGMENT_BITS) + i)));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Write every segment something has landed in, and the running totals
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        out.writeInt(segments.length);
+        for (long[] counts : segments) {
+            out.writeBoolean(counts != null);
+            if (counts != null) {
+                for (long count : counts) {
+                    out.writeLong(count);
+                }
+            }
+        }
+        out.writeLong(totalCount);
+        out.writeLong(total);
+        out.writeLong(min);
+        out.writeLong(max);
+    }
+
+    /**
+     * Read back the counts written by writeCheckpoint, replacing any recorded
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        int numSegments = in.readInt();
+        if (numSegments < 0 || numSegments > (indexOf(Long.MAX_VALUE) >>> SEGMENT_BITS) + 1) {
+            throw new IOException("Checkpoint holds a histogram of " + numSegments + " segments");
+        }
+        segments = new long[numSegments][];
+        for (int s = 0; s < numSegments; s++) {
+            if (in.readBoolean()) {
+                long[] counts = new long[1 << SEGMENT_BITS];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = in.readLong();
+                }
+                segments[s] = counts;
+            }
+        }
+        totalCount = in.readLong();
+        total = in.readLong();
+        min = in.readLong();
+        max = in.readLong();
+    }
+
+    /**
+     * The segment holding a bucket, allocating it if nothing has landed in it before
+     * @param index the index of the bucket
+     * @return the segment it is in
+     */
+    private long[] segmentFor(int index)
+    {
+        int segment = index >>> SEGMENT_BITS;
+        if (segment >= segments.length) {
+            segments = Arrays.copyOf(segments, segment + 1);
+        }
+        long[] counts = segments[segment];
+        if (counts == null) {
+            counts = new long[1 << SEGMENT_BITS];
+            segments[segment] = counts;
+        }
+        return counts;
+    }
+
+    /**
+     * The bucket a value is counted in
+     * @param value the value
+     * @return the index of its bucket
+     */
+    private static int indexOf(long value)
+    {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // Shift the value down until it lands in the upper half of the sub buckets
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_HALF_BITS;
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (int) (value >>> shift) - SUB_BUCKET_HALF;
+    }
+
+    /**
+     * The largest value counted in a bucket
+     * @param index the index of the bucket
+     * @return the largest value it holds
+     */
+    private static long highestValueAt(int index)
+    {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "n " + totalCount + ", mean " + String.format("%.2f", getMean()) +
+                ", p50 " + getValueAtPercentile(50) + ", p90 " + getValueAtPercentile(90) +
+                ", p99 " + getValueAtPercentile(99) + ", max " + max;
+    }
+}
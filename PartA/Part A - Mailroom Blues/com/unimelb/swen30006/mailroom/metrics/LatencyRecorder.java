@@ -0,0 +1,157 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.metrics;
+
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.MailItem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Records how long each mail item took from leaving the mail source to being delivered to its floor,
+ * overall and broken down by priority and by type. Latency is the steps an item waited between
+ * leaving the source and being picked up, plus the travel and delivery time of the bot's run up to
+ * dropping it on its floor, the same time a delivery statistic reports. One recorder is shared by the
+ * bots of a run, and the recorders of several runs can be added together.
+ */
+public class LatencyRecorder implements Checkpointable
+{
+    // Latencies of items of each priority and type, indexed by ordinal. Every item has a priority,
+    // so the latencies of every item are found by adding up the priorities when asked for
+    private final LatencyHistogram[] byPriority;
+    private final LatencyHistogram[] byType;
+
+    /**
+     * Create an empty recorder
+     */
+    public LatencyRecorder()
+    {
+        this.byPriority = newHistograms(MailItem.MailPriority.values().length);
+        this.byType = newHistograms(MailItem.MailType.values().length);
+    }
+
+    /**
+     * Create an array of empty histograms
+     * @param size the number of histograms
+     * @return the histograms
+     */
+    private static LatencyHistogram[] newHistograms(int size)
+    {
+        LatencyHistogram[] histograms = new LatencyHistogram[size];
+        for (int i = 0; i < size; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    /**
+     * Record the latency of a delivered item
+     * @param item the item delivered
+     * @param latency the steps from the item leaving the source to its delivery
+     */
+    public void record(MailItem item, long latency)
+    {
+        record(item.priority, item.packageType, latency);
+    }
+
+    /**
+     * Record the latency of a delivered item from its priority and type, for items held by handle
+     * @param priority the priority of the item delivered
+     * @param type the type of the item delivered
+     * @param latency the steps from the item leaving the source to its delivery
+     */
+    public void record(MailItem.MailPriority priority, MailItem.MailType type, long latency)
+    {
+        byPriority[priority.ordinal()].record(latency);
+        byType[type.ordinal()].record(latency);
+    }
+
+    /**
+     * Add every latency recorded by another recorder to this one
+     * @param other the recorder to add
+     */
+    public void add(LatencyRecorder other)
+    {
+        for (int i = 0; i < byPriority.length; i++) {
+            byPriority[i].add(other.byPriority[i]);
+        }
+        for (int i = 0; i < byType.length; i++) {
+            byType[i].add(other.byType[i]);
+        }
+    }
+
+    /**
+     * The latencies of every item
+     * @return a new histogram of every latency recorded so far
+     */
+    public LatencyHistogram getOverall()
+    {
+        LatencyHistogram overall = new LatencyHistogram();
+        for (LatencyHistogram histogram : byPriority) {
+            overall.add(histogram);
+        }
+        return overall;
+    }
+
+    /**
+     * The latencies of items of one priority
+     * @param priority the priority
+     * @return the histogram for that priority
+     */
+    public LatencyHistogram getForPriority(MailItem.MailPriority priority)
+    {
+        return byPriority[priority.ordinal()];
+    }
+
+    /**
+     * The latencies of items of one type
+     * @param type the type
+     * @return the histogram for that type
+     */
+    public LatencyHistogram getForType(MailItem.MailType type)
+    {
+        return byType[type.ordinal()];
+    }
+
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        for (LatencyHistogram histogram : byPriority) {
+            histogram.writeCheckpoint(out);
+        }
+        for (LatencyHistogram histogram : byType) {
+            histogram.writeCheckpoint(out);
+        }
+    }
+
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        for (LatencyHistogram histogram : byPriority) {
+            histogram.readCheckpoint(in);
+        }
+        for (LatencyHistogram histogram : byType) {
+            histogram.readCheckpoint(in);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder summary = new StringBuilder("Latency (steps from source to floor):");
+        summary.append("\n\tAll: ").append(getOverall());
+        for (MailItem.MailPriority priority : MailItem.MailPriority.values()) {
+            summary.append("\n\t").append(priority).append(": ").append(getForPriority(priority));
+        }
+        for (MailItem.MailType type : MailItem.MailType.values()) {
+            summary.append("\n\t").append(type).append(": ").append(getForType(type));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,166 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.metrics;
+
+/**
+ * The mean and variance of a stream of observations, updated one observation at a time with Welford's
+ * method so that no observation needs to be kept and the variance stays accurate even when it is small
+ * next to the mean. Gives a confidence interval for the mean from Student's t distribution, treating
+ * the observations as independent draws, such as the results of independently seeded runs. The mean
+ * reported is the plain sum over the count, so it matches averaging the observations directly.
+ */
+public class RunningStatistic
+{
+    // Coefficients of the rational approximation to the normal quantile, Abramowitz and Stegun 26.2.23
+    private static final double C0 = 2.515517;
+    private static final double C1 = 0.802853;
+    private static final double C2 = 0.010328;
+    private static final double D1 = 1.432788;
+    private static final double D2 = 0.189269;
+    private static final double D3 = 0.001308;
+
+    // The number of observations so far
+    private long count;
+    // The sum of the observations so far
+    private double sum;
+    // The mean of the observations so far, updated as each is added for the variance
+    private double mean;
+    // The sum of squared differences from the mean of the observations so far
+    private double sumSquares;
+
+    /**
+     * Add an observation
+     * @param value the value observed
+     */
+    public void add(double value)
+    {
+        count++;
+        sum += value;
+        double delta = value - mean;
+        mean += delta / count;
+        sumSquares += delta * (value - mean);
+    }
+
+    /**
+     * Add every observation of another statistic to this one, as if they had been added one at a time
+     * @param other the statistic to add
+     */
+    public void add(RunningStatistic other)
+    {
+        if (other.count == 0) {
+            return;
+        }
+        long combined = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / combined;
+        sumSquares += other.sumSquares + delta * delta * ((double) count * other.count / combined);
+        sum += other.sum;
+        count = combined;
+    }
+
+    /**
+     * The number of observations
+     * @return the number of observations so far
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * The mean of the observations
+     * @return the mean, or 0 if there are none
+     */
+    public double getMean()
+    {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * The sample variance of the observations
+     * @return the unbiased sample variance, or 0 if there are fewer than two observations
+     */
+    public double getVariance()
+    {
+        return count < 2 ? 0 : sumSquares / (count - 1);
+    }
+
+    /**
+     * The sample standard deviation of the observations
+     * @return the square root of the sample variance
+     */
+    public double getStandardDeviation()
+    {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Half the width of a confidence interval for the true mean, which is the mean plus or minus this
+     * @param confidence the chance the interval holds the true mean, between 0 and 1, such as 0.95
+     * @return the half-width, or infinity if there are fewer than two observations
+     */
+    public double getHalfWidth(double confidence)
+    {
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1, got " + confidence);
+        }
+        if (count < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return studentQuantile(1 - (1 - confidence) / 2, count - 1) * Math.sqrt(getVariance() / count);
+    }
+
+    /**
+     * Half the width of a confidence interval for the true mean, relative to the mean
+     * @param confidence the chance the interval holds the true mean, between 0 and 1
+     * @return the half-width divided by the size of the mean, or infinity if the mean is 0 but the
+     * half-width is not
+     */
+    public double getRelativeHalfWidth(double confidence)
+    {
+        double halfWidth = getHalfWidth(confidence);
+        if (halfWidth == 0) {
+            return 0;
+        }
+        return halfWidth / Math.abs(getMean());
+    }
+
+    /**
+     * Approximate a quantile of Student's t distribution by correcting the normal quantile for the
+     * degrees of freedom with the Cornish-Fisher expansion. Within about one percent from three degrees
+     * of freedom up, and too narrow below that.
+     * @param p the probability below the quantile, above one half
+     * @param degrees the degrees of freedom
+     * @return the quantile
+     */
+    private static double studentQuantile(double p, long degrees)
+    {
+        double z = normalQuantile(p);
+        double z2 = z * z;
+        double v = degrees;
+        return z + z * (z2 + 1) / (4 * v)
+                 + z * ((5 * z2 + 16) * z2 + 3) / (96 * v * v)
+                 + z * (((3 * z2 + 19) * z2 + 17) * z2 - 15) / (384 * v * v * v);
+    }
+
+    /**
+     * Approximate a quantile of the standard normal distribution, to within 0.00045
+     * @param p the probability below the quantile, above one half
+     * @return the quantile
+     */
+    private static double normalQuantile(double p)
+    {
+        double t = Math.sqrt(-2 * Math.log(1 - p));
+        return t - (C0 + (C1 + C2 * t) * t) / (1 + (D1 + (D2 + D3 * t) * t) * t);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "mean=" + getMean() + ", sd=" + getStandardDeviation() + ", n=" + count;
+    }
+}
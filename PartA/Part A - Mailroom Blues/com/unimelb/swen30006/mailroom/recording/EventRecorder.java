@@ -0,0 +1,557 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.recording;
+
+import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records what happens in simulation runs to a binary file, cheaply enough to leave on for whole sweeps.
+ * Each part of a run that has things happen to it, the sorter or a bot, records through its own lane of
+ * a buffer, which writes each event as two longs straight into a block of memory outside the heap laid
+ * out as the file is, so an event costs two stores and no locking, allocating or copying. Times are kept
+ * as offsets from a time kept once for their chunk and the values packed, so an event takes 16 bytes.
+ *
+ * Full blocks are handed to a thread that writes them to the file through a bounded ring that threads
+ * claim places in without locking. The writer sleeps until a batch of blocks is waiting, rather than
+ * looking for blocks on a timer, then writes the whole batch with one call and without copying it, so a
+ * run only waits on the file if it records faster than the file can be written. Each thread keeps the
+ * block it is filling between runs, and reuses the blocks it handed over once they are written, so once
+ * runs have been recording for a moment blocks are only ever reused.
+ *
+ * Any number of runs may record to the same file at once, each run on its own thread. A run records every
+ * lane into one buffer, so its events are in the order they happened. The file can be read by
+ * EventReplayer once the recorder is closed.
+ */
+public class EventRecorder implements Closeable
+{
+    // The bytes in each block of chunks handed to the writer
+    private static final int BLOCK_SIZE = 1 << 16;
+    // The furthest into a block a chunk can start and still hold an event
+    private static final int LAST_CHUNK = BLOCK_SIZE - RecordingFormat.CHUNK_HEADER_SIZE
+                                          - RecordingFormat.RECORD_SIZE;
+    // The bits of the packed values that hold a and b, and where b and c start
+    private static final long A_MASK = (1L << RecordingFormat.A_BITS) - 1;
+    private static final long B_MASK = (1L << RecordingFormat.B_BITS) - 1;
+    private static final int B_SHIFT = RecordingFormat.A_BITS;
+    private static final int C_SHIFT = RecordingFormat.A_BITS + RecordingFormat.B_BITS;
+    // Places in the ring of blocks waiting to be written, a power of two, before threads wait for the writer
+    private static final int PENDING_BLOCKS = 64;
+    // The number of blocks waiting that wakes the writer, and the most blocks it writes with one call
+    private static final int BATCH_BLOCKS = PENDING_BLOCKS / 8;
+    private static final int WRITE_BLOCKS = PENDING_BLOCKS / 4;
+    // How long a thread waits for the writer to make room in a full ring before looking again
+    private static final long FULL_NANOS = 100000;
+
+    // The file being written
+    private final FileChannel channel;
+    // Full blocks waiting to be written, each at its number in the order they were handed over
+    private final AtomicReferenceArray<Block> pending;
+    // The number of blocks handed over, counting those whose threads are still putting them in the ring
+    private final AtomicLong handedOver;
+    // The number of blocks the writer has taken from the ring
+    private volatile long taken;
+    // The blocks of each thread that records
+    private final ThreadLocal<ThreadBlocks> blocks;
+    // The blocks of every thread that has recorded, to hand over what they hold once the recorder closes
+    private final List<ThreadBlocks> allBlocks;
+    // Writes blocks to the file as they come in
+    private final Thread writer;
+
+    // The first error writing the file, after which blocks are thrown away rather than written
+    private volatile IOException failure;
+    // The number of chunks and events written, only touched by the writer until it is done
+    private long numChunks;
+    private long numEvents;
+    // Whether the recorder is closing, after which nothing more is handed over
+    private volatile boolean closed;
+
+    /**
+     * Start recording to a file, replacing any file already there
+     * @param file the file to record to
+     * @throws IOException if the file cannot be opened
+     */
+    public EventRecorder(Path file) throws IOException
+    {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+        this.channel.position(RecordingFormat.HEADER_SIZE);
+        this.pending = new AtomicReferenceArray<>(PENDING_BLOCKS);
+        this.handedOver = new AtomicLong();
+        this.allBlocks = new ArrayList<>();
+        this.blocks = new ThreadLocal<ThreadBlocks>()
+        {
+            @Override
+            protected ThreadBlocks initialValue()
+            {
+                ThreadBlocks threadBlocks = new ThreadBlocks();
+                synchronized (allBlocks) {
+                    allBlocks.add(threadBlocks);
+                }
+                return threadBlocks;
+            }
+        };
+        this.writer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                writeBlocks();
+            }
+        }, "Event recorder " + file.getFileName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * A buffer to record some or all of a run through
+     * @param run the number of the run, which should be different for every run recorded to the file
+     * @return a new buffer, which must only be written from one thread at a time
+     */
+    public Buffer buffer(long run)
+    {
+        return new Buffer(run);
+    }
+
+    /**
+     * Hand over the blocks threads are still filling, wait for every block handed over to be written, then
+     * write the header and close the file. Buffers must be flushed first, since anything left in them is not
+     * recorded.
+     * @throws IOException if the recording could not be written
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        List<Block> open = new ArrayList<>();
+        synchronized (allBlocks) {
+            for (ThreadBlocks threadBlocks : allBlocks) {
+                if (threadBlocks.open != null) {
+                    open.add(threadBlocks.open);
+                }
+                threadBlocks.open = null;
+            }
+        }
+        for (Block block : open) {
+            handOver(block);
+        }
+        closed = true;
+        try {
+            LockSupport.unpark(writer);
+            writer.join();
+            if (failure != null) {
+                throw failure;
+            }
+            ByteBuffer header = ByteBuffer.allocate(RecordingFormat.HEADER_SIZE).order(RecordingFormat.ORDER);
+            header.putLong(RecordingFormat.MAGIC);
+            header.putInt(RecordingFormat.VERSION);
+            header.putInt(RecordingFormat.RECORD_SIZE);
+            header.putLong(numChunks);
+            header.putLong(numEvents);
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing the recording", e);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Write blocks as they are handed over until the recorder is closed and every block is written, then
+     * return. The writer sleeps until a batch has built up or the recorder is closed, rather than waiting
+     * on each block or waking on a timer, so it only wakes and writes once for each batch however short
+     * the runs handing blocks over.
+     */
+    private void writeBlocks()
+    {
+        Block[] batch = new Block[WRITE_BLOCKS];
+        ByteBuffer[] bytes = new ByteBuffer[WRITE_BLOCKS];
+        while (true) {
+            // Read before the count, so once closed every block counted has been handed over
+            boolean last = closed;
+            long end = handedOver.get();
+            if (taken == end) {
+                if (last) {
+                    return;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    failure = new IOException("Recording interrupted");
+                    return;
+                }
+                continue;
+            }
+            int size = 0;
+            for (long next = taken; next < end && size < WRITE_BLOCKS; next++) {
+                int place = (int) next & (PENDING_BLOCKS - 1);
+                Block block = pending.get(place);
+                while (block == null) {
+                    // Counted but not yet put in the ring by its thread
+                    Thread.yield();
+                    block = pending.get(place);
+                }
+                pending.set(place, null);
+                taken = next + 1;
+                block.bytes.limit(block.length).position(0);
+                batch[size] = block;
+                bytes[size] = block.bytes;
+                size++;
+            }
+            write(bytes, size);
+            for (int b = 0; b < size; b++) {
+                numChunks += batch[b].numChunks;
+                numEvents += batch[b].numEvents;
+                batch[b].inUse = false;
+                batch[b] = null;
+                bytes[b] = null;
+            }
+        }
+    }
+
+    /**
+     * Write out a batch of blocks, unless writing has already failed
+     * @param bytes the bytes of each block, from its start to the end of its last chunk
+     * @param size the number of blocks in the batch
+     */
+    private void write(ByteBuffer[] bytes, int size)
+    {
+        if (failure != null) {
+            return;
+        }
+        try {
+            int first = 0;
+            while (first < size) {
+                channel.write(bytes, first, size - first);
+                while (first < size && !bytes[first].hasRemaining()) {
+                    first++;
+                }
+            }
+        } catch (IOException e) {
+            // Keep taking blocks so threads are not held up, but stop writing them
+            failure = e;
+        }
+    }
+
+    /**
+     * Hand a block to the writer, waiting while the ring is full of blocks still to be written
+     * @param block the block, holding at least one chunk
+     */
+    private void handOver(Block block)
+    {
+        block.inUse = true;
+        blocks.get().handed.addLast(block);
+        long number = handedOver.getAndIncrement();
+        while (number - taken >= PENDING_BLOCKS) {
+            if (!writer.isAlive()) {
+                throw new IllegalStateException("The recording stopped", failure);
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, FULL_NANOS);
+        }
+        pending.set((int) number & (PENDING_BLOCKS - 1), block);
+        // Waking a writer that is already awake costs little, so every block past a batch wakes it
+        if (number - taken >= BATCH_BLOCKS) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Take the block this thread is filling for a buffer to fill, or an empty one if there is none
+     * @return the block
+     */
+    private Block takeBlock()
+    {
+        ThreadBlocks threadBlocks = blocks.get();
+        Block block = threadBlocks.open;
+        if (block == null) {
+            return threadBlocks.reuse();
+        }
+        threadBlocks.open = null;
+        return block;
+    }
+
+    /**
+     * Give back a block a buffer has finished filling, to be filled by this thread's next buffer, or hand
+     * it over if it is full or the thread already has a block to fill
+     * @param block the block, holding at least one chunk
+     */
+    private void giveBack(Block block)
+    {
+        ThreadBlocks threadBlocks = blocks.get();
+        if (threadBlocks.open == null && block.length <= LAST_CHUNK) {
+            threadBlocks.open = block;
+        } else {
+            handOver(block);
+        }
+    }
+
+    /**
+     * Whether a value fits in a number of bits as a signed number
+     * @param value the value
+     * @param bits the number of bits
+     * @return true if the value is kept by packing it into that many bits
+     */
+    private static boolean fits(int value, int bits)
+    {
+        return value << (Integer.SIZE - bits) >> (Integer.SIZE - bits) == value;
+    }
+
+    /**
+     * The blocks one thread records into
+     */
+    private static final class ThreadBlocks
+    {
+        // Blocks the thread has handed over, oldest first, to be filled again once written
+        private final ArrayDeque<Block> handed = new ArrayDeque<>();
+        // The block the thread's next buffer fills, or null if there is none
+        private volatile Block open;
+
+        /**
+         * An empty block, the oldest this thread handed over if it has been written
+         * @return the block
+         */
+        private Block reuse()
+        {
+            Block oldest = handed.peekFirst();
+            if (oldest == null || oldest.inUse) {
+                return new Block();
+            }
+            handed.pollFirst();
+            oldest.bytes.clear();
+            oldest.length = 0;
+            oldest.numChunks = 0;
+            oldest.numEvents = 0;
+            return oldest;
+        }
+
+    }
+
+    /**
+     * A block of chunks held outside the heap as laid out in the file, so it can be written as it is
+     */
+    private static final class Block
+    {
+        // The block's chunks, each a header then its events
+        private final ByteBuffer bytes;
+        // The bytes taken by finished chunks
+        private int length;
+        // The chunks and events finished in the block
+        private int numChunks;
+        private int numEvents;
+        // Whether the block is waiting to be written, written only by the writer once handed over
+        private volatile boolean inUse;
+
+        private Block()
+        {
+            this.bytes = ByteBuffer.allocateDirect(BLOCK_SIZE).order(RecordingFormat.ORDER);
+        }
+    }
+
+    /**
+     * Records the events of some or all of the lanes of one run, in the order they happen, into a chunk of
+     * a block it holds until it is flushed
+     */
+    public final class Buffer
+    {
+        // The run every event is recorded under
+        private final long run;
+        // The block being filled and its bytes, or null once flushed until the next event
+        private Block block;
+        private ByteBuffer bytes;
+        // Where the chunk being filled starts, where its next event goes, and the furthest an event can go
+        private int start;
+        private int next;
+        private int last = -1;
+        // The time the chunk's events' times are kept from
+        private long base;
+
+        private Buffer(long run)
+        {
+            this.run = run;
+            // Runs start at time 0, so the first chunk is opened now and an event only opens another once the
+            // block is full, keeping the rarely taken work of changing blocks out of the run's first event
+            startChunk(0);
+        }
+
+        /**
+         * A lane to record one part of the run through this buffer
+         * @param lane the number of the lane within the run, 0 for the sorter and one more than its number
+         * for each bot
+         * @return the lane
+         * @throws IllegalArgumentException if a run cannot have that many lanes
+         */
+        public Lane lane(int lane)
+        {
+            if (lane < 0 || lane >= RecordingFormat.MAX_LANES) {
+                throw new IllegalArgumentException("Lanes are numbered from 0 to " + (RecordingFormat.MAX_LANES - 1)
+                        + ", got " + lane);
+            }
+            return new Lane(this, lane);
+        }
+
+        /**
+         * Finish the chunk being filled and give up its block, to be handed to the writer once full or the
+         * recorder closes. Must be called once the run is over.
+         */
+        public void flush()
+        {
+            if (block != null) {
+                finishChunk();
+                giveBack(block);
+                block = null;
+                bytes = null;
+                last = -1;
+            }
+        }
+
+        /**
+         * Write the header of the chunk being filled, ending it after its last event, unless it is empty
+         */
+        private void finishChunk()
+        {
+            int count = (next - start - RecordingFormat.CHUNK_HEADER_SIZE) / RecordingFormat.RECORD_SIZE;
+            if (count == 0) {
+                return;
+            }
+            bytes.putLong(start + RecordingFormat.CHUNK_RUN_OFFSET, run);
+            bytes.putLong(start + RecordingFormat.CHUNK_TIME_OFFSET, base);
+            // The count is the upper half of the header's last long, read little endian, clearing what is unused
+            bytes.putLong(start + RecordingFormat.CHUNK_COUNT_OFFSET - Integer.BYTES, (long) count << Integer.SIZE);
+            block.length = next;
+            block.numChunks++;
+            block.numEvents += count;
+        }
+
+        /**
+         * Finish the chunk being filled, if any, and start another, in a new block if there is no room
+         * @param time the time its events' times are to be kept from
+         */
+        private void startChunk(long time)
+        {
+            if (block != null) {
+                finishChunk();
+                if (block.length > LAST_CHUNK) {
+                    handOver(block);
+                    block = null;
+                }
+            }
+            if (block == null) {
+                block = takeBlock();
+                bytes = block.bytes;
+            }
+            start = block.length;
+            next = start + RecordingFormat.CHUNK_HEADER_SIZE;
+            last = BLOCK_SIZE - RecordingFormat.RECORD_SIZE;
+            base = time;
+        }
+
+        /**
+         * Write an event into the chunk, starting another first if the chunk is full or the event is too far
+         * from the chunk's time. Read little endian, the first long is the time after the chunk's time
+         * followed by the event, kind and lane, and the second the packed values.
+         * @throws IllegalArgumentException if a value does not fit in its bits
+         */
+        private void record(EventType type, long time, int kind, int lane, int a, int b, int c)
+        {
+            if (!fits(a, RecordingFormat.A_BITS) || !fits(b, RecordingFormat.B_BITS)
+                    || !fits(c, RecordingFormat.C_BITS)) {
+                throw new IllegalArgumentException(type + " values must fit in " + RecordingFormat.A_BITS + ", "
+                        + RecordingFormat.B_BITS + " and " + RecordingFormat.C_BITS + " bits, got " + a + ", " + b
+                        + " and " + c);
+            }
+            long offset = time - base;
+            if (next > last || offset >>> Integer.SIZE != 0) {
+                startChunk(time);
+                offset = 0;
+            }
+            int at = next;
+            bytes.putLong(at, offset | (long) (type.ordinal() | kind << 8 | lane << 16) << Integer.SIZE);
+            bytes.putLong(at + Long.BYTES, (a & A_MASK) | (b & B_MASK) << B_SHIFT | (long) c << C_SHIFT);
+            next = at + RecordingFormat.RECORD_SIZE;
+        }
+    }
+
+    /**
+     * Records the events of one part of one run into a buffer, which may be shared with other lanes of the
+     * run written from the same thread
+     */
+    public static final class Lane
+    {
+        // The buffer the lane's events are written into
+        private final Buffer buffer;
+        // The number of the lane
+        private final int lane;
+
+        private Lane(Buffer buffer, int lane)
+        {
+            this.buffer = buffer;
+            this.lane = lane;
+        }
+
+        /**
+         * Record something happening to an item
+         * @param type the event, one about an item
+         * @param time the simulated time it happened
+         * @param box the handle of the box the item was sorted into, or MailStorage.NO_HANDLE
+         * @param item the item
+         */
+        public void item(EventType type, long time, int box, MailItem item)
+        {
+            buffer.record(type, time,
+                          item.packageType.ordinal() << RecordingFormat.PRIORITY_BITS | item.priority.ordinal(),
+                          lane, box, item.floor, item.size);
+        }
+
+        /**
+         * Record something happening to an item held in a store
+         * @param type the event, one about an item
+         * @param time the simulated time it happened
+         * @param box the handle of the box the item was sorted into, or MailStorage.NO_HANDLE
+         * @param items the store holding the item
+         * @param item the item's handle in the store
+         */
+        public void item(EventType type, long time, int box, MailItemStore items, int item)
+        {
+            buffer.record(type, time,
+                          items.type(item).ordinal() << RecordingFormat.PRIORITY_BITS | items.priority(item).ordinal(),
+                          lane, box, items.floor(item), items.size(item));
+        }
+
+        /**
+         * Record something happening to a box
+         * @param type the event, one about a box
+         * @param time the simulated time it happened
+         * @param box the handle the box had in storage
+         * @param b the event's second value, as given by its type
+         * @param c the event's third value, as given by its type
+         */
+        public void box(EventType type, long time, int box, int b, int c)
+        {
+            buffer.record(type, time, 0, lane, box, b, c);
+        }
+    }
+}
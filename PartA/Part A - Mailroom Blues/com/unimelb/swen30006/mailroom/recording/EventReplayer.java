@@ -0,0 +1,412 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.recording;
+
+import com.unimelb.swen30006.mailroom.MailItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Reads back a recording written by EventRecorder. The chunks of every run are found when the recording
+ * is opened, and a run is replayed by reading its chunks, splitting their events into lanes and merging
+ * the lanes in order of time, the sorter before the bots and the bots in order within a tick, which is
+ * the order the lock-step loop steps in. This
+ * gives the same order however the run was scheduled, so the state of storage at any tick can be rebuilt.
+ *
+ * Usage: EventReplayer recording [run [tick]]
+ * which lists the runs in the recording, prints every event of a run, or prints a run's storage as it
+ * was at the end of a tick.
+ */
+public class EventReplayer implements Closeable
+{
+    // The types and priorities events refer to by number
+    private static final MailItem.MailType[] TYPES = MailItem.MailType.values();
+    private static final MailItem.MailPriority[] PRIORITIES = MailItem.MailPriority.values();
+
+    // The recording
+    private final FileChannel channel;
+    // The number of events in the recording
+    private final long numEvents;
+    // Where each chunk of each run is, in the order they were written, by run
+    private final TreeMap<Long, List<Chunk>> runs;
+
+    /**
+     * Open a recording, finding every chunk in it
+     * @param file the recording
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a recording this can read
+     */
+    public EventReplayer(Path file) throws IOException
+    {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.runs = new TreeMap<>();
+        try {
+            ByteBuffer header = read(0, RecordingFormat.HEADER_SIZE);
+            if (header.limit() < RecordingFormat.HEADER_SIZE
+                    || header.getLong(RecordingFormat.MAGIC_OFFSET) != RecordingFormat.MAGIC) {
+                throw new IllegalArgumentException(file + " is not an event recording");
+            }
+            if (header.getInt(RecordingFormat.VERSION_OFFSET) != RecordingFormat.VERSION
+                    || header.getInt(RecordingFormat.RECORD_SIZE_OFFSET) != RecordingFormat.RECORD_SIZE) {
+                throw new IllegalArgumentException(file + " is version " + header.getInt(RecordingFormat.VERSION_OFFSET)
+                        + " of the recording format, expected " + RecordingFormat.VERSION);
+            }
+            long numChunks = header.getLong(RecordingFormat.CHUNKS_OFFSET);
+            this.numEvents = header.getLong(RecordingFormat.EVENTS_OFFSET);
+            indexChunks(file, numChunks);
+        } catch (IOException | IllegalArgumentException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length < 1 || args.length > 3) {
+            System.out.println("Usage: EventReplayer recording [run [tick]]");
+            System.exit(0);
+        }
+        try (EventReplayer replayer = new EventReplayer(Paths.get(args[0]))) {
+            if (args.length == 1) {
+                System.out.println("Recording: " + args[0] + ", " + replayer.getNumEvents() + " events in "
+                                   + replayer.getRuns().size() + " runs");
+                for (long run : replayer.getRuns()) {
+                    System.out.println("Run " + run + ": " + replayer.getNumEvents(run) + " events in "
+                                       + replayer.runs.get(run).size() + " chunks");
+                }
+            } else if (args.length == 2) {
+                replayer.replay(Long.parseLong(args[1]), Long.MAX_VALUE, new EventListener()
+                {
+                    @Override
+                    public void event(RecordedEvent event)
+                    {
+                        System.out.println(event);
+                    }
+                });
+            } else {
+                System.out.println(replayer.stateAt(Long.parseLong(args[1]), Long.parseLong(args[2])));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(e);
+            System.out.println("FATAL: Recording could not be replayed. Abort");
+            System.exit(0);
+        }
+    }
+
+    /**
+     * The number of events in the recording
+     * @return the number of events
+     */
+    public long getNumEvents()
+    {
+        return numEvents;
+    }
+
+    /**
+     * The runs in the recording
+     * @return the numbers of the runs, in order
+     */
+    public List<Long> getRuns()
+    {
+        return new ArrayList<>(runs.keySet());
+    }
+
+    /**
+     * The number of events recorded for a run
+     * @param run the number of the run
+     * @return the number of events, 0 if the run is not in the recording
+     */
+    public long getNumEvents(long run)
+    {
+        long count = 0;
+        if (runs.containsKey(run)) {
+            for (Chunk chunk : runs.get(run)) {
+                count += chunk.numEvents;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rebuild the state of a run's storage at the end of a tick
+     * @param run the number of the run
+     * @param time the tick
+     * @return the state once every event up to and including that tick has happened
+     * @throws IOException if the recording cannot be read
+     * @throws IllegalArgumentException if the run is not in the recording
+     */
+    public StorageState stateAt(long run, long time) throws IOException
+    {
+        final StorageState state = new StorageState();
+        replay(run, time, new EventListener()
+        {
+            @Override
+            public void event(RecordedEvent event)
+            {
+                state.apply(event);
+            }
+        });
+        return state;
+    }
+
+    /**
+     * Hand every event of a run up to a given time to a listener, in the order they happened
+     * @param run the number of the run
+     * @param until the time of the last events to replay
+     * @param listener told about each event
+     * @throws IOException if the recording cannot be read
+     * @throws IllegalArgumentException if the run is not in the recording
+     */
+    public void replay(long run, long until, EventListener listener) throws IOException
+    {
+        List<Chunk> chunks = runs.get(run);
+        if (chunks == null) {
+            throw new IllegalArgumentException("Run " + run + " is not in the recording");
+        }
+        int numEvents = 0;
+        for (Chunk chunk : chunks) {
+            numEvents += chunk.numEvents;
+        }
+        ByteBuffer events = ByteBuffer.allocate(numEvents * RecordingFormat.RECORD_SIZE)
+                                      .order(RecordingFormat.ORDER);
+        long[] times = new long[numEvents];
+        int e = 0;
+        for (Chunk chunk : chunks) {
+            events.put(read(chunk.position, chunk.numEvents * RecordingFormat.RECORD_SIZE));
+            for (int end = e + chunk.numEvents; e < end; e++) {
+                times[e] = chunk.time
+                        + (events.getInt(e * RecordingFormat.RECORD_SIZE + RecordingFormat.TIME_OFFSET) & 0xffffffffL);
+            }
+        }
+        TreeMap<Integer, LaneCursor> lanes = new TreeMap<>();
+        for (e = 0; e < numEvents; e++) {
+            int lane = events.getShort(e * RecordingFormat.RECORD_SIZE + RecordingFormat.LANE_OFFSET) & 0xffff;
+            LaneCursor cursor = lanes.get(lane);
+            if (cursor == null) {
+                cursor = new LaneCursor(lane, events, times);
+                lanes.put(lane, cursor);
+            }
+            cursor.add(e);
+        }
+        PriorityQueue<LaneCursor> next = new PriorityQueue<>(Math.max(1, lanes.size()), new Comparator<LaneCursor>()
+        {
+            @Override
+            public int compare(LaneCursor c1, LaneCursor c2)
+            {
+                int compared = Long.compare(c1.time(), c2.time());
+                return compared != 0 ? compared : Integer.compare(c1.lane, c2.lane);
+            }
+        });
+        next.addAll(lanes.values());
+        while (!next.isEmpty() && next.peek().time() <= until) {
+            LaneCursor cursor = next.poll();
+            listener.event(cursor.event());
+            cursor.moveToNext();
+            if (cursor.hasEvent()) {
+                next.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * Close the recording
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Read every chunk header, noting where each chunk is under its run
+     * @param file the recording, for reporting errors
+     * @param numChunks the number of chunks the header says there are
+     * @throws IOException if the file cannot be read
+     */
+    private void indexChunks(Path file, long numChunks) throws IOException
+    {
+        long position = RecordingFormat.HEADER_SIZE;
+        for (long c = 0; c < numChunks; c++) {
+            ByteBuffer header = read(position, RecordingFormat.CHUNK_HEADER_SIZE);
+            int count = header.limit() < RecordingFormat.CHUNK_HEADER_SIZE ? -1
+                    : header.getInt(RecordingFormat.CHUNK_COUNT_OFFSET);
+            long events = position + RecordingFormat.CHUNK_HEADER_SIZE;
+            if (count < 0 || events + (long) count * RecordingFormat.RECORD_SIZE > channel.size()) {
+                throw new IllegalArgumentException(file + " is cut short, expected " + numChunks + " chunks");
+            }
+            long run = header.getLong(RecordingFormat.CHUNK_RUN_OFFSET);
+            List<Chunk> chunks = runs.get(run);
+            if (chunks == null) {
+                chunks = new ArrayList<>();
+                runs.put(run, chunks);
+            }
+            chunks.add(new Chunk(events, header.getLong(RecordingFormat.CHUNK_TIME_OFFSET), count));
+            position = events + (long) count * RecordingFormat.RECORD_SIZE;
+        }
+    }
+
+    /**
+     * Read part of the recording
+     * @param position where to start reading
+     * @param length the number of bytes to read
+     * @return the bytes read, fewer if the file ends first
+     * @throws IOException if the file cannot be read
+     */
+    private ByteBuffer read(long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(RecordingFormat.ORDER);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Told about each event replayed
+     */
+    public interface EventListener
+    {
+        /**
+         * Take the next event
+         * @param event the event
+         */
+        void event(RecordedEvent event);
+    }
+
+    /**
+     * Where the events of a chunk are in the recording
+     */
+    private static class Chunk
+    {
+        private final long position;
+        // The time the times of the chunk's events are from
+        private final long time;
+        private final int numEvents;
+
+        Chunk(long position, long time, int numEvents)
+        {
+            this.position = position;
+            this.time = time;
+            this.numEvents = numEvents;
+        }
+    }
+
+    /**
+     * Reads the events of one lane in order from the events of its run
+     */
+    private static class LaneCursor
+    {
+        // The lane being read
+        private final int lane;
+        // Every event of the run, and the time of each
+        private final ByteBuffer events;
+        private final long[] times;
+        // The numbers of the lane's events among the run's, in order, and how many there are
+        private int[] numbers;
+        private int numEvents;
+        // The lane's next event
+        private int next;
+
+        LaneCursor(int lane, ByteBuffer events, long[] times)
+        {
+            this.lane = lane;
+            this.events = events;
+            this.times = times;
+            this.numbers = new int[16];
+        }
+
+        /**
+         * Add the run's next event in the lane
+         * @param number the number of the event among the run's
+         */
+        void add(int number)
+        {
+            if (numEvents == numbers.length) {
+                numbers = Arrays.copyOf(numbers, 2 * numEvents);
+            }
+            numbers[numEvents++] = number;
+        }
+
+        boolean hasEvent()
+        {
+            return next < numEvents;
+        }
+
+        long time()
+        {
+            return times[numbers[next]];
+        }
+
+        /**
+         * Decode the next event of the lane
+         * @return the event
+         */
+        RecordedEvent event()
+        {
+            int offset = offset();
+            EventType type = EventType.of(events.get(offset + RecordingFormat.EVENT_OFFSET) & 0xff);
+            if (type == null) {
+                throw new IllegalStateException("Event " + next + " of lane " + lane + " is not an event");
+            }
+            int kind = events.get(offset + RecordingFormat.KIND_OFFSET) & 0xff;
+            MailItem.MailType itemType = null;
+            MailItem.MailPriority priority = null;
+            if (type.isItemEvent()) {
+                itemType = TYPES[kind >>> RecordingFormat.PRIORITY_BITS];
+                priority = PRIORITIES[kind & RecordingFormat.PRIORITY_MASK];
+            }
+            long values = events.getLong(offset + RecordingFormat.VALUES_OFFSET);
+            return new RecordedEvent(time(), lane, type, itemType, priority,
+                                     unpack(values, 0, RecordingFormat.A_BITS),
+                                     unpack(values, RecordingFormat.A_BITS, RecordingFormat.B_BITS),
+                                     unpack(values, RecordingFormat.A_BITS + RecordingFormat.B_BITS,
+                                            RecordingFormat.C_BITS));
+        }
+
+        /**
+         * Move past the event just read
+         */
+        void moveToNext()
+        {
+            next++;
+        }
+
+        private int offset()
+        {
+            return numbers[next] * RecordingFormat.RECORD_SIZE;
+        }
+
+        /**
+         * Unpack a signed value from an event's packed values
+         * @param values the packed values
+         * @param shift the bit the value starts at
+         * @param bits the bits it was packed into
+         * @return the value
+         */
+        private static int unpack(long values, int shift, int bits)
+        {
+            return (int) (values << (Long.SIZE - shift - bits) >> (Long.SIZE - bits));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.recording;
+
+/**
+ * The events a recording holds. Each event carries three ints, a, b and c, whose meaning depends on its
+ * type. Boxes are named by their handle in storage, and items by their floor, size, type and priority.
+ */
+public enum EventType
+{
+    // An item taken from the source was sorted into a box: a is the box, b the floor and c the size
+    ITEM_SORTED,
+    // An item taken from the source did not fit and was staged: b is the floor and c the size
+    ITEM_STAGED,
+    // A staged item was sorted into a box: a is the box, b the floor and c the size
+    STAGED_ITEM_SORTED,
+    // An item taken from the source was dropped without being staged: b is the floor and c the size
+    ITEM_DROPPED,
+    // A staged item was dropped: b is the floor and c the size
+    STAGED_ITEM_DROPPED,
+    // A bot took a box out of storage: a is the box, b the number of items and c the number of floors.
+    // A bot carrying several boxes a trip takes each in turn before delivering any
+    BOX_SELECTED,
+    // A bot delivered to a floor from a box: a is the box, b the floor and c the number of items delivered.
+    // A bot carrying several boxes delivers from each box with mail for the floor at the same time
+    FLOOR_VISITED,
+    // A bot emptied the boxes it took and went back to the mail room: a is the first box it took, b the
+    // floors travelled and c the time the trip took in steps
+    BOX_DELIVERED;
+
+    // Every type, by number as recorded
+    private static final EventType[] TYPES = values();
+
+    /**
+     * Whether the event is about an item rather than a box
+     * @return true if the event carries an item's type and priority
+     */
+    public boolean isItemEvent()
+    {
+        return ordinal() < BOX_SELECTED.ordinal();
+    }
+
+    /**
+     * The type recorded with a given number
+     * @param number the number recorded
+     * @return the type, or null if no type has that number
+     */
+    static EventType of(int number)
+    {
+        return number >= 0 && number < TYPES.length ? TYPES[number] : null;
+    }
+}
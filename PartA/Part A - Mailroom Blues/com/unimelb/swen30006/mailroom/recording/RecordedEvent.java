@@ -0,0 +1,81 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.recording;
+
+import com.unimelb.swen30006.mailroom.MailItem;
+
+/**
+ * An event read back from a recording. Is immutable
+ */
+public final class RecordedEvent
+{
+    // The simulated time the event happened
+    public final long time;
+    // The lane it was recorded through, 0 for the sorter and one more than its number for each bot
+    public final int lane;
+    // What happened
+    public final EventType type;
+    // The type and priority of the item, or null for events about boxes
+    public final MailItem.MailType itemType;
+    public final MailItem.MailPriority priority;
+    // The event's values, whose meaning is given by its type
+    public final int a;
+    public final int b;
+    public final int c;
+
+    /**
+     * Create an event
+     * @param time the simulated time the event happened
+     * @param lane the lane it was recorded through
+     * @param type what happened
+     * @param itemType the type of the item, or null for events about boxes
+     * @param priority the priority of the item, or null for events about boxes
+     * @param a the event's first value
+     * @param b the event's second value
+     * @param c the event's third value
+     */
+    public RecordedEvent(long time, int lane, EventType type, MailItem.MailType itemType,
+                         MailItem.MailPriority priority, int a, int b, int c)
+    {
+        this.time = time;
+        this.lane = lane;
+        this.type = type;
+        this.itemType = itemType;
+        this.priority = priority;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+    }
+
+    @Override
+    public String toString()
+    {
+        String who = lane == 0 ? "sorter" : "bot " + (lane - 1);
+        switch (type) {
+            case ITEM_SORTED:
+            case STAGED_ITEM_SORTED:
+                return time + " " + who + ": " + type + " box " + a + ", " + describeItem();
+            case BOX_SELECTED:
+                return time + " " + who + ": " + type + " box " + a + ", " + b + " items for " + c + " floors";
+            case FLOOR_VISITED:
+                return time + " " + who + ": " + type + " box " + a + ", floor " + b + ", " + c + " items";
+            case BOX_DELIVERED:
+                return time + " " + who + ": " + type + " box " + a + ", " + b + " floors in " + c + " steps";
+            default:
+                return time + " " + who + ": " + type + " " + describeItem();
+        }
+    }
+
+    /**
+     * Describe the item an item event is about
+     * @return the item's floor, size, type and priority
+     */
+    private String describeItem()
+    {
+        return "floor " + b + ", size " + c + ", " + itemType + " " + priority;
+    }
+}
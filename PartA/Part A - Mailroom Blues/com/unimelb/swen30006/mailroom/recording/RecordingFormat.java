@@ -0,0 +1,70 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.recording;
+
+import java.nio.ByteOrder;
+
+/**
+ * The layout of a binary event recording. A recording is a fixed size header followed by chunks of
+ * fixed size event records, all little endian. Each chunk holds events of one run, each event giving
+ * the lane it happened in, where lane 0 is the sorter and lane k + 1 is bot k. Events of a lane are in
+ * the order they happened, but lanes may be interleaved within a chunk and chunks of many runs may be
+ * written in whatever order they fill.
+ *
+ * Header: magic (8 bytes), version (4), record size (4), number of chunks (8), number of events (8)
+ * Chunk: run (8), time its events' times are from (8), unused (4), number of events (4), then the events
+ * Event: time after the chunk's time (4, unsigned), event type (1), type and priority of the item
+ *        (1, type in the high bits, 0 for boxes), lane (2, unsigned), then three signed values packed into
+ *        8 bytes from the lowest bit, a in 20 bits, b in 20 and c in 24, whose meaning depends on the event
+ *        type, as given by EventType
+ */
+final class RecordingFormat
+{
+    // Marks a file as an event recording, "MAILREC" and a zero byte when read little endian
+    static final long MAGIC = 0x004345524c49414dL;
+    // The version of the layout
+    static final int VERSION = 2;
+    // The byte order of every field
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Offsets of the header's fields, and its size
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int CHUNKS_OFFSET = 16;
+    static final int EVENTS_OFFSET = 24;
+    static final int HEADER_SIZE = 32;
+
+    // Offsets of a chunk header's fields, and its size
+    static final int CHUNK_RUN_OFFSET = 0;
+    static final int CHUNK_TIME_OFFSET = 8;
+    static final int CHUNK_COUNT_OFFSET = 20;
+    static final int CHUNK_HEADER_SIZE = 24;
+
+    // Offsets of an event's fields, and its size
+    static final int TIME_OFFSET = 0;
+    static final int EVENT_OFFSET = 4;
+    static final int KIND_OFFSET = 5;
+    static final int LANE_OFFSET = 6;
+    static final int VALUES_OFFSET = 8;
+    static final int RECORD_SIZE = 16;
+
+    // The bits each value is packed into, a lowest
+    static final int A_BITS = 20;
+    static final int B_BITS = 20;
+    static final int C_BITS = 24;
+
+    // The bits of the kind byte holding the priority, the type being above them
+    static final int PRIORITY_BITS = 4;
+    static final int PRIORITY_MASK = (1 << PRIORITY_BITS) - 1;
+    // The most lanes a run can record through
+    static final int MAX_LANES = 1 << 16;
+
+    private RecordingFormat()
+    {
+    }
+}
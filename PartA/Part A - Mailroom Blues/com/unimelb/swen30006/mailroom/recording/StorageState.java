@@ -0,0 +1,361 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.recording;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * The state of a run's storage as rebuilt from its recording: the boxes in storage and the items in
+ * each, the items staged, and what each bot is doing. Built up by applying every event up to some time
+ * in the order it happened.
+ */
+public class StorageState
+{
+    // The boxes in storage, by handle
+    private final TreeMap<Integer, Box> boxes;
+    // The bots seen so far, by number
+    private final TreeMap<Integer, Bot> bots;
+    // The time of the last event applied
+    private long time;
+    // Counts of what has happened to items so far
+    private int numStaged;
+    private long numSorted;
+    private long numDropped;
+    private long numDelivered;
+    private long numTrips;
+
+    /**
+     * Start from empty storage at the start of a run
+     */
+    public StorageState()
+    {
+        this.boxes = new TreeMap<>();
+        this.bots = new TreeMap<>();
+        this.time = -1;
+    }
+
+    /**
+     * Apply an event, which must not have happened before the last one applied
+     * @param event the next event of the run
+     */
+    public void apply(RecordedEvent event)
+    {
+        time = event.time;
+        if (event.type == EventType.STAGED_ITEM_SORTED || event.type == EventType.STAGED_ITEM_DROPPED) {
+            numStaged--;
+        }
+        switch (event.type) {
+            case ITEM_SORTED:
+            case STAGED_ITEM_SORTED:
+                Box box = boxes.get(event.a);
+                if (box == null) {
+                    box = new Box(event.a);
+                    boxes.put(event.a, box);
+                }
+                box.items.add(event);
+                numSorted++;
+                break;
+            case ITEM_STAGED:
+                numStaged++;
+                break;
+            case ITEM_DROPPED:
+            case STAGED_ITEM_DROPPED:
+                numDropped++;
+                break;
+            case BOX_SELECTED:
+                boxes.remove(event.a);
+                bot(event.lane - 1).pickUp(event.a, event.b);
+                break;
+            case FLOOR_VISITED:
+                bot(event.lane - 1).deliver(event.b, event.c);
+                numDelivered += event.c;
+                break;
+            case BOX_DELIVERED:
+                bot(event.lane - 1).returnToMailRoom();
+                numTrips++;
+                break;
+        }
+    }
+
+    /**
+     * The time of the last event applied
+     * @return the simulated time, or -1 if nothing has happened
+     */
+    public long getTime()
+    {
+        return time;
+    }
+
+    /**
+     * The boxes in storage, in order of handle
+     * @return the boxes
+     */
+    public Collection<Box> getBoxes()
+    {
+        return Collections.unmodifiableCollection(boxes.values());
+    }
+
+    /**
+     * The bots that have picked up a box so far, in order of number
+     * @return the bots
+     */
+    public Collection<Bot> getBots()
+    {
+        return Collections.unmodifiableCollection(bots.values());
+    }
+
+    /**
+     * The number of items staged
+     * @return the staging depth
+     */
+    public int getNumStaged()
+    {
+        return numStaged;
+    }
+
+    /**
+     * The number of items sorted into a box so far
+     * @return the number of items sorted
+     */
+    public long getNumSorted()
+    {
+        return numSorted;
+    }
+
+    /**
+     * The number of items dropped so far
+     * @return the number of items dropped
+     */
+    public long getNumDropped()
+    {
+        return numDropped;
+    }
+
+    /**
+     * The number of items delivered so far
+     * @return the number of items delivered
+     */
+    public long getNumDelivered()
+    {
+        return numDelivered;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder();
+        long held = 0;
+        for (Box box : boxes.values()) {
+            held += box.getNumItems();
+        }
+        text.append("Storage at ").append(time).append(": ").append(boxes.size()).append(" boxes holding ")
+            .append(held).append(" items, ").append(numStaged).append(" staged. So far ").append(numSorted)
+            .append(" sorted, ").append(numDropped).append(" dropped, ").append(numDelivered)
+            .append(" delivered in ").append(numTrips).append(" trips.");
+        for (Box box : boxes.values()) {
+            text.append(System.lineSeparator()).append("  ").append(box);
+        }
+        for (Bot bot : bots.values()) {
+            text.append(System.lineSeparator()).append("  ").append(bot);
+        }
+        return text.toString();
+    }
+
+    /**
+     * The bot with a given number, seen for the first time if it has not been seen before
+     * @param number the bot's number
+     * @return the bot
+     */
+    private Bot bot(int number)
+    {
+        Bot bot = bots.get(number);
+        if (bot == null) {
+            bot = new Bot(number);
+            bots.put(number, bot);
+        }
+        return bot;
+    }
+
+    /**
+     * A box in storage and the items sorted into it
+     */
+    public static class Box
+    {
+        // The box's handle in storage
+        private final int handle;
+        // The event sorting each item into the box, in the order they were sorted
+        private final List<RecordedEvent> items;
+
+        private Box(int handle)
+        {
+            this.handle = handle;
+            this.items = new ArrayList<>();
+        }
+
+        /**
+         * The box's handle in storage
+         * @return the handle
+         */
+        public int getHandle()
+        {
+            return handle;
+        }
+
+        /**
+         * The items in the box, each as the event that sorted it, whose floor is b and size is c
+         * @return the items, in the order they were sorted
+         */
+        public List<RecordedEvent> getItems()
+        {
+            return Collections.unmodifiableList(items);
+        }
+
+        /**
+         * The number of items in the box
+         * @return the number of items
+         */
+        public int getNumItems()
+        {
+            return items.size();
+        }
+
+        /**
+         * The mail units the items in the box take up
+         * @return the total size of the items
+         */
+        public int getUnits()
+        {
+            int units = 0;
+            for (RecordedEvent item : items) {
+                units += item.c;
+            }
+            return units;
+        }
+
+        @Override
+        public String toString()
+        {
+            TreeMap<Integer, Integer> floors = new TreeMap<>();
+            for (RecordedEvent item : items) {
+                Integer count = floors.get(item.b);
+                floors.put(item.b, count == null ? 1 : count + 1);
+            }
+            return "Box " + handle + ": " + items.size() + " items, " + getUnits() + " units, items by floor "
+                   + floors;
+        }
+    }
+
+    /**
+     * What a bot is doing
+     */
+    public static class Bot
+    {
+        // The bot's number in its run
+        private final int number;
+        // The first box the bot is delivering, or -1 while it is in the mail room
+        private int box;
+        // The number of boxes the bot is delivering
+        private int numBoxes;
+        // The items left to deliver from the boxes
+        private int itemsLeft;
+        // The last floor delivered to, or -1 while in the mail room
+        private int floor;
+
+        private Bot(int number)
+        {
+            this.number = number;
+            this.box = -1;
+            this.floor = -1;
+        }
+
+        /**
+         * The bot's number in its run
+         * @return the number
+         */
+        public int getNumber()
+        {
+            return number;
+        }
+
+        /**
+         * Whether the bot is out delivering a box
+         * @return true if it is delivering
+         */
+        public boolean isDelivering()
+        {
+            return box != -1;
+        }
+
+        /**
+         * The handle the box being delivered had in storage, or the first of them if it is delivering several
+         * @return the handle, or -1 if not delivering
+         */
+        public int getBox()
+        {
+            return box;
+        }
+
+        /**
+         * The number of boxes being delivered
+         * @return the number of boxes, 0 if not delivering
+         */
+        public int getNumBoxes()
+        {
+            return numBoxes;
+        }
+
+        /**
+         * The items left to deliver from the boxes
+         * @return the number of items
+         */
+        public int getItemsLeft()
+        {
+            return itemsLeft;
+        }
+
+        private void pickUp(int box, int numItems)
+        {
+            // Later boxes of a trip join the first
+            if (this.box == -1) {
+                this.box = box;
+                this.itemsLeft = 0;
+                this.floor = -1;
+            }
+            this.numBoxes++;
+            this.itemsLeft += numItems;
+        }
+
+        private void deliver(int floor, int numItems)
+        {
+            this.floor = floor;
+            this.itemsLeft -= numItems;
+        }
+
+        private void returnToMailRoom()
+        {
+            this.box = -1;
+            this.numBoxes = 0;
+            this.itemsLeft = 0;
+            this.floor = -1;
+        }
+
+        @Override
+        public String toString()
+        {
+            if (box == -1) {
+                return "Bot " + number + ": in the mail room";
+            }
+            return "Bot " + number + ": delivering box " + box
+                   + (numBoxes > 1 ? " and " + (numBoxes - 1) + " more" : "") + ", " + itemsLeft + " items left"
+                   + (floor == -1 ? ", leaving the mail room" : ", last delivered to floor " + floor);
+        }
+    }
+}
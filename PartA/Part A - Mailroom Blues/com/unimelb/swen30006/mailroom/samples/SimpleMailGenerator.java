@@ -4,17 +4,23 @@
  */
 package com.unimelb.swen30006.mailroom.samples;
 
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.Checkpoints;
 import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
 import com.unimelb.swen30006.mailroom.MailSource;
 import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 
 /**
  * A class that uses pseudorandomness to generate immutable MailItems at any given time,
  * attempts to simulate random delivery of MailItems to a building
  */
-public class SimpleMailGenerator implements MailSource {
+public class SimpleMailGenerator implements MailSource, Checkpointable {
 
     /** The name of this source */
     private static final String NAME = "Simple Mail Generator";
@@ -26,7 +32,7 @@ public class SimpleMailGenerator implements MailSource {
     private int numRemaining;
 
     /** The randomNumber generator for sizes **/
-    private final Random random;
+    private Random random;
 
     /** The types of mail that can be generated **/
     private final MailItem.MailType[] types;
@@ -66,6 +72,26 @@ public class SimpleMailGenerator implements MailSource {
         this.numRemaining = maxNumMail;
     }
 
+    /**
+     * Create a mail generator with the constraints of the building that is being simulated, generating
+     * mail from the given seed.
+     * @param minFloor the minimum floor (basements are represented by negative floors)
+     * @param maxFloor the maximum floor in the building
+     * @param priorities the priorities that we can select from when generating mail
+     * @param types the types we can select from when generating mail
+     * @param maxNumMail the number of mail items to generate
+     * @param seed the seed for the random number generator
+     */
+    public SimpleMailGenerator(int minFloor, int maxFloor, MailItem.MailPriority[] priorities,
+                               MailItem.MailType[] types, int maxNumMail, long seed){
+        this.numFloors = maxFloor - minFloor + 1;
+        this.minFloor = minFloor;
+        this.types = types;
+        this.priorities = priorities;
+        this.random = new Random(seed);
+        this.numRemaining = maxNumMail;
+    }
+
     /* Mail Source Methods */
 
     @Override
@@ -83,6 +109,50 @@ public class SimpleMailGenerator implements MailSource {
         }
     }
 
+    /**
+     * Generates the next mail item straight into a store, drawing the same values as nextItem would
+     * without making the item.
+     * @param items the store to add the item to
+     * @param takenTime the simulated time the item is taken
+     * @return the handle of the item in the store
+     * @throws SourceExhaustedException if no mail left to generate
+     */
+    @Override
+    public int nextItemInto(MailItemStore items, long takenTime) throws SourceExhaustedException {
+        if(!this.hasNextMail()){
+            throw new SourceExhaustedException(NAME);
+        }
+        this.numRemaining -= 1;
+        MailItem.MailType type = generateType();
+        int size = generateSize(type);
+        int floor = generateFloor();
+        String name = generateName();
+        MailItem.MailPriority priority = generatePriority();
+        return items.add(type, priority, floor, name, size, 0, takenTime);
+    }
+
+    /**
+     * Write the number of items left to generate and the state of the generator
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        out.writeInt(this.numRemaining);
+        Checkpoints.writeRandom(out, this.random);
+    }
+
+    /**
+     * Read back the number of items left and the generator, so the same mail is generated from here
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        this.numRemaining = in.readInt();
+        this.random = Checkpoints.readRandom(in);
+    }
+
     /**
      * Generates a nem mail item, assigning a random floor, parcel type, priority,
      * size and name based on the building constraints.
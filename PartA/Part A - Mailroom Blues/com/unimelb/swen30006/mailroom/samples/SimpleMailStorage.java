@@ -4,27 +4,71 @@
  */
 package com.unimelb.swen30006.mailroom.samples;
 
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.MailItemStore;
 import com.unimelb.swen30006.mailroom.MailStorage;
 import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.SummaryIndex;
+import com.unimelb.swen30006.mailroom.SummaryOrder;
+import com.unimelb.swen30006.mailroom.SummarySnapshot;
 import com.unimelb.swen30006.mailroom.exceptions.*;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.Map;
 
 /**
  * A simple implementation of a Mail room storage unit, hides any internal
  * implementation of data structures used and allows you to store items in known
  * box IDs or retrieve whole boxes. Has a fixed storage box size.
+ *
+ * Summaries are kept up to date incrementally: each box tells storage when its
+ * contents change, only changed boxes are summarised again, and the snapshot of
+ * all summaries is only rebuilt when something has changed since it was taken.
+ *
+ * Each box also sits in a slot of an array, indexed by its handle. Boxes created
+ * by identifier alone take the lowest free slot.
+ *
+ * The first time boxes are asked for in an order, storage starts keeping them
+ * indexed in that order, and updates the index every time a box changes from
+ * then on.
+ *
+ * Storage can be checkpointed and read back with its boxes in the same order as before, so strategies that
+ * look through the boxes in the order storage gives them choose the same boxes after a run is resumed.
  */
-public class SimpleMailStorage implements MailStorage {
+public class SimpleMailStorage implements MailStorage, Checkpointable {
+
+    /* The number of buckets a HashMap starts with, and how full it gets before it doubles */
+    private static final int INITIAL_BUCKETS = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
 
     /* The data store for the actual mail items */
-    private HashMap<String, StorageBox> storage;
+    private HashMap<String, StoredBox> storage;
+    /* The same boxes indexed by handle, null where there is no box */
+    private final StoredBox[] slots;
+    /* The most boxes ever stored at once, which decides the order the boxes are kept in */
+    private int mostStored;
     /* The maximum number of boxes this can store */
     private final int maxBoxes;
     /* The size of storage units */
     private final int storageBoxSize;
+    /* Whether new boxes are floor bucketed, and the range of floors they hold mail for if so */
+    private final boolean bucketed;
+    private final int minFloor;
+    private final int maxFloor;
+    /* The store new boxes hold their items in by handle, or null if they hold whole items */
+    private final MailItemStore items;
+
+    /* Increases every time a box is created, delivered or changed */
+    private long version;
+    /* The latest snapshot of all summaries, replaced when out of date */
+    private SummarySnapshot snapshot;
+    /* The boxes indexed in each order that has been asked for */
+    private final EnumMap<SummaryOrder, SummaryIndex> indexes;
 
 
     /**
@@ -33,9 +77,51 @@ public class SimpleMailStorage implements MailStorage {
      * @param boxSize the maximum number of units each box can fit
      */
     public SimpleMailStorage(int maxBoxes, int boxSize){
+        this(maxBoxes, boxSize, false, 0, 0, null);
+    }
+
+    /**
+     * Generate a new SimpleMailStorage unit with a limit on number of boxes, whose boxes are floor
+     * bucketed so that delivering all the mail for a floor does not have to look at the rest of the box
+     * @param maxBoxes The maximum number of boxes this storage unit can store
+     * @param boxSize the maximum number of units each box can fit
+     * @param minFloor the lowest floor mail may be for
+     * @param maxFloor the highest floor mail may be for
+     */
+    public SimpleMailStorage(int maxBoxes, int boxSize, int minFloor, int maxFloor){
+        this(maxBoxes, boxSize, true, minFloor, maxFloor, null);
+    }
+
+    /**
+     * Generate a new SimpleMailStorage unit with a limit on number of boxes, whose boxes are packed,
+     * holding their items by handle in the given store, as well as floor bucketed
+     * @param maxBoxes The maximum number of boxes this storage unit can store
+     * @param boxSize the maximum number of units each box can fit
+     * @param minFloor the lowest floor mail may be for
+     * @param maxFloor the highest floor mail may be for
+     * @param items the store the boxes hold their items in
+     */
+    public SimpleMailStorage(int maxBoxes, int boxSize, int minFloor, int maxFloor, MailItemStore items){
+        this(maxBoxes, boxSize, true, minFloor, maxFloor, items);
+    }
+
+    /**
+     * Generate a new SimpleMailStorage unit, with boxes bucketed over the given floors if requested, and
+     * packed into the given store if there is one
+     */
+    private SimpleMailStorage(int maxBoxes, int boxSize, boolean bucketed, int minFloor, int maxFloor,
+                              MailItemStore items){
         this.maxBoxes = maxBoxes;
         this.storageBoxSize = boxSize;
-        this.storage = new HashMap<String,StorageBox>();
+        this.bucketed = bucketed;
+        this.minFloor = minFloor;
+        this.maxFloor = maxFloor;
+        this.items = items;
+        this.storage = new HashMap<String,StoredBox>();
+        this.slots = new StoredBox[maxBoxes];
+        this.version = 0;
+        this.snapshot = new SummarySnapshot(this.version, new StorageBox.Summary[0]);
+        this.indexes = new EnumMap<SummaryOrder, SummaryIndex>(SummaryOrder.class);
     }
 
     @Override
@@ -48,16 +134,50 @@ public class SimpleMailStorage implements MailStorage {
         return this.storage.isEmpty();
     }
 
+    @Override
+    public int getCapacity() {
+        return this.maxBoxes;
+    }
+
+    @Override
+    public MailItemStore getItemStore() {
+        return this.items;
+    }
+
+    @Override
+    public int handleOf(String name) {
+        StoredBox stored = this.storage.get(name);
+        return stored == null ? NO_HANDLE : stored.handle;
+    }
+
+    @Override
+    public StorageBox boxOf(int handle) {
+        StoredBox stored = slotOf(handle);
+        return stored == null ? null : stored.box;
+    }
+
+    @Override
+    public StorageBox.Summary summaryOf(int handle) {
+        StoredBox stored = slotOf(handle);
+        return stored == null ? null : stored.summary();
+    }
+
     @Override
     public StorageBox retrieveBox(String name) throws UnknownIdentifierException {
-        if(this.storage.containsKey(name)){
-            StorageBox box = this.storage.get(name);
+        StorageBox box = tryRetrieveBox(name);
+        if(box != null){
             return box;
         } else {
             throw new UnknownIdentifierException(name);
         }
     }
 
+    @Override
+    public StorageBox tryRetrieveBox(String name) {
+        StoredBox stored = this.storage.get(name);
+        return stored == null ? null : stored.box;
+    }
+
     @Override
     public boolean createBox(String name) throws DuplicateIdentifierException, MailOverflowException{
         if(this.isFull()){
@@ -65,29 +185,260 @@ public class SimpleMailStorage implements MailStorage {
         } else if (this.storage.containsKey(name)){
             throw new DuplicateIdentifierException(name);
         } else {
-            StorageBox box = new StorageBox(this.storageBoxSize);
-            this.storage.put(name, box);
-            return true;
+            return tryCreateBox(name);
+        }
+    }
+
+    @Override
+    public boolean tryCreateBox(String name) {
+        if(this.isFull()){
+            return false;
+        }
+        // Use the lowest free slot
+        int handle = 0;
+        while(this.slots[handle] != null){
+            handle++;
+        }
+        return tryCreateBox(handle, name);
+    }
+
+    @Override
+    public boolean tryCreateBox(int handle, String name) {
+        if(handle < 0 || handle >= this.maxBoxes || this.slots[handle] != null || this.storage.containsKey(name)){
+            return false;
+        }
+        StorageBox box;
+        if(this.items != null){
+            box = new StorageBox(this.storageBoxSize, this.minFloor, this.maxFloor, this.items);
+        } else if(this.bucketed){
+            box = new StorageBox(this.storageBoxSize, this.minFloor, this.maxFloor);
+        } else {
+            box = new StorageBox(this.storageBoxSize);
         }
+        StoredBox stored = new StoredBox(name, handle, box);
+        this.storage.put(name, stored);
+        this.slots[handle] = stored;
+        this.mostStored = Math.max(this.mostStored, this.storage.size());
+        this.version++;
+        reindex(handle, stored);
+        return true;
     }
 
     @Override
     public StorageBox.Summary[] retrieveSummaries() {
-        ArrayList<StorageBox.Summary> summaries = new ArrayList<StorageBox.Summary>();
-        // Iterate over the hash map and return the summaries
-        for(Map.Entry<String,StorageBox> entry : this.storage.entrySet()){
-            StorageBox box = entry.getValue();
-            summaries.add(box.generateSummary(entry.getKey()));
+        return retrieveSnapshot().toArray();
+    }
+
+    @Override
+    public SummarySnapshot retrieveSnapshot() {
+        if(this.snapshot.version != this.version){
+            // Rebuild the snapshot, reusing the summaries of boxes that have not changed
+            StorageBox.Summary[] summaries = new StorageBox.Summary[this.storage.size()];
+            int i = 0;
+            for(StoredBox stored : this.storage.values()){
+                summaries[i++] = stored.summary();
+            }
+            this.snapshot = new SummarySnapshot(this.version, summaries);
         }
-        // Return the summaries
-        return summaries.toArray(new StorageBox.Summary[0]);
+        return this.snapshot;
+    }
+
+    @Override
+    public StorageBox.Summary retrieveSummary(String name) {
+        StoredBox stored = this.storage.get(name);
+        return stored == null ? null : stored.summary();
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version;
     }
 
     @Override
     public StorageBox deliverBox(String identifer) throws UnknownIdentifierException {
-        StorageBox box = retrieveBox(identifer);
-        this.storage.remove(identifer);
-        return box;
+        StorageBox box = tryDeliverBox(identifer);
+        if(box != null){
+            return box;
+        } else {
+            throw new UnknownIdentifierException(identifer);
+        }
+    }
+
+    @Override
+    public StorageBox tryDeliverBox(String identifer) {
+        StoredBox stored = this.storage.remove(identifer);
+        if(stored == null){
+            return null;
+        }
+        this.slots[stored.handle] = null;
+        // The box is no longer ours to track
+        stored.box.setChangeListener(null);
+        this.version++;
+        reindex(stored.handle, null);
+        return stored.box;
+    }
+
+    @Override
+    public StorageBox.Summary firstInOrder(SummaryOrder order) {
+        return indexFor(order).first();
+    }
+
+    @Override
+    public StorageBox.Summary[] topInOrder(SummaryOrder order, int count) {
+        return indexFor(order).top(count);
+    }
+
+    /**
+     * Write the item store if boxes are packed, then every box along with its identifier and handle, in
+     * the order storage keeps them
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        if(this.items != null){
+            this.items.writeCheckpoint(out);
+        }
+        out.writeInt(this.maxBoxes);
+        out.writeLong(this.version);
+        out.writeInt(this.mostStored);
+        out.writeInt(this.storage.size());
+        for(StoredBox stored : this.storage.values()){
+            out.writeInt(stored.handle);
+            out.writeUTF(stored.name);
+            stored.box.writeCheckpoint(out);
+        }
     }
 
+    /**
+     * Read back the boxes written by writeCheckpoint, replacing any stored. The boxes are kept in a map
+     * that has grown as far as the one written had, and put back in the order they were written, so
+     * they come out of it in that order again.
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read or does not hold storage like this
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        if(this.items != null){
+            this.items.readCheckpoint(in);
+        }
+        int boxes = in.readInt();
+        if(boxes != this.maxBoxes){
+            throw new IOException("Checkpoint holds storage for " + boxes + " boxes, not " + this.maxBoxes);
+        }
+        long readVersion = in.readLong();
+        int readMost = in.readInt();
+        int count = in.readInt();
+        int buckets = INITIAL_BUCKETS;
+        while(readMost > buckets * LOAD_FACTOR){
+            buckets *= 2;
+        }
+        HashMap<String, StoredBox> read = new HashMap<String, StoredBox>(buckets, LOAD_FACTOR);
+        Arrays.fill(this.slots, null);
+        for(int i = 0; i < count; i++){
+            int handle = in.readInt();
+            String name = in.readUTF();
+            StorageBox box = StorageBox.readCheckpoint(in, this.items);
+            if(handle < 0 || handle >= this.maxBoxes || this.slots[handle] != null || read.containsKey(name)){
+                throw new IOException("Checkpoint holds box " + name + " in slot " + handle + " twice or out of range");
+            }
+            StoredBox stored = new StoredBox(name, handle, box);
+            read.put(name, stored);
+            this.slots[handle] = stored;
+        }
+        this.storage = read;
+        this.mostStored = readMost;
+        this.version = readVersion;
+        // Out of date whatever the version, so it is taken again from the boxes read
+        this.snapshot = new SummarySnapshot(readVersion - 1, new StorageBox.Summary[0]);
+        this.indexes.clear();
+    }
+
+    /**
+     * Get the index of boxes in an order, indexing every stored box if it is the first time the order is used
+     * @param order the order of the index
+     * @return the up to date index
+     */
+    private SummaryIndex indexFor(SummaryOrder order) {
+        SummaryIndex index = this.indexes.get(order);
+        if(index == null){
+            index = new SummaryIndex(order, this.maxBoxes);
+            for(int handle = 0; handle < this.maxBoxes; handle++){
+                if(this.slots[handle] != null){
+                    index.update(handle, this.slots[handle].summary());
+                }
+            }
+            this.indexes.put(order, index);
+        }
+        return index;
+    }
+
+    /**
+     * Update every index in use with a box's new state
+     * @param handle the handle of the box
+     * @param stored the box, or null if it has been delivered
+     */
+    private void reindex(int handle, StoredBox stored) {
+        if(this.indexes.isEmpty()){
+            return;
+        }
+        StorageBox.Summary summary = stored == null ? null : stored.summary();
+        for(SummaryIndex index : this.indexes.values()){
+            index.update(handle, summary);
+        }
+    }
+
+    /**
+     * Find the box in a slot
+     * @param handle the handle of the slot
+     * @return the box in that slot, or null if the handle is out of range or the slot is empty
+     */
+    private StoredBox slotOf(int handle) {
+        return (handle >= 0 && handle < this.maxBoxes) ? this.slots[handle] : null;
+    }
+
+    /**
+     * A box held in storage along with its identifier, handle and its most recent summary
+     */
+    private class StoredBox implements StorageBox.ChangeListener {
+        /* The identifier the box is stored under */
+        private final String name;
+        /* The slot the box is stored in */
+        private final int handle;
+        /* The box itself */
+        private final StorageBox box;
+        /* The summary of the box, or null if the box has changed since it was summarised */
+        private StorageBox.Summary summary;
+
+        /**
+         * Start tracking a box placed in storage
+         * @param name the identifier the box is stored under
+         * @param handle the slot the box is stored in
+         * @param box the box being stored
+         */
+        StoredBox(String name, int handle, StorageBox box){
+            this.name = name;
+            this.handle = handle;
+            this.box = box;
+            box.setChangeListener(this);
+        }
+
+        /**
+         * Get the summary of this box, only generating it again if the box has changed
+         * @return the up to date summary of the box
+         */
+        StorageBox.Summary summary(){
+            if(this.summary == null){
+                this.summary = this.box.generateSummary(this.name);
+            }
+            return this.summary;
+        }
+
+        @Override
+        public void boxChanged(StorageBox changed) {
+            this.summary = null;
+            version++;
+            reindex(this.handle, this);
+        }
+    }
 }
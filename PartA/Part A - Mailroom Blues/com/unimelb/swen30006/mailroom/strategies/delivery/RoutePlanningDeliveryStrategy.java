@@ -0,0 +1,307 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.strategies.delivery;
+
+import com.unimelb.swen30006.mailroom.DeliveryStrategy;
+import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Delivers a box like an elevator: the route is planned once, when a bot first asks about a box,
+ * as a single sweep up then down or down then up, whichever travels the fewest floors from the
+ * bot's floor through every destination and back to the mail room. Every later call just returns
+ * the next floor on the route.
+ *
+ * A bot carrying several boxes gets one route through every floor any of them has mail for, kept under
+ * the first of its boxes. A route is planned from where the bot is when it first asks, so a route planned
+ * again partway through may not be the rest of the one planned first. Routes are checkpointed with the
+ * box they are kept under.
+ */
+public class RoutePlanningDeliveryStrategy implements DeliveryStrategy
+{
+    // The floor bots return to once a box is delivered
+    private final int mailRoomFloor;
+    // The planned route for each box being delivered, or the first of the boxes a bot is carrying, dropped
+    // once its last floor is handed out
+    private final IdentityHashMap<StorageBox, Route> routes;
+
+    /**
+     * Create a route planning strategy for a building
+     * @param mailRoomFloor the floor the mail room is on, where every route ends
+     */
+    public RoutePlanningDeliveryStrategy(int mailRoomFloor)
+    {
+        this.mailRoomFloor = mailRoomFloor;
+        this.routes = new IdentityHashMap<>();
+    }
+
+    @Override
+    public int chooseNextFloor(int currentFloor, StorageBox box) throws SourceExhaustedException
+    {
+        return chooseNextFloor(currentFloor, new StorageBox[] {box}, 1);
+    }
+
+    @Override
+    public int chooseNextFloor(int currentFloor, StorageBox[] load, int count) throws SourceExhaustedException
+    {
+        StorageBox first = load[0];
+        if (isEmpty(load, count)) {
+            routes.remove(first);
+            throw new SourceExhaustedException("Storage box");
+        }
+
+        Route route = routes.get(first);
+        // Skip any floors that no longer have mail, in case a box was changed under us
+        while (route != null && route.hasNext() && !hasMailFor(load, count, route.peek())) {
+            route.next();
+        }
+        // Plan a fresh route for a new trip, or one that gained mail off the planned route
+        if (route == null || !route.hasNext()) {
+            route = plan(currentFloor, load, count);
+            routes.put(first, route);
+        }
+
+        int destination = route.next();
+        if (!route.hasNext()) {
+            routes.remove(first);
+        }
+        return destination;
+    }
+
+    /**
+     * Write the rest of the route planned for a box, if one has been planned
+     * @param box the box being delivered
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(StorageBox box, DataOutput out) throws IOException
+    {
+        Route route = routes.get(box);
+        int remaining = route == null ? 0 : route.floors.length - route.position;
+        out.writeInt(remaining);
+        for (int i = 0; i < remaining; i++) {
+            out.writeInt(route.floors[route.position + i]);
+        }
+    }
+
+    /**
+     * Read back the rest of the route planned for a box
+     * @param box the box read back
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read
+     */
+    @Override
+    public void readCheckpoint(StorageBox box, DataInput in) throws IOException
+    {
+        int remaining = in.readInt();
+        if (remaining < 0) {
+            throw new IOException("Checkpoint holds a route of " + remaining + " floors");
+        }
+        if (remaining == 0) {
+            routes.remove(box);
+            return;
+        }
+        int[] floors = new int[remaining];
+        for (int i = 0; i < remaining; i++) {
+            floors[i] = in.readInt();
+        }
+        routes.put(box, new Route(floors));
+    }
+
+    /**
+     * Plan the cheapest single sweep through every floor with mail in the boxes
+     * @param currentFloor the floor the route starts from
+     * @param load the boxes to deliver
+     * @param count the number of boxes
+     * @return the planned route
+     */
+    private Route plan(int currentFloor, StorageBox[] load, int count)
+    {
+        int[] upFirst = sweep(currentFloor, load, count, true);
+        int[] downFirst = sweep(currentFloor, load, count, false);
+        if (travel(currentFloor, upFirst) <= travel(currentFloor, downFirst)) {
+            return new Route(upFirst);
+        }
+        return new Route(downFirst);
+    }
+
+    /**
+     * List every floor with mail in the boxes, visiting those on one side of the start floor
+     * in order moving away from it, then those on the other side in order moving back past it
+     * @param start the floor the sweep starts from
+     * @param load the boxes to deliver
+     * @param count the number of boxes
+     * @param up true to sweep up first, false to sweep down first
+     * @return the floors in visiting order
+     */
+    private static int[] sweep(int start, StorageBox[] load, int count, boolean up)
+    {
+        int destinations = 0;
+        for (int i = 0; i < count; i++) {
+            destinations += load[i].numDestinations();
+        }
+        int[] floors = new int[destinations];
+        int numFloors = 0;
+        if (up) {
+            for (int f = atOrAbove(load, count, start); f != StorageBox.NO_FLOOR; f = next(load, count, f, true)) {
+                floors[numFloors++] = f;
+            }
+            for (int f = atOrBelow(load, count, start - 1); f != StorageBox.NO_FLOOR; f = next(load, count, f, false)) {
+                floors[numFloors++] = f;
+            }
+        } else {
+            for (int f = atOrBelow(load, count, start); f != StorageBox.NO_FLOOR; f = next(load, count, f, false)) {
+                floors[numFloors++] = f;
+            }
+            for (int f = atOrAbove(load, count, start + 1); f != StorageBox.NO_FLOOR; f = next(load, count, f, true)) {
+                floors[numFloors++] = f;
+            }
+        }
+        // Boxes with mail for the same floor share a visit to it
+        return numFloors == destinations ? floors : Arrays.copyOf(floors, numFloors);
+    }
+
+    /**
+     * Find the next floor with mail strictly beyond the given one
+     * @param load the boxes to search
+     * @param count the number of boxes
+     * @param floor the floor to search from
+     * @param up true to search upwards, false downwards
+     * @return the next floor, or StorageBox.NO_FLOOR if there is none
+     */
+    private static int next(StorageBox[] load, int count, int floor, boolean up)
+    {
+        if (up) {
+            return floor == Integer.MAX_VALUE ? StorageBox.NO_FLOOR : atOrAbove(load, count, floor + 1);
+        }
+        return floor == StorageBox.NO_FLOOR + 1 ? StorageBox.NO_FLOOR : atOrBelow(load, count, floor - 1);
+    }
+
+    /**
+     * Find the nearest floor at or above the given one that any of the boxes has mail for
+     * @param load the boxes to search
+     * @param count the number of boxes
+     * @param floor the floor to search from
+     * @return the nearest such floor, or StorageBox.NO_FLOOR if there is none
+     */
+    private static int atOrAbove(StorageBox[] load, int count, int floor)
+    {
+        int nearest = StorageBox.NO_FLOOR;
+        for (int i = 0; i < count; i++) {
+            int f = load[i].nextFloorAtOrAbove(floor);
+            if (f != StorageBox.NO_FLOOR && (nearest == StorageBox.NO_FLOOR || f < nearest)) {
+                nearest = f;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Find the nearest floor at or below the given one that any of the boxes has mail for
+     * @param load the boxes to search
+     * @param count the number of boxes
+     * @param floor the floor to search from
+     * @return the nearest such floor, or StorageBox.NO_FLOOR if there is none
+     */
+    private static int atOrBelow(StorageBox[] load, int count, int floor)
+    {
+        int nearest = StorageBox.NO_FLOOR;
+        for (int i = 0; i < count; i++) {
+            nearest = Math.max(nearest, load[i].nextFloorAtOrBelow(floor));
+        }
+        return nearest;
+    }
+
+    /**
+     * The number of floors travelled following a route from a floor and then returning to the mail room
+     * @param start the floor the route starts from
+     * @param floors the floors visited in order
+     * @return the total floors travelled
+     */
+    private long travel(int start, int[] floors)
+    {
+        long total = 0;
+        int at = start;
+        for (int floor : floors) {
+            total += Math.abs((long) floor - at);
+            at = floor;
+        }
+        return total + Math.abs((long) mailRoomFloor - at);
+    }
+
+    /**
+     * Check if any of the boxes still has mail for a floor
+     * @param load the boxes to check
+     * @param count the number of boxes
+     * @param floor the floor to check for
+     * @return true if there is mail for that floor
+     */
+    private static boolean hasMailFor(StorageBox[] load, int count, int floor)
+    {
+        for (int i = 0; i < count; i++) {
+            if (load[i].nextFloorAtOrAbove(floor) == floor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if none of the boxes has mail left
+     * @param load the boxes to check
+     * @param count the number of boxes
+     * @return true if every box is empty
+     */
+    private static boolean isEmpty(StorageBox[] load, int count)
+    {
+        for (int i = 0; i < count; i++) {
+            if (!load[i].isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A planned sequence of floors and how far along it delivery has got
+     */
+    private static class Route
+    {
+        // The floors to visit in order
+        private final int[] floors;
+        // The position of the next floor to visit
+        private int position;
+
+        Route(int[] floors)
+        {
+            this.floors = floors;
+            this.position = 0;
+        }
+
+        boolean hasNext()
+        {
+            return position < floors.length;
+        }
+
+        int peek()
+        {
+            return floors[position];
+        }
+
+        int next()
+        {
+            return floors[position++];
+        }
+    }
+}
@@ -2,78 +2,48 @@
  * Project 1 - Mailroom Blues
  * Author: Robert Holt
  * SID: 
- * Last Modified: 2016-03-11
+ * Last Modified: 2026-10-18
  */
 package com.unimelb.swen30006.mailroom.strategies.delivery;
 
 import com.unimelb.swen30006.mailroom.DeliveryStrategy;
-import com.unimelb.swen30006.mailroom.MailItem;
 import com.unimelb.swen30006.mailroom.StorageBox;
-import com.unimelb.swen30006.mailroom.exceptions.BoxEmptyException;
-import com.unimelb.swen30006.mailroom.exceptions.MailOverflowException;
 import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-
 /**
  * Tries to optimise the delivery of packages in the current box,
- * by sorting them in ascending order of floor and going to the nearest floor.
- * Note that it is highly computationally inefficient, sorting the box every step.
+ * by delivering in ascending order of floor, always going to the lowest floor left in the box, or in
+ * any of the boxes a bot is carrying.
+ * The box keeps track of which floors it has mail for, so no items need to be looked at or moved.
  */
 public class SortedByFloorDeliveryStrategy implements DeliveryStrategy
 {
     @Override
     public int chooseNextFloor(int currentFloor, StorageBox box) throws SourceExhaustedException
     {
-        // Get the number of items in the box
-        int numMailItems = box.numPackages();
-        // Allocate ArrayLists for both
-        ArrayList<MailItem> mailItems = new ArrayList<>(numMailItems);
-        ArrayList<Integer> deliveryFloors = new ArrayList<>(numMailItems);
-
-        // While the box isn't empty, pull items out of it and record their floors
-        while (!box.isEmpty()) {
-            MailItem item = null;
-            try {
-                item = box.popItem();
-            }
-            catch (BoxEmptyException e) {
-                // If the box doesn't report empty but we get an EmptyBoxException, error
-                e.printStackTrace();
-                System.exit(0);
-            }
-            deliveryFloors.add(item.floor);
-                mailItems.add(item);
+        int destination = box.lowestFloor();
+        if (destination == StorageBox.NO_FLOOR) {
+            // Nothing left to deliver
+            throw new SourceExhaustedException("Storage box");
         }
-        // Now sort the items in order of their floor
-        Collections.sort(mailItems, new MailFloorComparator());
-        // And put them back in the box
-        for (MailItem mailItem: mailItems) {
-            try {
-                box.addItem(mailItem);
-            }
-            catch (MailOverflowException e) {
-                // If the box doesn't fit the objects we removed from it, error
-                e.printStackTrace();
-                System.exit(0);
-            }
-        }
-        int destination = Collections.min(deliveryFloors);
         return destination;
     }
 
-    /**
-     * Compares two mail items by floor, so that sorting with this Comparator
-     * returns boxes in ascending order of floor.
-     */
-    private class MailFloorComparator implements Comparator<MailItem>
+    @Override
+    public int chooseNextFloor(int currentFloor, StorageBox[] load, int count) throws SourceExhaustedException
     {
-        @Override
-        public int compare(MailItem i1, MailItem i2)
-        {
-            return Integer.compare(i1.floor, i2.floor);
+        // The lowest floor any of the boxes has mail for
+        int destination = StorageBox.NO_FLOOR;
+        for (int i = 0; i < count; i++) {
+            int lowest = load[i].lowestFloor();
+            if (lowest != StorageBox.NO_FLOOR && (destination == StorageBox.NO_FLOOR || lowest < destination)) {
+                destination = lowest;
+            }
         }
+        if (destination == StorageBox.NO_FLOOR) {
+            // Nothing left to deliver
+            throw new SourceExhaustedException("Storage box");
+        }
+        return destination;
     }
 }
@@ -7,8 +7,11 @@
 
 package com.unimelb.swen30006.mailroom.strategies.selection;
 
+import com.unimelb.swen30006.mailroom.MailStorage;
 import com.unimelb.swen30006.mailroom.SelectionStrategy;
 import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.SummaryOrder;
+import com.unimelb.swen30006.mailroom.SummarySnapshot;
 import com.unimelb.swen30006.mailroom.exceptions.NoBoxReadyException;
 
 import java.util.Arrays;
@@ -17,22 +20,78 @@ import java.util.Comparator;
 
 /**
  * Selects the fullest box in the list of summaries provided.
+ *
+ * The comparator ranks boxes with fewer items higher, so the box selected is the one with the fewest
+ * items, the first in the list if several tie. Selecting straight from storage selects that same box.
  */
 public class FullnessSelectionStrategy implements SelectionStrategy
 {
+    // Compares boxes by fullness, reused across calls
+    private final BoxFullnessComparator comparator = new BoxFullnessComparator();
+
     @Override
     public String selectNextDelivery(StorageBox.Summary[] summaries) throws NoBoxReadyException
     {
         // If there are boxes available
         if (summaries.length > 0) {
             // Get the box with the most items in it and return it
-            StorageBox.Summary maxBox = Collections.max(Arrays.asList(summaries), new BoxFullnessComparator());
+            StorageBox.Summary maxBox = Collections.max(Arrays.asList(summaries), this.comparator);
             return maxBox.identifier;
         }
         // If there are no summaries, box is not ready
         throw new NoBoxReadyException();
     }
 
+    @Override
+    public String selectNextDelivery(SummarySnapshot snapshot) throws NoBoxReadyException
+    {
+        String identifier = trySelectNextDelivery(snapshot);
+        if (identifier != null) {
+            return identifier;
+        }
+        // If there are no summaries, box is not ready
+        throw new NoBoxReadyException();
+    }
+
+    @Override
+    public String trySelectNextDelivery(SummarySnapshot snapshot)
+    {
+        // If there are boxes available
+        if (!snapshot.isEmpty()) {
+            // Scan for the box with the most items in it, keeping the first on ties as Collections.max does
+            StorageBox.Summary maxBox = snapshot.get(0);
+            for (int i = 1; i < snapshot.size(); i++) {
+                StorageBox.Summary summary = snapshot.get(i);
+                if (this.comparator.compare(summary, maxBox) > 0) {
+                    maxBox = summary;
+                }
+            }
+            return maxBox.identifier;
+        }
+        // If there are no summaries, box is not ready
+        return null;
+    }
+
+    /**
+     * Select the same box as scanning the latest snapshot would, asking storage's index for the boxes with
+     * the fewest items. The index breaks ties by handle, whereas the scan keeps whichever tied box comes
+     * first in the snapshot, so the index only answers when no other box has as few items as its first.
+     * Otherwise the snapshot is scanned.
+     * @param storage the storage to select from
+     * @return the box with the fewest items, or null if storage is empty
+     */
+    @Override
+    public String trySelectNextDelivery(MailStorage storage)
+    {
+        StorageBox.Summary[] emptiest = storage.topInOrder(SummaryOrder.FEWEST_ITEMS, 2);
+        if (emptiest.length == 0) {
+            return null;
+        } else if (emptiest.length == 1 || emptiest[1].numItems != emptiest[0].numItems) {
+            return emptiest[0].identifier;
+        }
+        return trySelectNextDelivery(storage.retrieveSnapshot());
+    }
+
     /**
      * Compares two storage box summaries based on the number of items
      */
@@ -0,0 +1,56 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.strategies.selection;
+
+import com.unimelb.swen30006.mailroom.MailStorage;
+import com.unimelb.swen30006.mailroom.SelectionStrategy;
+import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.SummaryOrder;
+import com.unimelb.swen30006.mailroom.exceptions.NoBoxReadyException;
+
+/**
+ * Selects the first box in a fixed order, such as the box with the fewest destinations or the box
+ * holding the most urgent mail. Selecting straight from storage lets storage answer from its index for
+ * that order, and ties go to the lowest handle. Selecting from a list of summaries keeps the first of
+ * any tied boxes in the list.
+ */
+public class OrderedSelectionStrategy implements SelectionStrategy
+{
+    // The order boxes are picked in
+    private final SummaryOrder order;
+
+    /**
+     * Make a strategy that always picks the first box in an order
+     * @param order the order to pick boxes in
+     */
+    public OrderedSelectionStrategy(SummaryOrder order)
+    {
+        this.order = order;
+    }
+
+    @Override
+    public String selectNextDelivery(StorageBox.Summary[] summaries) throws NoBoxReadyException
+    {
+        if (summaries.length == 0) {
+            throw new NoBoxReadyException();
+        }
+        StorageBox.Summary first = summaries[0];
+        for (int i = 1; i < summaries.length; i++) {
+            if (order.compare(summaries[i], first) < 0) {
+                first = summaries[i];
+            }
+        }
+        return first.identifier;
+    }
+
+    @Override
+    public String trySelectNextDelivery(MailStorage storage)
+    {
+        StorageBox.Summary first = storage.firstInOrder(order);
+        return first == null ? null : first.identifier;
+    }
+}
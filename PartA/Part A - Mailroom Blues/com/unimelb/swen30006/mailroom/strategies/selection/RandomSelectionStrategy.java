@@ -8,16 +8,22 @@
 
 package com.unimelb.swen30006.mailroom.strategies.selection;
 
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.Checkpoints;
 import com.unimelb.swen30006.mailroom.SelectionStrategy;
 import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.SummarySnapshot;
 import com.unimelb.swen30006.mailroom.exceptions.NoBoxReadyException;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 
 /**
  * Picks a box to deliver from by randomly selecting one from the list
  */
-public class RandomSelectionStrategy implements SelectionStrategy
+public class RandomSelectionStrategy implements SelectionStrategy, Checkpointable
 {
     private Random randomiser;
 
@@ -50,4 +56,40 @@ public class RandomSelectionStrategy implements SelectionStrategy
         // No boxes ready to select
         throw new NoBoxReadyException();
     }
+
+    @Override
+    public String selectNextDelivery(SummarySnapshot snapshot) throws NoBoxReadyException
+    {
+        String identifier = trySelectNextDelivery(snapshot);
+        if (identifier != null) {
+            return identifier;
+        }
+        // No boxes ready to select
+        throw new NoBoxReadyException();
+    }
+
+    @Override
+    public String trySelectNextDelivery(SummarySnapshot snapshot)
+    {
+        // Make sure there are boxes to deliver
+        if (!snapshot.isEmpty()) {
+            // Pick a box at random by index
+            StorageBox.Summary selection = snapshot.get(this.randomiser.nextInt(snapshot.size()));
+            return selection.identifier;
+        }
+        // No boxes ready to select
+        return null;
+    }
+
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        Checkpoints.writeRandom(out, this.randomiser);
+    }
+
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        this.randomiser = Checkpoints.readRandom(in);
+    }
 }
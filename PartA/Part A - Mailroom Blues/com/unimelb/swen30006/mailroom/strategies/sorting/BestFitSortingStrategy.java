@@ -0,0 +1,413 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.strategies.sorting;
+
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
+import com.unimelb.swen30006.mailroom.MailStorage;
+import com.unimelb.swen30006.mailroom.SortingStrategy;
+import com.unimelb.swen30006.mailroom.StorageBox;
+import com.unimelb.swen30006.mailroom.exceptions.MailOverflowException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.TreeSet;
+
+/**
+ * Packs mail tightly by putting each item in the box with the least room that still fits it, and only
+ * making a new box when none does. Fewer, fuller boxes mean fewer delivery runs. Boxes are kept in an
+ * index ordered by their remaining room, so finding the best fit takes logarithmic time however many
+ * boxes there are. Batches are placed largest item first, as in first fit decreasing bin packing.
+ *
+ * Boxes can optionally be grouped by floor range, so that each box only holds mail for floors close
+ * together and mail is packed tightly within each group.
+ *
+ * Bots take boxes without telling the strategy, so the index may still hold boxes that have gone.
+ * They are dropped as soon as a lookup finds them, or when every handle looks taken.
+ */
+public class BestFitSortingStrategy implements SortingStrategy, Checkpointable
+{
+    // Index keys pack the remaining room above the handle, so ordering keys orders by room and then by handle
+    private static final int HANDLE_BITS = 32;
+    private static final long HANDLE_MASK = (1L << HANDLE_BITS) - 1;
+    // Marks a handle that has no box in the index
+    private static final int NOT_INDEXED = -1;
+
+    // The number of mailboxes to put mail into
+    private final int numMailBoxes;
+    // The identifier of each numbered mailbox. The box numbered n has handle n
+    private final String[] boxIDs;
+    // Whether mail is grouped by floor, and if so the floors it is grouped over and the number of
+    // floors in each group
+    private final boolean grouped;
+    private final int minFloor;
+    private final int maxFloor;
+    private final int floorsPerGroup;
+
+    // The boxes of each group, ordered by remaining room
+    private final ArrayList<TreeSet<Long>> groups;
+    // The room each handle's box will have once the mail assigned to it is placed, or NOT_INDEXED
+    private final int[] remaining;
+    // The group each indexed handle's box belongs to
+    private final int[] groupOfBox;
+    // The handles believed to have a box, including any taken since the index last looked
+    private final BitSet inUse;
+    // The order to place a batch in, largest item first, and the size of each item in that order
+    private int[] placingOrder;
+    private int[] placingSizes;
+
+    /**
+     * Make a best fit sorting strategy that packs mail for any floor together
+     * @param numMailBoxes the maximum number of mailboxes available to sort into
+     */
+    public BestFitSortingStrategy(int numMailBoxes)
+    {
+        this(numMailBoxes, false, Integer.MIN_VALUE, Integer.MAX_VALUE, 1);
+    }
+
+    /**
+     * Make a best fit sorting strategy that only packs mail for the same floor range together
+     * @param numMailBoxes the maximum number of mailboxes available to sort into
+     * @param minFloor the lowest floor mail may be for
+     * @param maxFloor the highest floor mail may be for
+     * @param floorsPerGroup the number of consecutive floors whose mail may share a box
+     */
+    public BestFitSortingStrategy(int numMailBoxes, int minFloor, int maxFloor, int floorsPerGroup)
+    {
+        this(numMailBoxes, true, minFloor, maxFloor, floorsPerGroup);
+    }
+
+    /**
+     * Make a best fit sorting strategy, grouping mail by floor if asked
+     */
+    private BestFitSortingStrategy(int numMailBoxes, boolean grouped, int minFloor, int maxFloor, int floorsPerGroup)
+    {
+        if (floorsPerGroup < 1) {
+            throw new IllegalArgumentException("Each group needs at least one floor, got " + floorsPerGroup);
+        }
+        this.numMailBoxes = numMailBoxes;
+        this.grouped = grouped;
+        this.minFloor = minFloor;
+        this.maxFloor = maxFloor;
+        this.floorsPerGroup = floorsPerGroup;
+
+        this.boxIDs = new String[numMailBoxes];
+        for (int i = 0; i < numMailBoxes; i++) {
+            this.boxIDs[i] = Integer.toString(i);
+        }
+        int numGroups = groupOf(maxFloor) + 1;
+        this.groups = new ArrayList<>(numGroups);
+        for (int i = 0; i < numGroups; i++) {
+            this.groups.add(new TreeSet<Long>());
+        }
+        this.remaining = new int[numMailBoxes];
+        Arrays.fill(this.remaining, NOT_INDEXED);
+        this.groupOfBox = new int[numMailBoxes];
+        this.inUse = new BitSet(numMailBoxes);
+        this.placingOrder = new int[0];
+        this.placingSizes = new int[0];
+    }
+
+    /**
+     * Put the item in the fullest box that still fits it, or a new box if none does
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the identifier (a simple integer string -- e.g. "3") of the box where the mail is to be stored
+     * @throws MailOverflowException if no box fits the item and no more boxes can be made
+     */
+    @Override
+    public String assignStorage(MailItem item, MailStorage storage) throws MailOverflowException
+    {
+        String id = tryAssignStorage(item, storage);
+        if (id == null) {
+            throw new MailOverflowException();
+        }
+        return id;
+    }
+
+    /**
+     * Put the item in the fullest box that fits it as in assignStorage, without throwing when there is no room.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the identifier of the box where the mail is to be stored, or null if there is no room
+     */
+    @Override
+    public String tryAssignStorage(MailItem item, MailStorage storage)
+    {
+        int handle = tryAssignHandle(item, storage);
+        return handle == MailStorage.NO_HANDLE ? null : boxIDs[handle];
+    }
+
+    /**
+     * Put the item in the fullest box that fits it as in assignStorage, finding the box in the index of
+     * the item's floor group and counting the item's room against it straight away.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of the box where the mail is to be stored, or MailStorage.NO_HANDLE if there is no room
+     */
+    @Override
+    public int tryAssignHandle(MailItem item, MailStorage storage)
+    {
+        return assignHandle(item.floor, item.size, storage);
+    }
+
+    /**
+     * Put an item held in a store in the fullest box that fits it, as in tryAssignHandle
+     * @param items the store holding the item
+     * @param item the handle of the item being sorted in the store
+     * @param storage the storage system in use
+     * @return the handle of the box where the mail is to be stored, or MailStorage.NO_HANDLE if there is no room
+     */
+    @Override
+    public int tryAssignHandle(MailItemStore items, int item, MailStorage storage)
+    {
+        return assignHandle(items.floor(item), items.size(item), storage);
+    }
+
+    /**
+     * Put an item in the fullest box of its floor's group that fits it, or a new box if none does
+     * @param floor the floor the item being sorted is going to
+     * @param size the size of the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of the box where the mail is to be stored, or MailStorage.NO_HANDLE if there is no room
+     */
+    private int assignHandle(int floor, int size, MailStorage storage)
+    {
+        if (floor < minFloor || floor > maxFloor) {
+            // No group will take mail for a floor outside the building
+            return MailStorage.NO_HANDLE;
+        }
+        int group = groupOf(floor);
+        TreeSet<Long> boxes = groups.get(group);
+
+        // The first key with at least the item's room is the tightest fit
+        Long key;
+        while ((key = boxes.ceiling((long) size << HANDLE_BITS)) != null) {
+            int handle = (int) (key & HANDLE_MASK);
+            StorageBox.Summary summary = storage.summaryOf(handle);
+            if (summary == null) {
+                // A bot has taken the box since we last looked
+                forget(handle);
+            } else if (summary.remainingUnits < remaining[handle]) {
+                // Something else has used some of the room, so file the box under what is left
+                index(handle, group, summary.remainingUnits);
+            } else {
+                index(handle, group, remaining[handle] - size);
+                return handle;
+            }
+        }
+
+        // No box in the group fits, so make a new one
+        int handle = nextFreeHandle(storage);
+        if (handle == MailStorage.NO_HANDLE || !storage.tryCreateBox(handle, boxIDs[handle])) {
+            return MailStorage.NO_HANDLE;
+        }
+        int room = storage.summaryOf(handle).remainingUnits;
+        // An item too big for even an empty box is still sent to it, and the sorter finds it doesn't fit
+        index(handle, group, size <= room ? room - size : room);
+        return handle;
+    }
+
+    /**
+     * Place a batch largest item first, each in the fullest box that fits it. The room each item takes is
+     * counted against its box as soon as it is assigned, so later items see what is left.
+     * @param items the items being sorted
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch
+     * @param storage the storage system in use
+     * @param handles filled in with the handle of the box for each item, or MailStorage.NO_HANDLE if there is no room
+     * @return the number of items assigned, which is always the whole batch
+     */
+    @Override
+    public int tryAssignHandles(MailItem[] items, int from, int count, MailStorage storage, int[] handles)
+    {
+        startPlacing(count);
+        for (int i = 0; i < count; i++) {
+            order(i, from + i, items[from + i].size);
+        }
+        for (int i = 0; i < count; i++) {
+            MailItem item = items[placingOrder[i]];
+            handles[placingOrder[i]] = assignHandle(item.floor, item.size, storage);
+        }
+        return count;
+    }
+
+    /**
+     * Place a batch of items held in a store largest item first, as tryAssignHandles does for whole items
+     * @param items the store holding the items
+     * @param batch the handles of the items being sorted in the store
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch
+     * @param storage the storage system in use
+     * @param handles filled in with the handle of the box for each item, or MailStorage.NO_HANDLE if there is no room
+     * @return the number of items assigned, which is always the whole batch
+     */
+    @Override
+    public int tryAssignHandles(MailItemStore items, int[] batch, int from, int count, MailStorage storage,
+                                int[] handles)
+    {
+        startPlacing(count);
+        for (int i = 0; i < count; i++) {
+            order(i, from + i, items.size(batch[from + i]));
+        }
+        for (int i = 0; i < count; i++) {
+            int item = batch[placingOrder[i]];
+            handles[placingOrder[i]] = assignHandle(items.floor(item), placingSizes[i], storage);
+        }
+        return count;
+    }
+
+    /**
+     * Write the room and group of every box in the index. The index of each group is rebuilt from them
+     * when read back, including any boxes bots have taken since the index last looked.
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        for (int handle = 0; handle < numMailBoxes; handle++) {
+            out.writeInt(remaining[handle]);
+            if (remaining[handle] != NOT_INDEXED) {
+                out.writeInt(groupOfBox[handle]);
+            }
+        }
+    }
+
+    /**
+     * Read back the index written by writeCheckpoint, replacing the one held
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read, or files a box under a group there isn't
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        for (TreeSet<Long> boxes : groups) {
+            boxes.clear();
+        }
+        inUse.clear();
+        Arrays.fill(remaining, NOT_INDEXED);
+        for (int handle = 0; handle < numMailBoxes; handle++) {
+            int room = in.readInt();
+            if (room != NOT_INDEXED) {
+                int group = in.readInt();
+                if (group < 0 || group >= groups.size()) {
+                    throw new IOException("Checkpoint holds box " + handle + " in group " + group + " of "
+                                          + groups.size());
+                }
+                index(handle, group, room);
+            }
+        }
+    }
+
+    /**
+     * Make room to order a batch for placing
+     * @param count the number of items in the batch
+     */
+    private void startPlacing(int count)
+    {
+        if (placingOrder.length < count) {
+            placingOrder = new int[count];
+            placingSizes = new int[count];
+        }
+    }
+
+    /**
+     * Insert the next item of a batch into the placing order. This is an insertion sort, as batches are
+     * small, keeping items of the same size in arrival order.
+     * @param placed the number of items already ordered
+     * @param item the index of the item in the batch
+     * @param size the size of the item
+     */
+    private void order(int placed, int item, int size)
+    {
+        int j = placed;
+        while (j > 0 && placingSizes[j - 1] < size) {
+            placingOrder[j] = placingOrder[j - 1];
+            placingSizes[j] = placingSizes[j - 1];
+            j--;
+        }
+        placingOrder[j] = item;
+        placingSizes[j] = size;
+    }
+
+    /**
+     * File a box in its group's index under the room it has left, replacing any older entry
+     * @param handle the handle of the box
+     * @param group the group the box holds mail for
+     * @param room the room the box has left
+     */
+    private void index(int handle, int group, int room)
+    {
+        if (remaining[handle] != NOT_INDEXED) {
+            groups.get(groupOfBox[handle]).remove(keyOf(handle));
+        }
+        remaining[handle] = room;
+        groupOfBox[handle] = group;
+        groups.get(group).add(keyOf(handle));
+        inUse.set(handle);
+    }
+
+    /**
+     * Drop a box that has gone from the index, freeing its handle
+     * @param handle the handle of the box
+     */
+    private void forget(int handle)
+    {
+        groups.get(groupOfBox[handle]).remove(keyOf(handle));
+        remaining[handle] = NOT_INDEXED;
+        inUse.clear(handle);
+    }
+
+    /**
+     * Find a handle with no box. If every handle looks taken but storage has room, some boxes must have
+     * been taken without the index finding out, so every handle is checked and the gone ones freed.
+     * @param storage the storage system in use
+     * @return a handle with no box, or MailStorage.NO_HANDLE if there is no room for a new box
+     */
+    private int nextFreeHandle(MailStorage storage)
+    {
+        if (storage.isFull()) {
+            return MailStorage.NO_HANDLE;
+        }
+        int handle = inUse.nextClearBit(0);
+        if (handle >= numMailBoxes) {
+            for (int taken = inUse.nextSetBit(0); taken >= 0; taken = inUse.nextSetBit(taken + 1)) {
+                if (storage.summaryOf(taken) == null) {
+                    forget(taken);
+                }
+            }
+            handle = inUse.nextClearBit(0);
+        }
+        return handle < numMailBoxes ? handle : MailStorage.NO_HANDLE;
+    }
+
+    /**
+     * The group whose boxes hold mail for a floor
+     * @param floor a floor in the building
+     * @return the floor's group, counting from the lowest floors
+     */
+    private int groupOf(int floor)
+    {
+        return grouped ? (int) (((long) floor - minFloor) / floorsPerGroup) : 0;
+    }
+
+    /**
+     * The index key of an indexed box
+     * @param handle the handle of the box
+     * @return the key filing the box under its remaining room
+     */
+    private long keyOf(int handle)
+    {
+        return ((long) remaining[handle] << HANDLE_BITS) | handle;
+    }
+}
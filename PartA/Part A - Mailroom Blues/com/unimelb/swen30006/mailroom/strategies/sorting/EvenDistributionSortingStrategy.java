@@ -2,18 +2,21 @@
  * Project 1 - Mailroom Blues
  * Author: Robert Holt
  * SID: 
- * Last Modified: 2016-03-11
+ * Last Modified: 2026-10-18
  */
 package com.unimelb.swen30006.mailroom.strategies.sorting;
 
+import com.unimelb.swen30006.mailroom.Checkpointable;
 import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
 import com.unimelb.swen30006.mailroom.MailStorage;
 import com.unimelb.swen30006.mailroom.SortingStrategy;
 import com.unimelb.swen30006.mailroom.StorageBox;
-import com.unimelb.swen30006.mailroom.exceptions.DuplicateIdentifierException;
 import com.unimelb.swen30006.mailroom.exceptions.MailOverflowException;
 
-import java.util.HashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Tries to distribute mail evenly across mailboxes, so that no mailbox ever contains
@@ -21,12 +24,16 @@ import java.util.HashMap;
  * terms of delivery time/steps, even with a large number of robots. This class forms a kind of
  * closure, maintaining an internal state based on the last box visited.
  */
-public class EvenDistributionSortingStrategy implements SortingStrategy
+public class EvenDistributionSortingStrategy implements SortingStrategy, Checkpointable
 {
     // The number of mailboxes to put mail into
     private final int numMailBoxes;
     // The mailbox to look at on this iteration
     private int currMailBox;
+    // The identifier of each numbered mailbox, made once rather than on every attempt
+    private final String[] boxIDs;
+    // The units taken in each box by items assigned earlier in the batch being assigned, all zero between batches
+    private final int[] pendingUnits;
 
     /**
      * Make an even distribution sorting strategy to distribute mail evenly across
@@ -38,6 +45,11 @@ public class EvenDistributionSortingStrategy implements SortingStrategy
         this.numMailBoxes = numMailBoxes;
         // Start at the 0th box
         this.currMailBox = 0;
+        this.boxIDs = new String[numMailBoxes];
+        for (int i = 0; i < numMailBoxes; i++) {
+            this.boxIDs[i] = Integer.toString(i);
+        }
+        this.pendingUnits = new int[numMailBoxes];
     }
 
     /**
@@ -46,72 +58,202 @@ public class EvenDistributionSortingStrategy implements SortingStrategy
      * @param item the item being sorted
      * @param storage the storage system in use
      * @return the identifier (a simple integer string -- e.g. "3") of the box where the mail is to be stored
-     * @throws MailOverflowException
+     * @throws MailOverflowException if no box has room for the item and no more boxes can be made
      */
     @Override
     public String assignStorage(MailItem item, MailStorage storage) throws MailOverflowException
     {
-        // Put summaries in a hashmap so if we need to look at them more than once
-        // we don't have to go through the list again each time a box is full
-        // (highly unlikely given the strategy)
-        HashMap<String, StorageBox.Summary> summaryHashMap =
-                summaryListToIDHashMap(storage.retrieveSummaries());
-
-        // Get the next box id
-        String id = Integer.toString(this.currMailBox);
-        // Record the box we started with so we can know later if we've tried all boxes
-        String startID = id;
+        String id = tryAssignStorage(item, storage);
+        if (id == null) {
+            throw new MailOverflowException();
+        }
+        return id;
+    }
+
+    /**
+     * Go to the next numbered mailbox and place an item inside, as in assignStorage, without throwing
+     * when there is no room.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the identifier of the box where the mail is to be stored, or null if there is no room
+     */
+    @Override
+    public String tryAssignStorage(MailItem item, MailStorage storage)
+    {
+        int handle = tryAssignHandle(item, storage);
+        return handle == MailStorage.NO_HANDLE ? null : boxIDs[handle];
+    }
+
+    /**
+     * Go to the next numbered mailbox and place an item inside, as in assignStorage, finding and making
+     * boxes by handle. The box numbered n has handle n.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of the box where the mail is to be stored, or MailStorage.NO_HANDLE if there is no room
+     */
+    @Override
+    public int tryAssignHandle(MailItem item, MailStorage storage)
+    {
+        return assignHandle(item.size, storage);
+    }
+
+    /**
+     * Go to the next numbered mailbox and place an item held in a store inside, as in tryAssignHandle
+     * @param items the store holding the item
+     * @param item the handle of the item being sorted in the store
+     * @param storage the storage system in use
+     * @return the handle of the box where the mail is to be stored, or MailStorage.NO_HANDLE if there is no room
+     */
+    @Override
+    public int tryAssignHandle(MailItemStore items, int item, MailStorage storage)
+    {
+        return assignHandle(items.size(item), storage);
+    }
+
+    /**
+     * Go to the next numbered mailbox with room for an item of the given size
+     * @param size the size of the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of the box where the mail is to be stored, or MailStorage.NO_HANDLE if there is no room
+     */
+    private int assignHandle(int size, MailStorage storage)
+    {
+        // Get the next box, recording it so we can know later if we've tried all boxes
+        int box = this.currMailBox;
+        int startBox = box;
         // Increment the box the strategy looks for
         incrementBox();
-        // If the box exists, try to insert the item
-        while (summaryHashMap.containsKey(id)) {
-            StorageBox.Summary summary = summaryHashMap.get(id);
-            if (item.size <= summary.remainingUnits) {
-                return id;
+        // If the box exists, try to insert the item. Storage keeps summaries up to date,
+        // so looking one up does not summarise any other box
+        StorageBox.Summary summary;
+        while ((summary = storage.summaryOf(box)) != null) {
+            if (size <= summary.remainingUnits - this.pendingUnits[box]) {
+                return box;
             }
             // If the item is too big, try the next box
-            id = Integer.toString(this.currMailBox);
+            box = this.currMailBox;
             // If we return to a box we've already looked at, we've looped
             // and there is no room for the box
-            if (id.equals(startID)) {
-                throw new MailOverflowException();
+            if (box == startBox) {
+                return MailStorage.NO_HANDLE;
             }
             // Set up the next box to look for
             incrementBox();
         }
 
-        // If the ID is not in the box summaries, we try to make a new box
-        try {
-            storage.createBox(id);
-            return id;
+        // If there is no box with that number, we try to make a new one
+        // We know no box has this handle, so if it can't be made there is no room for a new box
+        if (storage.tryCreateBox(box, boxIDs[box])) {
+            return box;
+        }
+        return MailStorage.NO_HANDLE;
+    }
+
+    /**
+     * Go round the numbered mailboxes assigning the whole batch in one pass, as if each item had been
+     * placed in its box before the next was assigned. The room each item takes is counted against its box
+     * until the batch is done, so later items see the same room they would have seen one at a time.
+     * @param items the items being sorted
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch
+     * @param storage the storage system in use
+     * @param handles filled in with the handle of the box for each item, or MailStorage.NO_HANDLE if there is no room
+     * @return the number of items assigned, which is always the whole batch
+     */
+    @Override
+    public int tryAssignHandles(MailItem[] items, int from, int count, MailStorage storage, int[] handles)
+    {
+        for (int i = from; i < from + count; i++) {
+            handles[i] = assignPending(items[i].size, storage);
+        }
+        clearPending(handles, from, count);
+        return count;
+    }
+
+    /**
+     * Go round the numbered mailboxes assigning a whole batch of items held in a store in one pass, as
+     * tryAssignHandles does for whole items
+     * @param items the store holding the items
+     * @param batch the handles of the items being sorted in the store
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch
+     * @param storage the storage system in use
+     * @param handles filled in with the handle of the box for each item, or MailStorage.NO_HANDLE if there is no room
+     * @return the number of items assigned, which is always the whole batch
+     */
+    @Override
+    public int tryAssignHandles(MailItemStore items, int[] batch, int from, int count, MailStorage storage,
+                                int[] handles)
+    {
+        for (int i = from; i < from + count; i++) {
+            handles[i] = assignPending(items.size(batch[i]), storage);
         }
-        catch (DuplicateIdentifierException e) {
-            e.printStackTrace();
-            System.exit(0);
+        clearPending(handles, from, count);
+        return count;
+    }
+
+    /**
+     * Assign an item in a batch, counting the room it takes against its box until the batch is done
+     * @param size the size of the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of the box for the item, or MailStorage.NO_HANDLE if there is no room
+     */
+    private int assignPending(int size, MailStorage storage)
+    {
+        int box = assignHandle(size, storage);
+        // A new box may still be too small for the item, in which case it won't be placed
+        if (box != MailStorage.NO_HANDLE && size <= storage.summaryOf(box).remainingUnits - this.pendingUnits[box]) {
+            this.pendingUnits[box] += size;
         }
-        return null;
+        return box;
     }
 
     /**
-     * Change the number of the box we're looking for. This wraps the number
-     * automatically, based on the maximum number of boxes available.
+     * Stop counting the room taken by a batch once it is done, as its items are now in their boxes
+     * @param handles the handle of the box for each item in the batch
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch
      */
-    private void incrementBox() {
-        this.currMailBox = (this.currMailBox + 1) % numMailBoxes;
+    private void clearPending(int[] handles, int from, int count)
+    {
+        for (int i = from; i < from + count; i++) {
+            if (handles[i] != MailStorage.NO_HANDLE) {
+                this.pendingUnits[handles[i]] = 0;
+            }
+        }
+    }
+
+    /**
+     * Write the box to look at next. Nothing is pending between batches, so that is all there is.
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        out.writeInt(this.currMailBox);
     }
 
     /**
-     * Puts the summary list into a hashmap keyed by ID, for faster lookup.
-     * @param summaries an array of mailbox summaries to insert into the hashmap
-     * @return a hashmap of the mail summaries given, keyed by identifier
+     * Read back the box to look at next
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read, or names a box there can't be
      */
-    private HashMap<String, StorageBox.Summary> summaryListToIDHashMap(StorageBox.Summary[] summaries)
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
     {
-        HashMap<String, StorageBox.Summary> summaryHashMap = new HashMap<>(summaries.length);
-        for (StorageBox.Summary summary: summaries) {
-            summaryHashMap.put(summary.identifier, summary);
+        int box = in.readInt();
+        if (box < 0 || box >= numMailBoxes) {
+            throw new IOException("Checkpoint holds box " + box + " of " + numMailBoxes);
         }
+        this.currMailBox = box;
+    }
 
-        return summaryHashMap;
+    /**
+     * Change the number of the box we're looking for. This wraps the number
+     * automatically, based on the maximum number of boxes available.
+     */
+    private void incrementBox() {
+        this.currMailBox = (this.currMailBox + 1) % numMailBoxes;
     }
 }
@@ -2,40 +2,62 @@
  * Project 1 - Mailroom Blues
  * Author: Robert Holt
  * SID: 
- * Last Modified: 2016-03-22
+ * Last Modified: 2026-10-18
  */
 
 package com.unimelb.swen30006.mailroom.strategies.sorting;
 
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.Checkpoints;
 import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
 import com.unimelb.swen30006.mailroom.MailStorage;
 import com.unimelb.swen30006.mailroom.SortingStrategy;
 import com.unimelb.swen30006.mailroom.StorageBox;
-import com.unimelb.swen30006.mailroom.exceptions.DuplicateIdentifierException;
 import com.unimelb.swen30006.mailroom.exceptions.MailOverflowException;
 import com.unimelb.swen30006.mailroom.strategies.selection.RandomSelectionStrategy;
 
-import java.util.HashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 
 /**
- * Randomly picks a box between "0" and numMailBoxes - 1
+ * Randomly picks a box between "0" and numMailBoxes - 1. Each item's first pick comes from one random
+ * stream and any picks after a full box from another, so every item gets the same first pick however
+ * full storage was, and runs sharing a seed stay in step when compared with common random numbers.
  */
-public class RandomSortingStrategy implements SortingStrategy
+public class RandomSortingStrategy implements SortingStrategy, Checkpointable
 {
+    // Mixed into the seed to give the stream of picks made after a full box
+    private static final long RETRY_STREAM = 0x5DEECE66DL;
+
     private final int numMailBoxes;
-    private final Random randomiser;
+    private Random randomiser;
+    // Picks again when the first pick for an item is full
+    private Random retryRandomiser;
+    // The identifier of each numbered mailbox, made once rather than on every pick
+    private final String[] boxIDs;
 
     public RandomSortingStrategy(int numMailBoxes)
     {
-        this.numMailBoxes = numMailBoxes;
-        this.randomiser = new Random();
+        this(new Random(), new Random(), numMailBoxes);
     }
 
     public RandomSortingStrategy(long seed, int numMailBoxes)
+    {
+        this(new Random(seed), new Random(seed ^ RETRY_STREAM), numMailBoxes);
+    }
+
+    private RandomSortingStrategy(Random randomiser, Random retryRandomiser, int numMailBoxes)
     {
         this.numMailBoxes = numMailBoxes;
-        this.randomiser = new Random(seed);
+        this.randomiser = randomiser;
+        this.retryRandomiser = retryRandomiser;
+        this.boxIDs = new String[numMailBoxes];
+        for (int i = 0; i < numMailBoxes; i++) {
+            this.boxIDs[i] = Integer.toString(i);
+        }
     }
 
     /**
@@ -43,59 +65,143 @@ public class RandomSortingStrategy implements SortingStrategy
      * @param item the item being sorted
      * @param storage the storage system in use
      * @return a random box between "0" and numMailBoxes - 1
-     * @throws MailOverflowException
+     * @throws MailOverflowException if a new box is needed and there is no room for one
      */
     @Override
     public String assignStorage(MailItem item, MailStorage storage) throws MailOverflowException
     {
-        // Make a hashmap of box summaries in case we need to operate over them multiple times
-        HashMap<String, StorageBox.Summary> boxSummaries = new HashMap<>();
-        for (StorageBox.Summary summary: storage.retrieveSummaries()) {
-            boxSummaries.put(summary.identifier, summary);
+        String id = tryAssignStorage(item, storage);
+        if (id == null) {
+            throw new MailOverflowException();
         }
+        return id;
+    }
+
+    /**
+     * Pick a random box as in assignStorage, without throwing when there is no room.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return a random box between "0" and numMailBoxes - 1, or null if there is no room
+     */
+    @Override
+    public String tryAssignStorage(MailItem item, MailStorage storage)
+    {
+        int handle = tryAssignHandle(item, storage);
+        return handle == MailStorage.NO_HANDLE ? null : boxIDs[handle];
+    }
+
+    /**
+     * Pick a random box as in assignStorage, finding and making boxes by handle. The box numbered n
+     * has handle n.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of a random box, or MailStorage.NO_HANDLE if there is no room
+     */
+    @Override
+    public int tryAssignHandle(MailItem item, MailStorage storage)
+    {
+        return assignHandle(item.size, storage);
+    }
+
+    /**
+     * Pick a random box for an item held in a store, as in tryAssignHandle
+     * @param items the store holding the item
+     * @param item the handle of the item being sorted in the store
+     * @param storage the storage system in use
+     * @return the handle of a random box, or MailStorage.NO_HANDLE if there is no room
+     */
+    @Override
+    public int tryAssignHandle(MailItemStore items, int item, MailStorage storage)
+    {
+        return assignHandle(items.size(item), storage);
+    }
 
+    /**
+     * Pick a random box with room for an item of the given size
+     * @param size the size of the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of a random box, or MailStorage.NO_HANDLE if there is no room
+     */
+    private int assignHandle(int size, MailStorage storage)
+    {
         // Pick a random box
-        String id = getRandomBoxID(numMailBoxes);
+        int box = getRandomBox(randomiser);
+        boolean checkedForRoom = false;
 
-        // Try to find the box and insert the item
-        while (true) {
-            if (boxSummaries.containsKey(id)) {
-                if (boxSummaries.get(id).remainingUnits >= item.size) {
-                    return id;
-                }
-                // If the box is too full, generate a new random ID
-                else {
-                    id = getRandomBoxID(numMailBoxes);
-                }
+        // Try to find the box and insert the item, storage keeps each box's summary up to date
+        StorageBox.Summary summary;
+        while ((summary = storage.summaryOf(box)) != null) {
+            if (summary.remainingUnits >= size) {
+                return box;
             }
-            // If there is no such box, stop looking and make a new one
-            else {
-                break;
+            // If every box exists, make sure one of them has room before picking again,
+            // otherwise we would pick forever
+            if (!checkedForRoom && storage.isFull()) {
+                if (!anyBoxHasRoom(size, storage)) {
+                    return MailStorage.NO_HANDLE;
+                }
+                checkedForRoom = true;
             }
+            // If the box is too full, pick a new random box
+            box = getRandomBox(retryRandomiser);
         }
 
         // If the box doesn't already exist, try to create it
-        try {
-            storage.createBox(id);
-            return id;
+        // We know no box has this handle, so if it can't be made there is no room for a new box
+        if (storage.tryCreateBox(box, boxIDs[box])) {
+            return box;
         }
-        catch (DuplicateIdentifierException e) {
-            e.printStackTrace();
-            System.exit(0);
+        return MailStorage.NO_HANDLE;
+    }
+
+    /**
+     * Write both random streams, so the same boxes are picked once a run is resumed
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        Checkpoints.writeRandom(out, randomiser);
+        Checkpoints.writeRandom(out, retryRandomiser);
+    }
+
+    /**
+     * Read back both random streams
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        randomiser = Checkpoints.readRandom(in);
+        retryRandomiser = Checkpoints.readRandom(in);
+    }
+
+    /**
+     * Check whether any box in storage can fit an item
+     * @param size the size of the item being sorted
+     * @param storage the storage system in use
+     * @return true if there is a box with enough units remaining
+     */
+    private boolean anyBoxHasRoom(int size, MailStorage storage)
+    {
+        for (int box = 0; box < numMailBoxes; box++) {
+            StorageBox.Summary summary = storage.summaryOf(box);
+            if (summary != null && summary.remainingUnits >= size) {
+                return true;
+            }
         }
-        return null;
+        return false;
     }
 
     /**
      * Pick a mailbox at random, given the maximum number of mailboxes that can exist
-     * @param numMailBoxes the maximum number of mailboxes the mail storage can support
-     * @return the identifier of the randomly selected mailbox
+     * @param random the stream to pick with
+     * @return the number of the randomly selected mailbox, between 0 and numMailBoxes-1
      */
-    private String getRandomBoxID(int numMailBoxes)
+    private int getRandomBox(Random random)
     {
-        // Pick a numbered mailbox, between 0 and numMailBoxes-1
-        int idNum = this.randomiser.nextInt(numMailBoxes);
-        String id = Integer.toString(idNum);
-        return id;
+        return random.nextInt(numMailBoxes);
     }
 }
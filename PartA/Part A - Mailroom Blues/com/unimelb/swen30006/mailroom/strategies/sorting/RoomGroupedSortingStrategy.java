@@ -2,15 +2,14 @@
  * Project 1 - Mailroom Blues
  * Author: Robert Holt
  * SID: 
- * Last Modified: 2016-03-11
+ * Last Modified: 2026-10-18
  */
 package com.unimelb.swen30006.mailroom.strategies.sorting;
 
 import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
 import com.unimelb.swen30006.mailroom.MailStorage;
 import com.unimelb.swen30006.mailroom.SortingStrategy;
-import com.unimelb.swen30006.mailroom.StorageBox;
-import com.unimelb.swen30006.mailroom.exceptions.DuplicateIdentifierException;
 import com.unimelb.swen30006.mailroom.exceptions.MailOverflowException;
 
 /**
@@ -26,12 +25,29 @@ public class RoomGroupedSortingStrategy implements SortingStrategy
     private final int minFloor;
     private final int maxFloor;
     private final int numMailBoxes;
+    // The bracket each floor belongs in, indexed from the lowest floor. Bracket n is stored in the box with handle n
+    private final int[] bracketOfFloor;
+    // The name of each bracket's box
+    private final String[] bracketIDs;
 
     public RoomGroupedSortingStrategy(int numMailBoxes, int minFloor, int maxFloor)
     {
         this.numMailBoxes = numMailBoxes;
         this.minFloor = minFloor;
         this.maxFloor = maxFloor;
+
+        // Break the floors into brackets to divide up the mail, no more brackets than boxes
+        int numFloors = maxFloor - minFloor + 1;
+        int floorsPerBox = ceilDivide(numFloors, numMailBoxes);
+        int numBrackets = ceilDivide(numFloors, floorsPerBox);
+        this.bracketOfFloor = new int[numFloors];
+        for (int floor = 0; floor < numFloors; floor++) {
+            this.bracketOfFloor[floor] = floor / floorsPerBox;
+        }
+        this.bracketIDs = new String[numBrackets];
+        for (int bracket = 0; bracket < numBrackets; bracket++) {
+            this.bracketIDs[bracket] = makeFloorBracketID(minFloor + bracket * floorsPerBox, floorsPerBox);
+        }
     }
 
     /**
@@ -43,41 +59,120 @@ public class RoomGroupedSortingStrategy implements SortingStrategy
      * @param item the item being sorted
      * @param storage the storage system in use
      * @return the name/key of the mail box to insert the mail item into
-     * @throws MailOverflowException
+     * @throws MailOverflowException if the item's bracket has no box and there is no room for one
      */
     @Override
     public String assignStorage(MailItem item, MailStorage storage) throws MailOverflowException
     {
-        // Break the boxes into floor brackets to divide up the mail
-        int floorsPerBox = ceilDivide(maxFloor - minFloor, numMailBoxes);
+        String id = tryAssignStorage(item, storage);
+        if (id == null) {
+            throw new MailOverflowException();
+        }
+        return id;
+    }
+
+    /**
+     * Find or make the floor bracket box for the item as in assignStorage, without throwing when there is no room.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the name/key of the mail box to insert the mail item into, or null if there is no room
+     */
+    @Override
+    public String tryAssignStorage(MailItem item, MailStorage storage)
+    {
+        int handle = tryAssignHandle(item, storage);
+        return handle == MailStorage.NO_HANDLE ? null : bracketIDs[handle];
+    }
+
+    /**
+     * Find or make the floor bracket box for the item as in assignStorage, looking up the bracket for the
+     * item's floor and using it as the box's handle.
+     * @param item the item being sorted
+     * @param storage the storage system in use
+     * @return the handle of the mail box to insert the mail item into, or MailStorage.NO_HANDLE if there is no room
+     */
+    @Override
+    public int tryAssignHandle(MailItem item, MailStorage storage)
+    {
+        return assignHandle(item.floor, storage);
+    }
 
-        // Look for a box with the string "|<num>|" in the name
-        String intStr = "|" + Integer.toString(item.floor) + "|";
-        for (StorageBox.Summary summary: storage.retrieveSummaries()) {
-            // Pick that box if it's found
-            if (summary.identifier.contains(intStr)) {
-                return summary.identifier;
-            }
+    /**
+     * Find or make the floor bracket box for an item held in a store, as in tryAssignHandle
+     * @param items the store holding the item
+     * @param item the handle of the item being sorted in the store
+     * @param storage the storage system in use
+     * @return the handle of the mail box to insert the mail item into, or MailStorage.NO_HANDLE if there is no room
+     */
+    @Override
+    public int tryAssignHandle(MailItemStore items, int item, MailStorage storage)
+    {
+        return assignHandle(items.floor(item), storage);
+    }
+
+    /**
+     * Find or make the floor bracket box for mail going to a floor
+     * @param floor the floor the item being sorted is going to
+     * @param storage the storage system in use
+     * @return the handle of the mail box to insert the mail item into, or MailStorage.NO_HANDLE if there is no room
+     */
+    private int assignHandle(int floor, MailStorage storage)
+    {
+        if (floor < minFloor || floor > maxFloor) {
+            // No bracket will take mail for a floor outside the building
+            return MailStorage.NO_HANDLE;
         }
-        // If no suitable mailboxes are found, make a new one
-        // Give the string a default value
-        String floorID = "";
-        for (int i=minFloor; i<maxFloor; i += floorsPerBox) {
-            // Find the bracket the floor belongs in and give it a name
-            if (i <= item.floor && item.floor < i+floorsPerBox) {
-                floorID = makeFloorBracketID(i, floorsPerBox);
-            }
+        int bracket = bracketOfFloor[floor - minFloor];
+        // Pick the bracket's box if it's already there
+        if (storage.summaryOf(bracket) != null) {
+            return bracket;
         }
-        try {
-            // Try to make the box with that ID
-            storage.createBox(floorID);
-            return floorID;
+        // If there is no box for the bracket, make a new one. No box has its handle, so if it can't
+        // be made there is no room
+        if (storage.tryCreateBox(bracket, bracketIDs[bracket])) {
+            return bracket;
         }
-        catch (DuplicateIdentifierException e) {
-            e.printStackTrace();
-            System.exit(0);
+        return MailStorage.NO_HANDLE;
+    }
+
+    /**
+     * Find or make the floor bracket box for every item in the batch in one pass. A bracket's box is
+     * picked without checking its room, so earlier items in the batch never change the choice for later ones.
+     * @param items the items being sorted
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch
+     * @param storage the storage system in use
+     * @param handles filled in with the handle of the box for each item, or MailStorage.NO_HANDLE if there is no room
+     * @return the number of items assigned, which is always the whole batch
+     */
+    @Override
+    public int tryAssignHandles(MailItem[] items, int from, int count, MailStorage storage, int[] handles)
+    {
+        for (int i = from; i < from + count; i++) {
+            handles[i] = assignHandle(items[i].floor, storage);
+        }
+        return count;
+    }
+
+    /**
+     * Find or make the floor bracket box for every item held in a store in the batch in one pass, as
+     * tryAssignHandles does for whole items
+     * @param items the store holding the items
+     * @param batch the handles of the items being sorted in the store
+     * @param from the index of the first item in the batch
+     * @param count the number of items in the batch
+     * @param storage the storage system in use
+     * @param handles filled in with the handle of the box for each item, or MailStorage.NO_HANDLE if there is no room
+     * @return the number of items assigned, which is always the whole batch
+     */
+    @Override
+    public int tryAssignHandles(MailItemStore items, int[] batch, int from, int count, MailStorage storage,
+                                int[] handles)
+    {
+        for (int i = from; i < from + count; i++) {
+            handles[i] = assignHandle(items.floor(batch[i]), storage);
         }
-        return null;
+        return count;
     }
 
     /**
@@ -86,7 +181,7 @@ public class RoomGroupedSortingStrategy implements SortingStrategy
      * @param divisor the integer to divide by
      * @return the ceiling integer division result of numerator/divisor
      */
-    private int ceilDivide(int numerator, int divisor)
+    private static int ceilDivide(int numerator, int divisor)
     {
         return (numerator + divisor - 1)/divisor;
     }
@@ -97,7 +192,7 @@ public class RoomGroupedSortingStrategy implements SortingStrategy
      * @param bracketSize the number of floors in the bracket
      * @return a floor bracket identifier composed of |-separated integer strings
      */
-    private String makeFloorBracketID(int lowestFloor, int bracketSize)
+    private static String makeFloorBracketID(int lowestFloor, int bracketSize)
     {
         StringBuilder stringBuilder = new StringBuilder();
         // Start the name with a |
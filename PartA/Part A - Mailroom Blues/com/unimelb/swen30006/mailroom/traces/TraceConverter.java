@@ -0,0 +1,136 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.traces;
+
+import com.unimelb.swen30006.mailroom.MailItem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Converts a mail room intake log from CSV into a binary mail trace. Each line of the log is one item,
+ * in arrival order, as floor,type,priority,size,arrivalTime where the type and priority are given by
+ * name, in any case, or by number. A first line that does not start with a floor is taken as a header
+ * and skipped, as are blank lines. The log is streamed, so logs of any length can be converted.
+ *
+ * Usage: TraceConverter input.csv output.trace
+ */
+public class TraceConverter
+{
+    // The number of fields on each line
+    private static final int NUM_FIELDS = 5;
+
+    public static void main(String[] args)
+    {
+        if (args.length != 2) {
+            System.out.println("Usage: TraceConverter input.csv output.trace");
+            System.exit(0);
+        }
+        long start = System.nanoTime();
+        long numItems = 0;
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            numItems = convert(in, Paths.get(args[1]));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(e);
+            System.out.println("FATAL: Log could not be converted. Abort");
+            System.exit(0);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "Converted %d items in %.2f s (%.0f items/s)",
+                numItems, seconds, numItems / seconds));
+    }
+
+    /**
+     * Convert a log into a trace
+     * @param log the log, read to its end
+     * @param trace the trace file to write, replacing any file already there
+     * @return the number of items converted
+     * @throws IOException if the log cannot be read or the trace cannot be written
+     * @throws IllegalArgumentException if a line is not an item, giving its line number
+     */
+    public static long convert(Reader log, Path trace) throws IOException
+    {
+        BufferedReader lines = log instanceof BufferedReader ? (BufferedReader) log : new BufferedReader(log);
+        try (TraceWriter writer = new TraceWriter(trace)) {
+            String[] fields = new String[NUM_FIELDS];
+            long lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || (lineNumber == 1 && !startsWithNumber(line))) {
+                    continue;
+                }
+                try {
+                    split(line, fields);
+                    writer.append(Integer.parseInt(fields[0]),
+                                  parseName(fields[1], MailItem.MailType.values()),
+                                  parseName(fields[2], MailItem.MailPriority.values()),
+                                  Integer.parseInt(fields[3]),
+                                  Long.parseLong(fields[4]));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+            return writer.getNumItems();
+        }
+    }
+
+    /**
+     * Split a line into its fields, trimmed of spaces
+     * @param line the line
+     * @param fields filled with the line's fields
+     * @throws IllegalArgumentException if the line does not have the right number of fields
+     */
+    private static void split(String line, String[] fields)
+    {
+        int from = 0;
+        for (int f = 0; f < fields.length; f++) {
+            int comma = line.indexOf(',', from);
+            boolean last = f == fields.length - 1;
+            if (last != (comma < 0)) {
+                throw new IllegalArgumentException("Expected floor,type,priority,size,arrivalTime, got " + line);
+            }
+            fields[f] = line.substring(from, last ? line.length() : comma).trim();
+            from = comma + 1;
+        }
+    }
+
+    /**
+     * Read a constant by name, ignoring case, or by number
+     * @param value the name or number
+     * @param constants the constants to choose from
+     * @return the constant
+     * @throws IllegalArgumentException if the value is not one of the constants
+     */
+    private static <E extends Enum<E>> E parseName(String value, E[] constants)
+    {
+        for (E constant : constants) {
+            if (constant.name().equalsIgnoreCase(value) || String.valueOf(constant.ordinal()).equals(value)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + constants[0].getDeclaringClass().getSimpleName() + " " + value);
+    }
+
+    /**
+     * Check if a line starts with a number, as items do and headers do not
+     * @param line the line
+     * @return true if the first character that is not a space is a digit or minus sign
+     */
+    private static boolean startsWithNumber(String line)
+    {
+        String trimmed = line.trim();
+        char first = trimmed.charAt(0);
+        return Character.isDigit(first) || first == '-';
+    }
+}
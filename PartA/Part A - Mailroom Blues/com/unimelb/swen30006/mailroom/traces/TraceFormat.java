@@ -0,0 +1,53 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.traces;
+
+import java.nio.ByteOrder;
+
+/**
+ * The layout of a binary mail trace. A trace is a fixed size header followed by one fixed size record
+ * per item in arrival order, all little endian, so any item can be found by its number and decoded
+ * straight from a mapped file.
+ *
+ * Header: magic (8 bytes), version (4), record size (4), number of items (8), lowest floor (4), highest floor (4)
+ * Record: arrival time (8), floor (4), size (1, unsigned), type and priority (1, type in the high bits)
+ */
+final class TraceFormat
+{
+    // Marks a file as a mail trace, "MAILTRC" and a zero byte when read little endian
+    static final long MAGIC = 0x004352544c49414dL;
+    // The version of the layout
+    static final int VERSION = 1;
+    // The byte order of every field
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Offsets of the header's fields, and its size
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int COUNT_OFFSET = 16;
+    static final int MIN_FLOOR_OFFSET = 24;
+    static final int MAX_FLOOR_OFFSET = 28;
+    static final int HEADER_SIZE = 32;
+
+    // Offsets of a record's fields, and its size
+    static final int ARRIVAL_OFFSET = 0;
+    static final int FLOOR_OFFSET = 8;
+    static final int SIZE_OFFSET = 12;
+    static final int KIND_OFFSET = 13;
+    static final int RECORD_SIZE = 14;
+
+    // The largest item size a record can hold
+    static final int MAX_SIZE = 0xff;
+    // The bits of the kind byte holding the priority, the type being above them
+    static final int PRIORITY_BITS = 4;
+    static final int PRIORITY_MASK = (1 << PRIORITY_BITS) - 1;
+
+    private TraceFormat()
+    {
+    }
+}
@@ -0,0 +1,311 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.traces;
+
+import com.unimelb.swen30006.mailroom.Checkpointable;
+import com.unimelb.swen30006.mailroom.MailItem;
+import com.unimelb.swen30006.mailroom.MailItemStore;
+import com.unimelb.swen30006.mailroom.MailSource;
+import com.unimelb.swen30006.mailroom.exceptions.SourceExhaustedException;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A mail source replaying a binary mail trace, as written by TraceWriter or TraceConverter. The trace
+ * is memory mapped a window of records at a time and each item is decoded straight from the mapping
+ * only when it is taken, so nothing of the trace is copied onto the heap and replaying a trace of any
+ * length uses the same memory. Checking for arrivals reads the next record's arrival time in place.
+ *
+ * Many sources can replay the same trace at once, each mapping the file on its own. A checkpoint only holds
+ * how far through the trace replay has got, so resuming maps the window holding the next item straight away.
+ */
+public class TraceMailSource implements MailSource, Closeable, Checkpointable
+{
+    // The name of this source
+    private static final String NAME = "Trace Mail Source";
+    // Records mapped at a time, so traces larger than one mapping can hold are replayed in windows
+    private static final int WINDOW_RECORDS = 1 << 22;
+    // Traces do not record addressees, so every item shares one
+    private static final String ADDRESSEE = "Trace";
+
+    // The types and priorities records refer to by number
+    private static final MailItem.MailType[] TYPES = MailItem.MailType.values();
+    private static final MailItem.MailPriority[] PRIORITIES = MailItem.MailPriority.values();
+
+    // The trace file
+    private final FileChannel channel;
+    // The number of items in the trace
+    private final long numItems;
+    // The lowest and highest floor of any item in the trace
+    private final int minFloor;
+    private final int maxFloor;
+
+    // The records mapped at the moment
+    private MappedByteBuffer window;
+    // The number of the first record in the window, and of the first record past it
+    private long windowStart;
+    private long windowEnd;
+    // The number of the next item to be taken
+    private long next;
+
+    /**
+     * Open a trace for replay from its first item
+     * @param file the trace file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a mail trace this can read
+     */
+    public TraceMailSource(Path file) throws IOException
+    {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                            Math.min(TraceFormat.HEADER_SIZE, channel.size()));
+            header.order(TraceFormat.ORDER);
+            if (header.limit() < TraceFormat.HEADER_SIZE
+                    || header.getLong(TraceFormat.MAGIC_OFFSET) != TraceFormat.MAGIC) {
+                throw new IllegalArgumentException(file + " is not a mail trace");
+            }
+            if (header.getInt(TraceFormat.VERSION_OFFSET) != TraceFormat.VERSION
+                    || header.getInt(TraceFormat.RECORD_SIZE_OFFSET) != TraceFormat.RECORD_SIZE) {
+                throw new IllegalArgumentException(file + " is version " + header.getInt(TraceFormat.VERSION_OFFSET)
+                        + " of the trace format, expected " + TraceFormat.VERSION);
+            }
+            this.numItems = header.getLong(TraceFormat.COUNT_OFFSET);
+            this.minFloor = header.getInt(TraceFormat.MIN_FLOOR_OFFSET);
+            this.maxFloor = header.getInt(TraceFormat.MAX_FLOOR_OFFSET);
+            if (numItems < 0 || TraceFormat.HEADER_SIZE + numItems * TraceFormat.RECORD_SIZE > channel.size()) {
+                throw new IllegalArgumentException(file + " is cut short, expected " + numItems + " items");
+            }
+            mapWindow(0);
+        } catch (IOException | IllegalArgumentException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The number of items in the trace
+     * @return the number of items
+     */
+    public long getNumItems()
+    {
+        return numItems;
+    }
+
+    /**
+     * The lowest floor of any item in the trace, for checking a building can take it
+     * @return the lowest floor, more than the highest if the trace is empty
+     */
+    public int getMinFloor()
+    {
+        return minFloor;
+    }
+
+    /**
+     * The highest floor of any item in the trace, for checking a building can take it
+     * @return the highest floor, less than the lowest if the trace is empty
+     */
+    public int getMaxFloor()
+    {
+        return maxFloor;
+    }
+
+    @Override
+    public boolean hasNextMail()
+    {
+        return next < numItems;
+    }
+
+    @Override
+    public boolean hasMailBy(long time)
+    {
+        return next < numItems && arrivalOfNext() <= time;
+    }
+
+    @Override
+    public long nextArrivalTime()
+    {
+        return next < numItems ? arrivalOfNext() : NO_MORE_MAIL;
+    }
+
+    /**
+     * Decode the next item in the trace, whether or not it has arrived yet
+     * @return the next item, stamped with its arrival time
+     * @throws SourceExhaustedException if the whole trace has been replayed
+     */
+    @Override
+    public MailItem nextItem() throws SourceExhaustedException
+    {
+        int offset = checkNext();
+        int kind = window.get(offset + TraceFormat.KIND_OFFSET) & 0xff;
+        MailItem item = new MailItem(TYPES[typeOf(kind)], PRIORITIES[priorityOf(kind)],
+                                     window.getInt(offset + TraceFormat.FLOOR_OFFSET), ADDRESSEE,
+                                     window.get(offset + TraceFormat.SIZE_OFFSET) & TraceFormat.MAX_SIZE,
+                                     window.getLong(offset + TraceFormat.ARRIVAL_OFFSET));
+        moveToNext();
+        return item;
+    }
+
+    /**
+     * Decode the next item in the trace straight into a store, without making the item
+     * @param items the store to add the item to
+     * @param takenTime the simulated time the item is taken
+     * @return the handle of the item in the store
+     * @throws SourceExhaustedException if the whole trace has been replayed
+     */
+    @Override
+    public int nextItemInto(MailItemStore items, long takenTime) throws SourceExhaustedException
+    {
+        int offset = checkNext();
+        int kind = window.get(offset + TraceFormat.KIND_OFFSET) & 0xff;
+        int item = items.add(TYPES[typeOf(kind)], PRIORITIES[priorityOf(kind)],
+                             window.getInt(offset + TraceFormat.FLOOR_OFFSET), ADDRESSEE,
+                             window.get(offset + TraceFormat.SIZE_OFFSET) & TraceFormat.MAX_SIZE,
+                             window.getLong(offset + TraceFormat.ARRIVAL_OFFSET), takenTime);
+        moveToNext();
+        return item;
+    }
+
+    /**
+     * Close the trace file. The last window stays mapped until it is garbage collected.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Write how far through the trace replay has got, along with the trace's length to check it is read
+     * back against the same trace
+     * @param out the checkpoint being written
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException
+    {
+        out.writeLong(numItems);
+        out.writeLong(next);
+    }
+
+    /**
+     * Carry on from where the checkpointed source had got to, mapping the window it was replaying
+     * @param in the checkpoint being read
+     * @throws IOException if the checkpoint cannot be read, was written replaying a trace of a
+     * different length, or the trace cannot be mapped
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException
+    {
+        long length = in.readLong();
+        long read = in.readLong();
+        if (length != numItems || read < 0 || read > numItems) {
+            throw new IOException("Checkpoint is at item " + read + " of a trace of " + length
+                                  + " items, not one of " + numItems);
+        }
+        next = read;
+        if (next < numItems) {
+            mapWindow(next - next % WINDOW_RECORDS);
+        }
+    }
+
+    /**
+     * Find the next item's record, checking it holds a mail item
+     * @return the offset of the record within the window
+     * @throws SourceExhaustedException if the whole trace has been replayed
+     */
+    private int checkNext() throws SourceExhaustedException
+    {
+        if (next >= numItems) {
+            throw new SourceExhaustedException(NAME);
+        }
+        int offset = recordOffset();
+        int kind = window.get(offset + TraceFormat.KIND_OFFSET) & 0xff;
+        if (typeOf(kind) >= TYPES.length || priorityOf(kind) >= PRIORITIES.length) {
+            throw new IllegalStateException("Record " + next + " of the trace is not a mail item");
+        }
+        return offset;
+    }
+
+    /**
+     * The type of a record, by number
+     * @param kind the record's type and priority byte
+     * @return the type's ordinal
+     */
+    private static int typeOf(int kind)
+    {
+        return kind >>> TraceFormat.PRIORITY_BITS;
+    }
+
+    /**
+     * The priority of a record, by number
+     * @param kind the record's type and priority byte
+     * @return the priority's ordinal
+     */
+    private static int priorityOf(int kind)
+    {
+        return kind & TraceFormat.PRIORITY_MASK;
+    }
+
+    /**
+     * Move past the item just decoded, mapping the next window once the last one is done
+     */
+    private void moveToNext()
+    {
+        next++;
+        if (next == windowEnd && next < numItems) {
+            try {
+                mapWindow(next);
+            } catch (IOException e) {
+                throw new IllegalStateException("Trace could not be read past record " + next, e);
+            }
+        }
+    }
+
+    /**
+     * The arrival time of the next item, read in place
+     * @return the next item's arrival time
+     */
+    private long arrivalOfNext()
+    {
+        return window.getLong(recordOffset() + TraceFormat.ARRIVAL_OFFSET);
+    }
+
+    /**
+     * The offset of the next item's record within the window
+     * @return the offset in bytes
+     */
+    private int recordOffset()
+    {
+        return (int) (next - windowStart) * TraceFormat.RECORD_SIZE;
+    }
+
+    /**
+     * Map the window of records starting from the given record, letting the last window go
+     * @param first the number of the first record to map
+     * @throws IOException if the file cannot be mapped
+     */
+    private void mapWindow(long first) throws IOException
+    {
+        long count = Math.min(WINDOW_RECORDS, numItems - first);
+        window = channel.map(FileChannel.MapMode.READ_ONLY,
+                             TraceFormat.HEADER_SIZE + first * TraceFormat.RECORD_SIZE,
+                             count * TraceFormat.RECORD_SIZE);
+        window.order(TraceFormat.ORDER);
+        windowStart = first;
+        windowEnd = first + count;
+    }
+}
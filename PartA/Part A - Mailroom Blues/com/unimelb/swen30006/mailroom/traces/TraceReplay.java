@@ -0,0 +1,126 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.traces;
+
+import com.unimelb.swen30006.mailroom.DeliveryBot;
+import com.unimelb.swen30006.mailroom.SeedSplitter;
+import com.unimelb.swen30006.mailroom.SimulationRun;
+import com.unimelb.swen30006.mailroom.StrategyFactory;
+import com.unimelb.swen30006.mailroom.buildings.Building;
+import com.unimelb.swen30006.mailroom.buildings.BuildingFactory;
+import com.unimelb.swen30006.mailroom.experiments.StrategyCombination;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Replays a mail trace through one simulation run, so strategies can be tried against real intake
+ * rather than generated mail. The building must have every floor the trace delivers to.
+ *
+ * Usage: TraceReplay trace [building] [sorting/selection/delivery] [checkpoint=file] [every=ticks] [trip=units]
+ * where the building is a name or spec as taken by BuildingFactory, the default building if not given,
+ * and the strategies are named as in StrategyCombination, even/fullness/route if not given. Given a
+ * number of mail units per trip, bots carry as many boxes a trip as fit in it rather than one.
+ *
+ * Given a checkpoint file, the replay is checkpointed to it every so many ticks, and a replay that
+ * finds the file already there resumes from it, so a long replay that is stopped can be carried on
+ * with the same command.
+ */
+public class TraceReplay
+{
+    // The strategies used when none are given
+    private static final String DEFAULT_STRATEGIES = "even/fullness/route";
+    // Seed for the strategies' random streams, so replays are repeatable
+    private static final long SEED = 12345;
+    // The random streams split from the seed
+    private static final int SORTING_STREAM = 1;
+    private static final int SELECTION_STREAM = 2;
+    // The ticks between checkpoints when none is given
+    private static final long CHECKPOINT_INTERVAL = 100000;
+
+    public static void main(String[] args)
+    {
+        ArrayList<String> positional = new ArrayList<>();
+        Path checkpoint = null;
+        long interval = CHECKPOINT_INTERVAL;
+        int tripCapacity = 0;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("checkpoint=")) {
+                checkpoint = Paths.get(value);
+            } else if (arg.startsWith("every=")) {
+                interval = Long.parseLong(value);
+            } else if (arg.startsWith("trip=")) {
+                tripCapacity = Integer.parseInt(value);
+            } else {
+                positional.add(arg);
+            }
+        }
+        if (positional.size() < 1 || positional.size() > 3) {
+            System.out.println("Usage: TraceReplay trace [building] [sorting/selection/delivery] "
+                               + "[checkpoint=file] [every=ticks] [trip=units]");
+            System.exit(0);
+        }
+        String trace = positional.get(0);
+        Building building = new BuildingFactory().getBuilding(positional.size() > 1 ? positional.get(1) : "default");
+        StrategyFactory strategies = StrategyCombination.parse(positional.size() > 2 ? positional.get(2)
+                                                                                      : DEFAULT_STRATEGIES);
+
+        try (TraceMailSource source = new TraceMailSource(Paths.get(trace))) {
+            if (source.getNumItems() > 0 && (source.getMinFloor() < building.getMinFloor()
+                                             || source.getMaxFloor() > building.getMaxFloor())) {
+                System.out.println("FATAL: Trace delivers to floors " + source.getMinFloor() + ".."
+                                   + source.getMaxFloor() + " but the building has floors "
+                                   + building.getMinFloor() + ".." + building.getMaxFloor() + ". Abort");
+                System.exit(0);
+            }
+            SeedSplitter streams = new SeedSplitter(SEED);
+            SimulationRun run = new SimulationRun(building, source,
+                    strategies.createSelectionStrategy(building, streams.seedForRun(SELECTION_STREAM)),
+                    strategies.createDeliveryStrategy(building),
+                    strategies.createSortingStrategy(building, streams.seedForRun(SORTING_STREAM)));
+            run.setTripCapacity(tripCapacity);
+            if (checkpoint != null) {
+                run.setCheckpoints(checkpoint, interval);
+                if (Files.exists(checkpoint)) {
+                    System.out.println("Resuming from the checkpoint at tick " + run.resumeFrom(checkpoint));
+                }
+            }
+
+            long start = System.nanoTime();
+            DeliveryBot.DeliveryStatistic[] deliveries = run.run();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long totalTime = 0;
+            long totalFloors = 0;
+            long totalBoxes = 0;
+            for (DeliveryBot.DeliveryStatistic delivery : deliveries) {
+                totalTime += delivery.timeTaken;
+                totalFloors += delivery.numFloors;
+                totalBoxes += delivery.numBoxes();
+            }
+            System.out.println("========== TRACE REPLAY COMPLETE ==========");
+            System.out.println("Trace: " + trace + ", " + source.getNumItems() + " items");
+            System.out.println("Building: " + building + ", strategies: " + strategies);
+            System.out.println("Total Delivery Runs: " + deliveries.length);
+            System.out.println("Total Boxes Delivered: " + totalBoxes);
+            System.out.println("Total Time Taken: " + totalTime);
+            System.out.println("Total Floors: " + totalFloors);
+            System.out.println("Latency: " + run.getLatencies().getOverall());
+            System.out.println(String.format(Locale.ROOT, "Replayed in %.2f s (%.0f items/s)",
+                    seconds, source.getNumItems() / seconds));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(e);
+            System.out.println("FATAL: Trace could not be replayed. Abort");
+            System.exit(0);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/* SWEN30006 Software Modelling and Design
+ * Project 1 - Mailroom Blues
+ * Author: Robert Holt
+ * SID: 
+ * Last Modified: 2026-10-18
+ */
+package com.unimelb.swen30006.mailroom.traces;
+
+import com.unimelb.swen30006.mailroom.MailItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes items to a binary mail trace in arrival order, through a fixed size buffer so traces of any
+ * length can be written. The header is written last, once the number of items and their floors are
+ * known, so a trace is only readable once the writer is closed.
+ */
+public class TraceWriter implements Closeable
+{
+    // Records buffered before each write to the file
+    private static final int BUFFER_RECORDS = 1 << 16;
+
+    // The file being written
+    private final FileChannel channel;
+    // Records waiting to be written
+    private final ByteBuffer buffer;
+
+    // The number of items written so far
+    private long numItems;
+    // The lowest and highest floor written so far
+    private int minFloor;
+    private int maxFloor;
+    // The arrival time of the last item written
+    private long lastArrival;
+
+    /**
+     * Start writing a trace, replacing any file already there
+     * @param file the file to write
+     * @throws IOException if the file cannot be opened
+     */
+    public TraceWriter(Path file) throws IOException
+    {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+        this.channel.position(TraceFormat.HEADER_SIZE);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * TraceFormat.RECORD_SIZE).order(TraceFormat.ORDER);
+        this.minFloor = Integer.MAX_VALUE;
+        this.maxFloor = Integer.MIN_VALUE;
+        this.lastArrival = Long.MIN_VALUE;
+    }
+
+    /**
+     * Add an item to the end of the trace
+     * @param item the item, arriving no earlier than the last item added
+     * @throws IOException if the trace cannot be written
+     */
+    public void append(MailItem item) throws IOException
+    {
+        append(item.floor, item.packageType, item.priority, item.size, item.arrivalTime);
+    }
+
+    /**
+     * Add an item to the end of the trace
+     * @param floor the floor the item is going to
+     * @param type the type of the item
+     * @param priority the priority of the item
+     * @param size the size of the item in mail units, from 1 to 255
+     * @param arrivalTime the simulated time the item arrives, no earlier than the last item added
+     * @throws IOException if the trace cannot be written
+     * @throws IllegalArgumentException if the item cannot be recorded or arrives out of order
+     */
+    public void append(int floor, MailItem.MailType type, MailItem.MailPriority priority, int size, long arrivalTime)
+            throws IOException
+    {
+        if (size < 1 || size > TraceFormat.MAX_SIZE) {
+            throw new IllegalArgumentException("Item size must be from 1 to " + TraceFormat.MAX_SIZE + ", got " + size);
+        }
+        if (arrivalTime < 0 || arrivalTime < lastArrival) {
+            throw new IllegalArgumentException("Items must arrive in order from time 0, got " + arrivalTime
+                    + " after " + lastArrival);
+        }
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.putLong(arrivalTime);
+        buffer.putInt(floor);
+        buffer.put((byte) size);
+        buffer.put((byte) (type.ordinal() << TraceFormat.PRIORITY_BITS | priority.ordinal()));
+
+        numItems++;
+        minFloor = Math.min(minFloor, floor);
+        maxFloor = Math.max(maxFloor, floor);
+        lastArrival = arrivalTime;
+    }
+
+    /**
+     * The number of items written so far
+     * @return the number of items
+     */
+    public long getNumItems()
+    {
+        return numItems;
+    }
+
+    /**
+     * Write any buffered records, then the header, and close the file
+     * @throws IOException if the trace cannot be written
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try {
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_SIZE).order(TraceFormat.ORDER);
+            header.putLong(TraceFormat.MAGIC);
+            header.putInt(TraceFormat.VERSION);
+            header.putInt(TraceFormat.RECORD_SIZE);
+            header.putLong(numItems);
+            // An empty trace covers no floors, written as an empty range
+            header.putInt(numItems == 0 ? 0 : minFloor);
+            header.putInt(numItems == 0 ? -1 : maxFloor);
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Write the buffered records to the file
+     * @throws IOException if they cannot be written
+     */
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}